@@ -27,7 +27,12 @@ import org.apache.poi.xssf.eventusermodel.XSSFReader;
 import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
 import org.apache.poi.xssf.model.StylesTable;
 import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.dhatim.fastexcel.reader.Aggregator;
+import org.dhatim.fastexcel.reader.Cell;
+import org.dhatim.fastexcel.reader.CsvConverter;
+import org.dhatim.fastexcel.reader.DefaultXMLInputFactory;
 import org.dhatim.fastexcel.reader.ReadableWorkbook;
+import org.dhatim.fastexcel.reader.ReadingOptions;
 import org.dhatim.fastexcel.reader.Row;
 import org.dhatim.fastexcel.reader.Sheet;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -38,8 +43,14 @@ import org.xml.sax.XMLReader;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.stream.Stream;
@@ -96,7 +107,80 @@ public class ReaderBenchmark extends BenchmarkLauncher {
 
     @Benchmark
     public long fastExcelReader() throws IOException {
+        return runFastExcelReader(ReadingOptions.DEFAULT_READING_OPTIONS);
+    }
+
+    @Benchmark
+    public long fastExcelReaderStax() throws IOException {
+        return runFastExcelReader(ReadingOptions.DEFAULT_READING_OPTIONS.withBuiltinSheetParser(false));
+    }
+
+    @Benchmark
+    public long fastExcelReaderJdkStax() throws IOException {
+        return runFastExcelReader(ReadingOptions.DEFAULT_READING_OPTIONS
+                .withBuiltinSheetParser(false)
+                .withXMLInputFactory(DefaultXMLInputFactory.jdk()));
+    }
+
+    @Benchmark
+    public long fastExcelReaderWoodstox() throws IOException {
+        return runFastExcelReader(ReadingOptions.DEFAULT_READING_OPTIONS
+                .withBuiltinSheetParser(false)
+                .withXMLInputFactory(DefaultXMLInputFactory.woodstox()));
+    }
+
+    @Benchmark
+    public long fastExcelReaderSmallBuffer() throws IOException {
+        return runFastExcelReader(ReadingOptions.DEFAULT_READING_OPTIONS.withSheetParserBufferSize(8 * 1024));
+    }
+
+    @Benchmark
+    public long fastExcelReaderAggregate() throws IOException {
         try (InputStream is = openResource(FILE); ReadableWorkbook wb = new ReadableWorkbook(is)) {
+            long sum = (long) wb.getFirstSheet().aggregate(new int[]{0}, Aggregator.SUM).get(0, Aggregator.SUM);
+            assertEquals(RESULT, sum);
+            return sum;
+        }
+    }
+
+    @Benchmark
+    public long fastExcelReaderCsvFromRows() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (InputStream is = openResource(FILE); ReadableWorkbook wb = new ReadableWorkbook(is);
+             Stream<Row> rows = wb.getFirstSheet().openStream();
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            Iterator<Row> it = rows.iterator();
+            while (it.hasNext()) {
+                Row row = it.next();
+                for (int i = 0; i < row.getCellCount(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    Cell cell = row.getCell(i);
+                    String text = cell == null ? "" : cell.getText();
+                    if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                            || text.indexOf('\r') >= 0) {
+                        text = '"' + text.replace("\"", "\"\"") + '"';
+                    }
+                    writer.write(text);
+                }
+                writer.write("\r\n");
+            }
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long fastExcelReaderCsvConverter() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (InputStream is = openResource(FILE); ReadableWorkbook wb = new ReadableWorkbook(is)) {
+            CsvConverter.CSV.convert(wb.getFirstSheet(), out);
+        }
+        return out.count;
+    }
+
+    private long runFastExcelReader(ReadingOptions options) throws IOException {
+        try (InputStream is = openResource(FILE); ReadableWorkbook wb = new ReadableWorkbook(is, options)) {
             Sheet sheet = wb.getFirstSheet();
             try (Stream<Row> rows = sheet.openStream()) {
                 long sum = rows.skip(1).mapToLong(r -> r.getCell(0).asNumber().longValue()).sum();
@@ -175,6 +259,20 @@ public class ReaderBenchmark extends BenchmarkLauncher {
     }
     */
 
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
     private static InputStream openResource(String name) {
         InputStream result = ReaderBenchmark.class.getResourceAsStream(name);
         if (result == null) {
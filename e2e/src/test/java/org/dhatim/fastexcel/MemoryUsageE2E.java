@@ -1,6 +1,9 @@
 package org.dhatim.fastexcel;
 
+import org.dhatim.fastexcel.reader.AsyncWorkbookReader;
+import org.dhatim.fastexcel.reader.Flow;
 import org.dhatim.fastexcel.reader.ReadableWorkbook;
+import org.dhatim.fastexcel.reader.ReadingOptions;
 import org.dhatim.fastexcel.reader.Row;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -9,8 +12,18 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.text.MessageFormat;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -22,6 +35,8 @@ public class MemoryUsageE2E {
     public static final int SHEETS = 3;
     public static final int COLS = 200;
     public static final int FLUSH_EVERY_NR_OR_ROWS = 100;
+    public static final int PARALLEL_ROWS = 200_000;
+    public static final int PARALLEL_COLS = 10;
 
     @BeforeAll
     static void checkMemoryLimit() {
@@ -39,6 +54,105 @@ public class MemoryUsageE2E {
         }
     }
 
+    @Test
+    void collectLargeSheetInParallel() throws Exception {
+        try (OutputStream out = new FileOutputStream(testFile);
+             Workbook wb = new Workbook(out, "test", "1.0");
+             Worksheet sheet = wb.newWorksheet("sheet")) {
+            for (int r = 0; r < PARALLEL_ROWS; r++) {
+                for (int c = 0; c < PARALLEL_COLS; c++) {
+                    sheet.value(r, c, valueFor(r, c));
+                }
+                if (r % FLUSH_EVERY_NR_OR_ROWS == 0) {
+                    sheet.flush();
+                }
+            }
+        }
+
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS
+                .withParallelReading(true)
+                .withParallelChunkSize(64 * 1024);
+        // more threads than cores are fine: the shape of the splits does not depend on the cores
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try (ReadableWorkbook wb = new ReadableWorkbook(testFile, options)) {
+            List<Double> values = pool.submit(() -> {
+                try (Stream<Row> rows = wb.getFirstSheet().openStream()) {
+                    return rows.parallel().map(r -> r.getCell(1).asDouble()).collect(Collectors.toList());
+                }
+            }).get();
+            assertThat(values).hasSize(PARALLEL_ROWS);
+            for (int r = 0; r < PARALLEL_ROWS; r++) {
+                assertEquals(valueFor(r, 1), values.get(r), 1e-5);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void feedLargeWorkbook() throws Exception {
+        try (OutputStream out = new FileOutputStream(testFile);
+             Workbook wb = new Workbook(out, "test", "1.0");
+             Worksheet sheet = wb.newWorksheet("sheet")) {
+            for (int r = 0; r < PARALLEL_ROWS; r++) {
+                for (int c = 0; c < PARALLEL_COLS; c++) {
+                    sheet.value(r, c, valueFor(r, c));
+                }
+                if (r % FLUSH_EVERY_NR_OR_ROWS == 0) {
+                    sheet.flush();
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        int[] count = new int[1];
+        try (AsyncWorkbookReader reader = new AsyncWorkbookReader(executor)) {
+            reader.publisher(0).subscribe(new Flow.Subscriber<Row>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(100);
+                }
+
+                @Override
+                public void onNext(Row row) {
+                    assertEquals(valueFor(count[0], 1), row.getCell(1).asDouble(), 1e-5);
+                    if (++count[0] % 100 == 0) {
+                        subscription.request(100);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    error.set(throwable);
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+            try (InputStream in = Files.newInputStream(testFile.toPath())) {
+                byte[] chunk = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(chunk)) >= 0) {
+                    reader.feed(chunk, 0, n);
+                }
+            }
+            reader.complete();
+            assertThat(done.await(5, TimeUnit.MINUTES)).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(error.get()).isNull();
+        assertThat(count[0]).isEqualTo(PARALLEL_ROWS);
+    }
+
     private void write(OutputStream out) throws IOException {
         try(Workbook wb = new Workbook(out, "test", "1.0")){
             for (int s = 0; s < SHEETS; s++) {
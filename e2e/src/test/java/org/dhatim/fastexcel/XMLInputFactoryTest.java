@@ -0,0 +1,54 @@
+package org.dhatim.fastexcel;
+
+import org.dhatim.fastexcel.reader.DefaultXMLInputFactory;
+import org.dhatim.fastexcel.reader.ReadableWorkbook;
+import org.dhatim.fastexcel.reader.ReadingOptions;
+import org.dhatim.fastexcel.reader.Row;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XMLInputFactoryTest {
+
+    @Test
+    void woodstoxReadsSameValuesAsOtherImplementations() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (Workbook wb = new Workbook(os, "Test", "1.0")) {
+            Worksheet ws = wb.newWorksheet("Sheet1");
+            for (int r = 0; r < 100; r++) {
+                ws.value(r, 0, r);
+                ws.value(r, 1, "text <" + r + "> & \"quoted\"");
+                ws.value(r, 2, r % 2 == 0);
+                ws.formula(r, 3, "A" + (r + 1) + "*2");
+            }
+        }
+        byte[] bytes = os.toByteArray();
+
+        List<String> expected = read(bytes, ReadingOptions.DEFAULT_READING_OPTIONS);
+        assertThat(expected).hasSize(100);
+        assertThat(read(bytes, stax(DefaultXMLInputFactory.woodstox()))).isEqualTo(expected);
+        assertThat(read(bytes, stax(DefaultXMLInputFactory.jdk()))).isEqualTo(expected);
+    }
+
+    private static ReadingOptions stax(XMLInputFactory factory) {
+        return ReadingOptions.DEFAULT_READING_OPTIONS.withBuiltinSheetParser(false).withXMLInputFactory(factory);
+    }
+
+    private static List<String> read(byte[] bytes, ReadingOptions options) throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(new ByteArrayInputStream(bytes), options);
+             Stream<Row> rows = wb.getFirstSheet().openStream()) {
+            return rows.map(row -> row.stream()
+                            .map(cell -> cell.getType() + ":" + cell.getRawValue() + ":" + cell.getFormula())
+                            .collect(Collectors.joining(";")))
+                    .collect(Collectors.toList());
+        }
+    }
+}
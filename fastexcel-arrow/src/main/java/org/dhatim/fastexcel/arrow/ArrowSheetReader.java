@@ -0,0 +1,391 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.dhatim.fastexcel.reader.CellAddress;
+import org.dhatim.fastexcel.reader.CellType;
+import org.dhatim.fastexcel.reader.ColumnVector;
+import org.dhatim.fastexcel.reader.ExcelReaderException;
+import org.dhatim.fastexcel.reader.ReadingOptions;
+import org.dhatim.fastexcel.reader.RowBatch;
+import org.dhatim.fastexcel.reader.RowBatchReader;
+import org.dhatim.fastexcel.reader.Sheet;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reader of a sheet as batches of Arrow vectors, filled from the column vectors of
+ * {@link Sheet#openBatchReader(int)}, without creating rows and cells.
+ * <p>
+ * The first row of the sheet holds the names of the columns, and the type of each column is inferred from the
+ * rows that follow it in the first batch, up to the sample size. Rows are read like the batch reader does, so
+ * a {@link ReadingOptions#withRowFilter(int, java.util.function.Predicate) row filter} applies to them, and must
+ * accept the header row:
+ * <ul>
+ * <li>numbers give a double column, or a timestamp column if they all have a date format, which requires
+ * {@link ReadingOptions#isWithCellFormat()};</li>
+ * <li>booleans give a boolean column;</li>
+ * <li>strings give a dictionary-encoded string column, whose dictionary is filled from the shared strings as they are
+ * first met, so that each shared string is decoded once per column;</li>
+ * <li>mixed or missing values give a string column, other values being converted to text.</li>
+ * </ul>
+ * Errors and empty strings are exported as nulls. Any other value that does not match the type inferred for its
+ * column, or found in a column that was empty in the first batch, fails with an {@link ExcelReaderException}
+ * rather than being lost: the sample size must then be raised so that the sample holds every kind of value.
+ * <p>
+ * Like {@code org.apache.arrow.vector.ipc.ArrowReader}, the same {@link VectorSchemaRoot} is refilled by each
+ * call to {@link #loadNextBatch()}, and dictionaries are available from {@link #getDictionaryProvider()}, e.g. to
+ * write the batches with an {@code ArrowStreamWriter}.
+ */
+public class ArrowSheetReader implements AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    public static final int DEFAULT_SAMPLE_SIZE = 100;
+
+    private static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+
+    private final RowBatchReader reader;
+    private final RowBatch batch;
+    private final List<ColumnExporter> exporters = new ArrayList<>();
+    private final BitSet exportedColumns = new BitSet();
+    private final VectorSchemaRoot root;
+    private final DictionaryProvider.MapDictionaryProvider dictionaries = new DictionaryProvider.MapDictionaryProvider();
+    // position in the current row batch of the next row to export
+    private int position;
+
+    public ArrowSheetReader(Sheet sheet, BufferAllocator allocator) throws IOException {
+        this(sheet, allocator, DEFAULT_BATCH_SIZE, DEFAULT_SAMPLE_SIZE);
+    }
+
+    /**
+     * @param batchSize  maximum number of rows of each batch
+     * @param sampleSize number of rows after the header used to infer the types of the columns, only the rows of
+     *                   the first batch are used
+     */
+    public ArrowSheetReader(Sheet sheet, BufferAllocator allocator, int batchSize, int sampleSize)
+            throws IOException {
+        this.reader = sheet.openBatchReader(batchSize);
+        this.batch = reader.getBatch();
+        try {
+            List<Field> fields = new ArrayList<>();
+            if (reader.nextBatch()) {
+                int sampleEnd = Math.min(batch.getSize(), 1 + sampleSize);
+                for (int column = 0; column < batch.getColumnCount(); column++) {
+                    ColumnVector vector = batch.getColumn(column);
+                    if (vector.getValidity().isEmpty()) {
+                        continue;
+                    }
+                    String name = vector.isNull(0) ? CellAddress.convertNumToColString(column) : text(vector, 0);
+                    ColumnExporter exporter = new ColumnExporter(column, name, infer(vector, sampleEnd));
+                    exporters.add(exporter);
+                    exportedColumns.set(column);
+                    fields.add(exporter.field());
+                    if (exporter.kind == Kind.DICTIONARY) {
+                        exporter.dictionary = new VarCharVector(name, allocator);
+                        exporter.dictionary.allocateNew();
+                        dictionaries.put(new Dictionary(exporter.dictionary, exporter.encoding));
+                    }
+                }
+                // the header is not exported
+                position = 1;
+            }
+            this.root = VectorSchemaRoot.create(new Schema(fields), allocator);
+            for (int i = 0; i < exporters.size(); i++) {
+                exporters.get(i).vector = root.getVector(i);
+            }
+        } catch (RuntimeException e) {
+            closeDictionaries();
+            reader.close();
+            throw e;
+        }
+    }
+
+    public Schema getSchema() {
+        return root.getSchema();
+    }
+
+    /**
+     * @return the vectors filled by {@link #loadNextBatch()}
+     */
+    public VectorSchemaRoot getVectorSchemaRoot() {
+        return root;
+    }
+
+    /**
+     * @return dictionaries of the dictionary-encoded columns, holding all the values met so far
+     */
+    public DictionaryProvider getDictionaryProvider() {
+        return dictionaries;
+    }
+
+    /**
+     * Fills the vectors with the next rows of the sheet.
+     *
+     * @return false if there are no more rows, the vectors are then empty
+     */
+    public boolean loadNextBatch() {
+        if (position >= batch.getSize()) {
+            position = 0;
+            if (!reader.nextBatch()) {
+                root.setRowCount(0);
+                return false;
+            }
+        }
+        int count = batch.getSize() - position;
+        checkNoNewColumn();
+        root.clear();
+        for (ColumnExporter exporter : exporters) {
+            exporter.vector.setInitialCapacity(count);
+            exporter.vector.allocateNew();
+            exporter.export(batch, position, count);
+        }
+        root.setRowCount(count);
+        position = batch.getSize();
+        return true;
+    }
+
+    /**
+     * Fails if a column that is not exported holds a value in the rows to export.
+     */
+    private void checkNoNewColumn() {
+        for (int column = exportedColumns.nextClearBit(0); column < batch.getColumnCount();
+             column = exportedColumns.nextClearBit(column + 1)) {
+            int row = batch.getColumn(column).getValidity().nextSetBit(position);
+            if (row >= 0 && row < batch.getSize()) {
+                throw new ExcelReaderException("Column " + CellAddress.convertNumToColString(column)
+                        + " holds a value in row " + batch.getRowNum(row) + " but was empty in the sample rows");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            root.close();
+            closeDictionaries();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void closeDictionaries() {
+        for (ColumnExporter exporter : exporters) {
+            if (exporter.dictionary != null) {
+                exporter.dictionary.close();
+            }
+        }
+    }
+
+    private static Kind infer(ColumnVector vector, int sampleEnd) {
+        boolean numbers = false;
+        boolean nonDates = false;
+        boolean booleans = false;
+        boolean strings = false;
+        for (int row = 1; row < sampleEnd; row++) {
+            CellType type = vector.getType(row);
+            if (type == CellType.NUMBER) {
+                numbers = true;
+                nonDates |= !vector.isDate(row);
+            } else if (type == CellType.BOOLEAN) {
+                booleans = true;
+            } else if (type == CellType.STRING) {
+                strings = true;
+            }
+        }
+        if (numbers && !booleans && !strings) {
+            return nonDates ? Kind.DOUBLE : Kind.TIMESTAMP;
+        } else if (booleans && !numbers && !strings) {
+            return Kind.BOOLEAN;
+        } else if (strings && !numbers && !booleans) {
+            return Kind.DICTIONARY;
+        }
+        return Kind.STRING;
+    }
+
+    /**
+     * @return text of any value, or null
+     */
+    private static String text(ColumnVector vector, int row) {
+        CellType type = vector.getType(row);
+        if (type == CellType.NUMBER) {
+            if (vector.isDate(row)) {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(vector.getEpochMillis()[row]), ZoneOffset.UTC)
+                        .toString();
+            }
+            return BigDecimal.valueOf(vector.getDoubles()[row]).stripTrailingZeros().toPlainString();
+        } else if (type == CellType.BOOLEAN) {
+            return String.valueOf(vector.getBooleans()[row]);
+        }
+        return vector.getString(row);
+    }
+
+    private enum Kind {
+        DOUBLE, TIMESTAMP, BOOLEAN, DICTIONARY, STRING
+    }
+
+    private static final class ColumnExporter {
+        private final int column;
+        private final String name;
+        private final Kind kind;
+        private final DictionaryEncoding encoding;
+        private FieldVector vector;
+        // dictionary of a dictionary-encoded column, and the index of each value in it
+        private VarCharVector dictionary;
+        private final Map<String, Integer> dictionaryIndexes = new HashMap<>();
+        private int[] sharedStringIndexes = new int[0];
+
+        ColumnExporter(int column, String name, Kind kind) {
+            this.column = column;
+            this.name = name;
+            this.kind = kind;
+            this.encoding = kind == Kind.DICTIONARY ? new DictionaryEncoding(column, false, INDEX_TYPE) : null;
+        }
+
+        Field field() {
+            switch (kind) {
+                case DOUBLE:
+                    return field(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+                case TIMESTAMP:
+                    return field(new ArrowType.Timestamp(TimeUnit.MILLISECOND, null));
+                case BOOLEAN:
+                    return field(ArrowType.Bool.INSTANCE);
+                case DICTIONARY:
+                    return field(INDEX_TYPE);
+                default:
+                    return field(ArrowType.Utf8.INSTANCE);
+            }
+        }
+
+        private Field field(ArrowType type) {
+            return new Field(name, new FieldType(true, type, encoding), Collections.emptyList());
+        }
+
+        void export(RowBatch batch, int from, int count) {
+            ColumnVector values = batch.getColumn(column);
+            for (int i = 0; i < count; i++) {
+                int row = from + i;
+                CellType type = values.getType(row);
+                if (type == null || type == CellType.ERROR
+                        || type == CellType.STRING && kind != Kind.DICTIONARY && kind != Kind.STRING
+                        && values.getString(row).isEmpty()) {
+                    setNull(i);
+                    continue;
+                }
+                switch (kind) {
+                    case DOUBLE:
+                        checkType(batch, row, type == CellType.NUMBER);
+                        ((Float8Vector) vector).set(i, values.getDoubles()[row]);
+                        break;
+                    case TIMESTAMP:
+                        checkType(batch, row, type == CellType.NUMBER && values.isDate(row));
+                        ((TimeStampMilliVector) vector).set(i, values.getEpochMillis()[row]);
+                        break;
+                    case BOOLEAN:
+                        checkType(batch, row, type == CellType.BOOLEAN);
+                        ((BitVector) vector).set(i, values.getBooleans()[row] ? 1 : 0);
+                        break;
+                    case DICTIONARY:
+                        checkType(batch, row, type == CellType.STRING);
+                        ((IntVector) vector).set(i, dictionaryIndex(values, row));
+                        break;
+                    default:
+                        ((VarCharVector) vector).setSafe(i, text(values, row).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            if (dictionary != null) {
+                dictionary.setValueCount(dictionaryIndexes.size());
+            }
+        }
+
+        private void checkType(RowBatch batch, int row, boolean matches) {
+            if (!matches) {
+                ColumnVector values = batch.getColumn(column);
+                String value = values.getType(row) == CellType.NUMBER && values.isDate(row) ? "date"
+                        : values.getType(row).name().toLowerCase(Locale.ROOT);
+                throw new ExcelReaderException("Column '" + name + "' was inferred as " + kind
+                        + " from the sample rows, but row " + batch.getRowNum(row) + " holds a " + value
+                        + ": increase the sample size");
+            }
+        }
+
+        private void setNull(int i) {
+            if (vector instanceof BaseVariableWidthVector) {
+                ((BaseVariableWidthVector) vector).setNull(i);
+            } else {
+                ((BaseFixedWidthVector) vector).setNull(i);
+            }
+        }
+
+        /**
+         * @return index in the dictionary of a string, added to the dictionary if needed
+         */
+        private int dictionaryIndex(ColumnVector values, int row) {
+            int sharedStringIndex = values.getSharedStringIndexes()[row];
+            if (sharedStringIndex >= 0 && sharedStringIndex < sharedStringIndexes.length
+                    && sharedStringIndexes[sharedStringIndex] > 0) {
+                // indexes are stored plus one, zero meaning unknown
+                return sharedStringIndexes[sharedStringIndex] - 1;
+            }
+            String text = values.getString(row);
+            Integer index = dictionaryIndexes.get(text);
+            if (index == null) {
+                index = dictionaryIndexes.size();
+                dictionary.setSafe(index, text.getBytes(StandardCharsets.UTF_8));
+                dictionaryIndexes.put(text, index);
+            }
+            if (sharedStringIndex >= 0) {
+                if (sharedStringIndex >= sharedStringIndexes.length) {
+                    sharedStringIndexes = Arrays.copyOf(sharedStringIndexes,
+                            Math.max(sharedStringIndex + 1, sharedStringIndexes.length * 2));
+                }
+                sharedStringIndexes[sharedStringIndex] = index + 1;
+            }
+            return index;
+        }
+    }
+}
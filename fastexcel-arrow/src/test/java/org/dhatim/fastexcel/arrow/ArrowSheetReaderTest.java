@@ -0,0 +1,165 @@
+package org.dhatim.fastexcel.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+import org.dhatim.fastexcel.reader.ExcelReaderException;
+import org.dhatim.fastexcel.reader.ReadableWorkbook;
+import org.dhatim.fastexcel.reader.ReadingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArrowSheetReaderTest {
+
+    private static final String[] CITIES = {"Paris", "Lyon", "Lille"};
+
+    @Test
+    void exportsTypedColumns() throws IOException {
+        ReadingOptions options = new ReadingOptions(true, false);
+        try (BufferAllocator allocator = new RootAllocator();
+             ReadableWorkbook wb = new ReadableWorkbook(new ByteArrayInputStream(workbook(10)), options);
+             ArrowSheetReader reader = new ArrowSheetReader(wb.getFirstSheet(), allocator, 4, 3)) {
+            List<Field> fields = reader.getSchema().getFields();
+            assertThat(fields).extracting(Field::getName).containsExactly("id", "city", "day", "active", "note");
+            assertThat(fields.get(0).getType()).isEqualTo(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+            assertThat(fields.get(1).getDictionary()).isNotNull();
+            assertThat(fields.get(2).getType()).isInstanceOf(ArrowType.Timestamp.class);
+            assertThat(fields.get(3).getType()).isEqualTo(ArrowType.Bool.INSTANCE);
+            assertThat(fields.get(4).getType()).isEqualTo(ArrowType.Utf8.INSTANCE);
+
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            VarCharVector dictionary = (VarCharVector) reader.getDictionaryProvider()
+                    .lookup(fields.get(1).getDictionary().getId()).getVector();
+            List<String> rows = new ArrayList<>();
+            List<Integer> batchSizes = new ArrayList<>();
+            while (reader.loadNextBatch()) {
+                batchSizes.add(root.getRowCount());
+                Float8Vector ids = (Float8Vector) root.getVector(0);
+                IntVector cities = (IntVector) root.getVector(1);
+                TimeStampMilliVector days = (TimeStampMilliVector) root.getVector(2);
+                BitVector active = (BitVector) root.getVector(3);
+                VarCharVector notes = (VarCharVector) root.getVector(4);
+                for (int i = 0; i < root.getRowCount(); i++) {
+                    rows.add((int) ids.get(i) + " " + dictionary.getObject(cities.get(i)) + " " + days.get(i) + " "
+                            + (active.get(i) == 1) + " " + (notes.isNull(i) ? null : notes.getObject(i)));
+                }
+            }
+            // the header is not exported, the first batch holds the other 3 rows read with it
+            assertThat(batchSizes).containsExactly(3, 4, 3);
+            assertThat(dictionary.getValueCount()).isEqualTo(CITIES.length);
+            List<String> expected = new ArrayList<>();
+            for (int i = 1; i <= 10; i++) {
+                expected.add(i + " " + CITIES[i % 3] + " " + day(i).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli()
+                        + " " + (i % 2 == 0) + " " + (i % 4 == 0 ? null : i % 4 == 1 ? "n" + i : String.valueOf(i)));
+            }
+            assertThat(rows).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void exportsEmptySheet() throws IOException {
+        try (BufferAllocator allocator = new RootAllocator();
+             ReadableWorkbook wb = new ReadableWorkbook(new ByteArrayInputStream(workbook(-1)));
+             ArrowSheetReader reader = new ArrowSheetReader(wb.getFirstSheet(), allocator)) {
+            assertThat(reader.getSchema().getFields()).isEmpty();
+            assertThat(reader.loadNextBatch()).isFalse();
+        }
+    }
+
+    @Test
+    void failsOnValueNotMatchingInferredType() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Workbook wb = new Workbook(out, "test", "1.0");
+        Worksheet ws = wb.newWorksheet("data");
+        ws.value(0, 0, "amount");
+        for (int r = 1; r <= 5; r++) {
+            ws.value(r, 0, r);
+        }
+        ws.value(6, 0, "n/a");
+        wb.finish();
+        try (BufferAllocator allocator = new RootAllocator();
+             ReadableWorkbook workbook = new ReadableWorkbook(new ByteArrayInputStream(out.toByteArray()));
+             ArrowSheetReader reader = new ArrowSheetReader(workbook.getFirstSheet(), allocator, 4, 3)) {
+            assertThat(reader.loadNextBatch()).isTrue();
+            assertThatThrownBy(reader::loadNextBatch)
+                    .isInstanceOf(ExcelReaderException.class)
+                    .hasMessageContaining("'amount'")
+                    .hasMessageContaining("row 7");
+        }
+    }
+
+    @Test
+    void failsOnColumnEmptyInSample() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Workbook wb = new Workbook(out, "test", "1.0");
+        Worksheet ws = wb.newWorksheet("data");
+        ws.value(0, 0, "amount");
+        for (int r = 1; r <= 5; r++) {
+            ws.value(r, 0, r);
+        }
+        ws.value(5, 1, "late");
+        wb.finish();
+        try (BufferAllocator allocator = new RootAllocator();
+             ReadableWorkbook workbook = new ReadableWorkbook(new ByteArrayInputStream(out.toByteArray()));
+             ArrowSheetReader reader = new ArrowSheetReader(workbook.getFirstSheet(), allocator, 4, 3)) {
+            assertThat(reader.loadNextBatch()).isTrue();
+            assertThatThrownBy(reader::loadNextBatch)
+                    .isInstanceOf(ExcelReaderException.class)
+                    .hasMessageContaining("Column B");
+        }
+    }
+
+    /**
+     * @param rows number of rows after the header, or -1 for an empty sheet
+     */
+    private static byte[] workbook(int rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Workbook wb = new Workbook(out, "test", "1.0");
+        Worksheet ws = wb.newWorksheet("data");
+        if (rows >= 0) {
+            String[] header = {"id", "city", "day", "active", "note"};
+            for (int c = 0; c < header.length; c++) {
+                ws.value(0, c, header[c]);
+            }
+        }
+        for (int r = 1; r <= rows; r++) {
+            ws.value(r, 0, r);
+            ws.value(r, 1, CITIES[r % 3]);
+            ws.value(r, 2, day(r));
+            ws.style(r, 2).format("yyyy-mm-dd").set();
+            ws.value(r, 3, r % 2 == 0);
+            // mixed strings and numbers
+            if (r % 4 == 1) {
+                ws.value(r, 4, "n" + r);
+            } else if (r % 4 != 0) {
+                ws.value(r, 4, r);
+            }
+        }
+        wb.finish();
+        return out.toByteArray();
+    }
+
+    private static LocalDate day(int i) {
+        return LocalDate.of(2024, 1, 1).plusDays(i);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+/**
+ * Aggregate of the numeric cells of a column, see {@link Sheet#aggregate(int[], Aggregator...)}.
+ */
+public enum Aggregator {
+    /**
+     * Number of numeric cells
+     */
+    COUNT,
+    /**
+     * Sum of numeric cells, 0 if there are none
+     */
+    SUM,
+    /**
+     * Smallest numeric cell, NaN if there are none
+     */
+    MIN,
+    /**
+     * Largest numeric cell, NaN if there are none
+     */
+    MAX,
+    /**
+     * Mean of numeric cells, NaN if there are none
+     */
+    AVERAGE
+}
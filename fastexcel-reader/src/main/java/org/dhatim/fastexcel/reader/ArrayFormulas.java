@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Array formulas of a sheet being read row by row, indexed for lookups by cell.
+ * <p>
+ * Ranges wait in a queue ordered by first row until the current row reaches them. They are then indexed by first
+ * column, as array formulas do not overlap, and evicted once the current row is past their last row. The cost of a
+ * lookup thus depends on the number of ranges spanning the current row, not on the number of ranges seen so far.
+ * Rows are expected to come in ascending order; a range is ignored if it is defined after its last row was left.
+ */
+final class ArrayFormulas {
+
+    private final PriorityQueue<Entry> pending = new PriorityQueue<>(
+            Comparator.comparingInt((Entry e) -> e.range.getFirstRow()));
+    private final PriorityQueue<Entry> active = new PriorityQueue<>(
+            Comparator.comparingInt((Entry e) -> e.range.getLastRow()));
+    private final TreeMap<Integer, Entry> activeByColumn = new TreeMap<>();
+    private int row = -1;
+
+    ArrayFormulas() {
+    }
+
+    ArrayFormulas(Map<CellRangeAddress, String> formulas) {
+        formulas.forEach(this::put);
+    }
+
+    void put(CellRangeAddress range, String formula) {
+        if (range.getLastRow() < row) {
+            return;
+        }
+        Entry entry = new Entry(range, formula);
+        if (range.getFirstRow() <= row) {
+            activate(entry);
+        } else {
+            pending.add(entry);
+        }
+    }
+
+    /**
+     * @return formula of the array formula containing the cell, or null
+     */
+    String get(int row, int column) {
+        if (row != this.row) {
+            moveTo(row);
+        }
+        Map.Entry<Integer, Entry> e = activeByColumn.floorEntry(column);
+        if (e == null || !e.getValue().range.isInRange(row, column)) {
+            return null;
+        }
+        return e.getValue().formula;
+    }
+
+    private void moveTo(int row) {
+        this.row = row;
+        while (!pending.isEmpty() && pending.peek().range.getFirstRow() <= row) {
+            Entry entry = pending.poll();
+            if (entry.range.getLastRow() >= row) {
+                activate(entry);
+            }
+        }
+        while (!active.isEmpty() && active.peek().range.getLastRow() < row) {
+            Entry entry = active.poll();
+            activeByColumn.remove(entry.range.getFirstColumn(), entry);
+        }
+    }
+
+    private void activate(Entry entry) {
+        active.add(entry);
+        activeByColumn.put(entry.range.getFirstColumn(), entry);
+    }
+
+    private static final class Entry {
+        private final CellRangeAddress range;
+        private final String formula;
+
+        Entry(CellRangeAddress range, String formula) {
+            this.range = range;
+            this.formula = formula;
+        }
+    }
+}
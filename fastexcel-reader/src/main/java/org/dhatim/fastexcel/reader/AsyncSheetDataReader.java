@@ -0,0 +1,479 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import com.fasterxml.aalto.AsyncByteArrayFeeder;
+import com.fasterxml.aalto.AsyncXMLInputFactory;
+import com.fasterxml.aalto.AsyncXMLStreamReader;
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link SheetDataReader} on top of the asynchronous parser of Aalto, reading a sheet as its bytes are received.
+ * <p>
+ * Bytes are pulled from an {@link Input} that only returns those received so far. A row is parsed whole before
+ * {@link #nextRow()} returns it, so that its cells are then read without waiting: when the input runs out in the
+ * middle of the sheet, {@link #nextRow()} returns false and {@link #isWaitingForInput()} true, and the row is resumed
+ * by the next call to {@link #nextRow()} once more bytes are received. No thread waits for the input.
+ * <p>
+ * The parser supports UTF-8, in which spreadsheet applications write sheets, and ISO-8859-1.
+ */
+class AsyncSheetDataReader implements SheetDataReader {
+
+    static final int READ_SIZE = 64 * 1024;
+
+    private static final AsyncXMLInputFactory FACTORY =
+            (AsyncXMLInputFactory) DefaultXMLInputFactory.secure(new InputFactoryImpl());
+
+    /**
+     * Bytes of a sheet, read without waiting.
+     */
+    @FunctionalInterface
+    interface Input {
+        /**
+         * @return number of bytes read, 0 if no byte has been received since the last read, or -1 at the end
+         */
+        int read(byte[] b, int off, int len) throws IOException;
+    }
+
+    private final Input input;
+    private final AsyncXMLStreamReader<AsyncByteArrayFeeder> reader = FACTORY.createAsyncForByteArray();
+    private final byte[] buffer = new byte[READ_SIZE];
+    private String dimensionRef;
+    private int maxDeclaredColumn;
+    private boolean started;
+    private boolean done;
+    private boolean waiting;
+
+    private int rowNum;
+    private boolean rowHidden;
+    private boolean inRow;
+    private final List<CellRecord> cells = new ArrayList<>();
+    private int cellCount;
+    private int cellIndex;
+    private CellRecord cell;
+    // element whose text is being read, with the depth of the elements in it
+    private String textElement;
+    private int textDepth;
+    private int textStart;
+    private char[] chars = new char[256];
+    private int charCount;
+
+    AsyncSheetDataReader(Input input) {
+        this.input = input;
+    }
+
+    /**
+     * Reads up to the start of the sheet data, with the dimension and columns of the worksheet on the way.
+     *
+     * @return false if the start of the sheet data has not been received yet
+     */
+    boolean start() throws XMLStreamException {
+        while (!started) {
+            int event = nextEvent();
+            if (event == AsyncXMLStreamReader.EVENT_INCOMPLETE) {
+                return false;
+            } else if (event == XMLStreamReader.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if ("sheetData".equals(name)) {
+                    started = true;
+                } else if ("dimension".equals(name)) {
+                    dimensionRef = reader.getAttributeValue(null, "ref");
+                } else if ("col".equals(name)) {
+                    try {
+                        String max = reader.getAttributeValue(null, "max");
+                        if (max != null) {
+                            maxDeclaredColumn = Math.max(maxDeclaredColumn, Integer.parseInt(max));
+                        }
+                    } catch (NumberFormatException e) {
+                        // only a hint
+                    }
+                }
+            } else if (event == XMLStreamReader.END_DOCUMENT) {
+                started = true;
+                done = true;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getDimensionRef() {
+        return dimensionRef;
+    }
+
+    @Override
+    public int getMaxDeclaredColumn() {
+        return maxDeclaredColumn;
+    }
+
+    @Override
+    public boolean nextRow() throws XMLStreamException {
+        waiting = false;
+        if (!start()) {
+            waiting = true;
+            return false;
+        }
+        while (!done) {
+            int event = nextEvent();
+            if (event == AsyncXMLStreamReader.EVENT_INCOMPLETE) {
+                waiting = true;
+                return false;
+            } else if (event == XMLStreamReader.START_ELEMENT) {
+                startElement();
+            } else if (event == XMLStreamReader.END_ELEMENT) {
+                if (endElement()) {
+                    return true;
+                }
+            } else if (textElement != null && (event == XMLStreamReader.CHARACTERS || event == XMLStreamReader.CDATA
+                    || event == XMLStreamReader.SPACE)) {
+                appendText();
+            } else if (event == XMLStreamReader.END_DOCUMENT) {
+                done = true;
+            }
+        }
+        return false;
+    }
+
+    private void startElement() {
+        String name = reader.getLocalName();
+        if (textElement != null) {
+            textDepth++;
+        } else if (!inRow) {
+            if ("row".equals(name)) {
+                startRow();
+            }
+        } else if (cell == null) {
+            if ("c".equals(name)) {
+                startCell();
+            }
+        } else if ("v".equals(name) || "is".equals(name)) {
+            startText(name);
+        } else if ("f".equals(name)) {
+            cell.formulaType = reader.getAttributeValue(null, "t");
+            cell.formulaRef = reader.getAttributeValue(null, "ref");
+            cell.formulaSi = reader.getAttributeValue(null, "si");
+            startText(name);
+        }
+    }
+
+    /**
+     * @return true at the end of a row
+     */
+    private boolean endElement() {
+        String name = reader.getLocalName();
+        if (textElement != null) {
+            if (textDepth > 0) {
+                textDepth--;
+            } else {
+                endText();
+            }
+        } else if (cell != null) {
+            if ("c".equals(name)) {
+                cell = null;
+            }
+        } else if (inRow) {
+            if ("row".equals(name)) {
+                inRow = false;
+                cellIndex = -1;
+                return true;
+            }
+        } else if ("sheetData".equals(name)) {
+            done = true;
+        }
+        return false;
+    }
+
+    private void startRow() {
+        inRow = true;
+        rowNum = -1;
+        rowHidden = false;
+        cellCount = 0;
+        charCount = 0;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = reader.getAttributeLocalName(i);
+            if ("r".equals(name)) {
+                rowNum = Integer.parseInt(reader.getAttributeValue(i));
+            } else if ("hidden".equals(name)) {
+                String value = reader.getAttributeValue(i);
+                rowHidden = "1".equals(value) || "true".equals(value);
+            }
+        }
+    }
+
+    private void startCell() {
+        if (cellCount == cells.size()) {
+            cells.add(new CellRecord());
+        }
+        cell = cells.get(cellCount++);
+        cell.reset();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = reader.getAttributeLocalName(i);
+            if ("r".equals(name)) {
+                String ref = reader.getAttributeValue(i);
+                if (!ref.isEmpty()) {
+                    CellAddress address = new CellAddress(ref);
+                    cell.row = address.getRow();
+                    cell.column = address.getColumn();
+                } else {
+                    cell.row = 0;
+                    cell.column = 0;
+                }
+            } else if ("t".equals(name)) {
+                cell.type = reader.getAttributeValue(i);
+            } else if ("s".equals(name)) {
+                cell.style = Integer.parseInt(reader.getAttributeValue(i));
+            }
+        }
+    }
+
+    private void startText(String name) {
+        textElement = name;
+        textDepth = 0;
+        textStart = charCount;
+    }
+
+    private void appendText() {
+        int length = reader.getTextLength();
+        if (charCount + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+        }
+        System.arraycopy(reader.getTextCharacters(), reader.getTextStart(), chars, charCount, length);
+        charCount += length;
+    }
+
+    private void endText() {
+        int length = charCount - textStart;
+        if ("v".equals(textElement)) {
+            cell.valueStart = textStart;
+            cell.valueLength = length;
+        } else if ("is".equals(textElement)) {
+            cell.inlineStringStart = textStart;
+            cell.inlineStringLength = length;
+        } else {
+            cell.formulaStart = textStart;
+            cell.formulaLength = length;
+        }
+        textElement = null;
+    }
+
+    /**
+     * @return the next event, or {@link AsyncXMLStreamReader#EVENT_INCOMPLETE} if more bytes have to be received
+     */
+    private int nextEvent() throws XMLStreamException {
+        while (true) {
+            int event = reader.next();
+            if (event != AsyncXMLStreamReader.EVENT_INCOMPLETE) {
+                return event;
+            }
+            int n;
+            try {
+                n = input.read(buffer, 0, buffer.length);
+            } catch (IOException e) {
+                throw new XMLStreamException(e);
+            }
+            if (n == 0) {
+                return event;
+            } else if (n < 0) {
+                reader.getInputFeeder().endOfInput();
+            } else {
+                reader.getInputFeeder().feedInput(buffer, 0, n);
+            }
+        }
+    }
+
+    @Override
+    public boolean isWaitingForInput() {
+        return waiting;
+    }
+
+    @Override
+    public void readTrailingRefs(BiConsumer<String, String> consumer) throws XMLStreamException {
+        while (true) {
+            int event = nextEvent();
+            if (event == AsyncXMLStreamReader.EVENT_INCOMPLETE) {
+                throw new XMLStreamException("The end of the sheet has not been received yet");
+            } else if (event == XMLStreamReader.END_DOCUMENT) {
+                return;
+            } else if (event == XMLStreamReader.START_ELEMENT) {
+                String ref = reader.getAttributeValue(null, "ref");
+                if (ref != null) {
+                    consumer.accept(reader.getLocalName(), ref);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    @Override
+    public boolean isRowHidden() {
+        return rowHidden;
+    }
+
+    @Override
+    public boolean nextCell() {
+        if (cellIndex + 1 >= cellCount) {
+            cellIndex = cellCount;
+            return false;
+        }
+        cellIndex++;
+        return true;
+    }
+
+    private CellRecord current() {
+        return cells.get(cellIndex);
+    }
+
+    @Override
+    public int getCellRow() {
+        return current().row;
+    }
+
+    @Override
+    public int getCellColumn() {
+        return current().column;
+    }
+
+    @Override
+    public String getCellType() {
+        return current().type;
+    }
+
+    @Override
+    public int getCellStyle() {
+        return current().style;
+    }
+
+    @Override
+    public char[] getChars() {
+        return chars;
+    }
+
+    @Override
+    public boolean hasValue() {
+        return current().valueStart >= 0;
+    }
+
+    @Override
+    public int getValueStart() {
+        return current().valueStart;
+    }
+
+    @Override
+    public int getValueLength() {
+        return current().valueLength;
+    }
+
+    @Override
+    public boolean hasInlineString() {
+        return current().inlineStringStart >= 0;
+    }
+
+    @Override
+    public int getInlineStringStart() {
+        return current().inlineStringStart;
+    }
+
+    @Override
+    public int getInlineStringLength() {
+        return current().inlineStringLength;
+    }
+
+    @Override
+    public boolean hasFormula() {
+        return current().formulaStart >= 0;
+    }
+
+    @Override
+    public int getFormulaStart() {
+        return current().formulaStart;
+    }
+
+    @Override
+    public int getFormulaLength() {
+        return current().formulaLength;
+    }
+
+    @Override
+    public String getFormulaType() {
+        return current().formulaType;
+    }
+
+    @Override
+    public String getFormulaRef() {
+        return current().formulaRef;
+    }
+
+    @Override
+    public String getFormulaSi() {
+        return current().formulaSi;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Cell of the row being read, whose texts are in the character buffer of the row.
+     */
+    private static final class CellRecord {
+        int row;
+        int column;
+        String type;
+        int style;
+        int valueStart;
+        int valueLength;
+        int inlineStringStart;
+        int inlineStringLength;
+        int formulaStart;
+        int formulaLength;
+        String formulaType;
+        String formulaRef;
+        String formulaSi;
+
+        void reset() {
+            row = -1;
+            column = -1;
+            type = "n";
+            style = -1;
+            valueStart = -1;
+            valueLength = 0;
+            inlineStringStart = -1;
+            inlineStringLength = 0;
+            formulaStart = -1;
+            formulaLength = 0;
+            formulaType = null;
+            formulaRef = null;
+            formulaSi = null;
+        }
+    }
+}
@@ -0,0 +1,712 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reader of a workbook whose bytes are pushed by their source, e.g. a reactive HTTP upload, parsing them as they
+ * arrive.
+ * <p>
+ * Chunks of the workbook are passed to {@link #feed(ByteBuffer)} as they arrive, then {@link #complete()} is
+ * called: no thread waits for the bytes in between. The zip entries are read from their local headers and inflated
+ * as their bytes are fed, without the central directory at the end of the archive. Rows of a sheet are published
+ * through {@link #publisher(int)}: a sheet whose entry arrives once its subscribers have subscribed is parsed as its
+ * bytes arrive, by an asynchronous XML parser, and its rows are read on the executor as they are requested, so
+ * that the first rows are published before the upload ends.
+ * <p>
+ * The parts describing the workbook, such as the shared strings, are parsed by {@link #feed(ByteBuffer)} once they
+ * have arrived. XML entries arriving before them, e.g. the sheets of a workbook whose shared strings are stored
+ * last, are spilled as with {@link ReadingOptions#withStreaming(boolean)}, in memory while they are small and to a
+ * temporary file otherwise, and their rows are published once the workbook can be read. Other entries are skipped,
+ * including the sheets no subscriber waits for: subscribing to a sheet whose entry has passed fails. Inflated bytes
+ * of a sheet not requested yet by its subscriber are buffered the same way, so that memory use is bounded whatever
+ * the size of the workbook.
+ * <p>
+ * Sheets are parsed as they arrive if they are encoded in UTF-8, as spreadsheet applications write them, or in
+ * ISO-8859-1, unless columns are selected by name (see {@link ReadingOptions#withColumnNames(String...)}), which
+ * requires reading the first row before the others.
+ */
+public class AsyncWorkbookReader implements Closeable {
+
+    private final ReadingOptions readingOptions;
+    private final Executor executor;
+    private final ZipFeeder zip = new ZipFeeder(new EntryHandler());
+    private final EntrySource entries = new ReceivedEntries();
+    // the following fields are guarded by this
+    private final Map<String, SpilledEntry> spilled = new HashMap<>();
+    // entries skipped or read as they arrived
+    private final Set<String> passed = new HashSet<>();
+    // subscriptions waiting for their sheet, or reading it as it arrives
+    private final List<SheetFeed> feeds = new ArrayList<>();
+    // subscriptions to notify once the lock is released
+    private final Set<SheetFeed> signals = new LinkedHashSet<>();
+    private ReadableWorkbook workbook;
+    // entry missing to read the workbook
+    private String awaitedEntry = "[content_types].xml";
+    private String currentEntry;
+    private SpilledEntry currentCopy;
+    private List<SheetFeed> currentFeeds;
+    private boolean completed;
+    private Throwable failure;
+    private boolean closed;
+
+    public AsyncWorkbookReader(Executor executor) {
+        this(executor, ReadingOptions.DEFAULT_READING_OPTIONS);
+    }
+
+    /**
+     * @param executor executor reading the rows requested by subscribers
+     */
+    public AsyncWorkbookReader(Executor executor, ReadingOptions readingOptions) {
+        this.executor = executor;
+        this.readingOptions = readingOptions;
+    }
+
+    /**
+     * Parses the remaining bytes of the given buffer. They are not kept, so the buffer can be reused once this
+     * method returns.
+     *
+     * @throws ExcelReaderException if the workbook cannot be read, in which case subscribers receive the error too
+     */
+    public void feed(ByteBuffer chunk) {
+        if (chunk.hasArray()) {
+            feed(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            chunk.position(chunk.limit());
+        } else {
+            byte[] bytes = new byte[Math.min(chunk.remaining(), AsyncSheetDataReader.READ_SIZE)];
+            while (chunk.hasRemaining()) {
+                int n = Math.min(chunk.remaining(), bytes.length);
+                chunk.get(bytes, 0, n);
+                feed(bytes, 0, n);
+            }
+        }
+    }
+
+    /**
+     * @see #feed(ByteBuffer)
+     */
+    public void feed(byte[] bytes, int offset, int length) {
+        try {
+            synchronized (this) {
+                checkOpen();
+                if (completed) {
+                    throw new IllegalStateException("Workbook already complete");
+                } else if (failure != null) {
+                    throw new ExcelReaderException("Workbook cannot be read", failure);
+                }
+                try {
+                    zip.feed(bytes, offset, length);
+                } catch (IOException | RuntimeException e) {
+                    failed(e);
+                    throw e instanceof ExcelReaderException ? (ExcelReaderException) e : new ExcelReaderException(e);
+                }
+            }
+        } finally {
+            signal();
+        }
+    }
+
+    /**
+     * Signals that all the bytes of the workbook have been fed.
+     *
+     * @throws ExcelReaderException if the workbook cannot be read, in which case subscribers receive the error too
+     */
+    public void complete() {
+        try {
+            synchronized (this) {
+                checkOpen();
+                if (completed) {
+                    return;
+                }
+                completed = true;
+                if (failure != null) {
+                    throw new ExcelReaderException("Workbook cannot be read", failure);
+                }
+                try {
+                    zip.finish();
+                    if (workbook == null) {
+                        // entries still missing are not found
+                        build();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failed(e);
+                    throw e instanceof ExcelReaderException ? (ExcelReaderException) e : new ExcelReaderException(e);
+                }
+                for (SheetFeed feed : new ArrayList<>(feeds)) {
+                    if (feed.spool == null) {
+                        resolve(feed);
+                    }
+                }
+            }
+        } finally {
+            signal();
+        }
+    }
+
+    /**
+     * Signals that the workbook cannot be fed entirely. The error is passed to the subscribers of the publishers.
+     */
+    public void fail(Throwable error) {
+        try {
+            synchronized (this) {
+                checkOpen();
+                if (completed) {
+                    return;
+                }
+                completed = true;
+                if (failure == null) {
+                    failed(error);
+                }
+            }
+        } finally {
+            signal();
+        }
+    }
+
+    /**
+     * @param sheetIndex index of the sheet, starting at 0
+     * @return a publisher of the rows of the sheet. Each subscriber reads the sheet anew if it has been spilled,
+     * and otherwise as it arrives, in which case it must subscribe before the entry of the sheet arrives
+     */
+    public Flow.Publisher<Row> publisher(int sheetIndex) {
+        return subscriber -> subscribe(new SheetFeed(sheetIndex, null), subscriber);
+    }
+
+    /**
+     * @return a publisher of the rows of the sheet with the given name, see {@link #publisher(int)}
+     */
+    public Flow.Publisher<Row> publisher(String sheetName) {
+        return subscriber -> subscribe(new SheetFeed(-1, sheetName), subscriber);
+    }
+
+    /**
+     * Deletes the spilled entries, and fails the subscriptions still waiting for their sheet.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (failure == null) {
+                    failed(new ExcelReaderException("Reader closed"));
+                }
+                try {
+                    if (workbook != null) {
+                        workbook.close();
+                    }
+                } finally {
+                    for (SpilledEntry entry : spilled.values()) {
+                        entry.close();
+                    }
+                    spilled.clear();
+                }
+            }
+        } finally {
+            signal();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Reader closed");
+        }
+    }
+
+    /**
+     * Fails the subscriptions waiting for their sheet or reading it, and stops parsing.
+     */
+    private void failed(Throwable error) {
+        failure = error;
+        zip.close();
+        if (currentCopy != null) {
+            try {
+                currentCopy.close();
+            } catch (IOException e) {
+                error.addSuppressed(e);
+            }
+            currentCopy = null;
+        }
+        for (SheetFeed feed : new ArrayList<>(feeds)) {
+            feed.fail(error);
+        }
+    }
+
+    /**
+     * Notifies the subscriptions whose state changed, out of the lock so that rows are not read while holding it.
+     */
+    private void signal() {
+        List<SheetFeed> notified;
+        synchronized (this) {
+            if (signals.isEmpty()) {
+                return;
+            }
+            notified = new ArrayList<>(signals);
+            signals.clear();
+        }
+        for (SheetFeed feed : notified) {
+            feed.signal();
+        }
+    }
+
+    /**
+     * Registers a subscription at once, rather than when its rows are first read on the executor, so that it
+     * receives its sheet if the sheet arrives in between.
+     */
+    private void subscribe(SheetFeed feed, Flow.Subscriber<? super Row> subscriber) {
+        Objects.requireNonNull(subscriber);
+        synchronized (this) {
+            if (closed) {
+                feed.error = new IllegalStateException("Reader closed");
+            } else if (failure != null) {
+                feed.error = failure;
+            } else {
+                feeds.add(feed);
+                if (workbook != null) {
+                    resolve(feed);
+                }
+            }
+        }
+        signal();
+        Flow.Publisher<Row> rows = new SpliteratorPublisher<>(
+                () -> StreamSupport.stream(feed, false).onClose(feed::release), executor);
+        rows.subscribe(new FeedSubscriber(feed, subscriber));
+    }
+
+    /**
+     * Reads the workbook from the entries received so far, unless one it needs has not been received yet.
+     */
+    private void build() throws IOException {
+        ReadableWorkbook wb;
+        try {
+            wb = new ReadableWorkbook(OPCPackage.open(entries, readingOptions), readingOptions);
+        } catch (NotReceived e) {
+            awaitedEntry = e.entry;
+            return;
+        }
+        workbook = wb;
+        awaitedEntry = null;
+        for (SheetFeed feed : new ArrayList<>(feeds)) {
+            resolve(feed);
+        }
+    }
+
+    /**
+     * Finds how a subscription reads its sheet, once the workbook has been read.
+     */
+    private void resolve(SheetFeed feed) {
+        String entry;
+        try {
+            Sheet sheet = (feed.sheetName == null ? workbook.getSheet(feed.sheetIndex)
+                    : workbook.findSheet(feed.sheetName))
+                    .orElseThrow(() -> new ExcelReaderException("No sheet " + (feed.sheetName == null
+                            ? "at index " + feed.sheetIndex : "named " + feed.sheetName)));
+            feed.sheet = sheet;
+            entry = key(workbook.getSheetEntryName(sheet));
+        } catch (RuntimeException e) {
+            feed.fail(e);
+            return;
+        }
+        if (spilled.containsKey(entry)) {
+            feeds.remove(feed);
+            feed.resolved = true;
+            signals.add(feed);
+        } else if (passed.contains(entry) || (entry.equals(currentEntry) && currentCopy == null)) {
+            feed.fail(new ExcelReaderException("Entry " + entry + " has already been read from the stream"));
+        } else if (completed) {
+            feed.fail(new ExcelReaderException(entry + " not found"));
+        } else {
+            feed.entry = entry;
+        }
+    }
+
+    /**
+     * @return name of an entry, as matched case-insensitively
+     */
+    private static String key(String name) {
+        return (name.startsWith("/") ? name.substring(1) : name).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isXml(String name) {
+        return name.endsWith(".xml") || name.endsWith(".rels");
+    }
+
+    /**
+     * Receives the entries of the archive, while holding the lock of the reader.
+     */
+    private final class EntryHandler implements ZipFeeder.Handler {
+
+        @Override
+        public boolean startEntry(String name) throws IOException {
+            String entry = key(name);
+            if (entry.endsWith("/")) {
+                return false;
+            }
+            currentEntry = entry;
+            List<SheetFeed> waiting = new ArrayList<>();
+            for (SheetFeed feed : feeds) {
+                if (entry.equals(feed.entry) && feed.spool == null) {
+                    waiting.add(feed);
+                }
+            }
+            if (workbook != null && !waiting.isEmpty() && readingOptions.getColumnNames() == null) {
+                for (SheetFeed feed : waiting) {
+                    feed.spool = new ByteSpool(StreamingEntrySource.MEMORY_THRESHOLD);
+                    feed.resolved = true;
+                    signals.add(feed);
+                }
+                currentFeeds = waiting;
+                return true;
+            } else if (workbook == null ? isXml(entry) || entry.equals(awaitedEntry) : !waiting.isEmpty()) {
+                currentCopy = new SpilledEntry(StreamingEntrySource.MEMORY_THRESHOLD);
+                return true;
+            }
+            passed.add(entry);
+            currentEntry = null;
+            return false;
+        }
+
+        @Override
+        public void entryData(byte[] b, int off, int len) throws IOException {
+            if (currentCopy != null) {
+                currentCopy.write(b, off, len);
+                return;
+            }
+            for (SheetFeed feed : currentFeeds) {
+                try {
+                    feed.spool.write(b, off, len);
+                } catch (IOException e) {
+                    feed.spool.fail(e);
+                }
+                signals.add(feed);
+            }
+        }
+
+        @Override
+        public void endEntry() throws IOException {
+            String entry = currentEntry;
+            currentEntry = null;
+            if (currentCopy != null) {
+                SpilledEntry copy = currentCopy;
+                currentCopy = null;
+                copy.finish();
+                SpilledEntry previous = spilled.put(entry, copy);
+                if (previous != null) {
+                    previous.close();
+                }
+                if (workbook == null) {
+                    if (entry.equals(awaitedEntry)) {
+                        build();
+                    }
+                } else {
+                    for (SheetFeed feed : new ArrayList<>(feeds)) {
+                        if (entry.equals(feed.entry) && feed.spool == null) {
+                            resolve(feed);
+                        }
+                    }
+                }
+            } else {
+                passed.add(entry);
+                for (SheetFeed feed : currentFeeds) {
+                    feed.spool.finish();
+                    signals.add(feed);
+                }
+                currentFeeds = null;
+            }
+        }
+    }
+
+    /**
+     * Entries of the archive received so far, from which the workbook is read.
+     */
+    private final class ReceivedEntries implements EntrySource {
+
+        @Override
+        public InputStream getEntry(String name, boolean once) throws IOException {
+            synchronized (AsyncWorkbookReader.this) {
+                String entry = key(name);
+                SpilledEntry copy = spilled.get(entry);
+                if (copy != null) {
+                    return copy.open();
+                } else if (completed || passed.contains(entry)) {
+                    return null;
+                }
+                throw new NotReceived(entry);
+            }
+        }
+
+        @Override
+        public void close() {
+            // spilled entries are deleted by the reader
+        }
+    }
+
+    /**
+     * Signals that the workbook cannot be read before an entry is received.
+     */
+    private static final class NotReceived extends ExcelReaderException {
+        private final String entry;
+
+        NotReceived(String entry) {
+            super("Entry " + entry + " has not been received yet");
+            this.entry = entry;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Rows of a sheet for a subscription, which are received once the sheet has been found in the workbook, and
+     * once the sheet has been spilled or as its entry arrives.
+     */
+    private final class SheetFeed implements Spliterator<Row>, SpliteratorPublisher.Incoming {
+        private final int sheetIndex;
+        private final String sheetName;
+        private volatile Runnable listener;
+        // the following fields are guarded by the lock of the reader
+        private Sheet sheet;
+        // entry awaited, once the sheet has been found
+        private String entry;
+        private boolean resolved;
+        private ByteSpool spool;
+        private Throwable error;
+        // the following fields are only used by the task reading the rows
+        private Stream<Row> spilledRows;
+        private AsyncSheetDataReader reader;
+        private Spliterator<Row> rows;
+        private Row next;
+
+        SheetFeed(int sheetIndex, String sheetName) {
+            this.sheetIndex = sheetIndex;
+            this.sheetName = sheetName;
+        }
+
+        void fail(Throwable e) {
+            feeds.remove(this);
+            if (spool != null) {
+                spool.fail(e);
+            } else {
+                error = e;
+            }
+            signals.add(this);
+        }
+
+        void signal() {
+            Runnable l = listener;
+            if (l != null) {
+                l.run();
+            }
+        }
+
+        @Override
+        public void setListener(Runnable listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean isReady() {
+            if (next != null) {
+                return true;
+            } else if (rows == null && !open()) {
+                return false;
+            } else if (reader == null) {
+                return true;
+            }
+            Throwable e = spool.getError();
+            if (e != null) {
+                throw new CompletionException(e);
+            }
+            return rows.tryAdvance(row -> next = row) || !reader.isWaitingForInput();
+        }
+
+        /**
+         * @return false if the rows of the sheet have not been received yet
+         */
+        private boolean open() {
+            ByteSpool live;
+            synchronized (AsyncWorkbookReader.this) {
+                if (error != null) {
+                    throw new CompletionException(error);
+                } else if (!resolved) {
+                    return false;
+                }
+                live = spool;
+            }
+            try {
+                if (live == null) {
+                    spilledRows = sheet.openStream();
+                    rows = spilledRows.spliterator();
+                    return true;
+                }
+                Throwable e = live.getError();
+                if (e != null) {
+                    throw new CompletionException(e);
+                }
+                if (reader == null) {
+                    reader = new AsyncSheetDataReader(live);
+                }
+                if (!reader.start()) {
+                    return false;
+                }
+                BitSet columns = workbook.getProjectedColumns(sheet);
+                rows = new RowSpliterator(workbook, reader, columns);
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (XMLStreamException e) {
+                throw new ExcelReaderException(e);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Row> action) {
+            if (!isReady()) {
+                throw new IllegalStateException("Rows of the sheet have not been received yet");
+            } else if (next == null) {
+                return rows.tryAdvance(action);
+            }
+            Row row = next;
+            next = null;
+            action.accept(row);
+            return true;
+        }
+
+        @Override
+        public Spliterator<Row> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        /**
+         * Stops receiving the sheet, and drops the bytes received but not read.
+         */
+        void unregister() throws IOException {
+            synchronized (AsyncWorkbookReader.this) {
+                feeds.remove(this);
+                if (currentFeeds != null) {
+                    // the rest of the entry is still inflated, but not kept
+                    currentFeeds.remove(this);
+                }
+                if (spool != null) {
+                    spool.close();
+                }
+            }
+        }
+
+        /**
+         * Stops receiving the sheet and closes its rows, once the subscription has ended.
+         */
+        void release() {
+            try {
+                unregister();
+                if (reader != null) {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                if (spilledRows != null) {
+                    spilledRows.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Subscriber to the rows of a sheet, which stops receiving the sheet as soon as the subscription is cancelled,
+     * even if its rows have not been read yet.
+     */
+    private static final class FeedSubscriber implements Flow.Subscriber<Row> {
+        private final SheetFeed feed;
+        private final Flow.Subscriber<? super Row> subscriber;
+
+        FeedSubscriber(SheetFeed feed, Flow.Subscriber<? super Row> subscriber) {
+            this.feed = feed;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    try {
+                        feed.unregister();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onNext(Row item) {
+            subscriber.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            subscriber.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            subscriber.onComplete();
+        }
+    }
+}
@@ -5,7 +5,8 @@ public class BaseFormulaCell {
 
     private final String formula;
     private final CellRangeAddress ref;
-
+    // compiled on first use, possibly by several threads reading chunks of the sheet
+    private volatile SharedFormulaTemplate template;
 
     public BaseFormulaCell(CellAddress baseCelAddr, String formula, CellRangeAddress ref) {
         this.baseCelAddr = baseCelAddr;
@@ -24,4 +25,13 @@ public class BaseFormulaCell {
     public CellRangeAddress getRef() {
         return ref;
     }
+
+    SharedFormulaTemplate getTemplate() {
+        SharedFormulaTemplate t = template;
+        if (t == null) {
+            t = SharedFormulaTemplate.compile(formula);
+            template = t;
+        }
+        return t;
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Bytes written by a thread and read by another without waiting, in order.
+ * <p>
+ * Bytes not read yet are kept in memory up to a threshold, and beyond it in a temporary file, which is written to
+ * until the reader has caught up: the bytes of a sheet received faster than its rows are requested do not fill the
+ * heap. The writer is to notify the reader once it has written, finished or failed, so that it resumes reading.
+ */
+final class ByteSpool implements AsyncSheetDataReader.Input, Closeable {
+
+    private final int memoryThreshold;
+    private final Deque<byte[]> chunks = new ArrayDeque<>();
+    private int chunkPosition;
+    private long memoryCount;
+    private FileChannel file;
+    private Path path;
+    private long fileReadPosition;
+    private long fileWritePosition;
+    private boolean finished;
+    private Throwable error;
+    private boolean closed;
+
+    ByteSpool(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * Appends bytes, which are dropped if the spool is closed.
+     */
+    synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            return;
+        }
+        if (fileWritePosition > fileReadPosition || memoryCount + len > memoryThreshold) {
+            if (file == null) {
+                path = Files.createTempFile("fastexcel-sheet", ".tmp");
+                file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                fileWritePosition += file.write(buffer, fileWritePosition);
+            }
+        } else {
+            chunks.add(Arrays.copyOfRange(b, off, off + len));
+            memoryCount += len;
+        }
+    }
+
+    /**
+     * Signals that all the bytes have been written.
+     */
+    synchronized void finish() {
+        finished = true;
+    }
+
+    /**
+     * Signals that the remaining bytes cannot be written.
+     */
+    synchronized void fail(Throwable error) {
+        if (this.error == null) {
+            this.error = error;
+        }
+    }
+
+    synchronized Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return true if a read would not return 0
+     */
+    synchronized boolean isReadable() {
+        return memoryCount > 0 || fileWritePosition > fileReadPosition || finished || error != null || closed;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (error != null) {
+            throw new IOException("Sheet could not be received", error);
+        } else if (closed) {
+            throw new IOException("Spool closed");
+        } else if (memoryCount > 0) {
+            byte[] chunk = chunks.getFirst();
+            int n = Math.min(len, chunk.length - chunkPosition);
+            System.arraycopy(chunk, chunkPosition, b, off, n);
+            chunkPosition += n;
+            memoryCount -= n;
+            if (chunkPosition == chunk.length) {
+                chunks.removeFirst();
+                chunkPosition = 0;
+            }
+            return n;
+        } else if (fileWritePosition > fileReadPosition) {
+            int n = (int) Math.min(len, fileWritePosition - fileReadPosition);
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, n);
+            while (buffer.hasRemaining()) {
+                int read = file.read(buffer, fileReadPosition + buffer.position() - off);
+                if (read < 0) {
+                    throw new IOException("Truncated spool file");
+                }
+            }
+            fileReadPosition += n;
+            if (fileReadPosition == fileWritePosition) {
+                // caught up, the file is written anew from its start
+                fileReadPosition = 0;
+                fileWritePosition = 0;
+            }
+            return n;
+        }
+        return finished ? -1 : 0;
+    }
+
+    /**
+     * Drops the bytes not read yet and deletes the temporary file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        chunks.clear();
+        memoryCount = 0;
+        if (file != null) {
+            try {
+                file.close();
+            } finally {
+                file = null;
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
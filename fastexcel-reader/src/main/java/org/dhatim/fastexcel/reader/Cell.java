@@ -26,27 +26,34 @@ public class Cell {
 
     private final ReadableWorkbook workbook;
     private final Object value;
+    private final boolean pendingNumber;
+    private BigDecimal number;
     private final String formula;
+    private final CellAddress sharedFormulaBase;
     private final CellType type;
     private final CellAddress address;
     private final String rawValue;
-    private final String dataFormatId;
-    private final String dataFormatString;
+    private final DataFormat dataFormat;
 
     Cell(ReadableWorkbook workbook, CellType type, Object value, CellAddress address, String formula, String rawValue) {
-        this(workbook, type, value, address, formula, rawValue, null, null);
+        this(workbook, type, value, false, address, formula, null, rawValue, null);
     }
 
-    Cell(ReadableWorkbook workbook, CellType type, Object value, CellAddress address, String formula, String rawValue,
-         String dataFormatId, String dataFormatString) {
+    /**
+     * @param pendingNumber     true if the value is a BigDecimal built from rawValue on first access
+     * @param sharedFormulaBase base cell of the shared formula of this cell, or null
+     */
+    Cell(ReadableWorkbook workbook, CellType type, Object value, boolean pendingNumber, CellAddress address,
+         String formula, CellAddress sharedFormulaBase, String rawValue, DataFormat dataFormat) {
         this.workbook = workbook;
         this.type = type;
         this.value = value;
+        this.pendingNumber = pendingNumber;
         this.address = address;
         this.formula = formula;
+        this.sharedFormulaBase = sharedFormulaBase;
         this.rawValue = rawValue;
-        this.dataFormatId = dataFormatId;
-        this.dataFormatString = dataFormatString;
+        this.dataFormat = dataFormat;
     }
 
     public CellType getType() {
@@ -62,7 +69,16 @@ public class Cell {
     }
 
     public Object getValue() {
-        return value;
+        if (!pendingNumber) {
+            return value;
+        }
+        BigDecimal n = number;
+        if (n == null) {
+            // BigDecimal is immutable, so a racy publication is harmless
+            n = new BigDecimal(rawValue);
+            number = n;
+        }
+        return n;
     }
 
     /**
@@ -76,9 +92,80 @@ public class Cell {
         return formula;
     }
 
+    /**
+     * Returns the address of the cell defining the shared formula of this cell. Unless shared formulas are expanded
+     * (see {@link ReadingOptions#withExpandSharedFormulas(boolean)}), {@link #getFormula()} returns the formula as
+     * written for that cell, and references in it are to be shifted by the offset of this cell from it.
+     *
+     * @return address of the base cell of the shared formula of this cell, or null if it has no shared formula
+     */
+    public CellAddress getSharedFormulaBase() {
+        return sharedFormulaBase;
+    }
+
     public BigDecimal asNumber() {
         requireType(CellType.NUMBER);
-        return (BigDecimal) value;
+        return (BigDecimal) getValue();
+    }
+
+    /**
+     * Returns the value of a numerical cell as a double, parsed from the raw value without building a
+     * {@link BigDecimal}.
+     *
+     * @throws ExcelReaderException if the cell is not of numerical type, or is empty
+     */
+    public double asDouble() {
+        String s = requireNumericRawValue();
+        try {
+            return NumberParser.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new ExcelReaderException("Cannot convert " + s + " to double", e);
+        }
+    }
+
+    /**
+     * Returns the value of a numerical cell as a long, parsed from the raw value without building a
+     * {@link BigDecimal} when it is written as an integer.
+     *
+     * @throws ExcelReaderException if the cell is not of numerical type, is empty, or its value is not an
+     *                              integer in the range of long
+     */
+    public long asLong() {
+        String s = requireNumericRawValue();
+        try {
+            return NumberParser.parseLong(s);
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new ExcelReaderException("Cannot convert " + s + " to long", e);
+        }
+    }
+
+    /**
+     * Returns the value of a numerical cell as an int.
+     *
+     * @throws ExcelReaderException if the cell is not of numerical type, is empty, or its value is not an
+     *                              integer in the range of int
+     */
+    public int asInt() {
+        long l = asLong();
+        if ((int) l != l) {
+            throw new ExcelReaderException("Cannot convert " + rawValue + " to int");
+        }
+        return (int) l;
+    }
+
+    /**
+     * @return raw value of a number cell, or of a formula cell whose cached result is a number
+     */
+    private String requireNumericRawValue() {
+        if (type != CellType.NUMBER && type != CellType.FORMULA) {
+            throw new ExcelReaderException("Wrong cell type " + type + ", wanted " + CellType.NUMBER);
+        } else if (rawValue == null || rawValue.isEmpty()) {
+            throw new ExcelReaderException("Empty cell " + address);
+        } else if (type == CellType.FORMULA && !pendingNumber && !(value instanceof BigDecimal)) {
+            throw new ExcelReaderException("Wrong cached value type of formula cell " + address + ", wanted "
+                    + CellType.NUMBER);
+        }
+        return rawValue;
     }
 
     /**
@@ -88,7 +175,7 @@ public class Cell {
      */
     public LocalDateTime asDate() {
         if (type == CellType.NUMBER || type == CellType.FORMULA) {
-            return convertToDate(Double.parseDouble(rawValue));
+            return convertToDate(asDouble());
         } else if (type == CellType.EMPTY) {
             return null;
         } else {
@@ -97,6 +184,13 @@ public class Cell {
     }
 
     private LocalDateTime convertToDate(double value) {
+        return toLocalDateTime(value, workbook.isDate1904());
+    }
+
+    /**
+     * Converts a serial date of a workbook in the 1900 or 1904 date system.
+     */
+    static LocalDateTime toLocalDateTime(double value, boolean date1904) {
         int wholeDays = (int) Math.floor(value);
         long millisecondsInDay = (long) (((value - wholeDays) * DAY_MILLISECONDS) + 0.5D);
         // sometimes the rounding for .9999999 returns the whole number of ms a day
@@ -107,7 +201,7 @@ public class Cell {
 
         int startYear = 1900;
         int dayAdjust = -1; // Excel thinks 2/29/1900 is a valid date, which it isn't
-        if (workbook.isDate1904()) {
+        if (date1904) {
             startYear = 1904;
             dayAdjust = 1; // 1904 date windowing uses 1/2/1904 as the first day
         } else if (wholeDays < 61) {
@@ -146,18 +240,24 @@ public class Cell {
      * @see #asString()
      */
     public String getText() {
-        return value == null ? "" : value.toString();
+        Object v = getValue();
+        return v == null ? "" : v.toString();
     }
 
     public Integer getDataFormatId() {
-        if (dataFormatId == null) {
-            return null;
-        }
-        return Integer.parseInt(dataFormatId);
+        return dataFormat == null ? null : dataFormat.getId();
     }
 
     public String getDataFormatString() {
-        return dataFormatString;
+        return dataFormat == null ? null : dataFormat.getFormatString();
+    }
+
+    /**
+     * @return number format of the cell, or null if cell formats are not read or the cell has no style
+     * @see ReadingOptions#isWithCellFormat()
+     */
+    public DataFormat getDataFormat() {
+        return dataFormat;
     }
 
     /**
@@ -167,10 +267,11 @@ public class Cell {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append('[').append(type).append(' ');
-        if (value == null) {
+        Object v = getValue();
+        if (v == null) {
             sb.append("null");
         } else {
-            sb.append('"').append(value).append('"');
+            sb.append('"').append(v).append('"');
         }
         return sb.append(']').toString();
     }
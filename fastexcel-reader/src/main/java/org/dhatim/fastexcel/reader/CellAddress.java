@@ -63,6 +63,24 @@ public final class CellAddress implements Comparable<CellAddress> {
         }
     }
 
+    /**
+     * @return zero-based column index of a cell reference such as "B12", without parsing its row
+     */
+    static int parseColumn(String address) {
+        int col = 0;
+        for (int offset = 0; offset < address.length(); offset++) {
+            final char c = address.charAt(offset);
+            if (c == ABSOLUTE_REFERENCE_MARKER) {
+                continue;
+            }
+            if (isAsciiDigit(c)) {
+                break;
+            }
+            col = col * COL_RADIX + toUpperCase(c) - (int) 'A' + 1;
+        }
+        return col - 1;
+    }
+
     public int getRow() {
         return row;
     }
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Splits the chunks of a sheet off a spliterator of unknown size, bounding the number of chunks handed out by
+ * {@code trySplit} and not read yet.
+ * <p>
+ * A parallel stream splits a spliterator of unknown size for as long as it can, and each split inflates chunks of
+ * the sheet, so without a bound the whole sheet could be held in memory when rows are consumed more slowly than the
+ * sheet is inflated. Once the bound is reached, {@link #split(Supplier)} pauses the splitting thread until a chunk
+ * has been read, as a managed blocker so that the fork/join pool can run the pending chunks on another thread
+ * meanwhile. The chunks of a short-circuiting operation, e.g. {@code anyMatch}, are never read once its result is
+ * known, so the wait ends anyway after {@link #STALL_MILLIS} without any chunk being read.
+ * <p>
+ * As in {@code Spliterators.IteratorSpliterator}, each split hands out one more chunk than the previous one, in a
+ * spliterator that splits in halves, so that the tree of splits built by a parallel stream stays shallow even when
+ * a sheet has thousands of chunks.
+ */
+final class ChunkLimit {
+
+    static final int CHUNKS_PER_THREAD = 4;
+    static final long STALL_MILLIS = 100;
+    private static final int MAX_BATCH = 1024;
+
+    private int pending;
+    private long released;
+    private int batch;
+
+    /**
+     * Waits until chunks can be handed out, then takes the next ones.
+     *
+     * @param next supplies a spliterator over the next chunk, or null when all chunks have been taken
+     * @return a spliterator over the next chunks, or null if there are none
+     */
+    <T> Spliterator<T> split(Supplier<Spliterator<T>> next) {
+        int size = Math.min(batch + 1, MAX_BATCH);
+        acquire(size);
+        List<Spliterator<T>> chunks = new ArrayList<>(size);
+        try {
+            Spliterator<T> chunk;
+            while (chunks.size() < size && (chunk = next.get()) != null) {
+                chunks.add(new TrackedChunk<>(chunk));
+            }
+        } finally {
+            release(size - chunks.size());
+        }
+        batch = size;
+        if (chunks.isEmpty()) {
+            return null;
+        } else if (chunks.size() == 1) {
+            return chunks.get(0);
+        }
+        @SuppressWarnings("unchecked")
+        Spliterator<T>[] array = chunks.toArray(new Spliterator[0]);
+        int characteristics = array[0].characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+        return new Batch<>(array, 0, array.length, characteristics);
+    }
+
+    /**
+     * Waits until fewer chunks than allowed for the current fork/join pool are pending, then counts the given
+     * number of chunks as pending.
+     */
+    private void acquire(int chunks) {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        int parallelism = pool == null ? ForkJoinPool.getCommonPoolParallelism() : pool.getParallelism();
+        Waiter waiter = new Waiter(CHUNKS_PER_THREAD * parallelism);
+        try {
+            ForkJoinPool.managedBlock(waiter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            pending += chunks;
+        }
+    }
+
+    private synchronized void release(int chunks) {
+        pending -= chunks;
+        released += chunks;
+        notifyAll();
+    }
+
+    synchronized int getPending() {
+        return pending;
+    }
+
+    private final class Waiter implements ForkJoinPool.ManagedBlocker {
+        private final int limit;
+        private long lastReleased;
+        private long deadline;
+
+        Waiter(int limit) {
+            this.limit = limit;
+            synchronized (ChunkLimit.this) {
+                lastReleased = released;
+            }
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STALL_MILLIS);
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            synchronized (ChunkLimit.this) {
+                while (!isReleasable()) {
+                    ChunkLimit.this.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            synchronized (ChunkLimit.this) {
+                if (pending < limit) {
+                    return true;
+                } else if (released != lastReleased) {
+                    // chunks are still being read: wait for more of them
+                    lastReleased = released;
+                    deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STALL_MILLIS);
+                }
+                return System.nanoTime() - deadline >= 0;
+            }
+        }
+    }
+
+    /**
+     * Chunks handed out by one split, split in halves down to single chunks.
+     */
+    private static final class Batch<T> implements Spliterator<T> {
+        private final Spliterator<T>[] chunks;
+        private int from;
+        private final int to;
+        private final int characteristics;
+
+        Batch(Spliterator<T>[] chunks, int from, int to, int characteristics) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (from < to) {
+                if (chunks[from].tryAdvance(action)) {
+                    return true;
+                }
+                // lets the chunk be collected
+                chunks[from++] = null;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (to - from < 2) {
+                return null;
+            }
+            int mid = (from + to) >>> 1;
+            Batch<T> prefix = new Batch<>(chunks, from, mid, characteristics);
+            from = mid;
+            return prefix;
+        }
+
+        /**
+         * Unknown, as the size of the whole sheet: a parallel stream stops splitting a spliterator whose size is
+         * known to be a small part of an unknown total.
+         */
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+
+    private final class TrackedChunk<T> implements Spliterator<T> {
+        private final Spliterator<T> chunk;
+        private boolean released;
+
+        TrackedChunk(Spliterator<T> chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (released) {
+                return false;
+            } else if (chunk.tryAdvance(action)) {
+                return true;
+            }
+            released = true;
+            release(1);
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (released) {
+                return;
+            }
+            try {
+                chunk.forEachRemaining(action);
+            } finally {
+                released = true;
+                release(1);
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return chunk.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return chunk.characteristics();
+        }
+    }
+}
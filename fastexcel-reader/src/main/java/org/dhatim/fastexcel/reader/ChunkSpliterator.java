@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Parses the rows of a {@link SheetChunk}, lazily so that parsing happens on the thread that consumes them.
+ */
+class ChunkSpliterator implements Spliterator<Row> {
+
+    private final ReadableWorkbook workbook;
+    private final SheetChunk chunk;
+    private final int fromRow;
+    private final int toRow;
+    private final BitSet columns;
+    private InputStream input;
+    private RowSpliterator rows;
+    private boolean done;
+
+    ChunkSpliterator(ReadableWorkbook workbook, SheetChunk chunk, BitSet columns) {
+        this(workbook, chunk, Integer.MIN_VALUE, Integer.MAX_VALUE, columns);
+    }
+
+    /**
+     * @param fromRow number of the first row to return
+     * @param toRow   number of the last row to return
+     * @param columns indexes of the columns to read, or null to read all columns
+     */
+    ChunkSpliterator(ReadableWorkbook workbook, SheetChunk chunk, int fromRow, int toRow, BitSet columns) {
+        this.workbook = workbook;
+        this.chunk = chunk;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+        this.columns = columns;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Row> action) {
+        if (done) {
+            return false;
+        }
+        if (rows == null) {
+            try {
+                input = chunk.open();
+                rows = new RowSpliterator(workbook, input, chunk.getTrackedRowIndex(),
+                        chunk.getSharedFormula(), chunk.getArrayFormula(), columns);
+            } catch (XMLStreamException e) {
+                throw new ExcelReaderException(e);
+            }
+        }
+        Row[] row = new Row[1];
+        while (rows.tryAdvance(r -> row[0] = r)) {
+            if (row[0].getRowNum() > toRow) {
+                break;
+            } else if (row[0].getRowNum() >= fromRow) {
+                action.accept(row[0]);
+                return true;
+            }
+        }
+        done = true;
+        try {
+            // releases the inflater of deflated chunks
+            input.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<Row> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | IMMUTABLE | NONNULL | ORDERED;
+    }
+}
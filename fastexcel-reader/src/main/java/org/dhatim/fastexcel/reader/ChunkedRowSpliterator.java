@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Splittable row spliterator used in parallel reading mode.
+ * <p>
+ * The holder of this spliterator inflates the sheet and cuts it into {@link SheetChunk}s. Each call to
+ * {@link #trySplit()} hands the next chunks over as a prefix spliterator, whose rows are parsed by whichever threads
+ * consume them, so a parallel stream keeps the encounter order of rows. How many chunks are handed over, and when,
+ * is decided by a {@link ChunkLimit}.
+ */
+class ChunkedRowSpliterator implements Spliterator<Row> {
+
+    private final ReadableWorkbook workbook;
+    private final SheetChunker chunker;
+    private final boolean splittable;
+    private final BitSet columns;
+    private final ChunkLimit limit = new ChunkLimit();
+    private Spliterator<Row> current;
+
+    /**
+     * @param columns indexes of the columns to read, or null to read all columns
+     */
+    ChunkedRowSpliterator(ReadableWorkbook workbook, InputStream inputStream, int chunkSize, BitSet columns)
+            throws IOException {
+        this.workbook = workbook;
+        this.columns = columns;
+        this.chunker = new SheetChunker(inputStream, chunkSize);
+        this.splittable = chunker.isSplittable();
+        if (!splittable) {
+            try {
+                current = new RowSpliterator(workbook, chunker.remaining(), columns);
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Row> action) {
+        while (true) {
+            if (current == null) {
+                current = nextChunk();
+                if (current == null) {
+                    return false;
+                }
+            }
+            if (current.tryAdvance(action)) {
+                return true;
+            } else if (!splittable) {
+                return false;
+            }
+            current = null;
+        }
+    }
+
+    @Override
+    public Spliterator<Row> trySplit() {
+        if (!splittable) {
+            return null;
+        }
+        return limit.split(() -> {
+            Spliterator<Row> chunk = current != null ? current : nextChunk();
+            current = null;
+            return chunk;
+        });
+    }
+
+    /**
+     * The number of rows is unknown until the whole sheet is inflated: splitting is bounded by the {@link ChunkLimit}
+     * instead.
+     */
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | IMMUTABLE | NONNULL | ORDERED;
+    }
+
+    private Spliterator<Row> nextChunk() {
+        try {
+            SheetChunk chunk = chunker.next();
+            return chunk == null ? null : new ChunkSpliterator(workbook, chunk, columns);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
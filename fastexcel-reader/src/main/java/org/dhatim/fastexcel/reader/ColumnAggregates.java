@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Aggregates of the numeric cells of some columns of a sheet, computed by
+ * {@link Sheet#aggregate(int[], Aggregator...)} from the raw values of the cells, without building rows and cells.
+ * <p>
+ * Numeric cells are the cells without a type, including formulas whose cached result is a number. Cells holding
+ * strings, booleans, errors or no value are ignored.
+ */
+public final class ColumnAggregates {
+
+    private final int[] columns;
+    private final Set<Aggregator> aggregators;
+    private final long[] count;
+    private final double[] sum;
+    private final double[] min;
+    private final double[] max;
+
+    ColumnAggregates(int[] columns, Set<Aggregator> aggregators) {
+        this.columns = columns;
+        this.aggregators = aggregators;
+        this.count = new long[columns.length];
+        this.sum = new double[columns.length];
+        this.min = new double[columns.length];
+        this.max = new double[columns.length];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Adds the numeric cells of the rows read from the given reader.
+     *
+     * @param filter     row filter of the reading options, or null to add all rows
+     * @param skipErrors true to ignore numeric cells whose value cannot be parsed, false to fail
+     */
+    void read(SheetDataReader r, RowFilter filter, boolean skipErrors) throws XMLStreamException {
+        BitSet wanted = new BitSet();
+        int maxColumn = 0;
+        for (int column : columns) {
+            wanted.set(column);
+            maxColumn = Math.max(maxColumn, column);
+        }
+        if (filter != null) {
+            wanted = filter.decodedColumns(wanted);
+        }
+        // slot of each wanted column in the accumulators
+        int[] slots = new int[maxColumn + 1];
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < columns.length; i++) {
+            slots[columns[i]] = i;
+        }
+        CharArrayView value = new CharArrayView();
+        // values of the current row, added once the row filter accepts the row
+        int[] pendingSlots = new int[columns.length];
+        double[] pendingValues = new double[columns.length];
+        while (r.nextRow()) {
+            int trackedColIndex = 0;
+            int pending = 0;
+            boolean accepted = true;
+            if (filter != null) {
+                filter.startRow();
+            }
+            while (r.nextCell(wanted)) {
+                int column = r.getCellColumn() >= 0 ? r.getCellColumn() : trackedColIndex;
+                trackedColIndex = column + 1;
+                if (filter != null && !filter.test(r, column)) {
+                    accepted = false;
+                    while (r.nextCellSkippingValue()) {
+                        // skipping the rest of the row
+                    }
+                    break;
+                }
+                if (column > maxColumn || slots[column] < 0 || !"n".equals(r.getCellType()) || !r.hasValue()
+                        || r.getValueLength() == 0) {
+                    continue;
+                }
+                value.set(r.getChars(), r.getValueStart(), r.getValueLength());
+                double d;
+                try {
+                    d = NumberParser.parseDouble(value);
+                } catch (NumberFormatException e) {
+                    if (skipErrors) {
+                        continue;
+                    }
+                    throw new ExcelReaderException("Cannot parse number : " + value, e);
+                }
+                if (filter == null) {
+                    add(slots[column], d);
+                } else {
+                    if (pending == pendingSlots.length) {
+                        pendingSlots = Arrays.copyOf(pendingSlots, pending * 2 + 1);
+                        pendingValues = Arrays.copyOf(pendingValues, pending * 2 + 1);
+                    }
+                    pendingSlots[pending] = slots[column];
+                    pendingValues[pending++] = d;
+                }
+            }
+            if (accepted && filter != null && filter.testEnd()) {
+                for (int i = 0; i < pending; i++) {
+                    add(pendingSlots[i], pendingValues[i]);
+                }
+            }
+        }
+    }
+
+    private void add(int slot, double value) {
+        count[slot]++;
+        sum[slot] += value;
+        if (value < min[slot]) {
+            min[slot] = value;
+        }
+        if (value > max[slot]) {
+            max[slot] = value;
+        }
+    }
+
+    /**
+     * Adds the aggregates of another part of the sheet to these ones.
+     */
+    ColumnAggregates merge(ColumnAggregates other) {
+        for (int i = 0; i < columns.length; i++) {
+            count[i] += other.count[i];
+            sum[i] += other.sum[i];
+            min[i] = Math.min(min[i], other.min[i]);
+            max[i] = Math.max(max[i], other.max[i]);
+        }
+        return this;
+    }
+
+    /**
+     * @return zero-based indexes of the aggregated columns
+     */
+    public int[] getColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * @param column    zero-based index of an aggregated column
+     * @param aggregator one of the computed aggregators
+     * @return value of the aggregate
+     */
+    public double get(int column, Aggregator aggregator) {
+        if (!aggregators.contains(aggregator)) {
+            throw new IllegalArgumentException("Aggregator " + aggregator + " was not computed");
+        }
+        int slot = slot(column);
+        switch (aggregator) {
+            case COUNT:
+                return count[slot];
+            case SUM:
+                return sum[slot];
+            case MIN:
+                return count[slot] == 0 ? Double.NaN : min[slot];
+            case MAX:
+                return count[slot] == 0 ? Double.NaN : max[slot];
+            case AVERAGE:
+                return count[slot] == 0 ? Double.NaN : sum[slot] / count[slot];
+        }
+        throw new IllegalStateException("Unknown aggregator " + aggregator);
+    }
+
+    /**
+     * @param column zero-based index of an aggregated column
+     * @return number of numeric cells in the column
+     */
+    public long getCount(int column) {
+        return count[slot(column)];
+    }
+
+    private int slot(int column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == column) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Column " + column + " was not aggregated");
+    }
+
+    static Set<Aggregator> aggregatorSet(Aggregator... aggregators) {
+        return aggregators.length == 0 ? EnumSet.allOf(Aggregator.class) : EnumSet.copyOf(Arrays.asList(aggregators));
+    }
+}
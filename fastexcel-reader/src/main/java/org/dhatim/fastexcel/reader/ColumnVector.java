@@ -0,0 +1,219 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Values of one column for the rows of a {@link RowBatch}, in primitive arrays indexed by the position of the row
+ * in the batch. The arrays are reused from one batch to the next.
+ * <p>
+ * Only the array matching the type of a value holds it: numbers are in {@link #getDoubles()}, and additionally in
+ * {@link #getEpochMillis()} for cells with a date format; shared strings are identified by their index in the
+ * shared strings table, in {@link #getSharedStringIndexes()}; booleans are in {@link #getBooleans()}. Formula
+ * cells hold their cached value.
+ */
+public final class ColumnVector {
+
+    private static final byte NONE = 0;
+    private static final byte NUMBER = 1;
+    private static final byte DATE = 2;
+    private static final byte SHARED_STRING = 3;
+    private static final byte STRING = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte ERROR = 6;
+
+    private final ReadableWorkbook workbook;
+    private final int column;
+    private final byte[] kinds;
+    private final BitSet validity;
+    private final double[] doubles;
+    private final long[] epochMillis;
+    private final int[] sharedStringIndexes;
+    private final boolean[] booleans;
+    // text of strings that are not shared, and of errors
+    private final String[] texts;
+
+    ColumnVector(ReadableWorkbook workbook, int column, int capacity) {
+        this.workbook = workbook;
+        this.column = column;
+        this.kinds = new byte[capacity];
+        this.validity = new BitSet(capacity);
+        this.doubles = new double[capacity];
+        this.epochMillis = new long[capacity];
+        this.sharedStringIndexes = new int[capacity];
+        this.booleans = new boolean[capacity];
+        this.texts = new String[capacity];
+        Arrays.fill(sharedStringIndexes, -1);
+    }
+
+    /**
+     * @return zero-based index of the column in the sheet
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @param row position of the row in the batch
+     * @return {@link CellType#NUMBER}, {@link CellType#STRING}, {@link CellType#BOOLEAN} or {@link CellType#ERROR},
+     * or null if the row has no value in this column
+     */
+    public CellType getType(int row) {
+        switch (kinds[row]) {
+            case NUMBER:
+            case DATE:
+                return CellType.NUMBER;
+            case SHARED_STRING:
+            case STRING:
+                return CellType.STRING;
+            case BOOLEAN:
+                return CellType.BOOLEAN;
+            case ERROR:
+                return CellType.ERROR;
+            default:
+                return null;
+        }
+    }
+
+    public boolean isNull(int row) {
+        return kinds[row] == NONE;
+    }
+
+    /**
+     * @return true if the row holds a number with a date format, requires {@link ReadingOptions#isWithCellFormat()}
+     */
+    public boolean isDate(int row) {
+        return kinds[row] == DATE;
+    }
+
+    /**
+     * @return bitmap of the rows holding a value in this column, valid until the next batch
+     */
+    public BitSet getValidity() {
+        return validity;
+    }
+
+    /**
+     * @return numbers, by position of their row in the batch
+     */
+    public double[] getDoubles() {
+        return doubles;
+    }
+
+    /**
+     * @return dates as milliseconds since the epoch, their local date and time being taken as UTC, by position of
+     * their row in the batch
+     */
+    public long[] getEpochMillis() {
+        return epochMillis;
+    }
+
+    /**
+     * @return indexes of shared strings in the shared strings table, by position of their row in the batch, and -1
+     * for other rows
+     */
+    public int[] getSharedStringIndexes() {
+        return sharedStringIndexes;
+    }
+
+    /**
+     * @return booleans, by position of their row in the batch
+     */
+    public boolean[] getBooleans() {
+        return booleans;
+    }
+
+    /**
+     * @return text of a string or error value, looked up in the shared strings table for shared strings, or null
+     * for other values
+     */
+    public String getString(int row) {
+        if (kinds[row] == SHARED_STRING) {
+            try {
+                return workbook.getSharedStringsTable().getItemAt(sharedStringIndexes[row]);
+            } catch (XMLStreamException e) {
+                throw new ExcelReaderException(e);
+            }
+        }
+        return kinds[row] == STRING || kinds[row] == ERROR ? texts[row] : null;
+    }
+
+    /**
+     * Removes the values of the first rows.
+     */
+    void clear(int size) {
+        for (int row = validity.nextSetBit(0); row >= 0 && row < size; row = validity.nextSetBit(row + 1)) {
+            kinds[row] = NONE;
+            sharedStringIndexes[row] = -1;
+            texts[row] = null;
+        }
+        validity.clear();
+    }
+
+    /**
+     * Removes the value of a row.
+     */
+    void clearRow(int row) {
+        kinds[row] = NONE;
+        sharedStringIndexes[row] = -1;
+        texts[row] = null;
+        validity.clear(row);
+    }
+
+    void setNumber(int row, double value) {
+        set(row, NUMBER);
+        doubles[row] = value;
+    }
+
+    void setDate(int row, double value, long millis) {
+        set(row, DATE);
+        doubles[row] = value;
+        epochMillis[row] = millis;
+    }
+
+    void setSharedString(int row, int index) {
+        set(row, SHARED_STRING);
+        sharedStringIndexes[row] = index;
+    }
+
+    void setString(int row, String text) {
+        set(row, STRING);
+        texts[row] = text;
+    }
+
+    void setBoolean(int row, boolean value) {
+        set(row, BOOLEAN);
+        booleans[row] = value;
+    }
+
+    void setError(int row, String text) {
+        set(row, ERROR);
+        texts[row] = text;
+    }
+
+    private void set(int row, byte kind) {
+        if (kinds[row] != NONE) {
+            // a second cell in the same column
+            sharedStringIndexes[row] = -1;
+            texts[row] = null;
+        }
+        kinds[row] = kind;
+        validity.set(row);
+    }
+}
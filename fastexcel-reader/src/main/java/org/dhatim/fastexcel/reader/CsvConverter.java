@@ -0,0 +1,354 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Converter of sheets to CSV or TSV, writing bytes to an output stream directly from the characters of the sheet,
+ * without building rows and cells or a {@link String} per cell.
+ * <p>
+ * Each {@code <row>} element of the sheet gives one line, and each cell is written in the field of its column,
+ * missing cells giving empty fields. Rows absent from the sheet are not written, as with {@link Sheet#openStream()},
+ * nor rows rejected by the row filter of the reading options.
+ * The raw values of numeric cells are copied unchanged, so dates are written as serial numbers and no cell format is
+ * applied. Booleans are written as {@code true} and {@code false}, like {@link Cell#getText()}, and formulas as their
+ * cached result.
+ * <p>
+ * Fields holding the delimiter, a double quote or a line break are quoted, doubling the double quotes they hold,
+ * as described by RFC 4180. Shared strings are escaped and encoded in UTF-8 once per sheet and shared string index.
+ * <p>
+ * A converter is immutable and can be used by several threads.
+ */
+public final class CsvConverter {
+
+    public static final CsvConverter CSV = new CsvConverter(',', "\r\n");
+    public static final CsvConverter TSV = new CsvConverter('\t', "\r\n");
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final char delimiter;
+    private final String lineSeparator;
+
+    private CsvConverter(char delimiter, String lineSeparator) {
+        this.delimiter = delimiter;
+        this.lineSeparator = lineSeparator;
+    }
+
+    /**
+     * @param delimiter separator of the fields, neither a double quote nor a line break
+     */
+    public CsvConverter withDelimiter(char delimiter) {
+        if (delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("Invalid delimiter: '" + delimiter + "'");
+        }
+        return new CsvConverter(delimiter, lineSeparator);
+    }
+
+    /**
+     * @param lineSeparator separator of the lines, {@code "\r\n"} by default
+     */
+    public CsvConverter withLineSeparator(String lineSeparator) {
+        return new CsvConverter(delimiter, lineSeparator);
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    public String getLineSeparator() {
+        return lineSeparator;
+    }
+
+    /**
+     * Writes a sheet to an output stream, which is not closed.
+     */
+    public void convert(Sheet sheet, OutputStream out) throws IOException {
+        ReadableWorkbook workbook = sheet.getWorkbook();
+        ReadingOptions options = workbook.getReadingOptions();
+        try (InputStream inputStream = workbook.openSheetContent(sheet);
+             SheetDataReader reader = SheetDataScanner.open(inputStream, options)) {
+            new Output(workbook.getSharedStringsTable(), RowFilter.of(workbook), out).write(reader);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Writes each sheet of a workbook to its own output stream, converting the sheets in parallel.
+     *
+     * @param outputs opens the output stream of each sheet, which is closed once the sheet is written
+     */
+    public void convert(ReadableWorkbook workbook, SheetOutput outputs) throws IOException {
+        List<Sheet> sheets = workbook.getSheets().collect(Collectors.toList());
+        try {
+            sheets.parallelStream().forEach(sheet -> {
+                try (OutputStream out = outputs.open(sheet)) {
+                    convert(sheet, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Opens the output stream of a sheet, see {@link #convert(ReadableWorkbook, SheetOutput)}.
+     */
+    @FunctionalInterface
+    public interface SheetOutput {
+        OutputStream open(Sheet sheet) throws IOException;
+    }
+
+    /**
+     * Bytes of one sheet being written, buffered before the output stream.
+     */
+    private final class Output {
+        private final SST sst;
+        private final RowFilter filter;
+        private final OutputStream out;
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        private final byte[] lineSeparatorBytes = lineSeparator.getBytes(StandardCharsets.UTF_8);
+        private final CharArrayView value = new CharArrayView();
+        // escaped and encoded shared strings, by index
+        private byte[][] sharedStrings = new byte[0][];
+        private int position;
+        // start of the bytes of the row being written, until the row filter accepts it, otherwise -1
+        private int rowStart = -1;
+
+        Output(SST sst, RowFilter filter, OutputStream out) {
+            this.sst = sst;
+            this.filter = filter;
+            this.out = out;
+        }
+
+        void write(SheetDataReader r) throws IOException, XMLStreamException {
+            while (r.nextRow()) {
+                // number of fields started in the row
+                int fields = 0;
+                if (filter != null) {
+                    filter.startRow();
+                    rowStart = position;
+                }
+                boolean accepted = true;
+                while (r.nextCell()) {
+                    int column = Math.max(r.getCellColumn() >= 0 ? r.getCellColumn() : fields, fields);
+                    if (filter != null && !filter.test(r, column)) {
+                        accepted = false;
+                        while (r.nextCellSkippingValue()) {
+                            // skipping the rest of the row
+                        }
+                        break;
+                    } else if (filter != null && filter.isTested()) {
+                        rowStart = -1;
+                    }
+                    for (; fields <= column; fields++) {
+                        if (fields > 0) {
+                            put(delimiter);
+                        }
+                    }
+                    writeCell(r);
+                }
+                if (filter != null && !(accepted && filter.testEnd())) {
+                    position = rowStart;
+                    rowStart = -1;
+                    continue;
+                }
+                rowStart = -1;
+                put(lineSeparatorBytes);
+            }
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        private void writeCell(SheetDataReader r) throws IOException, XMLStreamException {
+            String type = r.getCellType();
+            if ("inlineStr".equals(type)) {
+                if (r.hasInlineString()) {
+                    putField(r.getChars(), r.getInlineStringStart(), r.getInlineStringLength());
+                }
+                return;
+            } else if (!r.hasValue() || r.getValueLength() == 0) {
+                return;
+            }
+            switch (type) {
+                case "s":
+                    value.set(r.getChars(), r.getValueStart(), r.getValueLength());
+                    put(sharedString(parseSharedStringIndex()));
+                    break;
+                case "b":
+                    if (r.getValueLength() != 1 || r.getChars()[r.getValueStart()] != '0'
+                            && r.getChars()[r.getValueStart()] != '1') {
+                        throw new ExcelReaderException("Invalid boolean cell value: '" + r.getValue()
+                                + "'. Expecting '0' or '1'.");
+                    }
+                    putAscii(r.getChars()[r.getValueStart()] == '1' ? "true" : "false");
+                    break;
+                default:
+                    // numbers, dates and errors are copied as is, and formula strings escaped if needed
+                    putField(r.getChars(), r.getValueStart(), r.getValueLength());
+            }
+        }
+
+        private int parseSharedStringIndex() {
+            try {
+                return Math.toIntExact(NumberParser.parseLong(value));
+            } catch (ArithmeticException | NumberFormatException e) {
+                throw new ExcelReaderException("Invalid shared string index : " + value, e);
+            }
+        }
+
+        private byte[] sharedString(int index) throws XMLStreamException {
+            if (index < 0) {
+                throw new ExcelReaderException("Invalid shared string index " + index);
+            }
+            if (index >= sharedStrings.length) {
+                sharedStrings = Arrays.copyOf(sharedStrings, Math.max(index + 1, sharedStrings.length * 2));
+            }
+            byte[] bytes = sharedStrings[index];
+            if (bytes == null) {
+                String text = sst.getItemAt(index);
+                bytes = text == null ? new byte[0] : escape(text).getBytes(StandardCharsets.UTF_8);
+                sharedStrings[index] = bytes;
+            }
+            return bytes;
+        }
+
+        private String escape(String text) {
+            if (!needsQuotes(text.toCharArray(), 0, text.length())) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+
+        private boolean needsQuotes(char[] chars, int start, int length) {
+            for (int i = start; i < start + length; i++) {
+                char c = chars[i];
+                if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Writes the given characters in UTF-8, quoted if needed.
+         */
+        private void putField(char[] chars, int start, int length) throws IOException {
+            boolean quoted = needsQuotes(chars, start, length);
+            if (quoted) {
+                put('"');
+            }
+            int end = start + length;
+            for (int i = start; i < end; i++) {
+                reserve(4);
+                char c = chars[i];
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                    if (c == '"') {
+                        buffer[position++] = '"';
+                    }
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | c >> 6);
+                    buffer[position++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                    int codePoint = Character.toCodePoint(c, chars[++i]);
+                    buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                    buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    // unpaired surrogate, replaced like String.getBytes does
+                    buffer[position++] = '?';
+                } else {
+                    buffer[position++] = (byte) (0xE0 | c >> 12);
+                    buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    buffer[position++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            if (quoted) {
+                put('"');
+            }
+        }
+
+        private void putAscii(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                put(s.charAt(i));
+            }
+        }
+
+        /**
+         * Writes an ASCII character, or the delimiter.
+         */
+        private void put(char c) throws IOException {
+            if (c >= 0x80) {
+                put(String.valueOf(c).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            reserve(1);
+            buffer[position++] = (byte) c;
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            if (position + bytes.length > buffer.length) {
+                flush();
+                if (bytes.length > buffer.length && rowStart < 0) {
+                    out.write(bytes);
+                    return;
+                }
+                reserve(bytes.length);
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        /**
+         * Makes room in the buffer for the given number of bytes.
+         */
+        private void reserve(int length) throws IOException {
+            if (position + length > buffer.length) {
+                flush();
+                if (position + length > buffer.length) {
+                    // the row is not accepted yet and does not fit
+                    buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+                }
+            }
+        }
+
+        /**
+         * Writes the buffered bytes, but those of a row that the row filter has not accepted yet.
+         */
+        private void flush() throws IOException {
+            int end = rowStart < 0 ? position : rowStart;
+            out.write(buffer, 0, end);
+            System.arraycopy(buffer, end, buffer, 0, position - end);
+            position -= end;
+            if (rowStart >= 0) {
+                rowStart = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+/**
+ * Number format of a cell style, resolved once when the workbook is opened.
+ */
+public final class DataFormat {
+
+    private final String id;
+    private final Integer parsedId;
+    private final String formatString;
+    private final boolean date;
+
+    DataFormat(String id, String formatString) {
+        this.id = id;
+        this.parsedId = parseId(id);
+        this.formatString = formatString;
+        this.date = parsedId != null && isBuiltinDateFormat(parsedId) || isDateFormat(formatString);
+    }
+
+    /**
+     * @return number format id, or null if the style has none
+     */
+    public Integer getId() {
+        if (id == null) {
+            return null;
+        }
+        return parsedId != null ? parsedId : Integer.parseInt(id);
+    }
+
+    /**
+     * @return format code, or null if unknown
+     */
+    public String getFormatString() {
+        return formatString;
+    }
+
+    /**
+     * @return true if the format displays numbers as a date, a time or a duration
+     */
+    public boolean isDate() {
+        return date;
+    }
+
+    private static Integer parseId(String id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Built-in formats that are dates, including the locale-specific ones that have no format code in the file.
+     */
+    private static boolean isBuiltinDateFormat(int id) {
+        return id >= 14 && id <= 22 || id >= 27 && id <= 36 || id >= 45 && id <= 47 || id >= 50 && id <= 58;
+    }
+
+    /**
+     * Tells whether the first section of a format code has date or time parts, and no number placeholders or text.
+     * Quoted text, escaped characters, colors and conditions are ignored, while elapsed time like {@code [h]} is a
+     * date part.
+     */
+    static boolean isDateFormat(String formatString) {
+        if (formatString == null) {
+            return false;
+        }
+        boolean datePart = false;
+        int length = formatString.length();
+        for (int i = 0; i < length; i++) {
+            char c = formatString.charAt(i);
+            switch (c) {
+                case ';':
+                    return datePart;
+                case '"': {
+                    int end = formatString.indexOf('"', i + 1);
+                    i = end < 0 ? length : end;
+                    break;
+                }
+                case '\\':
+                case '_':
+                case '*':
+                    i++;
+                    break;
+                case '[': {
+                    int end = formatString.indexOf(']', i + 1);
+                    if (end < 0) {
+                        return false;
+                    }
+                    if (isElapsedTime(formatString, i + 1, end)) {
+                        datePart = true;
+                    }
+                    i = end;
+                    break;
+                }
+                case 'y':
+                case 'Y':
+                case 'm':
+                case 'M':
+                case 'd':
+                case 'D':
+                case 'h':
+                case 'H':
+                case 's':
+                case 'S':
+                    datePart = true;
+                    break;
+                case '#':
+                case '?':
+                case '@':
+                case 'e':
+                case 'E':
+                    return false;
+                default:
+                    break;
+            }
+        }
+        return datePart;
+    }
+
+    private static boolean isElapsedTime(String s, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        char first = Character.toLowerCase(s.charAt(start));
+        if (first != 'h' && first != 'm' && first != 's') {
+            return false;
+        }
+        for (int i = start + 1; i < end; i++) {
+            if (Character.toLowerCase(s.charAt(i)) != first) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,15 +2,81 @@ package org.dhatim.fastexcel.reader;
 
 import javax.xml.stream.XMLInputFactory;
 
+/**
+ * StAX factories used to read workbooks. Aalto is used by default; another implementation can be chosen per
+ * workbook with {@link ReadingOptions#withXMLInputFactory(XMLInputFactory)}, e.g. one returned by the methods of
+ * this class, which can be further tuned with {@link XMLInputFactory#setProperty(String, Object)} (coalescing,
+ * implementation-specific buffer sizes...). The factories of this class support neither DTDs nor external entities,
+ * which is required of any factory given to the reading options.
+ */
 public class DefaultXMLInputFactory {
     static final XMLInputFactory factory = defaultXmlInputFactory();
 
     private static XMLInputFactory defaultXmlInputFactory() {
-        XMLInputFactory factory  = new com.fasterxml.aalto.stax.InputFactoryImpl();
-        // To prevent XML External Entity (XXE) attacks
+        return secure(new com.fasterxml.aalto.stax.InputFactoryImpl());
+    }
+
+    /**
+     * @return a new Aalto factory, the default one
+     */
+    public static XMLInputFactory aalto() {
+        return defaultXmlInputFactory();
+    }
+
+    /**
+     * @return a new Woodstox factory
+     * @throws IllegalStateException if Woodstox is not on the classpath
+     */
+    public static XMLInputFactory woodstox() {
+        return secure(newInstance("com.ctc.wstx.stax.WstxInputFactory"));
+    }
+
+    /**
+     * @return a new factory of the StAX implementation built into the JDK
+     */
+    public static XMLInputFactory jdk() {
+        try {
+            // Java 9+
+            return secure((XMLInputFactory) XMLInputFactory.class.getMethod("newDefaultFactory").invoke(null));
+        } catch (ReflectiveOperationException e) {
+            return secure(newInstance("com.sun.xml.internal.stream.XMLInputFactoryImpl"));
+        }
+    }
+
+    /**
+     * @return the factory chosen in the given options, or the default one
+     */
+    static XMLInputFactory get(ReadingOptions options) {
+        return options.getXMLInputFactory() == null ? factory : options.getXMLInputFactory();
+    }
+
+    /**
+     * Disables DTDs and external entities, to prevent XML External Entity (XXE) attacks.
+     */
+    static XMLInputFactory secure(XMLInputFactory factory) {
         factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
         factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
         return factory;
     }
 
+    /**
+     * @return true if the factory supports neither DTDs nor external entities, as configured by {@link #secure}
+     */
+    static boolean isSecure(XMLInputFactory factory) {
+        return isDisabled(factory.getProperty(XMLInputFactory.SUPPORT_DTD))
+                && isDisabled(factory.getProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES));
+    }
+
+    private static boolean isDisabled(Object property) {
+        return Boolean.FALSE.equals(property) || "false".equals(property);
+    }
+
+    private static XMLInputFactory newInstance(String className) {
+        try {
+            return (XMLInputFactory) Class.forName(className).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Cannot create " + className, e);
+        }
+    }
+
 }
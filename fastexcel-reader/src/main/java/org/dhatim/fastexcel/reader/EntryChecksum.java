@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+/**
+ * CRC-32 and size of the uncompressed content of a zip entry, as recorded in the archive for each entry.
+ */
+final class EntryChecksum {
+
+    private final long crc;
+    private final long size;
+
+    EntryChecksum(long crc, long size) {
+        this.crc = crc;
+        this.size = size;
+    }
+
+    /**
+     * Reads the given content to its end and computes its checksum.
+     */
+    static EntryChecksum of(InputStream in) throws IOException {
+        Input input = new Input(in);
+        input.drain();
+        return input.getChecksum();
+    }
+
+    long getCrc() {
+        return crc;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntryChecksum)) {
+            return false;
+        }
+        EntryChecksum other = (EntryChecksum) o;
+        return crc == other.crc && size == other.size;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(crc) * 31 + Long.hashCode(size);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("crc %08x, size %d", crc, size);
+    }
+
+    /**
+     * Content of an entry, computing its checksum as it is read.
+     */
+    static final class Input extends FilterInputStream {
+        private final CRC32 crc = new CRC32();
+        private long size;
+
+        Input(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                crc.update(b);
+                size++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                crc.update(b, off, n);
+                size += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Reads the rest of the content, so that the checksum covers all of it.
+         */
+        void drain() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) >= 0) {
+                // only computing the checksum
+            }
+        }
+
+        EntryChecksum getChecksum() {
+            return new EntryChecksum(crc.getValue(), size);
+        }
+    }
+}
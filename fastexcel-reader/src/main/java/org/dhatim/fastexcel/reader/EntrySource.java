@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Entries of the zip container of a workbook.
+ */
+interface EntrySource extends Closeable {
+
+    /**
+     * @param name name of the entry, without leading slash, matched case-insensitively if there is no exact match
+     * @param once true if the content is read only once, so that it may be read directly from a stream
+     * @return content of the entry, or null if there is no such entry
+     */
+    InputStream getEntry(String name, boolean once) throws IOException;
+
+    /**
+     * @param name name of the entry, as for {@link #getEntry(String, boolean)}
+     * @return checksum of the content of the entry as recorded in the archive, or null if it is not known without
+     * reading the entry
+     */
+    default EntryChecksum getChecksum(String name) throws IOException {
+        return null;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+/**
+ * Interfaces of reactive streams, with the same methods and contracts as those of
+ * {@code java.util.concurrent.Flow}, which this library cannot use while it runs on Java 8. Rows are published
+ * through these interfaces by {@link Sheet#publisher(java.util.concurrent.Executor)} and
+ * {@link AsyncWorkbookReader}; adapters to {@code java.util.concurrent.Flow} or to Reactive Streams only have to
+ * forward each call.
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * Producer of items received by subscribers, each one through its own {@link Subscription}.
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receiver of items. No item is sent before being requested through the subscription.
+     */
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * Link between a publisher and one of its subscribers.
+     */
+    public interface Subscription {
+        /**
+         * Adds the given number of items to the demand of the subscriber.
+         *
+         * @param n number of items, which must be positive
+         */
+        void request(long n);
+
+        /**
+         * Stops sending items to the subscriber. Items already being sent may still be received.
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.util.BitSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Reads a range of rows from the segments of a {@link SheetIndex}. Only the segments overlapping the range are
+ * inflated, and they can be split across threads.
+ */
+class IndexedRowSpliterator implements Spliterator<Row> {
+
+    private final ReadableWorkbook workbook;
+    private final SheetIndex index;
+    private final int fromRow;
+    private final int toRow;
+    private final int end;
+    private final BitSet columns;
+    private int next;
+    private ChunkSpliterator current;
+
+    IndexedRowSpliterator(ReadableWorkbook workbook, SheetIndex index, int fromRow, int toRow, BitSet columns) {
+        this.workbook = workbook;
+        this.index = index;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+        this.columns = columns;
+        int first = 0;
+        while (first < index.getSegmentCount() && index.getLastRowNum(first) < fromRow) {
+            first++;
+        }
+        int last = first;
+        while (last < index.getSegmentCount() && index.getFirstRowNum(last) <= toRow) {
+            last++;
+        }
+        this.next = first;
+        this.end = last;
+    }
+
+    private IndexedRowSpliterator(IndexedRowSpliterator other, int next, int end) {
+        this.workbook = other.workbook;
+        this.index = other.index;
+        this.fromRow = other.fromRow;
+        this.toRow = other.toRow;
+        this.columns = other.columns;
+        this.next = next;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Row> action) {
+        while (true) {
+            if (current == null) {
+                if (next == end) {
+                    return false;
+                }
+                current = new ChunkSpliterator(workbook, index.getChunk(next++), fromRow, toRow, columns);
+            }
+            if (current.tryAdvance(action)) {
+                return true;
+            }
+            current = null;
+        }
+    }
+
+    @Override
+    public Spliterator<Row> trySplit() {
+        if (current != null) {
+            ChunkSpliterator prefix = current;
+            current = null;
+            return prefix;
+        }
+        if (end - next < 2) {
+            return null;
+        }
+        int mid = (next + end) >>> 1;
+        IndexedRowSpliterator prefix = new IndexedRowSpliterator(this, next, mid);
+        next = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = 0;
+        for (int i = next; i < end; i++) {
+            size += Math.min(index.getLastRowNum(i), toRow) - Math.max(index.getFirstRowNum(i), fromRow) + 1L;
+        }
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | IMMUTABLE | NONNULL | ORDERED;
+    }
+}
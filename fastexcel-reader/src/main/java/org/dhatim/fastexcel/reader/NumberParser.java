@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.math.BigDecimal;
+
+/**
+ * Parsing of the decimal numbers found in cell values, without intermediate objects when possible.
+ */
+final class NumberParser {
+
+    /**
+     * Largest integer such that all integers up to it are exactly representable as a double.
+     */
+    private static final long MAX_EXACT_DOUBLE_INTEGER = 1L << 53;
+
+    /**
+     * Powers of ten exactly representable as a double.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberParser() {
+    }
+
+    /**
+     * Parses a decimal number. Numbers whose significand fits in 53 bits and whose exponent is small are
+     * computed with a single correctly rounded multiplication or division (Clinger's fast path); others are
+     * handed over to {@link Double#parseDouble(String)}.
+     */
+    static double parseDouble(CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        long significand = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (significand > (MAX_EXACT_DOUBLE_INTEGER - 9) / 10) {
+                    return Double.parseDouble(s.toString());
+                }
+                significand = significand * 10 + (c - '0');
+                digits++;
+                if (point) {
+                    scale--;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(s.toString());
+        }
+        if (i < length) {
+            char c = s.charAt(i);
+            if (c != 'e' && c != 'E') {
+                return Double.parseDouble(s.toString());
+            }
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negativeExponent = s.charAt(i) == '-';
+                i++;
+            }
+            int exponent = 0;
+            int exponentDigits = 0;
+            for (; i < length; i++) {
+                c = s.charAt(i);
+                if (c < '0' || c > '9' || exponent > 1000) {
+                    return Double.parseDouble(s.toString());
+                }
+                exponent = exponent * 10 + (c - '0');
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return Double.parseDouble(s.toString());
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        double value;
+        if (significand == 0) {
+            value = 0;
+        } else if (scale >= 0 && scale < POWERS_OF_TEN.length) {
+            value = significand * POWERS_OF_TEN[scale];
+        } else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+            value = significand / POWERS_OF_TEN[-scale];
+        } else {
+            return Double.parseDouble(s.toString());
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses an integral number.
+     *
+     * @throws NumberFormatException if the number is not a valid number
+     * @throws ArithmeticException   if the number has a fractional part or does not fit in a long
+     */
+    static long parseLong(CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+            negative = s.charAt(0) == '-';
+            i++;
+        }
+        // 18 digits cannot overflow
+        if (length - i == 0 || length - i > 18) {
+            return new BigDecimal(s.toString()).longValueExact();
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return new BigDecimal(s.toString()).longValueExact();
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Checks the syntax of a number, accepting the same ASCII forms as {@link BigDecimal#BigDecimal(String)}:
+     * an optional sign, digits with an optional decimal point, and an optional exponent.
+     */
+    static boolean isDecimal(CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            i++;
+        }
+        int digits = 0;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i == length) {
+            return true;
+        }
+        char c = s.charAt(i++);
+        if (c != 'e' && c != 'E') {
+            return false;
+        }
+        if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            i++;
+        }
+        // keep the exponent well within the range accepted by BigDecimal
+        int exponentDigits = length - i;
+        if (exponentDigits == 0 || exponentDigits > 9) {
+            return false;
+        }
+        for (; i < length; i++) {
+            c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
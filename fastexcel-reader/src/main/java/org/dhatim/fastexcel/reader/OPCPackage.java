@@ -1,17 +1,21 @@
 package org.dhatim.fastexcel.reader;
 
-import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
 
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,7 +24,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 import static java.lang.String.format;
-import static org.dhatim.fastexcel.reader.DefaultXMLInputFactory.factory;
 
 class OPCPackage implements AutoCloseable {
     private static final Pattern filenameRegex = Pattern.compile("^(.*/)([^/]+)$");
@@ -56,33 +59,38 @@ class OPCPackage implements AutoCloseable {
         put("48", "##0.0E+0");
         put("49", "@");
     }};
-    private final ZipFile zip;
+    private final EntrySource source;
+    private final XMLInputFactory factory;
     private final Map<String, String> workbookPartsById;
     private final PartEntryNames parts;
     private final List<String> formatIdList;
     private Map<String, String> fmtIdToFmtString;
+    // formats of cellXfs, by style index
+    private final DataFormat[] dataFormats;
 
-    private OPCPackage(File zipFile) throws IOException {
-        this(zipFile, false);
+    private OPCPackage(File zipFile, ReadingOptions options) throws IOException {
+        this(new ZipFileEntrySource(new ZipFile(zipFile)), options);
     }
 
-    private OPCPackage(File zipFile, boolean withFormat) throws IOException {
-        this(new ZipFile(zipFile), withFormat);
+    private OPCPackage(SeekableByteChannel channel, ReadingOptions options) throws IOException {
+        this(new ZipFileEntrySource(new ZipFile(channel)), options);
     }
 
-    private OPCPackage(SeekableInMemoryByteChannel channel, boolean withStyle) throws IOException {
-        this(new ZipFile(channel), withStyle);
-    }
-
-    private OPCPackage(ZipFile zip, boolean withFormat) throws IOException {
+    private OPCPackage(EntrySource source, ReadingOptions options) throws IOException {
         try {
-            this.zip = zip;
+            this.source = source;
+            this.factory = DefaultXMLInputFactory.get(options);
             this.parts = extractPartEntriesFromContentTypes();
-            if (withFormat) {
+            if (options.isWithCellFormat()) {
                 this.formatIdList = extractFormat(parts.style);
             } else {
                 this.formatIdList = Collections.emptyList();
             }
+            this.dataFormats = new DataFormat[formatIdList.size()];
+            for (int i = 0; i < dataFormats.length; i++) {
+                String id = formatIdList.get(i);
+                dataFormats[i] = new DataFormat(id, fmtIdToFmtString.get(id));
+            }
             this.workbookPartsById = readWorkbookPartsIds(relsNameFor(parts.workbook));
         } catch (XMLStreamException e) {
             throw new IOException(e);
@@ -169,20 +177,64 @@ class OPCPackage implements AutoCloseable {
     }
 
     static OPCPackage open(File inputFile) throws IOException {
-        return open(inputFile, false);
+        return open(inputFile, ReadingOptions.DEFAULT_READING_OPTIONS);
     }
 
-    static OPCPackage open(File inputFile, boolean withFormat) throws IOException {
-        return new OPCPackage(inputFile, withFormat);
+    static OPCPackage open(File inputFile, ReadingOptions options) throws IOException {
+        return new OPCPackage(inputFile, options);
     }
 
     static OPCPackage open(InputStream inputStream) throws IOException {
-        return open(inputStream, false);
+        return open(inputStream, ReadingOptions.DEFAULT_READING_OPTIONS);
     }
 
-    static OPCPackage open(InputStream inputStream, boolean withFormat) throws IOException {
+    static OPCPackage open(InputStream inputStream, ReadingOptions options) throws IOException {
         byte[] compressedBytes = IOUtils.toByteArray(inputStream);
-        return new OPCPackage(new SeekableInMemoryByteChannel(compressedBytes), withFormat);
+        return new OPCPackage(new SeekableInMemoryByteChannel(compressedBytes), options);
+    }
+
+    static OPCPackage open(SeekableByteChannel channel, ReadingOptions options) throws IOException {
+        return new OPCPackage(channel, options);
+    }
+
+    /**
+     * Opens a package in a buffer, without copying it.
+     */
+    static OPCPackage open(ByteBuffer buffer, ReadingOptions options) throws IOException {
+        return new OPCPackage(new ByteBufferChannel(buffer), options);
+    }
+
+    /**
+     * Opens a file through a memory mapping. Files too large to be mapped at once are read through their channel.
+     */
+    static OPCPackage openMapped(Path path, ReadingOptions options) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() <= Integer.MAX_VALUE) {
+                // the mapping stays valid once the channel is closed
+                return open(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), options);
+            }
+        }
+        return open(FileChannel.open(path, StandardOpenOption.READ), options);
+    }
+
+    /**
+     * Opens a package read sequentially from the stream, see {@link StreamingEntrySource}.
+     */
+    static OPCPackage openStreaming(InputStream inputStream, ReadingOptions options) throws IOException {
+        StreamingEntrySource source = new StreamingEntrySource(inputStream);
+        try {
+            return new OPCPackage(source, options);
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a package on the given entries, which are closed with the package.
+     */
+    static OPCPackage open(EntrySource source, ReadingOptions options) throws IOException {
+        return new OPCPackage(source, options);
     }
 
     InputStream getSharedStrings() throws IOException {
@@ -190,30 +242,22 @@ class OPCPackage implements AutoCloseable {
     }
 
     private InputStream getEntryContent(String name) throws IOException {
+        return getEntryContent(name, false);
+    }
+
+    private InputStream getEntryContent(String name, boolean once) throws IOException {
         if (name == null) {
             return null;
         }
         if (name.startsWith("/")) {
             name = name.substring(1);
         }
-        ZipArchiveEntry entry = zip.getEntry(name);
-        if (entry == null) {
-            // to be case insensitive
-            Enumeration<ZipArchiveEntry> entries = zip.getEntries();
-            while (entries.hasMoreElements()) {
-                ZipArchiveEntry e = entries.nextElement();
-                if (e.getName().equalsIgnoreCase(name)) {
-                    return zip.getInputStream(e);
-                }
-            }
-            return null;
-        }
-        return zip.getInputStream(entry);
+        return source.getEntry(name, once);
     }
 
     @Override
     public void close() throws IOException {
-        zip.close();
+        source.close();
     }
 
     public InputStream getWorkbookContent() throws IOException {
@@ -221,13 +265,41 @@ class OPCPackage implements AutoCloseable {
     }
 
     public InputStream getSheetContent(Sheet sheet) throws IOException {
+        return getSheetContent(sheet, true);
+    }
+
+    /**
+     * @param once false if the content of the sheet is to be read again, which makes a streaming package keep it
+     */
+    InputStream getSheetContent(Sheet sheet, boolean once) throws IOException {
+        String name = getSheetEntryName(sheet);
+        return Optional.ofNullable(getEntryContent(name, once))
+                .orElseThrow(() -> new ExcelReaderException(name + " not found"));
+    }
+
+    /**
+     * @return checksum of the content of a sheet, as recorded in the archive if it is known, and otherwise computed
+     * by reading the sheet, which makes a streaming package keep it
+     */
+    EntryChecksum getSheetChecksum(Sheet sheet) throws IOException {
+        String name = getSheetEntryName(sheet);
+        EntryChecksum checksum = source.getChecksum(name.startsWith("/") ? name.substring(1) : name);
+        if (checksum != null) {
+            return checksum;
+        }
+        try (InputStream in = getSheetContent(sheet, false)) {
+            return EntryChecksum.of(in);
+        }
+    }
+
+    String getSheetEntryName(Sheet sheet) {
         String name = this.workbookPartsById.get(sheet.getId());
         if (name == null) {
             String msg = format("Sheet#%s '%s' is missing an entry in workbook rels (for id: '%s')",
                 sheet.getIndex(), sheet.getName(), sheet.getId());
             throw new ExcelReaderException(msg);
         }
-        return getRequiredEntryContent(name);
+        return name;
     }
 
     public List<String> getFormatList() {
@@ -238,6 +310,13 @@ class OPCPackage implements AutoCloseable {
         return fmtIdToFmtString;
     }
 
+    /**
+     * @return format of the given cellXfs index, or null if there is none
+     */
+    DataFormat getDataFormat(int styleIndex) {
+        return styleIndex >= 0 && styleIndex < dataFormats.length ? dataFormats[styleIndex] : null;
+    }
+
     private static class PartEntryNames {
         public static final String WORKBOOK_MAIN_CONTENT_TYPE =
                 "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml";
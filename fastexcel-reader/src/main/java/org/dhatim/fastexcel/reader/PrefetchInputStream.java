@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Input stream reading its source on a background thread.
+ * <p>
+ * The producer thread fills a fixed set of buffers that cycle between a queue of free buffers and a queue of
+ * filled ones, so reading (and inflating) the source overlaps with the work of the consumer while memory stays
+ * bounded. The producer is a virtual thread when the JVM supports them, a daemon platform thread otherwise.
+ */
+class PrefetchInputStream extends InputStream {
+
+    static final int BUFFER_COUNT = 4;
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Method START_VIRTUAL_THREAD = findStartVirtualThread();
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> free;
+    private final BlockingQueue<Chunk> filled;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean closed;
+
+    private Chunk current;
+    private int position;
+
+    PrefetchInputStream(InputStream source) {
+        this(source, BUFFER_COUNT, BUFFER_SIZE);
+    }
+
+    PrefetchInputStream(InputStream source, int bufferCount, int bufferSize) {
+        this.source = source;
+        this.free = new ArrayBlockingQueue<>(bufferCount + 1);
+        // one more slot than buffers for the end-of-stream marker
+        this.filled = new ArrayBlockingQueue<>(bufferCount + 1);
+        for (int i = 0; i < bufferCount; i++) {
+            free.add(new byte[bufferSize]);
+        }
+        start(this::produce);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (current == null) {
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            position = 0;
+        }
+        if (current.error != null) {
+            throw current.error instanceof IOException ? (IOException) current.error : new IOException(current.error);
+        } else if (current.length < 0) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current.buffer, position, b, off, n);
+        position += n;
+        if (position == current.length) {
+            free.add(current.buffer);
+            current = null;
+        }
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null || current.length < 0 ? 0 : current.length - position;
+    }
+
+    /**
+     * Stops the producer and closes the source once the producer is done with it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // wake the producer up if it is waiting for a free buffer
+        free.offer(new byte[0]);
+        filled.clear();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void produce() {
+        try (InputStream in = source) {
+            while (!closed) {
+                byte[] buffer = free.take();
+                if (closed) {
+                    break;
+                }
+                int length = readFully(in, buffer);
+                if (length > 0) {
+                    filled.put(new Chunk(buffer, length, null));
+                }
+                if (length < buffer.length) {
+                    filled.put(new Chunk(null, -1, null));
+                    break;
+                }
+            }
+        } catch (Throwable e) {
+            filled.offer(new Chunk(null, -1, e));
+        } finally {
+            done.countDown();
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int n = in.read(buffer, length, buffer.length - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+        return length;
+    }
+
+    private static void start(Runnable task) {
+        if (START_VIRTUAL_THREAD != null) {
+            try {
+                START_VIRTUAL_THREAD.invoke(null, task);
+                return;
+            } catch (ReflectiveOperationException e) {
+                // fall back to a platform thread
+            }
+        }
+        Thread thread = new Thread(task, "fastexcel-prefetch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static Method findStartVirtualThread() {
+        try {
+            return Thread.class.getMethod("startVirtualThread", Runnable.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static final class Chunk {
+        private final byte[] buffer;
+        private final int length;
+        private final Throwable error;
+
+        Chunk(byte[] buffer, int length, Throwable error) {
+            this.buffer = buffer;
+            this.length = length;
+            this.error = error;
+        }
+    }
+}
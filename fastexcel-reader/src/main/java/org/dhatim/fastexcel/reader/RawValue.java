@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.BitSet;
+
+/**
+ * View of the raw value of a cell, given to a row filter (see {@link ReadingOptions#withRowFilter(int,
+ * java.util.function.Predicate)}) before the cell is parsed.
+ * <p>
+ * The characters are those of the {@code <v>} element of the cell, or of its inline string: for a shared string,
+ * they are the index of the string in the shared strings table. A view is reused from one row to the next and is
+ * only valid during the call to the filter.
+ */
+public final class RawValue implements CharSequence {
+
+    private final ReadableWorkbook workbook;
+    private int column;
+    private String type;
+    private char[] chars;
+    private int start;
+    private int length;
+    private boolean present;
+
+    // results of textEquals for shared strings, for the last text compared
+    private String comparedText;
+    private final BitSet compared = new BitSet();
+    private final BitSet equal = new BitSet();
+
+    RawValue(ReadableWorkbook workbook) {
+        this.workbook = workbook;
+    }
+
+    void set(int column, String type, char[] chars, int start, int length) {
+        this.column = column;
+        this.type = type;
+        this.chars = chars;
+        this.start = start;
+        this.length = length;
+        this.present = true;
+    }
+
+    /**
+     * Sets the view to a cell missing from its row.
+     */
+    void setMissing(int column) {
+        this.column = column;
+        this.type = null;
+        this.length = 0;
+        this.present = false;
+    }
+
+    /**
+     * @return zero-based index of the column of the cell
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return false if the row has no cell in the column
+     */
+    public boolean isPresent() {
+        return present;
+    }
+
+    /**
+     * @return t attribute of the cell, "n" if absent, or null if the cell is missing
+     */
+    public String getType() {
+        return type;
+    }
+
+    public boolean isSharedString() {
+        return "s".equals(type);
+    }
+
+    /**
+     * @return index of the string in the shared strings table, or -1 if the cell is not a shared string
+     */
+    public int getSharedStringIndex() {
+        if (!isSharedString() || length == 0) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chars[start + i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    /**
+     * @return the text of the cell: the shared string it refers to, or its raw characters
+     */
+    public String getText() {
+        int index = getSharedStringIndex();
+        return index >= 0 ? sharedString(index) : toString();
+    }
+
+    /**
+     * Compares the text of the cell to the given text. A shared string is compared once per stream: the result is
+     * then found from its index.
+     */
+    public boolean textEquals(String text) {
+        int index = getSharedStringIndex();
+        if (index < 0) {
+            return contentEquals(text);
+        }
+        if (!text.equals(comparedText)) {
+            comparedText = text;
+            compared.clear();
+            equal.clear();
+        }
+        if (!compared.get(index)) {
+            compared.set(index);
+            equal.set(index, text.equals(sharedString(index)));
+        }
+        return equal.get(index);
+    }
+
+    private String sharedString(int index) {
+        try {
+            return workbook.getSharedStringsTable().getItemAt(index);
+        } catch (XMLStreamException e) {
+            throw new ExcelReaderException(e);
+        }
+    }
+
+    /**
+     * Compares the raw characters of the cell to the given ones, without copying them.
+     */
+    public boolean contentEquals(CharSequence s) {
+        if (s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[start + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return chars[start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return length == 0 ? "" : new String(chars, start, length);
+    }
+}
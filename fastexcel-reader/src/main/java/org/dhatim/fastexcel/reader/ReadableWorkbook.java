@@ -17,14 +17,19 @@ package org.dhatim.fastexcel.reader;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
-import static org.dhatim.fastexcel.reader.DefaultXMLInputFactory.factory;
 
 public class ReadableWorkbook implements Closeable {
 
@@ -41,7 +46,7 @@ public class ReadableWorkbook implements Closeable {
     }
 
     public ReadableWorkbook(File inputFile, ReadingOptions readingOptions) throws IOException {
-        this(OPCPackage.open(inputFile, readingOptions.isWithCellFormat()), readingOptions);
+        this(OPCPackage.open(inputFile, readingOptions), readingOptions);
     }
 
     /**
@@ -54,31 +59,87 @@ public class ReadableWorkbook implements Closeable {
 
     /**
      * Note: will load the whole xlsx file into memory,
-     * (but will not uncompress it in memory)
+     * (but will not uncompress it in memory), unless streaming is enabled
+     *
+     * @see ReadingOptions#withStreaming(boolean)
      */
     public ReadableWorkbook(InputStream inputStream, ReadingOptions readingOptions) throws IOException {
-        this(OPCPackage.open(inputStream, readingOptions.isWithCellFormat()), readingOptions);
+        this(readingOptions.isStreaming()
+                ? OPCPackage.openStreaming(inputStream, readingOptions)
+                : OPCPackage.open(inputStream, readingOptions), readingOptions);
+    }
+
+    /**
+     * Reads a workbook from a channel, which is closed with the workbook.
+     */
+    public ReadableWorkbook(SeekableByteChannel channel) throws IOException {
+        this(channel, ReadingOptions.DEFAULT_READING_OPTIONS);
+    }
+
+    /**
+     * Reads a workbook from a channel, which is closed with the workbook.
+     */
+    public ReadableWorkbook(SeekableByteChannel channel, ReadingOptions readingOptions) throws IOException {
+        this(OPCPackage.open(channel, readingOptions), readingOptions);
+    }
+
+    /**
+     * Reads a workbook from the remaining bytes of a buffer, e.g. a mapped file or shared memory, without copying
+     * them. The buffer must not be modified while the workbook is open.
+     */
+    public ReadableWorkbook(ByteBuffer buffer) throws IOException {
+        this(buffer, ReadingOptions.DEFAULT_READING_OPTIONS);
+    }
+
+    /**
+     * Reads a workbook from the remaining bytes of a buffer, e.g. a mapped file or shared memory, without copying
+     * them. The buffer must not be modified while the workbook is open.
+     */
+    public ReadableWorkbook(ByteBuffer buffer, ReadingOptions readingOptions) throws IOException {
+        this(OPCPackage.open(buffer, readingOptions), readingOptions);
+    }
+
+    /**
+     * Reads a workbook from a file mapped in memory.
+     */
+    public ReadableWorkbook(Path path) throws IOException {
+        this(path, ReadingOptions.DEFAULT_READING_OPTIONS);
+    }
+
+    /**
+     * Reads a workbook from a file mapped in memory.
+     */
+    public ReadableWorkbook(Path path, ReadingOptions readingOptions) throws IOException {
+        this(OPCPackage.openMapped(path, readingOptions), readingOptions);
     }
 
-    private ReadableWorkbook(OPCPackage pkg, ReadingOptions readingOptions) throws IOException {
+    ReadableWorkbook(OPCPackage pkg, ReadingOptions readingOptions) throws IOException {
 
         try {
             this.pkg = pkg;
-            sst = SST.fromInputStream(pkg.getSharedStrings());
+            sst = SST.fromInputStream(pkg.getSharedStrings(), readingOptions);
         } catch (XMLStreamException e) {
             throw new ExcelReaderException(e);
         }
-        try (SimpleXmlReader workbookReader = new SimpleXmlReader(factory, pkg.getWorkbookContent())) {
+        try (SimpleXmlReader workbookReader = new SimpleXmlReader(DefaultXMLInputFactory.get(readingOptions), pkg.getWorkbookContent())) {
             readWorkbook(workbookReader);
         } catch (XMLStreamException e) {
+            sst.close();
             throw new ExcelReaderException(e);
+        } catch (RuntimeException e) {
+            sst.close();
+            throw e;
         }
         this.readingOptions = readingOptions;
     }
 
     @Override
     public void close() throws IOException {
-        pkg.close();
+        try {
+            sst.close();
+        } finally {
+            pkg.close();
+        }
     }
 
     public boolean isDate1904() {
@@ -146,15 +207,194 @@ public class ReadableWorkbook implements Closeable {
     }
 
     Stream<Row> openStream(Sheet sheet) throws IOException {
+        return openStream(sheet, 1, Integer.MAX_VALUE);
+    }
+
+    Stream<Row> openStream(Sheet sheet, int fromRow, int toRow) throws IOException {
+        checkRowRange(fromRow, toRow);
+        boolean allRows = fromRow == 1 && toRow == Integer.MAX_VALUE;
+        BitSet columns = getProjectedColumns(sheet);
+        InputStream inputStream = openSheetContent(sheet);
         try {
-            InputStream inputStream = pkg.getSheetContent(sheet);
-            Stream<Row> stream = StreamSupport.stream(new RowSpliterator(this, inputStream), false);
+            Spliterator<Row> spliterator = readingOptions.isParallelReading() && allRows
+                    ? new ChunkedRowSpliterator(this, inputStream, readingOptions.getParallelChunkSize(), columns)
+                    : new RowSpliterator(this, inputStream, columns, fromRow, toRow);
+            Stream<Row> stream = StreamSupport.stream(spliterator, false);
             return stream.onClose(asUncheckedRunnable(inputStream));
+        } catch (XMLStreamException e) {
+            throw closeAfterFailure(inputStream, new IOException(e));
+        } catch (RuntimeException e) {
+            throw closeAfterFailure(inputStream, e);
+        }
+    }
+
+    Stream<Row> openStream(Sheet sheet, SheetIndex index, int fromRow, int toRow) {
+        checkRowRange(fromRow, toRow);
+        if (!sheet.getName().equals(index.getSheetName())) {
+            throw new IllegalArgumentException("Index of sheet '" + index.getSheetName()
+                    + "' cannot be used to read sheet '" + sheet.getName() + "'");
+        }
+        BitSet columns;
+        try {
+            EntryChecksum checksum = pkg.getSheetChecksum(sheet);
+            if (!checksum.equals(index.getChecksum())) {
+                throw new IllegalArgumentException("Index of sheet '" + sheet.getName() + "' was built from other "
+                        + "content (" + index.getChecksum() + ") than the sheet (" + checksum + ")");
+            }
+            columns = getProjectedColumns(sheet);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return StreamSupport.stream(new IndexedRowSpliterator(this, index, fromRow, toRow, columns), false);
+    }
+
+    private static void checkRowRange(int fromRow, int toRow) {
+        if (fromRow < 1) {
+            throw new IllegalArgumentException("Row numbers start at 1: " + fromRow);
+        } else if (toRow < fromRow) {
+            throw new IllegalArgumentException("Last row " + toRow + " is before first row " + fromRow);
+        }
+    }
+
+    /**
+     * @return the columns selected by the reading options, with header names resolved on the first row of the
+     * sheet, or null to read all columns
+     */
+    BitSet getProjectedColumns(Sheet sheet) throws IOException {
+        int[] columnIndexes = readingOptions.getColumnIndexes();
+        Set<String> columnNames = readingOptions.getColumnNames();
+        if (columnIndexes != null) {
+            BitSet columns = new BitSet();
+            for (int column : columnIndexes) {
+                columns.set(column);
+            }
+            return columns;
+        } else if (columnNames != null) {
+            BitSet columns = new BitSet();
+            try (InputStream inputStream = pkg.getSheetContent(sheet, false)) {
+                RowSpliterator rows = new RowSpliterator(this, inputStream);
+                rows.tryAdvance(header -> {
+                    for (Cell cell : header) {
+                        if (cell != null && columnNames.contains(cell.getText())) {
+                            columns.set(cell.getColumnIndex());
+                        }
+                    }
+                });
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+            return columns;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the dimension of a sheet, parsing it up to the start of its data only.
+     */
+    CellRangeAddress readDimension(Sheet sheet) throws IOException {
+        try (InputStream inputStream = pkg.getSheetContent(sheet, false);
+             SheetDataReader reader = SheetDataScanner.open(inputStream, readingOptions)) {
+            return reader.getDimension();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    SheetStatistics readStatistics(Sheet sheet) throws IOException {
+        try (InputStream inputStream = pkg.getSheetContent(sheet);
+             SheetDataReader reader = SheetDataScanner.open(inputStream, readingOptions)) {
+            return SheetStatistics.read(reader);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    ColumnAggregates aggregate(Sheet sheet, int[] columns, Set<Aggregator> aggregators) throws IOException {
+        try (InputStream inputStream = openSheetContent(sheet)) {
+            if (readingOptions.isParallelReading()) {
+                try (SheetChunker chunker = new SheetChunker(inputStream, readingOptions.getParallelChunkSize())) {
+                    if (chunker.isSplittable()) {
+                        return StreamSupport.stream(new SheetChunkSpliterator(chunker), true)
+                                .map(chunk -> {
+                                    try {
+                                        return aggregate(chunk.open(), columns, aggregators);
+                                    } catch (IOException e) {
+                                        throw new UncheckedIOException(e);
+                                    } catch (XMLStreamException e) {
+                                        throw new ExcelReaderException(e);
+                                    }
+                                })
+                                .reduce(ColumnAggregates::merge)
+                                .orElseGet(() -> new ColumnAggregates(columns, aggregators));
+                    }
+                    return aggregate(chunker.remaining(), columns, aggregators);
+                }
+            }
+            return aggregate(inputStream, columns, aggregators);
         } catch (XMLStreamException e) {
             throw new IOException(e);
         }
     }
 
+    private ColumnAggregates aggregate(InputStream inputStream, int[] columns, Set<Aggregator> aggregators)
+            throws IOException, XMLStreamException {
+        ColumnAggregates result = new ColumnAggregates(columns, aggregators);
+        try (SheetDataReader reader = SheetDataScanner.open(inputStream, readingOptions)) {
+            result.read(reader, RowFilter.of(this), readingOptions.isCellInErrorIfParseError());
+        }
+        return result;
+    }
+
+    RowBatchReader openBatchReader(Sheet sheet, int batchSize) throws IOException {
+        BitSet columns = getProjectedColumns(sheet);
+        InputStream inputStream = openSheetContent(sheet);
+        try {
+            return new RowBatchReader(this, inputStream, columns, batchSize);
+        } catch (XMLStreamException e) {
+            throw closeAfterFailure(inputStream, new IOException(e));
+        } catch (RuntimeException e) {
+            throw closeAfterFailure(inputStream, e);
+        }
+    }
+
+    RowCursor openCursor(Sheet sheet) throws IOException {
+        BitSet columns = getProjectedColumns(sheet);
+        InputStream inputStream = openSheetContent(sheet);
+        try {
+            return new RowCursor(this, inputStream, columns);
+        } catch (XMLStreamException e) {
+            throw closeAfterFailure(inputStream, new IOException(e));
+        } catch (RuntimeException e) {
+            throw closeAfterFailure(inputStream, e);
+        }
+    }
+
+    InputStream getSheetContent(Sheet sheet) throws IOException {
+        return pkg.getSheetContent(sheet);
+    }
+
+    /**
+     * @return name of the zip entry of a sheet, as found in the workbook relationships
+     */
+    String getSheetEntryName(Sheet sheet) {
+        return pkg.getSheetEntryName(sheet);
+    }
+
+    /**
+     * Opens the content of a sheet to be read once, prefetched on another thread if the reading options say so.
+     */
+    InputStream openSheetContent(Sheet sheet) throws IOException {
+        InputStream inputStream = pkg.getSheetContent(sheet);
+        if (!readingOptions.isPrefetching()) {
+            return inputStream;
+        }
+        try {
+            return new PrefetchInputStream(inputStream);
+        } catch (RuntimeException e) {
+            throw closeAfterFailure(inputStream, e);
+        }
+    }
+
     public List<String> getFormats() {
         return pkg.getFormatList();
     }
@@ -163,6 +403,10 @@ public class ReadableWorkbook implements Closeable {
         return pkg.getFmtIdToFmtString();
     }
 
+    DataFormat getDataFormat(int styleIndex) {
+        return pkg.getDataFormat(styleIndex);
+    }
+
     SST getSharedStringsTable() {
         return sst;
     }
@@ -179,6 +423,20 @@ public class ReadableWorkbook implements Closeable {
         return readingOptions;
     }
 
+    /**
+     * Closes a stream that could not be handed over, e.g. because the reader consuming it failed to start.
+     *
+     * @return the failure, to be thrown, with any failure to close as suppressed exception
+     */
+    private static <T extends Exception> T closeAfterFailure(Closeable c, T failure) {
+        try {
+            c.close();
+        } catch (IOException | RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+
     private static Runnable asUncheckedRunnable(Closeable c) {
         return () -> {
             try {
@@ -1,9 +1,44 @@
 package org.dhatim.fastexcel.reader;
 
+import javax.xml.stream.XMLInputFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
 public class ReadingOptions {
     public static final ReadingOptions DEFAULT_READING_OPTIONS = new ReadingOptions(false, false);
+    /**
+     * Default amount of uncompressed sheet XML handed to each worker in parallel reading mode.
+     */
+    public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 1024 * 1024;
+    /**
+     * Default number of decoded shared strings kept in memory when spooling shared strings.
+     */
+    public static final int DEFAULT_SHARED_STRINGS_CACHE_SIZE = 4096;
+    /**
+     * Default size of the buffer of the built-in sheet parser.
+     */
+    public static final int DEFAULT_SHEET_PARSER_BUFFER_SIZE = 64 * 1024;
+
     private final boolean withCellFormat;
     private final boolean cellInErrorIfParseError;
+    private boolean parallelReading;
+    private int parallelChunkSize = DEFAULT_PARALLEL_CHUNK_SIZE;
+    private boolean prefetching;
+    private boolean lazyNumbers;
+    private int[] columnIndexes;
+    private Set<String> columnNames;
+    private boolean builtinSheetParser = true;
+    private boolean spooledSharedStrings;
+    private int sharedStringsCacheSize = DEFAULT_SHARED_STRINGS_CACHE_SIZE;
+    private boolean expandSharedFormulas = true;
+    private boolean streaming;
+    private int rowFilterColumn = -1;
+    private Predicate<RawValue> rowFilter;
+    private XMLInputFactory xmlInputFactory;
+    private int sheetParserBufferSize = DEFAULT_SHEET_PARSER_BUFFER_SIZE;
 
     /**
      * @param withCellFormat          If true, extract cell formatting
@@ -15,6 +50,26 @@ public class ReadingOptions {
         this.cellInErrorIfParseError = cellInErrorIfParseError;
     }
 
+    private ReadingOptions(ReadingOptions other) {
+        this.withCellFormat = other.withCellFormat;
+        this.cellInErrorIfParseError = other.cellInErrorIfParseError;
+        this.parallelReading = other.parallelReading;
+        this.parallelChunkSize = other.parallelChunkSize;
+        this.prefetching = other.prefetching;
+        this.lazyNumbers = other.lazyNumbers;
+        this.columnIndexes = other.columnIndexes;
+        this.columnNames = other.columnNames;
+        this.builtinSheetParser = other.builtinSheetParser;
+        this.spooledSharedStrings = other.spooledSharedStrings;
+        this.sharedStringsCacheSize = other.sharedStringsCacheSize;
+        this.expandSharedFormulas = other.expandSharedFormulas;
+        this.streaming = other.streaming;
+        this.rowFilterColumn = other.rowFilterColumn;
+        this.rowFilter = other.rowFilter;
+        this.xmlInputFactory = other.xmlInputFactory;
+        this.sheetParserBufferSize = other.sheetParserBufferSize;
+    }
+
     /**
      * @return true for extract cell formatting
      */
@@ -29,4 +84,334 @@ public class ReadingOptions {
     public boolean isCellInErrorIfParseError() {
         return cellInErrorIfParseError;
     }
+
+    /**
+     * Enable or disable parallel reading. When enabled, the thread consuming a sheet stream inflates the sheet
+     * and cuts it into chunks of whole rows, which a parallel stream parses on worker threads while preserving
+     * encounter order.
+     *
+     * @param parallelReading If true, sheet streams can be split for parallel processing
+     * @return a copy of these options with the given parallel reading mode
+     */
+    public ReadingOptions withParallelReading(boolean parallelReading) {
+        ReadingOptions options = new ReadingOptions(this);
+        options.parallelReading = parallelReading;
+        return options;
+    }
+
+    /**
+     * @param parallelChunkSize Approximate number of uncompressed bytes of sheet XML in each chunk
+     * @return a copy of these options with the given chunk size for parallel reading
+     */
+    public ReadingOptions withParallelChunkSize(int parallelChunkSize) {
+        if (parallelChunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + parallelChunkSize);
+        }
+        ReadingOptions options = new ReadingOptions(this);
+        options.parallelChunkSize = parallelChunkSize;
+        return options;
+    }
+
+    /**
+     * @return true if sheet streams can be split for parallel processing
+     */
+    public boolean isParallelReading() {
+        return parallelReading;
+    }
+
+    /**
+     * @return approximate number of uncompressed bytes of sheet XML in each chunk in parallel reading mode
+     */
+    public int getParallelChunkSize() {
+        return parallelChunkSize;
+    }
+
+    /**
+     * Enable or disable prefetching. When enabled, sheet content is read and inflated on a background thread
+     * (a virtual thread where available), so that decompression overlaps with XML parsing. Memory used for
+     * prefetched data is bounded.
+     *
+     * @param prefetching If true, inflate sheets on a background thread
+     * @return a copy of these options with the given prefetching mode
+     */
+    public ReadingOptions withPrefetching(boolean prefetching) {
+        ReadingOptions options = new ReadingOptions(this);
+        options.prefetching = prefetching;
+        return options;
+    }
+
+    /**
+     * @return true if sheets are inflated on a background thread
+     */
+    public boolean isPrefetching() {
+        return prefetching;
+    }
+
+    /**
+     * Enable or disable lazy decoding of numbers. When enabled, numeric cells only keep their raw value, which is
+     * checked but not converted while reading: the {@link java.math.BigDecimal} is built on the first call to
+     * {@link Cell#asNumber()} or {@link Cell#getValue()}, and {@link Cell#asDouble()}, {@link Cell#asLong()}
+     * and {@link Cell#asInt()} never build it.
+     *
+     * @param lazyNumbers If true, defer the conversion of numeric cell values
+     * @return a copy of these options with the given number decoding mode
+     */
+    public ReadingOptions withLazyNumbers(boolean lazyNumbers) {
+        ReadingOptions options = new ReadingOptions(this);
+        options.lazyNumbers = lazyNumbers;
+        return options;
+    }
+
+    /**
+     * @return true if numeric cell values are converted on first access
+     */
+    public boolean isLazyNumbers() {
+        return lazyNumbers;
+    }
+
+    /**
+     * Read only some columns. Cells of other columns are skipped without being parsed, so rows keep their
+     * cells at their column index, and other columns are null. This replaces a projection by column names.
+     *
+     * @param columnIndexes zero-based indexes of the columns to read
+     * @return a copy of these options reading only the given columns
+     */
+    public ReadingOptions withColumnIndexes(int... columnIndexes) {
+        for (int column : columnIndexes) {
+            if (column < 0) {
+                throw new IllegalArgumentException("Column index must not be negative: " + column);
+            }
+        }
+        ReadingOptions options = new ReadingOptions(this);
+        options.columnIndexes = columnIndexes.clone();
+        options.columnNames = null;
+        return options;
+    }
+
+    /**
+     * Read only the columns whose header, in the first row of each sheet, has one of the given texts. Names that
+     * are not found are ignored. This replaces a projection by column indexes.
+     *
+     * @param columnNames headers of the columns to read
+     * @return a copy of these options reading only the given columns
+     * @see #withColumnIndexes(int...)
+     */
+    public ReadingOptions withColumnNames(String... columnNames) {
+        ReadingOptions options = new ReadingOptions(this);
+        options.columnIndexes = null;
+        options.columnNames = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(columnNames)));
+        return options;
+    }
+
+    /**
+     * @return zero-based indexes of the columns to read, or null if not projecting by index
+     */
+    public int[] getColumnIndexes() {
+        return columnIndexes == null ? null : columnIndexes.clone();
+    }
+
+    /**
+     * @return headers of the columns to read, or null if not projecting by name
+     */
+    public Set<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Choose how sheet data is parsed. By default, rows and cells are read by a scanner working directly on the
+     * UTF-8 bytes of the sheet, which falls back to StAX for sheets in other encodings or with a document type
+     * declaration. Disabling it parses all sheets with StAX.
+     *
+     * @param builtinSheetParser If false, always parse sheet data with StAX
+     * @return a copy of these options with the given sheet parser
+     */
+    public ReadingOptions withBuiltinSheetParser(boolean builtinSheetParser) {
+        ReadingOptions options = new ReadingOptions(this);
+        options.builtinSheetParser = builtinSheetParser;
+        return options;
+    }
+
+    /**
+     * @return true if sheet data is parsed by the built-in byte scanner
+     */
+    public boolean isBuiltinSheetParser() {
+        return builtinSheetParser;
+    }
+
+    /**
+     * Enable or disable spooling of shared strings. When enabled, the shared strings table is stored as UTF-8 in a
+     * memory-mapped temporary file rather than on the heap, and strings are decoded on access, with a bounded cache
+     * of the most recently used ones. This lets workbooks with millions of distinct strings be read with a small
+     * heap. The temporary file is deleted when the workbook is closed.
+     *
+     * @param spooledSharedStrings If true, keep shared strings in a temporary file
+     * @return a copy of these options with the given shared strings storage
+     */
+    public ReadingOptions withSpooledSharedStrings(boolean spooledSharedStrings) {
+        ReadingOptions options = new ReadingOptions(this);
+        options.spooledSharedStrings = spooledSharedStrings;
+        return options;
+    }
+
+    /**
+     * @param sharedStringsCacheSize Number of decoded shared strings kept in memory when spooling shared strings
+     * @return a copy of these options with the given cache size
+     */
+    public ReadingOptions withSharedStringsCacheSize(int sharedStringsCacheSize) {
+        if (sharedStringsCacheSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + sharedStringsCacheSize);
+        }
+        ReadingOptions options = new ReadingOptions(this);
+        options.sharedStringsCacheSize = sharedStringsCacheSize;
+        return options;
+    }
+
+    /**
+     * @return true if shared strings are kept in a temporary file
+     */
+    public boolean isSpooledSharedStrings() {
+        return spooledSharedStrings;
+    }
+
+    /**
+     * @return number of decoded shared strings kept in memory when spooling shared strings
+     */
+    public int getSharedStringsCacheSize() {
+        return sharedStringsCacheSize;
+    }
+
+    /**
+     * Enable or disable the expansion of shared formulas. By default, each cell of a shared formula range gets its
+     * own formula, with references shifted from the formula of the base cell. When disabled, cells get the formula
+     * of the base cell unchanged, and {@link Cell#getSharedFormulaBase()} gives the offset to apply.
+     *
+     * @param expandSharedFormulas If false, do not shift references of shared formulas
+     * @return a copy of these options with the given shared formula mode
+     */
+    public ReadingOptions withExpandSharedFormulas(boolean expandSharedFormulas) {
+        ReadingOptions options = new ReadingOptions(this);
+        options.expandSharedFormulas = expandSharedFormulas;
+        return options;
+    }
+
+    /**
+     * @return true if cells of shared formula ranges get their own shifted formula
+     */
+    public boolean isExpandSharedFormulas() {
+        return expandSharedFormulas;
+    }
+
+    /**
+     * Enable or disable streaming of workbooks read from an {@link java.io.InputStream}. By default, the whole
+     * compressed file is loaded in memory. When enabled, the zip archive is read sequentially, so that memory use
+     * does not depend on the size of the file: XML parts stored before the ones needed, such as sheets stored before
+     * the shared strings, are kept in memory while small and spilled to temporary files otherwise, and a sheet
+     * stored after them is parsed directly from the stream. Such a sheet can only be read once, and while it is
+     * being read, no other sheet can be opened. Temporary files are deleted when the workbook is closed.
+     *
+     * @param streaming If true, read workbooks from input streams sequentially
+     * @return a copy of these options with the given streaming mode
+     */
+    public ReadingOptions withStreaming(boolean streaming) {
+        ReadingOptions options = new ReadingOptions(this);
+        options.streaming = streaming;
+        return options;
+    }
+
+    /**
+     * @return true if workbooks are read sequentially from input streams
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Read only the rows whose cell in the given column matches a predicate. The predicate is called with the raw
+     * value of the cell as soon as the cell is reached, and when it rejects the row, the rest of the row is skipped
+     * without being parsed. It is also called, with a value that is not present, for rows without a cell in the
+     * column. The header row is filtered like other rows.
+     * <p>
+     * The filter applies to every reader of the rows of a sheet: its streams and publishers,
+     * {@link Sheet#openCursor()}, {@link Sheet#openBatchReader(int)}, {@link Sheet#aggregate(int[], Aggregator...)}
+     * and {@link CsvConverter}. {@link Sheet#readStatistics()} still describes the whole sheet, and the header row
+     * used to resolve {@link #withColumnNames(String...) column names} is read unfiltered.
+     * <p>
+     * For instance, {@code withRowFilter(2, v -> v.textEquals("OPEN"))} reads the rows whose third column holds
+     * "OPEN", comparing each distinct shared string once.
+     *
+     * @param column zero-based index of the column holding the filtered value
+     * @param filter predicate on the raw value of the cell, or null to read all rows
+     * @return a copy of these options with the given row filter
+     */
+    public ReadingOptions withRowFilter(int column, Predicate<RawValue> filter) {
+        if (column < 0) {
+            throw new IllegalArgumentException("Column index must not be negative: " + column);
+        }
+        ReadingOptions options = new ReadingOptions(this);
+        options.rowFilterColumn = filter == null ? -1 : column;
+        options.rowFilter = filter;
+        return options;
+    }
+
+    /**
+     * @return zero-based index of the column holding the filtered value, or -1 if rows are not filtered
+     */
+    public int getRowFilterColumn() {
+        return rowFilterColumn;
+    }
+
+    /**
+     * @return predicate on the raw value of the filtered column, or null if rows are not filtered
+     */
+    public Predicate<RawValue> getRowFilter() {
+        return rowFilter;
+    }
+
+    /**
+     * Choose the StAX implementation used to read the parts of workbooks, and the sheets not read by the built-in
+     * sheet parser (see {@link #withBuiltinSheetParser(boolean)}). By default, Aalto is used. The factory must
+     * support neither DTDs nor external entities, as the factories of {@link DefaultXMLInputFactory} do, and must not
+     * be reconfigured while workbooks are being read. It is not modified.
+     *
+     * @param xmlInputFactory factory, e.g. from {@link DefaultXMLInputFactory}, or null for the default one
+     * @return a copy of these options with the given StAX implementation
+     * @throws IllegalArgumentException if the factory supports DTDs or external entities
+     */
+    public ReadingOptions withXMLInputFactory(XMLInputFactory xmlInputFactory) {
+        if (xmlInputFactory != null && !DefaultXMLInputFactory.isSecure(xmlInputFactory)) {
+            throw new IllegalArgumentException("The XML input factory must support neither DTDs nor external "
+                    + "entities, set " + XMLInputFactory.SUPPORT_DTD + " and "
+                    + XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES + " to false");
+        }
+        ReadingOptions options = new ReadingOptions(this);
+        options.xmlInputFactory = xmlInputFactory;
+        return options;
+    }
+
+    /**
+     * @return the StAX factory used to read workbooks, or null for the default one
+     */
+    public XMLInputFactory getXMLInputFactory() {
+        return xmlInputFactory;
+    }
+
+    /**
+     * @param sheetParserBufferSize Size in bytes of the buffer of the built-in sheet parser
+     * @return a copy of these options with the given buffer size
+     */
+    public ReadingOptions withSheetParserBufferSize(int sheetParserBufferSize) {
+        if (sheetParserBufferSize < 1024) {
+            throw new IllegalArgumentException("Buffer size must be at least 1024: " + sheetParserBufferSize);
+        }
+        ReadingOptions options = new ReadingOptions(this);
+        options.sheetParserBufferSize = sheetParserBufferSize;
+        return options;
+    }
+
+    /**
+     * @return size in bytes of the buffer of the built-in sheet parser
+     */
+    public int getSheetParserBufferSize() {
+        return sheetParserBufferSize;
+    }
 }
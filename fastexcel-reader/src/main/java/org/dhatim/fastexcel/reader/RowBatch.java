@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.util.Arrays;
+
+/**
+ * Consecutive rows of a sheet stored by column, filled by a {@link RowBatchReader} and reused from one batch to
+ * the next. Rows are identified by their position in the batch, from 0 to {@link #getSize()} excluded.
+ * <p>
+ * A batch is not thread-safe.
+ */
+public final class RowBatch {
+
+    private final ReadableWorkbook workbook;
+    private final int capacity;
+    private final int[] rowNums;
+    private ColumnVector[] columns = new ColumnVector[0];
+    private int columnCount;
+    private int size;
+
+    RowBatch(ReadableWorkbook workbook, int capacity) {
+        this.workbook = workbook;
+        this.capacity = capacity;
+        this.rowNums = new int[capacity];
+    }
+
+    /**
+     * @return number of rows in the batch
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return maximum number of rows in the batch
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param row position of the row in the batch
+     * @return number of the row in the sheet, starting at 1
+     */
+    public int getRowNum(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of batch of size " + size);
+        }
+        return rowNums[row];
+    }
+
+    /**
+     * @return one more than the index of the last column holding a cell in the batches read so far
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @param column zero-based index of the column in the sheet
+     * @return values of the column, all null if the column holds no cell
+     */
+    public ColumnVector getColumn(int column) {
+        if (column < 0) {
+            throw new IllegalArgumentException("Column index must not be negative: " + column);
+        }
+        return vector(column);
+    }
+
+    /**
+     * @return vector of a column in which a cell is stored
+     */
+    ColumnVector cellVector(int column) {
+        columnCount = Math.max(columnCount, column + 1);
+        return vector(column);
+    }
+
+    private ColumnVector vector(int column) {
+        if (column >= columns.length) {
+            columns = Arrays.copyOf(columns, Math.max(column + 1, columns.length * 2));
+        }
+        ColumnVector vector = columns[column];
+        if (vector == null) {
+            vector = new ColumnVector(workbook, column, capacity);
+            columns[column] = vector;
+        }
+        return vector;
+    }
+
+    void clear() {
+        for (ColumnVector vector : columns) {
+            if (vector != null) {
+                vector.clear(size);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * @return position of the added row
+     */
+    int addRow(int rowNum) {
+        rowNums[size] = rowNum;
+        return size++;
+    }
+
+    /**
+     * Removes the last added row.
+     */
+    void removeLastRow() {
+        size--;
+        for (ColumnVector vector : columns) {
+            if (vector != null) {
+                vector.clearRow(size);
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+
+/**
+ * Reader of the rows of a sheet by batches stored by column, see {@link Sheet#openBatchReader(int)}.
+ * <p>
+ * Cells are parsed from the characters of the sheet into the vectors of the batch: no {@link Row} or {@link Cell}
+ * is created, and shared strings are kept as indexes in the shared strings table. The same {@link RowBatch} is
+ * refilled by each call to {@link #nextBatch()}.
+ * <p>
+ * A reader is not thread-safe.
+ */
+public class RowBatchReader implements Closeable {
+
+    private final ReadableWorkbook workbook;
+    private final InputStream inputStream;
+    private final SheetDataReader r;
+    private final BitSet columns;
+    // columns whose values are decoded, including the filtered column, or null for all columns
+    private final BitSet decodedColumns;
+    private final RowFilter filter;
+    private final RowBatch batch;
+    private final CharArrayView value = new CharArrayView();
+    private int trackedRowIndex;
+    private boolean done;
+
+    RowBatchReader(ReadableWorkbook workbook, InputStream inputStream, BitSet columns, int batchSize)
+            throws XMLStreamException {
+        this.workbook = workbook;
+        this.inputStream = inputStream;
+        this.r = SheetDataScanner.open(inputStream, workbook.getReadingOptions());
+        this.columns = columns;
+        this.filter = RowFilter.of(workbook);
+        this.decodedColumns = filter == null ? columns : filter.decodedColumns(columns);
+        this.batch = new RowBatch(workbook, batchSize);
+    }
+
+    /**
+     * @return the batch filled by {@link #nextBatch()}
+     */
+    public RowBatch getBatch() {
+        return batch;
+    }
+
+    /**
+     * Fills the batch with the next rows of the sheet, skipping the rows rejected by the row filter of the reading
+     * options.
+     *
+     * @return false if there are no more rows, the batch is then empty
+     */
+    public boolean nextBatch() {
+        batch.clear();
+        try {
+            while (!done && batch.getSize() < batch.getCapacity()) {
+                if (r.nextRow()) {
+                    readRow();
+                } else {
+                    done = true;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new ExcelReaderException(e);
+        }
+        return batch.getSize() > 0;
+    }
+
+    private void readRow() throws XMLStreamException {
+        trackedRowIndex = r.getRowNum() >= 0 ? r.getRowNum() : trackedRowIndex + 1;
+        int row = batch.addRow(trackedRowIndex);
+        int trackedColIndex = 0;
+        if (filter != null) {
+            filter.startRow();
+        }
+        while (decodedColumns == null ? r.nextCell() : r.nextCell(decodedColumns)) {
+            int column = r.getCellColumn() >= 0 ? r.getCellColumn() : trackedColIndex;
+            trackedColIndex = column + 1;
+            if (filter != null && !filter.test(r, column)) {
+                while (r.nextCellSkippingValue()) {
+                    // skipping the rest of the row
+                }
+                batch.removeLastRow();
+                return;
+            }
+            if (columns == null || columns.get(column)) {
+                readCell(batch.cellVector(column), row);
+            }
+        }
+        if (filter != null && !filter.testEnd()) {
+            batch.removeLastRow();
+        }
+    }
+
+    private void readCell(ColumnVector vector, int row) {
+        String type = r.getCellType();
+        if ("inlineStr".equals(type)) {
+            if (r.hasInlineString()) {
+                vector.setString(row, r.getInlineString());
+            }
+            return;
+        } else if (!r.hasValue() || r.getValueLength() == 0) {
+            return;
+        }
+        value.set(r.getChars(), r.getValueStart(), r.getValueLength());
+        switch (type) {
+            case "s":
+                vector.setSharedString(row, parseSharedStringIndex());
+                break;
+            case "str":
+                vector.setString(row, value.toString());
+                break;
+            case "b":
+                if (value.length() != 1 || value.charAt(0) != '0' && value.charAt(0) != '1') {
+                    throw new ExcelReaderException("Invalid boolean cell value: '" + value + "'. Expecting '0' or '1'.");
+                }
+                vector.setBoolean(row, value.charAt(0) == '1');
+                break;
+            case "e":
+                vector.setError(row, value.toString());
+                break;
+            default:
+                readNumber(vector, row);
+        }
+    }
+
+    private void readNumber(ColumnVector vector, int row) {
+        double d;
+        try {
+            d = NumberParser.parseDouble(value);
+        } catch (NumberFormatException e) {
+            if (workbook.getReadingOptions().isCellInErrorIfParseError()) {
+                vector.setError(row, value.toString());
+                return;
+            }
+            throw new ExcelReaderException("Cannot parse number : " + value, e);
+        }
+        DataFormat dataFormat = r.getCellStyle() >= 0 ? workbook.getDataFormat(r.getCellStyle()) : null;
+        if (dataFormat != null && dataFormat.isDate()) {
+            long millis = Cell.toLocalDateTime(d, workbook.isDate1904()).toInstant(ZoneOffset.UTC).toEpochMilli();
+            vector.setDate(row, d, millis);
+        } else {
+            vector.setNumber(row, d);
+        }
+    }
+
+    private int parseSharedStringIndex() {
+        try {
+            return Math.toIntExact(NumberParser.parseLong(value));
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new ExcelReaderException("Invalid shared string index : " + value, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            r.close();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
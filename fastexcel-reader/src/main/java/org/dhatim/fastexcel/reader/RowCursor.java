@@ -0,0 +1,397 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * Cursor over the rows of a sheet, reusing its buffers from one row to the next.
+ * <p>
+ * Unlike {@link Sheet#openStream()}, no {@link Row} or {@link Cell} is created: values of the current row are
+ * read by column index, and numbers are parsed from the characters of the sheet. The sheet is read with the same
+ * parser as {@link Sheet#openStream()}, as chosen by {@link ReadingOptions#withBuiltinSheetParser(boolean)}. Character sequences returned by
+ * {@link #getCharSequence(int)} are only valid until the next call to {@link #nextRow()}.
+ * <p>
+ * Formula cells report their cached value; their formula text is not read. Values are only checked when they are
+ * accessed, so a malformed number causes an {@link ExcelReaderException} in {@link #getDouble(int)} rather than
+ * when reading the row.
+ * <p>
+ * A cursor is not thread-safe.
+ */
+public class RowCursor implements Closeable {
+
+    private final ReadableWorkbook workbook;
+    private final InputStream inputStream;
+    private final SheetDataReader r;
+    private final BitSet columns;
+    // columns whose values are decoded, including the filtered column, or null for all columns
+    private final BitSet decodedColumns;
+    private final RowFilter filter;
+    private final ArrayFormulas arrayFormulas = new ArrayFormulas();
+
+    private boolean done;
+    private int trackedRowIndex;
+    private int rowNum;
+    private boolean hidden;
+    private int cellCount;
+
+    // cells of the current row are those whose stamp is the current row stamp, none before the first row
+    private int rowStamp = 1;
+    private int[] stamps = new int[16];
+    private CellType[] types = new CellType[16];
+    private int[] sstIndexes = new int[16];
+    private int[] starts = new int[16];
+    private int[] lengths = new int[16];
+    private CharView[] views = new CharView[16];
+    private char[] chars = new char[1024];
+    private int charCount;
+
+    RowCursor(ReadableWorkbook workbook, InputStream inputStream, BitSet columns) throws XMLStreamException {
+        this.workbook = workbook;
+        this.inputStream = inputStream;
+        this.r = SheetDataScanner.open(inputStream, workbook.getReadingOptions());
+        this.columns = columns;
+        this.filter = RowFilter.of(workbook);
+        this.decodedColumns = filter == null ? columns : filter.decodedColumns(columns);
+    }
+
+    /**
+     * Moves to the next row of the sheet, skipping the rows rejected by the row filter of the reading options.
+     *
+     * @return false if there are no more rows
+     */
+    public boolean nextRow() {
+        if (done) {
+            return false;
+        }
+        try {
+            while (r.nextRow()) {
+                if (readRow()) {
+                    return true;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new ExcelReaderException(e);
+        }
+        done = true;
+        return false;
+    }
+
+    /**
+     * @return number of the current row, starting at 1
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public boolean isHidden() {
+        return hidden;
+    }
+
+    /**
+     * @return one more than the index of the last cell of the current row
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * @param col zero-based column index
+     * @return true if the current row has a cell in this column
+     */
+    public boolean hasCell(int col) {
+        return col >= 0 && col < stamps.length && stamps[col] == rowStamp;
+    }
+
+    /**
+     * @param col zero-based column index
+     * @return type of the cell in this column of the current row, or null if there is no cell
+     */
+    public CellType cellType(int col) {
+        return hasCell(col) ? types[col] : null;
+    }
+
+    /**
+     * @param col zero-based column index
+     * @return text of the cell, an empty sequence if there is no cell
+     */
+    public CharSequence getCharSequence(int col) {
+        if (!hasCell(col)) {
+            return "";
+        } else if (sstIndexes[col] >= 0) {
+            try {
+                String s = workbook.getSharedStringsTable().getItemAt(sstIndexes[col]);
+                return s == null ? "" : s;
+            } catch (XMLStreamException e) {
+                throw new ExcelReaderException(e);
+            }
+        }
+        CharView view = views[col];
+        if (view == null) {
+            view = new CharView();
+            views[col] = view;
+        }
+        view.start = starts[col];
+        view.length = lengths[col];
+        return view;
+    }
+
+    /**
+     * @param col zero-based column index
+     * @throws ExcelReaderException if the cell is missing, empty, or not numerical
+     */
+    public double getDouble(int col) {
+        CharSequence s = requireNumber(col);
+        try {
+            return NumberParser.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new ExcelReaderException("Cannot convert " + s + " to double", e);
+        }
+    }
+
+    /**
+     * @param col zero-based column index
+     * @throws ExcelReaderException if the cell is missing, empty, not numerical, or not an integer in the range
+     *                              of long
+     */
+    public long getLong(int col) {
+        CharSequence s = requireNumber(col);
+        try {
+            return NumberParser.parseLong(s);
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new ExcelReaderException("Cannot convert " + s + " to long", e);
+        }
+    }
+
+    /**
+     * @param col zero-based column index
+     * @throws ExcelReaderException if the cell is missing, empty, not boolean, or its value is not 0 or 1
+     */
+    public boolean getBoolean(int col) {
+        if (cellType(col) != CellType.BOOLEAN) {
+            throw new ExcelReaderException("Wrong cell type " + cellType(col) + ", wanted " + CellType.BOOLEAN);
+        }
+        CharSequence s = getCharSequence(col);
+        if (s.length() == 1 && (s.charAt(0) == '0' || s.charAt(0) == '1')) {
+            return s.charAt(0) == '1';
+        }
+        throw new ExcelReaderException("Invalid boolean cell value: '" + s + "'. Expecting '0' or '1'.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            r.close();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private CharSequence requireNumber(int col) {
+        CellType type = cellType(col);
+        if (type != CellType.NUMBER && type != CellType.FORMULA) {
+            throw new ExcelReaderException("Wrong cell type " + type + ", wanted " + CellType.NUMBER);
+        }
+        CharSequence s = getCharSequence(col);
+        if (s.length() == 0) {
+            throw new ExcelReaderException("Empty cell " + CellAddress.format(rowNum - 1, col));
+        }
+        return s;
+    }
+
+    /**
+     * @return false if the row filter rejects the row
+     */
+    private boolean readRow() throws XMLStreamException {
+        rowStamp++;
+        cellCount = 0;
+        charCount = 0;
+        rowNum = r.getRowNum() >= 0 ? r.getRowNum() : trackedRowIndex + 1;
+        hidden = r.isRowHidden();
+        int trackedColIndex = 0;
+        if (filter != null) {
+            filter.startRow();
+        }
+        while (decodedColumns == null ? r.nextCell() : r.nextCell(decodedColumns)) {
+            int col = r.getCellColumn() >= 0 ? r.getCellColumn() : trackedColIndex;
+            trackedColIndex = col + 1;
+            if (filter != null && !filter.test(r, col)) {
+                readFormula();
+                while (r.nextCellSkippingValue()) {
+                    readFormula();
+                }
+                trackedRowIndex++;
+                return false;
+            }
+            if (columns != null && !columns.get(col)) {
+                // a cell outside of the column projection may still define an array formula for other cells
+                readFormula();
+            } else {
+                readCell(col);
+            }
+        }
+        trackedRowIndex++;
+        return filter == null || filter.testEnd();
+    }
+
+    /**
+     * Copies the cell the reader is on into the buffers of the row.
+     */
+    private void readCell(int col) {
+        CellType type = CellType.NUMBER;
+        boolean sharedString = false;
+        String t = r.getCellType();
+        switch (t) {
+            case "b":
+                type = CellType.BOOLEAN;
+                break;
+            case "e":
+                type = CellType.ERROR;
+                break;
+            case "str":
+                type = CellType.FORMULA;
+                break;
+            case "s":
+                sharedString = true;
+                type = CellType.STRING;
+                break;
+            case "inlineStr":
+                type = CellType.STRING;
+                break;
+            case "n":
+                break;
+            default:
+                throw new IllegalStateException("Unknown cell type : " + t);
+        }
+        ensureColumn(col);
+        int start = charCount;
+        boolean hasValue = r.hasValue() || r.hasInlineString();
+        if (r.hasValue()) {
+            appendChars(r.getValueStart(), r.getValueLength());
+        }
+        if (r.hasInlineString()) {
+            appendChars(r.getInlineStringStart(), r.getInlineStringLength());
+        }
+        int length = charCount - start;
+        int sstIndex = -1;
+        if (sharedString && length > 0) {
+            sstIndex = parseIndex(start, length);
+        }
+        boolean hasFormula = r.hasFormula();
+        if (hasFormula) {
+            readFormula();
+        } else if (isInArrayFormula(rowNum - 1, col)) {
+            hasFormula = true;
+        }
+        if (hasFormula) {
+            type = CellType.FORMULA;
+        } else if (type == CellType.NUMBER && (!hasValue || length == 0)) {
+            type = CellType.EMPTY;
+        }
+        stamps[col] = rowStamp;
+        types[col] = type;
+        sstIndexes[col] = sstIndex;
+        starts[col] = start;
+        lengths[col] = length;
+        cellCount = Math.max(cellCount, col + 1);
+    }
+
+    /**
+     * Records the range of the array formula defined by the current cell, if any.
+     */
+    private void readFormula() {
+        if (r.hasFormula() && "array".equals(r.getFormulaType()) && r.getFormulaRef() != null) {
+            arrayFormulas.put(CellRangeAddress.valueOf(r.getFormulaRef()), "");
+        }
+    }
+
+    private boolean isInArrayFormula(int row, int col) {
+        return arrayFormulas.get(row, col) != null;
+    }
+
+    /**
+     * Appends characters of the current cell to the character buffer of the row, since the reader reuses its
+     * buffer for the next cell.
+     */
+    private void appendChars(int start, int length) {
+        if (charCount + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+        }
+        System.arraycopy(r.getChars(), start, chars, charCount, length);
+        charCount += length;
+    }
+
+    private int parseIndex(int start, int length) {
+        int index = 0;
+        for (int i = start; i < start + length; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("For input string: \"" + new String(chars, start, length) + "\"");
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    private void ensureColumn(int col) {
+        if (col >= stamps.length) {
+            int size = Math.max(stamps.length * 2, col + 1);
+            stamps = Arrays.copyOf(stamps, size);
+            types = Arrays.copyOf(types, size);
+            sstIndexes = Arrays.copyOf(sstIndexes, size);
+            starts = Arrays.copyOf(starts, size);
+            lengths = Arrays.copyOf(lengths, size);
+            views = Arrays.copyOf(views, size);
+        }
+    }
+
+    /**
+     * View of the characters of a cell in the buffer of the cursor.
+     */
+    private final class CharView implements CharSequence {
+        private int start;
+        private int length;
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, length);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+/**
+ * Row filter of the reading options (see {@link ReadingOptions#withRowFilter(int, Predicate)}), tested on the raw
+ * value of the filtered cell as the cells of a row are scanned.
+ */
+final class RowFilter {
+
+    private final int column;
+    private final Predicate<RawValue> predicate;
+    private final RawValue value;
+    private boolean tested;
+
+    private RowFilter(ReadableWorkbook workbook, int column, Predicate<RawValue> predicate) {
+        this.column = column;
+        this.predicate = predicate;
+        this.value = new RawValue(workbook);
+    }
+
+    /**
+     * @return the row filter of the reading options of the workbook, or null if rows are not filtered
+     */
+    static RowFilter of(ReadableWorkbook workbook) {
+        ReadingOptions options = workbook.getReadingOptions();
+        return options.getRowFilter() == null ? null
+                : new RowFilter(workbook, options.getRowFilterColumn(), options.getRowFilter());
+    }
+
+    /**
+     * @param columns columns whose values are decoded, or null for all columns
+     * @return the given columns and the filtered one
+     */
+    BitSet decodedColumns(BitSet columns) {
+        if (columns == null) {
+            return null;
+        }
+        BitSet decoded = (BitSet) columns.clone();
+        decoded.set(column);
+        return decoded;
+    }
+
+    /**
+     * Starts testing a new row.
+     */
+    void startRow() {
+        tested = false;
+    }
+
+    /**
+     * @return true if the row has been tested, i.e. a cell at or after the filtered column has been reached
+     */
+    boolean isTested() {
+        return tested;
+    }
+
+    /**
+     * Tests the row on the current cell of the reader, when it is the first cell at or after the filtered column.
+     *
+     * @param cellColumn column of the current cell
+     * @return false if the row is rejected
+     */
+    boolean test(SheetDataReader r, int cellColumn) {
+        if (tested || cellColumn < column) {
+            return true;
+        }
+        tested = true;
+        if (cellColumn > column) {
+            value.setMissing(column);
+        } else if (r.hasInlineString()) {
+            value.set(column, r.getCellType(), r.getChars(), r.getInlineStringStart(), r.getInlineStringLength());
+        } else if (r.hasValue()) {
+            value.set(column, r.getCellType(), r.getChars(), r.getValueStart(), r.getValueLength());
+        } else {
+            value.set(column, r.getCellType(), r.getChars(), 0, 0);
+        }
+        return predicate.test(value);
+    }
+
+    /**
+     * Tests the row at its end, if it has no cell at or after the filtered column.
+     *
+     * @return false if the row is rejected
+     */
+    boolean testEnd() {
+        if (tested) {
+            return true;
+        }
+        tested = true;
+        value.setMissing(column);
+        return predicate.test(value);
+    }
+}
@@ -15,15 +15,13 @@
  */
 package org.dhatim.fastexcel.reader;
 
-import static org.dhatim.fastexcel.reader.DefaultXMLInputFactory.factory;
-
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Spliterator;
 import java.util.function.Consumer;
@@ -33,30 +31,133 @@ import javax.xml.stream.XMLStreamException;
 
 class RowSpliterator implements Spliterator<Row> {
 
-    private final SimpleXmlReader r;
+    /**
+     * Largest number of cells rows are presized for, as the declared width of a sheet may span all columns.
+     */
+    static final int MAX_PRESIZED_CELLS = 1024;
+
+    private final SheetDataReader r;
     private final ReadableWorkbook workbook;
 
-    private final HashMap<Integer, BaseFormulaCell> sharedFormula = new HashMap<>();
-    private final HashMap<CellRangeAddress, String> arrayFormula = new HashMap<>();
+    private final Map<Integer, BaseFormulaCell> sharedFormula;
+    private final ArrayFormulas arrayFormula;
+    private final boolean lazyNumbers;
+    private final boolean expandSharedFormulas;
+    private final BitSet columns;
+    // columns whose values are decoded, or null for all columns
+    private final BitSet decodedColumns;
+    private final RowFilter filter;
     private int rowCapacity = 16;
-    private int trackedRowIndex = 0;
+    private int trackedRowIndex;
+    // last row of the sheet according to its dimension, or -1 if unknown
+    private final int lastRowIndex;
+    private int nextRowIndex;
+    // window of row numbers to read, starting at 1
+    private final int fromRow;
+    private final int toRow;
+    private boolean ended;
+    private final StringBuilder formulaBuilder = new StringBuilder();
+    // base cell of the shared formula of the cell being parsed, if any
+    private CellAddress sharedFormulaBase;
 
+    /**
+     * Creates a spliterator reading all rows and columns, ignoring the row filter of the reading options.
+     */
     public RowSpliterator(ReadableWorkbook workbook, InputStream inputStream) throws XMLStreamException {
+        this(workbook, open(workbook, inputStream), 0, new HashMap<>(), new HashMap<>(), null, 1, Integer.MAX_VALUE,
+                false);
+    }
+
+    /**
+     * @param columns indexes of the columns to read, or null to read all columns
+     */
+    RowSpliterator(ReadableWorkbook workbook, InputStream inputStream, BitSet columns) throws XMLStreamException {
+        this(workbook, inputStream, columns, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a spliterator reading a window of rows. Rows before the window are skipped without decoding their
+     * values, only collecting the formulas they define, and parsing stops after the last row of the window.
+     *
+     * @param columns indexes of the columns to read, or null to read all columns
+     * @param fromRow number of the first row to read, starting at 1
+     * @param toRow   number of the last row to read, inclusive
+     */
+    RowSpliterator(ReadableWorkbook workbook, InputStream inputStream, BitSet columns, int fromRow, int toRow)
+            throws XMLStreamException {
+        this(workbook, open(workbook, inputStream), 0, new HashMap<>(), new HashMap<>(), columns, fromRow, toRow,
+                true);
+    }
+
+    /**
+     * Creates a spliterator that resumes parsing in the middle of a sheet, e.g. on a {@link SheetChunk}.
+     *
+     * @param trackedRowIndex number of rows before the first row of the input
+     * @param sharedFormula   shared formulas defined before the first row of the input
+     * @param arrayFormula    array formulas defined before the first row of the input
+     * @param columns         indexes of the columns to read, or null to read all columns
+     */
+    RowSpliterator(ReadableWorkbook workbook, InputStream inputStream, int trackedRowIndex,
+                   Map<Integer, BaseFormulaCell> sharedFormula, Map<CellRangeAddress, String> arrayFormula,
+                   BitSet columns)
+            throws XMLStreamException {
+        // copies, as the rows of the input add the formulas they define
+        this(workbook, open(workbook, inputStream), trackedRowIndex, new HashMap<>(sharedFormula), arrayFormula,
+                columns, 1, Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Creates a spliterator reading all rows of a sheet from a reader positioned at the start of its data. If the
+     * reader {@link SheetDataReader#isWaitingForInput() waits for input}, {@link #tryAdvance(Consumer)} returns false
+     * without ending, and can be called again once more input is received.
+     *
+     * @param columns indexes of the columns to read, or null to read all columns
+     */
+    RowSpliterator(ReadableWorkbook workbook, SheetDataReader reader, BitSet columns) {
+        this(workbook, reader, 0, new HashMap<>(), new HashMap<>(), columns, 1, Integer.MAX_VALUE, true);
+    }
+
+    private RowSpliterator(ReadableWorkbook workbook, SheetDataReader reader, int trackedRowIndex,
+                           Map<Integer, BaseFormulaCell> sharedFormula, Map<CellRangeAddress, String> arrayFormula,
+                           BitSet columns, int fromRow, int toRow, boolean filtered) {
         this.workbook = workbook;
-        this.r = new SimpleXmlReader(factory, inputStream);
+        this.r = reader;
+        this.trackedRowIndex = trackedRowIndex;
+        this.sharedFormula = sharedFormula;
+        this.arrayFormula = new ArrayFormulas(arrayFormula);
+        this.lazyNumbers = workbook != null && workbook.getReadingOptions().isLazyNumbers();
+        this.expandSharedFormulas = workbook == null || workbook.getReadingOptions().isExpandSharedFormulas();
+        this.columns = columns;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+        this.filter = filtered && workbook != null ? RowFilter.of(workbook) : null;
+        this.decodedColumns = filter == null ? columns : filter.decodedColumns(columns);
+        CellRangeAddress dimension = r.getDimension();
+        this.lastRowIndex = dimension == null ? -1 : dimension.getLastRow();
+        this.nextRowIndex = trackedRowIndex;
+        int width = dimension == null ? r.getMaxDeclaredColumn() : dimension.getLastColumn() + 1;
+        if (width > 0) {
+            rowCapacity = Math.min(width, MAX_PRESIZED_CELLS);
+        }
+    }
 
-        r.goTo("sheetData");
+    private static SheetDataReader open(ReadableWorkbook workbook, InputStream inputStream)
+            throws XMLStreamException {
+        return workbook == null ? SheetDataScanner.open(inputStream, true)
+                : SheetDataScanner.open(inputStream, workbook.getReadingOptions());
     }
 
     @Override
     public boolean tryAdvance(Consumer<? super Row> action) {
         try {
-            if (hasNext()) {
-                action.accept(next());
-                return true;
-            } else {
-                return false;
+            while (hasNext()) {
+                Row row = next();
+                if (row != null) {
+                    action.accept(row);
+                    return true;
+                }
             }
+            return false;
         } catch (XMLStreamException e) {
             throw new ExcelReaderException(e);
         }
@@ -67,9 +168,19 @@ class RowSpliterator implements Spliterator<Row> {
         return null;
     }
 
+    /**
+     * Estimates the number of remaining rows from the dimension of the sheet. Rows that are not written in the sheet
+     * make it an upper bound, so the spliterator is not {@link #SIZED}.
+     */
     @Override
     public long estimateSize() {
-        return Long.MAX_VALUE;
+        if (ended) {
+            return 0;
+        } else if (lastRowIndex < 0 && toRow == Integer.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        long end = lastRowIndex < 0 ? toRow : Math.min(lastRowIndex + 1L, toRow);
+        return Math.max(0, end - Math.max(nextRowIndex, fromRow - 1L));
     }
 
     @Override
@@ -78,228 +189,201 @@ class RowSpliterator implements Spliterator<Row> {
     }
 
     private boolean hasNext() throws XMLStreamException {
-        if (r.goTo(() -> r.isStartElement("row") || r.isEndElement("sheetData"))) {
-            return "row".equals(r.getLocalName());
-        } else {
-            return false;
+        while (!ended && r.nextRow()) {
+            int rowNum = r.getRowNum() >= 0 ? r.getRowNum() : trackedRowIndex + 1;
+            if (rowNum > toRow) {
+                ended = true;
+                return false;
+            } else if (rowNum >= fromRow) {
+                return true;
+            }
+            skipRow();
         }
+        ended = ended || !r.isWaitingForInput();
+        return false;
     }
 
+    /**
+     * Skips the current row, only collecting the formulas it defines.
+     */
+    private void skipRow() throws XMLStreamException {
+        skipCells(0);
+        endRow();
+    }
 
-    private Row next() throws XMLStreamException {
-        if (!"row".equals(r.getLocalName())) {
-            throw new NoSuchElementException();
+    /**
+     * Skips the remaining cells of the current row, only collecting the formulas they define.
+     */
+    private void skipCells(int trackedColIndex) throws XMLStreamException {
+        while (r.nextCellSkippingValue()) {
+            int column = r.getCellColumn() >= 0 ? r.getCellColumn() : trackedColIndex;
+            trackedColIndex = column + 1;
+            skipCell(column);
         }
+    }
 
+    private void endRow() {
+        trackedRowIndex++;
+        // row numbers start at 1, so the number of this row is the zero-based index of the next one
+        nextRowIndex = r.getRowNum() >= 0 ? r.getRowNum() : trackedRowIndex;
+    }
+
+    /**
+     * @return the current row, or null if the row filter rejects it
+     */
+    private Row next() throws XMLStreamException {
         int trackedColIndex = 0;
-        int rowIndex = getRowIndexWithFallback(trackedRowIndex);
-        String hiddenAttribute = r.getAttribute("hidden");
-        boolean isHidden = "1".equals(hiddenAttribute) || "true".equals(hiddenAttribute);
+        int rowIndex = r.getRowNum() >= 0 ? r.getRowNum() : trackedRowIndex;
+        boolean isHidden = r.isRowHidden();
 
         List<Cell> cells = new ArrayList<>(rowCapacity);
         int physicalCellCount = 0;
+        if (filter != null) {
+            filter.startRow();
+        }
 
-        while (r.goTo(() -> r.isStartElement("c") || r.isEndElement("row"))) {
-            if ("row".equals(r.getLocalName())) {
-                break;
+        while (decodedColumns == null ? r.nextCell() : r.nextCell(decodedColumns)) {
+            int column = r.getCellColumn() >= 0 ? r.getCellColumn() : trackedColIndex;
+            // we may have to adjust because we may have skipped blanks
+            trackedColIndex = column + 1;
+            if (filter != null && !filter.test(r, column)) {
+                skipCell(column);
+                skipCells(trackedColIndex);
+                endRow();
+                return null;
+            }
+            if (columns != null && !columns.get(column)) {
+                skipCell(column);
+                continue;
             }
 
-            Cell cell = parseCell(trackedColIndex++);
-            CellAddress addr = cell.getAddress();
-            // we may have to adjust because we may have skipped blanks
-            trackedColIndex = addr.getColumn() + 1;
-            ensureSize(cells, addr.getColumn() + 1);
+            Cell cell = parseCell(column);
+            ensureSize(cells, column + 1);
 
-            cells.set(addr.getColumn(), cell);
+            cells.set(column, cell);
             physicalCellCount++;
         }
-        trackedRowIndex++;
+        endRow();
+        if (filter != null && !filter.testEnd()) {
+            return null;
+        }
         rowCapacity = Math.max(rowCapacity, cells.size());
         return new Row(rowIndex, physicalCellCount, cells, isHidden);
     }
 
-    private int getRowIndexWithFallback(int fallbackRowIndex) {
-        Integer rowIndexOrNull = r.getIntAttribute("r");
-        return rowIndexOrNull != null ? rowIndexOrNull : fallbackRowIndex;
-    }
-
-    private CellAddress getCellAddressWithFallback(int trackedColIndex, int trackedRowIndex) {
-        String cellRefOrNull = r.getAttribute("r");
-        return cellRefOrNull != null ?
-                new CellAddress(cellRefOrNull) :
-                new CellAddress(trackedRowIndex, trackedColIndex);
+    private CellAddress getCellAddress(int column) {
+        return new CellAddress(r.getCellRow() >= 0 ? r.getCellRow() : trackedRowIndex, column);
     }
 
-    private Cell parseCell(int trackedColIndex) throws XMLStreamException {
-        CellAddress addr = getCellAddressWithFallback(trackedColIndex, trackedRowIndex);
-        String type = r.getOptionalAttribute("t").orElse("n");
-        String styleString = r.getAttribute("s");
-        String formatId = null;
-        String formatString = null;
-        if (styleString != null) {
-            int index = Integer.parseInt(styleString);
-            if (index < workbook.getFormats().size()) {
-                formatId = workbook.getFormats().get(index);
-                formatString = workbook.getNumFmtIdToFormat().get(formatId);
-            }
-        }
+    private Cell parseCell(int column) throws XMLStreamException {
+        CellAddress addr = getCellAddress(column);
+        String type = r.getCellType();
+        int style = r.getCellStyle();
+        DataFormat dataFormat = style >= 0 ? workbook.getDataFormat(style) : null;
 
         if ("inlineStr".equals(type)) {
             return parseInlineStr(addr);
         } else if ("s".equals(type)) {
             return parseString(addr);
         } else {
-            return parseOther(addr, type, formatId, formatString);
+            return parseOther(addr, type, dataFormat);
         }
     }
 
-    private Cell parseOther(CellAddress addr, String type, String dataFormatId, String dataFormatString)
-            throws XMLStreamException {
+    private Cell parseOther(CellAddress addr, String type, DataFormat dataFormat) {
         CellType definedType = parseType(type);
         Function<String, ?> parser = getParserForType(definedType);
 
         Object value = null;
+        boolean pendingNumber = false;
         String formula = null;
         String rawValue = null;
-        while (r.goTo(() -> r.isStartElement("v") || r.isEndElement("c") || r.isStartElement("f"))) {
-            if ("v".equals(r.getLocalName())) {
-                rawValue = r.getValueUntilEndElement("v");
-                try {
-                    value = "".equals(rawValue) ? null : parser.apply(rawValue);
-                } catch (ExcelReaderException e) {
-                    if (workbook.getReadingOptions().isCellInErrorIfParseError()) {
-                        definedType = CellType.ERROR;
-                    } else {
-                        throw e;
-                    }
+        sharedFormulaBase = null;
+        if (r.hasValue()) {
+            rawValue = r.getValue();
+            try {
+                if ("".equals(rawValue)) {
+                    value = null;
+                } else if (lazyNumbers && definedType == CellType.NUMBER) {
+                    checkNumber(rawValue);
+                    pendingNumber = true;
+                } else {
+                    value = parser.apply(rawValue);
                 }
-            } else if ("f".equals(r.getLocalName())) {
-                String ref = r.getAttribute("ref");
-                String t = r.getAttribute("t");
-                String si = r.getAttribute("si");
-                Integer siInt = si == null ? null : Integer.parseInt(si);
-                formula = r.getValueUntilEndElement("f");
-                if ("array".equals(t) && ref != null) {
-                    CellRangeAddress range = CellRangeAddress.valueOf(ref);
-                    arrayFormula.put(range, formula);
+            } catch (ExcelReaderException e) {
+                if (workbook.getReadingOptions().isCellInErrorIfParseError()) {
+                    definedType = CellType.ERROR;
+                } else {
+                    throw e;
                 }
-                if ("shared".equals(t)) {
-                    if (ref != null) {
-                        CellRangeAddress range = CellRangeAddress.valueOf(ref);
-                        sharedFormula.put(siInt, new BaseFormulaCell(addr, formula, range));
-                    } else {
-                        formula = parseSharedFormula(siInt, addr);
-                    }
-                }
-            } else {
-                break;
             }
         }
+        if (r.hasFormula()) {
+            formula = parseFormula(addr);
+        }
 
         if (formula == null || "".equals(formula)) {
             formula = getArrayFormula(addr).orElse(null);
         }
 
-        if (formula == null && value == null && definedType == CellType.NUMBER) {
+        if (formula == null && value == null && !pendingNumber && definedType == CellType.NUMBER) {
             return new Cell(workbook, CellType.EMPTY, null, addr, null, rawValue);
         } else {
             CellType cellType = formula != null ? CellType.FORMULA : definedType;
-            return new Cell(workbook, cellType, value, addr, formula, rawValue, dataFormatId, dataFormatString);
+            return new Cell(workbook, cellType, value, pendingNumber && definedType == CellType.NUMBER, addr, formula,
+                    sharedFormulaBase, rawValue, dataFormat);
         }
     }
 
-    private String parseSharedFormula(Integer si, CellAddress addr) {
-        BaseFormulaCell baseFormulaCell = sharedFormula.get(si);
-        int dRow = addr.getRow() - baseFormulaCell.getBaseCelAddr().getRow();
-        int dCol = addr.getColumn() - baseFormulaCell.getBaseCelAddr().getColumn();
-        String baseFormula = baseFormulaCell.getFormula();
-        return parseSharedFormula(dCol, dRow, baseFormula);
-    }
-
-    /**
-     * @see <a href="https://github.com/qax-os/excelize/blob/master/cell.go">here</a>
-     */
-    private String parseSharedFormula(Integer dCol, Integer dRow, String baseFormula) {
-        StringBuilder res = new StringBuilder();
-        int start = 0;
-        boolean stringLiteral = false;
-        for (int end = 0; end < baseFormula.length(); end++) {
-            char c = baseFormula.charAt(end);
-            if ('"' == c) {
-                stringLiteral = !stringLiteral;
-            }
-            if (stringLiteral) {
-                continue;// Skip characters in quotes
-            }
-            if (c >= 'A' && c <= 'Z' || c == '$') {
-
-                res.append(baseFormula.substring(start, end));
-                start = end;
-                end++;
-                boolean foundNum = false;
-                for (; end < baseFormula.length(); end++) {
-                    char idc = baseFormula.charAt(end);
-                    if (idc >= '0' && idc <= '9' || idc == '$') {
-                        foundNum = true;
-                    } else if (idc >= 'A' && idc <= 'Z') {
-                        if (foundNum) {
-                            break;
-                        }
-                    } else {
-                        break;
-                    }
-                }
-                if (foundNum) {
-                    String cellID = baseFormula.substring(start, end);
-                    res.append(shiftCell(cellID, dCol, dRow));
-                    start = end;
-                }
-            }
+    private String parseFormula(CellAddress addr) {
+        String ref = r.getFormulaRef();
+        String t = r.getFormulaType();
+        String si = r.getFormulaSi();
+        Integer siInt = si == null ? null : Integer.parseInt(si);
+        String formula = r.getFormula();
+        if ("array".equals(t) && ref != null) {
+            CellRangeAddress range = CellRangeAddress.valueOf(ref);
+            arrayFormula.put(range, formula);
         }
-
-        if (start < baseFormula.length()) {
-            res.append(baseFormula.substring(start));
+        if ("shared".equals(t)) {
+            if (ref != null) {
+                CellRangeAddress range = CellRangeAddress.valueOf(ref);
+                sharedFormula.put(siInt, new BaseFormulaCell(addr, formula, range));
+                sharedFormulaBase = addr;
+            } else {
+                formula = parseSharedFormula(siInt, addr);
+            }
         }
-
-        return res.toString();
+        return formula;
     }
 
     /**
-     * @see <a href="https://github.com/qax-os/excelize/blob/master/cell.go">here</a>
+     * Ignores a cell outside of the column projection, except for the formulas it defines for other cells.
      */
-    private String shiftCell(String cellID, Integer dCol, Integer dRow) {
-        CellAddress cellAddress = new CellAddress(cellID);
-        int fCol = cellAddress.getColumn();
-        int fRow = cellAddress.getRow();
-
-        String signCol = "", signRow = "";
-        if (cellID.indexOf("$") == 0) {
-            signCol = "$";
-        } else {
-            // Shift column
-            fCol += dCol;
+    private void skipCell(int column) {
+        if (r.hasFormula() && r.getFormulaRef() != null) {
+            parseFormula(getCellAddress(column));
         }
-        if (cellID.lastIndexOf("$") > 0) {
-            signRow = "$";
-        } else {
-            // Shift row
-            fRow += dRow;
-        }
-        String colName = CellAddress.convertNumToColString(fCol);
-        return signCol + colName + signRow + (++fRow);
     }
 
+    private String parseSharedFormula(Integer si, CellAddress addr) {
+        BaseFormulaCell baseFormulaCell = sharedFormula.get(si);
+        sharedFormulaBase = baseFormulaCell.getBaseCelAddr();
+        if (!expandSharedFormulas) {
+            return baseFormulaCell.getFormula();
+        }
+        int dRow = addr.getRow() - baseFormulaCell.getBaseCelAddr().getRow();
+        int dCol = addr.getColumn() - baseFormulaCell.getBaseCelAddr().getColumn();
+        formulaBuilder.setLength(0);
+        baseFormulaCell.getTemplate().render(formulaBuilder, dCol, dRow);
+        return formulaBuilder.toString();
+    }
 
     private Cell parseString(CellAddress addr) throws XMLStreamException {
-        r.goTo(() -> r.isStartElement("v") || r.isEndElement("c"));
-        if (r.isEndElement("c")) {
-            return empty(addr, CellType.STRING);
-        }
-        String v = r.getValueUntilEndElement("v");
-        if (v.isEmpty()) {
+        if (!r.hasValue() || r.getValueLength() == 0) {
             return empty(addr, CellType.STRING);
         }
-        int index = Integer.parseInt(v);
+        int index = Integer.parseInt(r.getValue());
         String sharedStringValue = workbook.getSharedStringsTable().getItemAt(index);
         Object value = sharedStringValue;
         String formula = null;
@@ -311,31 +395,16 @@ class RowSpliterator implements Spliterator<Row> {
         return new Cell(workbook, type, "", addr, null, "");
     }
 
-    private Cell parseInlineStr(CellAddress addr) throws XMLStreamException {
-        Object value = null;
-        String formula = null;
-        String rawValue = null;
-        while (r.goTo(() -> r.isStartElement("is") || r.isEndElement("c") || r.isStartElement("f"))) {
-            if ("is".equals(r.getLocalName())) {
-                rawValue = r.getValueUntilEndElement("is");
-                value = rawValue;
-            } else if ("f".equals(r.getLocalName())) {
-                formula = r.getValueUntilEndElement("f");
-            } else {
-                break;
-            }
-        }
+    private Cell parseInlineStr(CellAddress addr) {
+        String rawValue = r.getInlineString();
+        Object value = rawValue;
+        String formula = r.getFormula();
         CellType cellType = formula == null ? CellType.STRING : CellType.FORMULA;
         return new Cell(workbook, cellType, value, addr, formula, rawValue);
     }
 
     private Optional<String> getArrayFormula(CellAddress addr) {
-        for (Map.Entry<CellRangeAddress, String> entry : arrayFormula.entrySet()) {
-            if (entry.getKey().isInRange(addr.getRow(), addr.getColumn())) {
-                return Optional.of(entry.getValue());
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(arrayFormula.get(addr.getRow(), addr.getColumn()));
     }
 
     private CellType parseType(String type) {
@@ -376,6 +445,16 @@ class RowSpliterator implements Spliterator<Row> {
         }
     }
 
+    /**
+     * Checks that a number can be parsed, without building it.
+     */
+    private static void checkNumber(String s) {
+        if (!NumberParser.isDecimal(s)) {
+            // unusual forms are left to BigDecimal to decide
+            parseNumber(s);
+        }
+    }
+
     private static Boolean parseBoolean(String s) {
         if ("0".equals(s)) {
             return Boolean.FALSE;
@@ -1,41 +1,79 @@
 package org.dhatim.fastexcel.reader;
 
 
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
-import static org.dhatim.fastexcel.reader.DefaultXMLInputFactory.factory;
-
-class SST {
+/**
+ * Shared strings table, read incrementally up to the highest index requested so far.
+ * <p>
+ * The table may be used by several threads, e.g. sheets streamed concurrently or chunks of a sheet parsed in
+ * parallel. Reading further is done under the table's lock, while strings already read are published through
+ * volatile fields, so that looking them up does not contend.
+ */
+class SST implements Closeable {
   private static final SST EMPTY = new SST();
   private final SimpleXmlReader reader;
-  private final List<String> values = new ArrayList<>();
+  // values is only replaced by a larger copy, and count is written after the strings it covers
+  private volatile String[] values = new String[16];
+  private volatile int count;
+  // strings are kept in a temporary file instead of values when spooling
+  private final SpooledStrings spooled;
 
   private SST() {
     reader = null;
+    spooled = null;
   }
 
-  SST(InputStream in) throws XMLStreamException {
+  SST(XMLInputFactory factory, InputStream in) throws XMLStreamException {
     reader = new SimpleXmlReader(factory, in);
+    spooled = null;
+  }
+
+  private SST(XMLInputFactory factory, InputStream in, int cacheSize) throws XMLStreamException, IOException {
+    spooled = new SpooledStrings(cacheSize);
+    try {
+      reader = new SimpleXmlReader(factory, in);
+    } catch (XMLStreamException e) {
+      spooled.close();
+      throw e;
+    }
   }
 
-  static SST fromInputStream(InputStream in) throws XMLStreamException {
-    return in == null ? EMPTY : new SST(in);
+  static SST fromInputStream(InputStream in, ReadingOptions options) throws XMLStreamException, IOException {
+    if (in == null) {
+      return EMPTY;
+    }
+    XMLInputFactory factory = DefaultXMLInputFactory.get(options);
+    return options.isSpooledSharedStrings() ? new SST(factory, in, options.getSharedStringsCacheSize())
+        : new SST(factory, in);
   }
 
   String getItemAt(int index) throws XMLStreamException {
     if (reader == null) {
       return null;
     }
-    readUpTo(index);
-    return values.get(index);
+    if (spooled == null && index >= 0 && index < count) {
+      return values[index];
+    }
+    synchronized (this) {
+      readUpTo(index);
+      return spooled == null ? values[index] : spooled.get(index);
+    }
   }
 
     private void readUpTo(int index) throws XMLStreamException {
-        while (index >= values.size()) {
-            reader.goTo("si");
+        if (index < 0) {
+            throw new ExcelReaderException("Invalid shared string index " + index);
+        }
+        while (index >= size()) {
+            if (!reader.goTo("si")) {
+                throw new ExcelReaderException("Shared string index " + index + " out of range " + size());
+            }
             StringBuilder sb = new StringBuilder();
             while (reader.goTo(() -> reader.isStartElement("t")
                     || reader.isStartElement("rPh")
@@ -48,7 +86,41 @@ class SST {
                     reader.goTo(() -> reader.isEndElement("rPh"));
                 }
             }
-            values.add(sb.toString());
+            add(sb.toString());
+        }
+    }
+
+    private int size() {
+        return spooled == null ? count : spooled.size();
+    }
+
+    private void add(String s) throws XMLStreamException {
+        if (spooled == null) {
+            int n = count;
+            if (n == values.length) {
+                values = Arrays.copyOf(values, n * 2);
+            }
+            values[n] = s;
+            count = n + 1;
+        } else {
+            try {
+                spooled.add(s);
+            } catch (IOException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } finally {
+            if (spooled != null) {
+                spooled.close();
+            }
         }
     }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.util.Arrays;
+
+/**
+ * Shared formula tokenized into literal segments and cell references, to render the formula of each cell of its
+ * range without rescanning it.
+ * <p>
+ * Tokenization follows the scan of <a href="https://github.com/qax-os/excelize/blob/master/cell.go">excelize</a>:
+ * a reference is a run of letters followed by digits or {@code $}, outside of string literals. A reference is
+ * shifted by the offset of the cell from the base cell, except for its absolute parts.
+ */
+final class SharedFormulaTemplate {
+
+    private final String formula;
+    private int count;
+    /**
+     * Literal segment i is formula[literalStarts[i], literalEnds[i]) and precedes reference i, if any.
+     */
+    private int[] literalStarts = new int[4];
+    private int[] literalEnds = new int[4];
+    private int[] columns = new int[4];
+    private int[] rows = new int[4];
+    private boolean[] absoluteColumns = new boolean[4];
+    private boolean[] absoluteRows = new boolean[4];
+    private String[] columnNames = new String[4];
+    /**
+     * Error parsing a reference, thrown as the cause of a new exception each time the formula is rendered.
+     */
+    private RuntimeException error;
+
+    private SharedFormulaTemplate(String formula) {
+        this.formula = formula;
+    }
+
+    static SharedFormulaTemplate compile(String formula) {
+        SharedFormulaTemplate template = new SharedFormulaTemplate(formula);
+        int start = 0;
+        boolean stringLiteral = false;
+        for (int end = 0; end < formula.length(); end++) {
+            char c = formula.charAt(end);
+            if ('"' == c) {
+                stringLiteral = !stringLiteral;
+            }
+            if (stringLiteral) {
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z' || c == '$') {
+                int literalEnd = end;
+                int referenceStart = end;
+                end++;
+                boolean foundNum = false;
+                for (; end < formula.length(); end++) {
+                    char idc = formula.charAt(end);
+                    if (idc >= '0' && idc <= '9' || idc == '$') {
+                        foundNum = true;
+                    } else if (idc >= 'A' && idc <= 'Z') {
+                        if (foundNum) {
+                            break;
+                        }
+                    } else {
+                        break;
+                    }
+                }
+                if (foundNum) {
+                    try {
+                        template.addReference(start, literalEnd, formula.substring(referenceStart, end));
+                    } catch (RuntimeException e) {
+                        template.error = e;
+                        return template;
+                    }
+                    start = end;
+                }
+            }
+        }
+        template.addLiteral(start, formula.length());
+        return template;
+    }
+
+    private void addReference(int literalStart, int literalEnd, String cellID) {
+        CellAddress address = new CellAddress(cellID);
+        ensureCapacity();
+        literalStarts[count] = literalStart;
+        literalEnds[count] = literalEnd;
+        columns[count] = address.getColumn();
+        rows[count] = address.getRow();
+        absoluteColumns[count] = cellID.indexOf('$') == 0;
+        absoluteRows[count] = cellID.lastIndexOf('$') > 0;
+        columnNames[count] = CellAddress.convertNumToColString(address.getColumn());
+        count++;
+    }
+
+    private void addLiteral(int literalStart, int literalEnd) {
+        ensureCapacity();
+        literalStarts[count] = literalStart;
+        literalEnds[count] = literalEnd;
+    }
+
+    private void ensureCapacity() {
+        if (count == literalStarts.length) {
+            int length = count * 2;
+            literalStarts = Arrays.copyOf(literalStarts, length);
+            literalEnds = Arrays.copyOf(literalEnds, length);
+            columns = Arrays.copyOf(columns, length);
+            rows = Arrays.copyOf(rows, length);
+            absoluteColumns = Arrays.copyOf(absoluteColumns, length);
+            absoluteRows = Arrays.copyOf(absoluteRows, length);
+            columnNames = Arrays.copyOf(columnNames, length);
+        }
+    }
+
+    String getFormula() {
+        return formula;
+    }
+
+    /**
+     * Appends the formula of the cell at the given offset from the base cell.
+     *
+     * @throws ExcelReaderException if a reference of the formula cannot be parsed
+     */
+    void render(StringBuilder sb, int dCol, int dRow) {
+        if (error != null) {
+            throw new ExcelReaderException("Cannot parse shared formula " + formula, error);
+        }
+        for (int i = 0; i < count; i++) {
+            sb.append(formula, literalStarts[i], literalEnds[i]);
+            if (absoluteColumns[i]) {
+                sb.append('$').append(columnNames[i]);
+            } else if (dCol == 0) {
+                sb.append(columnNames[i]);
+            } else {
+                sb.append(CellAddress.convertNumToColString(columns[i] + dCol));
+            }
+            if (absoluteRows[i]) {
+                sb.append('$').append(rows[i] + 1);
+            } else {
+                sb.append(rows[i] + dRow + 1);
+            }
+        }
+        sb.append(formula, literalStarts[count], literalEnds[count]);
+    }
+}
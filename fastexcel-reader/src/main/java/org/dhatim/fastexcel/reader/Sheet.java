@@ -17,7 +17,10 @@ package org.dhatim.fastexcel.reader;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class Sheet {
@@ -28,6 +31,7 @@ public class Sheet {
     private final String stableId;
     private final String name;
     private final SheetVisibility visibility;
+    private volatile Optional<CellRangeAddress> dimension;
 
     Sheet(ReadableWorkbook workbook, int index, String id, String stableId,
           String name, SheetVisibility visibility) {
@@ -39,6 +43,10 @@ public class Sheet {
         this.visibility = visibility;
     }
 
+    ReadableWorkbook getWorkbook() {
+        return workbook;
+    }
+
     public int getIndex() {
         return index;
     }
@@ -59,10 +67,125 @@ public class Sheet {
         return visibility;
     }
 
+    /**
+     * Gives the range of used cells declared by the sheet, if any. Only the beginning of the sheet is read, once.
+     * Excel keeps it up to date, but other producers may omit it or declare a wrong range.
+     */
+    public Optional<CellRangeAddress> getDimension() throws IOException {
+        Optional<CellRangeAddress> result = dimension;
+        if (result == null) {
+            result = Optional.ofNullable(workbook.readDimension(this));
+            dimension = result;
+        }
+        return result;
+    }
+
+    /**
+     * Scans the sheet for its row count, used range, hidden rows, merged ranges, hyperlinks and auto-filter, without
+     * building rows or cells. This inflates the whole sheet but is much faster than reading it.
+     */
+    public SheetStatistics readStatistics() throws IOException {
+        return workbook.readStatistics(this);
+    }
+
+    /**
+     * Aggregates the numeric cells of some columns, parsing their raw values directly, without building rows and
+     * cells. In parallel reading mode, the chunks of the sheet are aggregated in parallel.
+     *
+     * @param columns     zero-based indexes of the columns to aggregate
+     * @param aggregators aggregates to compute, or none to compute all of them
+     */
+    public ColumnAggregates aggregate(int[] columns, Aggregator... aggregators) throws IOException {
+        for (int column : columns) {
+            if (column < 0) {
+                throw new IllegalArgumentException("Column index must not be negative: " + column);
+            }
+        }
+        return workbook.aggregate(this, IntStream.of(columns).distinct().toArray(),
+                ColumnAggregates.aggregatorSet(aggregators));
+    }
+
     public Stream<Row> openStream() throws IOException {
         return workbook.openStream(this);
     }
 
+    /**
+     * Reads a range of rows. Rows before the range are skipped without building their cells, and the sheet is not
+     * read further than the last row of the range, so the cost of reading a page of rows does not grow with its
+     * offset as much as with {@link Stream#skip(long)}. The rows before the range are still inflated and scanned:
+     * to read ranges of a large sheet repeatedly, see {@link #openStream(SheetIndex, int, int)}.
+     * <p>
+     * The stream is read sequentially, even in parallel reading mode.
+     *
+     * @param fromRow number of the first row to read, starting at 1
+     * @param toRow   number of the last row to read, inclusive
+     * @throws IllegalArgumentException if fromRow is less than 1 or toRow is less than fromRow
+     */
+    public Stream<Row> openStream(int fromRow, int toRow) throws IOException {
+        return workbook.openStream(this, fromRow, toRow);
+    }
+
+    /**
+     * Reads a range of rows using a segment index of this sheet, inflating only the parts of the sheet that
+     * contain these rows. The returned stream can be processed in parallel.
+     *
+     * @param index   index built from this sheet with {@link SheetIndex#build(Sheet)}, or from a sheet with the
+     *                same content
+     * @param fromRow number of the first row to read, starting at 1
+     * @param toRow   number of the last row to read, inclusive
+     * @throws IllegalArgumentException if the index is not one of this sheet, if fromRow is less than 1 or toRow is
+     *                                  less than fromRow
+     */
+    public Stream<Row> openStream(SheetIndex index, int fromRow, int toRow) {
+        return workbook.openStream(this, index, fromRow, toRow);
+    }
+
+    /**
+     * Publishes the rows of this sheet as they are requested, reading them on the given executor. Each subscriber
+     * reads the sheet anew; the sheet is closed when the rows run out, on error or when the subscription is
+     * cancelled. The workbook must stay open until then.
+     *
+     * @param executor executor reading the rows requested by subscribers
+     */
+    public Flow.Publisher<Row> publisher(Executor executor) {
+        return new SpliteratorPublisher<>(this::openStream, executor);
+    }
+
+    /**
+     * Publishes the rows of this sheet by batches: each item is a list of consecutive rows, and the demand of
+     * subscribers is counted in batches. See {@link #publisher(Executor)}.
+     *
+     * @param batchSize maximum number of rows of each batch, only the last one may be smaller
+     */
+    public Flow.Publisher<List<Row>> publisher(Executor executor, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        return new SpliteratorPublisher<>(SpliteratorPublisher.batched(this::openStream, batchSize), executor);
+    }
+
+    /**
+     * Opens a cursor over the rows of this sheet, an alternative to {@link #openStream()} that does not allocate
+     * objects for each row and cell.
+     */
+    public RowCursor openCursor() throws IOException {
+        return workbook.openCursor(this);
+    }
+
+    /**
+     * Opens a reader of the rows of this sheet by batches stored by column, in primitive arrays, without creating
+     * objects for each row and cell. Only the columns chosen with {@link ReadingOptions#withColumnIndexes(int...)}
+     * or {@link ReadingOptions#withColumnNames(String...)} are read, if any.
+     *
+     * @param batchSize maximum number of rows of each batch
+     */
+    public RowBatchReader openBatchReader(int batchSize) throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        return workbook.openBatchReader(this, batchSize);
+    }
+
     public List<Row> read() throws IOException {
         try (Stream<Row> stream = openStream()) {
             return stream.collect(Collectors.toList());
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Whole {@code <row>} elements of a worksheet, along with the parser state at the first of them.
+ */
+class SheetChunk {
+
+    private final byte[] header;
+    private final byte[] footer;
+    private final byte[] data;
+    private final int length;
+    private final boolean deflated;
+    private final int trackedRowIndex;
+    private final int firstRowNum;
+    private final int lastRowNum;
+    private final Map<Integer, BaseFormulaCell> sharedFormula;
+    private final Map<CellRangeAddress, String> arrayFormula;
+
+    /**
+     * @param header   worksheet XML up to the {@code <sheetData>} start tag
+     * @param footer   closing tags matching the header
+     * @param data     rows, as UTF-8 XML
+     * @param length   number of bytes of data
+     * @param deflated true if data is compressed with {@link java.util.zip.Deflater}
+     */
+    SheetChunk(byte[] header, byte[] footer, byte[] data, int length, boolean deflated, int trackedRowIndex,
+               int firstRowNum, int lastRowNum, Map<Integer, BaseFormulaCell> sharedFormula,
+               Map<CellRangeAddress, String> arrayFormula) {
+        this.header = header;
+        this.footer = footer;
+        this.data = data;
+        this.length = length;
+        this.deflated = deflated;
+        this.trackedRowIndex = trackedRowIndex;
+        this.firstRowNum = firstRowNum;
+        this.lastRowNum = lastRowNum;
+        this.sharedFormula = sharedFormula;
+        this.arrayFormula = arrayFormula;
+    }
+
+    /**
+     * @return a well-formed worksheet holding the rows of this chunk
+     */
+    InputStream open() {
+        InputStream rows = new ByteArrayInputStream(data, 0, length);
+        if (deflated) {
+            rows = new InflaterInputStream(rows);
+        }
+        return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                new ByteArrayInputStream(header), rows, new ByteArrayInputStream(footer))));
+    }
+
+    byte[] getHeader() {
+        return header;
+    }
+
+    byte[] getFooter() {
+        return footer;
+    }
+
+    byte[] getData() {
+        return data;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * @return number of rows before this chunk
+     */
+    int getTrackedRowIndex() {
+        return trackedRowIndex;
+    }
+
+    int getFirstRowNum() {
+        return firstRowNum;
+    }
+
+    int getLastRowNum() {
+        return lastRowNum;
+    }
+
+    /**
+     * @return read-only shared formulas defined before the chunk, by shared index
+     */
+    Map<Integer, BaseFormulaCell> getSharedFormula() {
+        return sharedFormula;
+    }
+
+    /**
+     * @return read-only array formulas defined before the chunk, by range
+     */
+    Map<CellRangeAddress, String> getArrayFormula() {
+        return arrayFormula;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the chunks of a sheet, which are cut on the thread that splits or advances it.
+ * <p>
+ * Like {@link ChunkedRowSpliterator}, {@link #trySplit()} hands the next chunks over as a prefix spliterator, so
+ * that the work done on each chunk by a parallel stream happens on whichever thread consumes it, and a
+ * {@link ChunkLimit} decides how many chunks are handed over, and when.
+ */
+class SheetChunkSpliterator implements Spliterator<SheetChunk> {
+
+    private final SheetChunker chunker;
+    private final ChunkLimit limit = new ChunkLimit();
+
+    SheetChunkSpliterator(SheetChunker chunker) {
+        this.chunker = chunker;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super SheetChunk> action) {
+        SheetChunk chunk = next();
+        if (chunk == null) {
+            return false;
+        }
+        action.accept(chunk);
+        return true;
+    }
+
+    @Override
+    public Spliterator<SheetChunk> trySplit() {
+        return limit.split(() -> {
+            SheetChunk chunk = next();
+            return chunk == null ? null : Collections.singletonList(chunk).spliterator();
+        });
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return IMMUTABLE | NONNULL | ORDERED;
+    }
+
+    private SheetChunk next() {
+        try {
+            return chunker.next();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
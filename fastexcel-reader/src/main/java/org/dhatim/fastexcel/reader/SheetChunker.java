@@ -0,0 +1,521 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cuts the raw XML of a worksheet part into chunks made of whole {@code <row>} elements.
+ * <p>
+ * Each chunk can be parsed on its own: it is wrapped between the worksheet root start tag and the
+ * {@code <sheetData>} tags, and carries the shared and array formulas defined by the rows before it whose ranges
+ * reach its first row. These formulas are kept in read-only maps, shared by consecutive chunks until a formula is
+ * defined or expires.
+ * Only worksheets whose prolog {@link SheetDataScanner} can read, in UTF-8 and without DTD, can be split; for anything
+ * else, such as a UTF-16 worksheet or one declaring another encoding, {@link #isSplittable()} is false and
+ * {@link #remaining()} gives back the untouched content.
+ */
+class SheetChunker implements Closeable {
+
+    private static final int READ_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final int chunkSize;
+
+    private byte[] buffer = new byte[READ_SIZE];
+    private int end;
+    private boolean eof;
+    private boolean finished;
+
+    private byte[] header;
+    private byte[] footer;
+    private byte[] rowTag;
+    private byte[] cellTag;
+    private byte[] formulaTag;
+    private byte[] sheetDataEndTag;
+
+    private int trackedRowIndex;
+    private final Map<Integer, BaseFormulaCell> sharedFormula = new HashMap<>();
+    private final Map<CellRangeAddress, String> arrayFormula = new HashMap<>();
+    private Map<Integer, BaseFormulaCell> sharedFormulaSnapshot = Collections.emptyMap();
+    private Map<CellRangeAddress, String> arrayFormulaSnapshot = Collections.emptyMap();
+    private boolean formulasChanged;
+
+    SheetChunker(InputStream in, int chunkSize) throws IOException {
+        this.in = in;
+        this.chunkSize = chunkSize;
+        readHeader();
+    }
+
+    boolean isSplittable() {
+        return header != null;
+    }
+
+    /**
+     * @return the content of the sheet that has not been consumed, when the sheet cannot be split
+     */
+    InputStream remaining() {
+        return new SequenceInputStream(new ByteArrayInputStream(buffer, 0, end), in);
+    }
+
+    /**
+     * @return the next chunk of rows, or null when all rows have been read
+     */
+    SheetChunk next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        int firstRowIndex = trackedRowIndex;
+        int firstRowStart = -1;
+        int rowStart = -1;
+        int cellStart = -1;
+        int pos = 0;
+        int boundary = -1;
+        while (boundary < 0) {
+            int lt = indexOf((byte) '<', pos);
+            if (lt < 0) {
+                boundary = end;
+                finished = true;
+            } else if (matchesTag(lt, sheetDataEndTag)) {
+                boundary = lt;
+                finished = true;
+            } else if (matchesTag(lt, rowTag)) {
+                if (lt >= chunkSize && rowStart >= 0) {
+                    boundary = lt;
+                } else {
+                    if (rowStart >= 0) {
+                        trackedRowIndex++;
+                    } else {
+                        firstRowStart = lt;
+                        snapshotFormulas(rowNum(lt, firstRowIndex));
+                    }
+                    rowStart = lt;
+                    cellStart = -1;
+                    pos = lt + rowTag.length;
+                }
+            } else if (matchesTag(lt, cellTag)) {
+                cellStart = lt;
+                pos = lt + cellTag.length;
+            } else if (matchesTag(lt, formulaTag)) {
+                pos = readFormula(lt, rowStart, cellStart);
+            } else {
+                pos = lt + 1;
+            }
+        }
+        if (rowStart < 0) {
+            return null;
+        }
+        SheetChunk chunk = new SheetChunk(header, footer, buffer, boundary, false, firstRowIndex,
+                rowNum(firstRowStart, firstRowIndex), rowNum(rowStart, trackedRowIndex),
+                sharedFormulaSnapshot, arrayFormulaSnapshot);
+        trackedRowIndex++;
+        byte[] next = new byte[Math.max(READ_SIZE, end - boundary + READ_SIZE)];
+        System.arraycopy(buffer, boundary, next, 0, end - boundary);
+        end -= boundary;
+        buffer = next;
+        return chunk;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readHeader() throws IOException {
+        // the prolog is checked on the bytes read so far, which are kept for remaining()
+        fill(READ_SIZE - 1);
+        if (!SheetDataScanner.hasScannableProlog(buffer, end)) {
+            return;
+        }
+        int rootStart = -1;
+        int rootEnd = -1;
+        String rootName = null;
+        int pos = 0;
+        while (true) {
+            int lt = indexOf((byte) '<', pos);
+            if (lt < 0 || !fill(lt + 1)) {
+                return;
+            }
+            byte next = buffer[lt + 1];
+            if (next == '?') {
+                pos = indexOf("?>", lt);
+            } else if (next == '!') {
+                pos = startsWith(lt, "<!--") ? indexOf("-->", lt) : startsWith(lt, "<![CDATA[") ? indexOf("]]>", lt) : findTagEnd(lt);
+            } else if (next == '/') {
+                pos = findTagEnd(lt);
+            } else {
+                int tagEnd = findTagEnd(lt);
+                if (tagEnd < 0) {
+                    return;
+                }
+                String name = tagName(lt);
+                if (rootStart < 0) {
+                    rootStart = lt;
+                    rootEnd = tagEnd + 1;
+                    rootName = name;
+                } else if ("sheetData".equals(localName(name))) {
+                    initTags(name, rootName);
+                    header = new byte[rootEnd + tagEnd + 1 - lt];
+                    System.arraycopy(buffer, 0, header, 0, rootEnd);
+                    System.arraycopy(buffer, lt, header, rootEnd, tagEnd + 1 - lt);
+                    // a self-closing <sheetData/> has no rows at all
+                    finished = buffer[tagEnd - 1] == '/';
+                    byte[] rows = new byte[Math.max(READ_SIZE, end - tagEnd - 1 + READ_SIZE)];
+                    System.arraycopy(buffer, tagEnd + 1, rows, 0, end - tagEnd - 1);
+                    end -= tagEnd + 1;
+                    buffer = rows;
+                    return;
+                }
+                pos = tagEnd;
+            }
+            if (pos < 0) {
+                return;
+            }
+        }
+    }
+
+    private void initTags(String sheetDataName, String rootName) {
+        String prefix = sheetDataName.substring(0, sheetDataName.length() - "sheetData".length());
+        rowTag = ascii("<" + prefix + "row");
+        cellTag = ascii("<" + prefix + "c");
+        formulaTag = ascii("<" + prefix + "f");
+        sheetDataEndTag = ascii("</" + sheetDataName);
+        footer = ascii("</" + sheetDataName + "></" + rootName + ">");
+    }
+
+    /**
+     * Computes the number of the row starting at {@code rowStart} the same way {@link RowSpliterator} does.
+     */
+    private int rowNum(int rowStart, int trackedRowIndex) throws IOException {
+        String r = attribute(rowStart, findTagEnd(rowStart), "r");
+        return r == null ? trackedRowIndex : Integer.parseInt(r);
+    }
+
+    /**
+     * Drops the formulas whose ranges end before the given row, and snapshots the remaining ones if they changed.
+     *
+     * @param firstRowNum number of the first row of the next chunk
+     */
+    private void snapshotFormulas(int firstRowNum) {
+        int firstRow = firstRowNum - 1;
+        formulasChanged |= sharedFormula.values().removeIf(f -> f.getRef().getLastRow() < firstRow);
+        formulasChanged |= arrayFormula.keySet().removeIf(range -> range.getLastRow() < firstRow);
+        if (formulasChanged) {
+            sharedFormulaSnapshot = Collections.unmodifiableMap(new HashMap<>(sharedFormula));
+            arrayFormulaSnapshot = Collections.unmodifiableMap(new HashMap<>(arrayFormula));
+            formulasChanged = false;
+        }
+    }
+
+    /**
+     * Records the shared or array formula defined by the {@code <f>} element starting at {@code lt}.
+     *
+     * @return position from which scanning can resume
+     */
+    private int readFormula(int lt, int rowStart, int cellStart) throws IOException {
+        int tagEnd = findTagEnd(lt);
+        if (tagEnd < 0) {
+            return end;
+        }
+        String t = attribute(lt, tagEnd, "t");
+        String ref = attribute(lt, tagEnd, "ref");
+        if (ref == null || !("array".equals(t) || "shared".equals(t)) || cellStart < 0) {
+            return tagEnd + 1;
+        }
+        int elementEnd = tagEnd + 1;
+        String formula = "";
+        if (buffer[tagEnd - 1] != '/') {
+            elementEnd = findElementEnd(tagEnd + 1);
+            if (elementEnd < 0) {
+                return end;
+            }
+            try {
+                formula = SheetDataScanner.decodeText(buffer, tagEnd + 1, elementEnd);
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+        CellRangeAddress range = CellRangeAddress.valueOf(ref);
+        formulasChanged = true;
+        if ("array".equals(t)) {
+            arrayFormula.put(range, formula);
+        } else {
+            String si = attribute(lt, tagEnd, "si");
+            CellAddress addr = cellAddress(rowStart, cellStart);
+            sharedFormula.put(si == null ? null : Integer.parseInt(si), new BaseFormulaCell(addr, formula, range));
+        }
+        return elementEnd;
+    }
+
+    /**
+     * @param from position after the start tag of an element without child elements
+     * @return position after its end tag, skipping CDATA sections and comments, or -1
+     */
+    private int findElementEnd(int from) throws IOException {
+        int pos = from;
+        while (pos >= 0) {
+            int lt = indexOf((byte) '<', pos);
+            if (lt < 0 || !fill(lt + 1)) {
+                return -1;
+            } else if (startsWith(lt, "<![CDATA[")) {
+                pos = indexOf("]]>", lt);
+            } else if (startsWith(lt, "<!--")) {
+                pos = indexOf("-->", lt);
+            } else if (buffer[lt + 1] == '/') {
+                int tagEnd = findTagEnd(lt);
+                return tagEnd < 0 ? -1 : tagEnd + 1;
+            } else {
+                int tagEnd = findTagEnd(lt);
+                pos = tagEnd < 0 ? -1 : tagEnd + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Computes the address of the cell starting at {@code cellStart} the same way {@link RowSpliterator} does.
+     */
+    private CellAddress cellAddress(int rowStart, int cellStart) throws IOException {
+        String ref = attribute(cellStart, findTagEnd(cellStart), "r");
+        if (ref != null) {
+            return new CellAddress(ref);
+        }
+        int trackedColIndex = 0;
+        int pos = rowStart + rowTag.length;
+        while (true) {
+            int lt = indexOf((byte) '<', pos);
+            if (lt < 0) {
+                return new CellAddress(trackedRowIndex, trackedColIndex);
+            } else if (!matchesTag(lt, cellTag)) {
+                pos = lt + 1;
+                continue;
+            }
+            String r = attribute(lt, findTagEnd(lt), "r");
+            int column = r == null ? trackedColIndex : new CellAddress(r).getColumn();
+            if (lt == cellStart) {
+                return new CellAddress(trackedRowIndex, column);
+            }
+            trackedColIndex = column + 1;
+            pos = lt + cellTag.length;
+        }
+    }
+
+    private String attribute(int tagStart, int tagEnd, String name) {
+        int pos = tagStart + 1;
+        while (pos < tagEnd && !isWhitespace(buffer[pos])) {
+            pos++;
+        }
+        while (pos < tagEnd) {
+            while (pos < tagEnd && isWhitespace(buffer[pos])) {
+                pos++;
+            }
+            int nameStart = pos;
+            while (pos < tagEnd && buffer[pos] != '=' && !isWhitespace(buffer[pos])) {
+                pos++;
+            }
+            int nameEnd = pos;
+            while (pos < tagEnd && buffer[pos] != '"' && buffer[pos] != '\'') {
+                pos++;
+            }
+            if (pos >= tagEnd) {
+                return null;
+            }
+            byte quote = buffer[pos++];
+            int valueStart = pos;
+            while (pos < tagEnd && buffer[pos] != quote) {
+                pos++;
+            }
+            if (regionEquals(nameStart, nameEnd, name)) {
+                return unescape(new String(buffer, valueStart, pos - valueStart, StandardCharsets.UTF_8));
+            }
+            pos++;
+        }
+        return null;
+    }
+
+    private boolean regionEquals(int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (buffer[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String tagName(int lt) {
+        int pos = lt + 1;
+        while (pos < end && !isWhitespace(buffer[pos]) && buffer[pos] != '>' && buffer[pos] != '/') {
+            pos++;
+        }
+        return new String(buffer, lt + 1, pos - lt - 1, StandardCharsets.UTF_8);
+    }
+
+    private static String localName(String name) {
+        return name.substring(name.indexOf(':') + 1);
+    }
+
+    /**
+     * @return true if a start or end tag with the given name (including its leading {@code <} or {@code </})
+     * begins at {@code pos}
+     */
+    private boolean matchesTag(int pos, byte[] tag) throws IOException {
+        if (pos < 0 || !fill(pos + tag.length)) {
+            return false;
+        }
+        for (int i = 0; i < tag.length; i++) {
+            if (buffer[pos + i] != tag[i]) {
+                return false;
+            }
+        }
+        byte next = buffer[pos + tag.length];
+        return next == '>' || next == '/' || isWhitespace(next);
+    }
+
+    private boolean startsWith(int pos, String s) throws IOException {
+        if (!fill(pos + s.length() - 1)) {
+            return false;
+        }
+        return regionEquals(pos, pos + s.length(), s);
+    }
+
+    private int findTagEnd(int lt) throws IOException {
+        byte quote = 0;
+        for (int pos = lt + 1; fill(pos); pos++) {
+            byte b = buffer[pos];
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(byte b, int from) throws IOException {
+        for (int pos = from; fill(pos); pos++) {
+            if (buffer[pos] == b) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(String s, int from) throws IOException {
+        for (int pos = indexOf((byte) s.charAt(0), from); pos >= 0; pos = indexOf((byte) s.charAt(0), pos + 1)) {
+            if (startsWith(pos, s)) {
+                return pos + s.length();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the underlying stream until the byte at {@code pos} is available.
+     *
+     * @return false if the end of the stream is reached before
+     */
+    private boolean fill(int pos) throws IOException {
+        while (pos >= end) {
+            if (eof) {
+                return false;
+            }
+            if (end == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int n = in.read(buffer, end, Math.min(READ_SIZE, buffer.length - end));
+            if (n < 0) {
+                eof = true;
+            } else {
+                end += n;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes predefined entities and character references, and normalizes line endings as an XML parser would.
+     */
+    static String unescape(String s) {
+        if (s.indexOf('&') < 0 && s.indexOf('\r') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\r') {
+                sb.append('\n');
+                if (i + 1 < s.length() && s.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            } else if (c == '&') {
+                int semicolon = s.indexOf(';', i);
+                if (semicolon < 0) {
+                    sb.append(c);
+                    continue;
+                }
+                String entity = s.substring(i + 1, semicolon);
+                if (entity.startsWith("#x")) {
+                    sb.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+                } else if (entity.startsWith("#")) {
+                    sb.appendCodePoint(Integer.parseInt(entity.substring(1)));
+                } else if ("lt".equals(entity)) {
+                    sb.append('<');
+                } else if ("gt".equals(entity)) {
+                    sb.append('>');
+                } else if ("amp".equals(entity)) {
+                    sb.append('&');
+                } else if ("quot".equals(entity)) {
+                    sb.append('"');
+                } else if ("apos".equals(entity)) {
+                    sb.append('\'');
+                } else {
+                    sb.append(c);
+                    continue;
+                }
+                i = semicolon;
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+}
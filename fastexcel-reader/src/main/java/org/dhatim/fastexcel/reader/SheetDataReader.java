@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.Closeable;
+import java.util.BitSet;
+import java.util.function.BiConsumer;
+
+/**
+ * Reader of the {@code <sheetData>} element of a worksheet, one row and one whole cell at a time.
+ * <p>
+ * Text of the cell being read is decoded into a character buffer shared by the cell's value, inline string and
+ * formula, which is overwritten by the next cell.
+ */
+interface SheetDataReader extends Closeable {
+
+    /**
+     * @return ref attribute of the {@code <dimension>} element before the sheet data, or null
+     */
+    String getDimensionRef();
+
+    /**
+     * @return highest column number, starting at 1, declared by the {@code <col>} elements before the sheet data,
+     * or 0
+     */
+    int getMaxDeclaredColumn();
+
+    /**
+     * @return range of the {@code <dimension>} element before the sheet data, or null if absent or invalid
+     */
+    default CellRangeAddress getDimension() {
+        String ref = getDimensionRef();
+        if (ref == null || ref.isEmpty()) {
+            return null;
+        }
+        try {
+            CellRangeAddress dimension = CellRangeAddress.valueOf(ref);
+            return dimension.getFirstRow() < 0 || dimension.getFirstColumn() < 0 ? null : dimension;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Moves to the next {@code <row>} element.
+     *
+     * @return false at the end of the sheet data
+     */
+    boolean nextRow() throws XMLStreamException;
+
+    /**
+     * @return true if {@link #nextRow()} returned false because the next row has not been received yet, rather than
+     * at the end of the sheet data
+     */
+    default boolean isWaitingForInput() {
+        return false;
+    }
+
+    /**
+     * @return value of the r attribute of the row, or -1
+     */
+    int getRowNum();
+
+    boolean isRowHidden();
+
+    /**
+     * Reads the next {@code <c>} element of the current row.
+     *
+     * @return false at the end of the row
+     */
+    boolean nextCell() throws XMLStreamException;
+
+    /**
+     * Reads the next {@code <c>} element of the current row like {@link #nextCell()}, but may skip the value and
+     * inline string of a cell whose reference is outside the given columns, as {@link #nextCellSkippingValue()} does.
+     *
+     * @param columns zero-based indexes of the columns whose values are needed
+     * @return false at the end of the row
+     */
+    default boolean nextCell(BitSet columns) throws XMLStreamException {
+        return nextCell();
+    }
+
+    /**
+     * Reads the next {@code <c>} element of the current row like {@link #nextCell()}, but may skip its value and
+     * inline string without decoding them, for cells where only the formula matters.
+     *
+     * @return false at the end of the row
+     */
+    default boolean nextCellSkippingValue() throws XMLStreamException {
+        return nextCell();
+    }
+
+    /**
+     * Reads the attributes of the next {@code <c>} element of the current row, and may skip its content without
+     * decoding it.
+     *
+     * @return false at the end of the row
+     */
+    default boolean nextCellSkippingContent() throws XMLStreamException {
+        return nextCell();
+    }
+
+    /**
+     * Reads the elements after the sheet data, once all rows have been read.
+     *
+     * @param consumer receives the local name and the ref attribute of each element that has one
+     */
+    void readTrailingRefs(BiConsumer<String, String> consumer) throws XMLStreamException;
+
+    /**
+     * @return zero-based row index from the r attribute of the cell, or -1
+     */
+    int getCellRow();
+
+    /**
+     * @return zero-based column index from the r attribute of the cell, or -1
+     */
+    int getCellColumn();
+
+    /**
+     * @return t attribute of the cell, "n" if absent
+     */
+    String getCellType();
+
+    /**
+     * @return s attribute of the cell, or -1
+     */
+    int getCellStyle();
+
+    char[] getChars();
+
+    /**
+     * @return true if the cell has a {@code <v>} element
+     */
+    boolean hasValue();
+
+    int getValueStart();
+
+    int getValueLength();
+
+    /**
+     * @return true if the cell has an {@code <is>} element
+     */
+    boolean hasInlineString();
+
+    int getInlineStringStart();
+
+    int getInlineStringLength();
+
+    /**
+     * @return true if the cell has an {@code <f>} element
+     */
+    boolean hasFormula();
+
+    int getFormulaStart();
+
+    int getFormulaLength();
+
+    /**
+     * @return t attribute of the formula, or null
+     */
+    String getFormulaType();
+
+    /**
+     * @return ref attribute of the formula, or null
+     */
+    String getFormulaRef();
+
+    /**
+     * @return si attribute of the formula, or null
+     */
+    String getFormulaSi();
+
+    default String getValue() {
+        return hasValue() ? new String(getChars(), getValueStart(), getValueLength()) : null;
+    }
+
+    default String getInlineString() {
+        return hasInlineString() ? new String(getChars(), getInlineStringStart(), getInlineStringLength()) : null;
+    }
+
+    default String getFormula() {
+        return hasFormula() ? new String(getChars(), getFormulaStart(), getFormulaLength()) : null;
+    }
+}
@@ -0,0 +1,1218 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.BiConsumer;
+
+import static org.dhatim.fastexcel.reader.DefaultXMLInputFactory.factory;
+
+/**
+ * {@link SheetDataReader} scanning the UTF-8 bytes of a worksheet directly.
+ * <p>
+ * The scanner only knows the elements of sheet data: {@code <row>}, {@code <c>}, {@code <v>}, {@code <f>} and
+ * {@code <is>}, matched by local name, and skips everything else. It decodes the predefined entities, character
+ * references and CDATA sections, and normalizes line endings like an XML parser. Documents it cannot handle
+ * faithfully, i.e. that are not encoded in UTF-8 or that have a document type declaration, are read with StAX.
+ */
+class SheetDataScanner implements SheetDataReader {
+
+    /**
+     * Documents whose prolog does not fit in this many bytes are read with StAX.
+     */
+    private static final int MAX_PROLOG_SIZE = 1024 * 1024;
+
+    private static final int EOF = 0;
+    private static final int START_TAG = 1;
+    private static final int END_TAG = 2;
+
+    private static final byte[] SHEET_DATA = bytes("sheetData");
+    private static final byte[] DIMENSION = bytes("dimension");
+    private static final byte[] COL = bytes("col");
+    private static final byte[] MAX = bytes("max");
+    private static final byte[] ROW = bytes("row");
+    private static final byte[] C = bytes("c");
+    private static final byte[] V = bytes("v");
+    private static final byte[] F = bytes("f");
+    private static final byte[] IS = bytes("is");
+    private static final byte[] R = bytes("r");
+    private static final byte[] T = bytes("t");
+    private static final byte[] S = bytes("s");
+    private static final byte[] HIDDEN = bytes("hidden");
+    private static final byte[] REF = bytes("ref");
+    private static final byte[] SI = bytes("si");
+    private static final byte[] COMMENT_START = bytes("<!--");
+    private static final byte[] COMMENT_END = bytes("-->");
+    private static final byte[] CDATA_START = bytes("<![CDATA[");
+    private static final byte[] CDATA_END = bytes("]]>");
+    private static final byte[] PI_END = bytes("?>");
+    private static final byte[] DOCTYPE = bytes("<!DOCTYPE");
+    private static final byte[] TAG_END = bytes(">");
+
+    private static final int READ_ALL = 0;
+    private static final int READ_FORMULA = 1;
+    private static final int READ_NONE = 2;
+
+    private static final String[] CELL_TYPES = {"n", "s", "str", "b", "e", "inlineStr"};
+    private static final byte[][] CELL_TYPE_BYTES;
+
+    static {
+        CELL_TYPE_BYTES = new byte[CELL_TYPES.length][];
+        for (int i = 0; i < CELL_TYPES.length; i++) {
+            CELL_TYPE_BYTES[i] = bytes(CELL_TYPES[i]);
+        }
+    }
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    // current tag, valid until the buffer is refilled
+    private int tagEnd;
+    private int nameStart;
+    private int nameEnd;
+    private boolean selfClosing;
+    // current attribute
+    private int attributeNameStart;
+    private int attributeNameEnd;
+    private int attributeValueStart;
+    private int attributeValueEnd;
+
+    private String dimensionRef;
+    private int maxDeclaredColumn;
+
+    private boolean done;
+    private boolean rowOpen;
+    private int rowNum;
+    private boolean rowHidden;
+
+    private int cellRow;
+    private int cellColumn;
+    private String cellType;
+    private int cellStyle;
+    private char[] chars = new char[256];
+    private int charCount;
+    private int valueStart;
+    private int valueLength;
+    private int inlineStringStart;
+    private int inlineStringLength;
+    private int formulaStart;
+    private int formulaLength;
+    private String formulaType;
+    private String formulaRef;
+    private String formulaSi;
+
+    private SheetDataScanner(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * @param builtin false to always use StAX
+     * @return a reader positioned at the start of the sheet data
+     */
+    static SheetDataReader open(InputStream inputStream, boolean builtin) throws XMLStreamException {
+        return open(inputStream, builtin, factory, ReadingOptions.DEFAULT_SHEET_PARSER_BUFFER_SIZE);
+    }
+
+    /**
+     * @return a reader positioned at the start of the sheet data, as chosen by the given options
+     */
+    static SheetDataReader open(InputStream inputStream, ReadingOptions options) throws XMLStreamException {
+        return open(inputStream, options.isBuiltinSheetParser(), DefaultXMLInputFactory.get(options),
+                options.getSheetParserBufferSize());
+    }
+
+    private static SheetDataReader open(InputStream inputStream, boolean builtin, XMLInputFactory factory,
+                                        int bufferSize) throws XMLStreamException {
+        if (!builtin) {
+            return new StaxSheetDataReader(factory, inputStream);
+        }
+        SheetDataScanner scanner = new SheetDataScanner(inputStream, bufferSize);
+        try {
+            if (!scanner.readProlog()) {
+                // the whole prolog is still in the buffer
+                InputStream replay = new SequenceInputStream(
+                        new ByteArrayInputStream(scanner.buffer, 0, scanner.limit), inputStream);
+                return new StaxSheetDataReader(factory, replay);
+            }
+            scanner.goToSheetData();
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+        return scanner;
+    }
+
+    /**
+     * Checks the prolog of a document as {@link #open(InputStream, ReadingOptions)} does, to tell whether its bytes
+     * can be scanned directly.
+     *
+     * @param length number of bytes available at the start of the document
+     * @return false if the document is not UTF-8, declares a DTD, or its prolog does not end within the given bytes
+     */
+    static boolean hasScannableProlog(byte[] bytes, int length) {
+        try {
+            return new SheetDataScanner(new ByteArrayInputStream(bytes, 0, length), Math.max(length, 4)).readProlog();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the text of an element as the text of a cell is decoded, including character references and CDATA
+     * sections.
+     *
+     * @param start position of the first byte after the start tag
+     * @param end   position after the end tag
+     */
+    static String decodeText(byte[] bytes, int start, int end) throws XMLStreamException {
+        SheetDataScanner scanner = new SheetDataScanner(new ByteArrayInputStream(bytes, start, end - start),
+                Math.max(end - start, 16));
+        try {
+            scanner.readText();
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+        return new String(scanner.chars, 0, scanner.charCount);
+    }
+
+    /**
+     * Reads the prolog, up to the root element, without discarding any byte from the buffer.
+     *
+     * @return false if the document must be read with StAX
+     */
+    private boolean readProlog() throws IOException {
+        while (limit < 4 && !eof) {
+            readMore();
+        }
+        if (limit >= 3 && (buffer[0] & 0xFF) == 0xEF && (buffer[1] & 0xFF) == 0xBB && (buffer[2] & 0xFF) == 0xBF) {
+            pos = 3;
+        } else if (limit >= 2 && (buffer[0] == 0 || buffer[1] == 0 || (buffer[0] & 0xFF) == 0xFE
+                || (buffer[0] & 0xFF) == 0xFF)) {
+            // UTF-16 or UTF-32
+            return false;
+        }
+        while (true) {
+            int i = pos;
+            while (true) {
+                if (i == limit) {
+                    if (limit >= MAX_PROLOG_SIZE || eof) {
+                        return false;
+                    }
+                    readMore();
+                    continue;
+                }
+                if (!isWhitespace(buffer[i])) {
+                    break;
+                }
+                i++;
+            }
+            pos = i;
+            if (buffer[i] != '<' || !prologAvailable(2)) {
+                return false;
+            }
+            byte b = buffer[i + 1];
+            if (b == '?') {
+                int end = prologIndexOf(PI_END, i + 2);
+                if (end < 0 || !isUtf8Declaration(i + 2, end)) {
+                    return false;
+                }
+                pos = end + PI_END.length;
+            } else if (b == '!') {
+                if (!prologAvailable(DOCTYPE.length) || startsWith(DOCTYPE) || !startsWith(COMMENT_START)) {
+                    return false;
+                }
+                int end = prologIndexOf(COMMENT_END, i + COMMENT_START.length);
+                if (end < 0) {
+                    return false;
+                }
+                pos = end + COMMENT_END.length;
+            } else {
+                // root element
+                return true;
+            }
+        }
+    }
+
+    private boolean prologAvailable(int n) throws IOException {
+        while (limit - pos < n) {
+            if (limit >= MAX_PROLOG_SIZE || eof) {
+                return false;
+            }
+            readMore();
+        }
+        return true;
+    }
+
+    private int prologIndexOf(byte[] pattern, int from) throws IOException {
+        int i = from;
+        while (true) {
+            if (i + pattern.length > limit) {
+                if (limit >= MAX_PROLOG_SIZE || eof) {
+                    return -1;
+                }
+                readMore();
+                continue;
+            }
+            if (regionMatches(i, pattern)) {
+                return i;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * @return true unless the processing instruction is an XML declaration with an encoding other than UTF-8
+     */
+    private boolean isUtf8Declaration(int start, int end) {
+        String pi = new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+        if (!pi.startsWith("xml") || pi.length() > 3 && !isWhitespace((byte) pi.charAt(3))) {
+            return true;
+        }
+        int i = pi.indexOf("encoding");
+        if (i < 0) {
+            return true;
+        }
+        int quote = i + "encoding".length();
+        while (quote < pi.length() && pi.charAt(quote) != '"' && pi.charAt(quote) != '\'') {
+            quote++;
+        }
+        int endQuote = quote + 1 < pi.length() ? pi.indexOf(pi.charAt(quote), quote + 1) : -1;
+        if (endQuote < 0) {
+            return false;
+        }
+        String encoding = pi.substring(quote + 1, endQuote);
+        return "UTF-8".equalsIgnoreCase(encoding) || "UTF8".equalsIgnoreCase(encoding);
+    }
+
+    private void goToSheetData() throws IOException, XMLStreamException {
+        int kind;
+        while ((kind = nextTag()) != EOF) {
+            boolean found = kind == START_TAG && nameIs(SHEET_DATA);
+            if (kind == START_TAG && nameIs(DIMENSION)) {
+                readDimensionAttributes();
+            } else if (kind == START_TAG && nameIs(COL)) {
+                readColAttributes();
+            }
+            pos = tagEnd + 1;
+            if (found) {
+                done = selfClosing;
+                return;
+            }
+        }
+        done = true;
+    }
+
+    private void readDimensionAttributes() {
+        int i = nameEnd;
+        while ((i = nextAttribute(i)) >= 0) {
+            if (attributeNameIs(REF)) {
+                dimensionRef = attributeValue();
+            }
+        }
+    }
+
+    private void readColAttributes() {
+        int i = nameEnd;
+        while ((i = nextAttribute(i)) >= 0) {
+            if (attributeNameIs(MAX)) {
+                try {
+                    maxDeclaredColumn = Math.max(maxDeclaredColumn, parseInt(attributeValueStart, attributeValueEnd));
+                } catch (NumberFormatException e) {
+                    // only a hint
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getDimensionRef() {
+        return dimensionRef;
+    }
+
+    @Override
+    public int getMaxDeclaredColumn() {
+        return maxDeclaredColumn;
+    }
+
+    @Override
+    public boolean nextRow() throws XMLStreamException {
+        try {
+            while (rowOpen) {
+                nextCell();
+            }
+            while (!done) {
+                int kind = nextTag();
+                if (kind == EOF) {
+                    throw new XMLStreamException("Unexpected end of sheet data");
+                }
+                boolean row = nameIs(ROW);
+                if (kind == END_TAG && nameIs(SHEET_DATA)) {
+                    pos = tagEnd + 1;
+                    done = true;
+                } else if (kind == START_TAG && row) {
+                    readRowAttributes();
+                    pos = tagEnd + 1;
+                    rowOpen = !selfClosing;
+                    return true;
+                } else {
+                    pos = tagEnd + 1;
+                    if (kind == START_TAG && !selfClosing) {
+                        skipElement();
+                    }
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    @Override
+    public void readTrailingRefs(BiConsumer<String, String> consumer) throws XMLStreamException {
+        try {
+            int kind;
+            while ((kind = nextTag()) != EOF) {
+                if (kind == START_TAG) {
+                    String ref = null;
+                    int i = nameEnd;
+                    while ((i = nextAttribute(i)) >= 0) {
+                        if (attributeNameIs(REF)) {
+                            ref = attributeValue();
+                        }
+                    }
+                    if (ref != null) {
+                        consumer.accept(new String(buffer, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8),
+                                ref);
+                    }
+                }
+                pos = tagEnd + 1;
+            }
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    private void readRowAttributes() {
+        rowNum = -1;
+        rowHidden = false;
+        int i = nameEnd;
+        while ((i = nextAttribute(i)) >= 0) {
+            if (attributeNameIs(R)) {
+                rowNum = parseInt(attributeValueStart, attributeValueEnd);
+            } else if (attributeNameIs(HIDDEN)) {
+                rowHidden = attributeValueIs("1") || attributeValueIs("true");
+            }
+        }
+    }
+
+    @Override
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    @Override
+    public boolean isRowHidden() {
+        return rowHidden;
+    }
+
+    @Override
+    public boolean nextCell() throws XMLStreamException {
+        return nextCell(READ_ALL, null);
+    }
+
+    @Override
+    public boolean nextCell(BitSet columns) throws XMLStreamException {
+        return nextCell(READ_ALL, columns);
+    }
+
+    @Override
+    public boolean nextCellSkippingValue() throws XMLStreamException {
+        return nextCell(READ_FORMULA, null);
+    }
+
+    @Override
+    public boolean nextCellSkippingContent() throws XMLStreamException {
+        return nextCell(READ_NONE, null);
+    }
+
+    /**
+     * @param content which children of the cell to decode, one of {@link #READ_ALL}, {@link #READ_FORMULA} and
+     *                {@link #READ_NONE}
+     * @param columns columns whose values are decoded, or null for all columns
+     */
+    private boolean nextCell(int content, BitSet columns) throws XMLStreamException {
+        try {
+            while (rowOpen) {
+                int kind = nextTag();
+                if (kind == EOF) {
+                    throw new XMLStreamException("Unexpected end of sheet data");
+                }
+                if (kind == END_TAG) {
+                    boolean rowEnd = nameIs(ROW);
+                    pos = tagEnd + 1;
+                    if (rowEnd) {
+                        rowOpen = false;
+                    }
+                } else if (nameIs(C)) {
+                    readCellAttributes();
+                    pos = tagEnd + 1;
+                    if (columns != null && cellColumn >= 0 && !columns.get(cellColumn)) {
+                        content = READ_FORMULA;
+                    }
+                    if (!selfClosing) {
+                        if (content == READ_NONE) {
+                            skipElement();
+                        } else {
+                            readCellContent(content == READ_ALL);
+                        }
+                    }
+                    return true;
+                } else {
+                    pos = tagEnd + 1;
+                    if (!selfClosing) {
+                        skipElement();
+                    }
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    private void readCellAttributes() {
+        cellRow = -1;
+        cellColumn = -1;
+        cellType = "n";
+        cellStyle = -1;
+        charCount = 0;
+        valueStart = -1;
+        valueLength = 0;
+        inlineStringStart = -1;
+        inlineStringLength = 0;
+        formulaStart = -1;
+        formulaLength = 0;
+        formulaType = null;
+        formulaRef = null;
+        formulaSi = null;
+        int i = nameEnd;
+        while ((i = nextAttribute(i)) >= 0) {
+            if (attributeNameIs(R)) {
+                parseCellReference(attributeValueStart, attributeValueEnd);
+            } else if (attributeNameIs(T)) {
+                cellType = cellType(attributeValueStart, attributeValueEnd);
+            } else if (attributeNameIs(S)) {
+                cellStyle = parseInt(attributeValueStart, attributeValueEnd);
+            }
+        }
+    }
+
+    /**
+     * @param withValue false to skip the value and inline string without decoding them
+     */
+    private void readCellContent(boolean withValue) throws IOException, XMLStreamException {
+        while (true) {
+            int kind = nextTag();
+            if (kind == EOF) {
+                throw new XMLStreamException("Unexpected end of sheet data");
+            }
+            boolean empty = selfClosing;
+            if (kind == END_TAG) {
+                boolean cellEnd = nameIs(C);
+                pos = tagEnd + 1;
+                if (cellEnd) {
+                    return;
+                }
+            } else if (!withValue && (nameIs(V) || nameIs(IS))) {
+                pos = tagEnd + 1;
+                if (!empty) {
+                    skipElement();
+                }
+            } else if (nameIs(V)) {
+                pos = tagEnd + 1;
+                valueStart = charCount;
+                if (!empty) {
+                    readText();
+                }
+                valueLength = charCount - valueStart;
+            } else if (nameIs(IS)) {
+                pos = tagEnd + 1;
+                inlineStringStart = charCount;
+                if (!empty) {
+                    readText();
+                }
+                inlineStringLength = charCount - inlineStringStart;
+            } else if (nameIs(F)) {
+                readFormulaAttributes();
+                pos = tagEnd + 1;
+                formulaStart = charCount;
+                if (!empty) {
+                    readText();
+                }
+                formulaLength = charCount - formulaStart;
+            } else {
+                pos = tagEnd + 1;
+                if (!empty) {
+                    skipElement();
+                }
+            }
+        }
+    }
+
+    private void readFormulaAttributes() {
+        formulaType = null;
+        formulaRef = null;
+        formulaSi = null;
+        int i = nameEnd;
+        while ((i = nextAttribute(i)) >= 0) {
+            if (attributeNameIs(T)) {
+                formulaType = attributeValue();
+            } else if (attributeNameIs(REF)) {
+                formulaRef = attributeValue();
+            } else if (attributeNameIs(SI)) {
+                formulaSi = attributeValue();
+            }
+        }
+    }
+
+    /**
+     * Decodes the text of the current element and of its descendants, up to its end tag.
+     */
+    private void readText() throws IOException, XMLStreamException {
+        int depth = 1;
+        while (true) {
+            decodeCharacters();
+            if (!ensure(2)) {
+                throw new XMLStreamException("Unexpected end of sheet data");
+            }
+            byte b = buffer[pos + 1];
+            if (b == '!' && ensure(CDATA_START.length) && startsWith(CDATA_START)) {
+                pos += CDATA_START.length;
+                decodeCData();
+            } else if (b == '!' || b == '?') {
+                skipMarkup();
+            } else {
+                findTagEnd();
+                boolean empty = buffer[tagEnd - 1] == '/';
+                pos = tagEnd + 1;
+                if (b == '/') {
+                    depth--;
+                    if (depth == 0) {
+                        return;
+                    }
+                } else if (!empty) {
+                    depth++;
+                }
+            }
+        }
+    }
+
+    private void skipElement() throws IOException, XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int kind = nextTag();
+            if (kind == EOF) {
+                throw new XMLStreamException("Unexpected end of sheet data");
+            }
+            pos = tagEnd + 1;
+            if (kind == END_TAG) {
+                depth--;
+            } else if (!selfClosing) {
+                depth++;
+            }
+        }
+    }
+
+    /**
+     * Moves to the next start or end tag, skipping text, comments, processing instructions and CDATA sections.
+     * The position is left on the tag, whose end is {@link #tagEnd}.
+     */
+    private int nextTag() throws IOException, XMLStreamException {
+        while (true) {
+            while (true) {
+                if (pos == limit && !fill()) {
+                    return EOF;
+                }
+                int i = indexOf((byte) '<', pos, limit);
+                if (i >= 0) {
+                    pos = i;
+                    break;
+                }
+                pos = limit;
+            }
+            if (!ensure(2)) {
+                throw new XMLStreamException("Unexpected end of sheet data");
+            }
+            byte b = buffer[pos + 1];
+            if (b == '!' || b == '?') {
+                skipMarkup();
+                continue;
+            }
+            findTagEnd();
+            selfClosing = buffer[tagEnd - 1] == '/';
+            int start = b == '/' ? pos + 2 : pos + 1;
+            int end = start;
+            while (end < tagEnd && !isWhitespace(buffer[end]) && buffer[end] != '/' && buffer[end] != '>') {
+                end++;
+            }
+            nameEnd = end;
+            nameStart = start;
+            for (int i = start; i < end; i++) {
+                if (buffer[i] == ':') {
+                    nameStart = i + 1;
+                }
+            }
+            return b == '/' ? END_TAG : START_TAG;
+        }
+    }
+
+    /**
+     * Skips a comment, processing instruction, CDATA section or declaration starting at the current position.
+     */
+    private void skipMarkup() throws IOException, XMLStreamException {
+        if (buffer[pos + 1] == '?') {
+            skipPast(PI_END);
+        } else if (ensure(COMMENT_START.length) && startsWith(COMMENT_START)) {
+            skipPast(COMMENT_END);
+        } else if (ensure(CDATA_START.length) && startsWith(CDATA_START)) {
+            skipPast(CDATA_END);
+        } else {
+            skipPast(TAG_END);
+        }
+    }
+
+    private void skipPast(byte[] pattern) throws IOException, XMLStreamException {
+        while (true) {
+            if (!ensure(pattern.length)) {
+                throw new XMLStreamException("Unexpected end of sheet data");
+            }
+            int last = limit - pattern.length;
+            for (int i = pos; i <= last; i++) {
+                if (buffer[i] == pattern[0] && regionMatches(i, pattern)) {
+                    pos = i + pattern.length;
+                    return;
+                }
+            }
+            pos = last + 1;
+        }
+    }
+
+    /**
+     * Finds the end of the tag starting at the current position, keeping the whole tag in the buffer.
+     */
+    private void findTagEnd() throws IOException, XMLStreamException {
+        int i = pos + 1;
+        byte quote = 0;
+        while (true) {
+            if (i == limit) {
+                int offset = i - pos;
+                if (!ensure(offset + 1)) {
+                    throw new XMLStreamException("Unexpected end of sheet data");
+                }
+                i = pos + offset;
+            }
+            byte b = buffer[i];
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                tagEnd = i;
+                return;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Moves to the next attribute of the current tag.
+     *
+     * @param i position after the tag name or the previous attribute
+     * @return position after the attribute, or -1 if there are no more attributes
+     */
+    private int nextAttribute(int i) {
+        while (i < tagEnd && (isWhitespace(buffer[i]) || buffer[i] == '/')) {
+            i++;
+        }
+        if (i >= tagEnd) {
+            return -1;
+        }
+        attributeNameStart = i;
+        while (i < tagEnd && buffer[i] != '=' && !isWhitespace(buffer[i])) {
+            if (buffer[i] == ':') {
+                attributeNameStart = i + 1;
+            }
+            i++;
+        }
+        attributeNameEnd = i;
+        while (i < tagEnd && buffer[i] != '"' && buffer[i] != '\'') {
+            i++;
+        }
+        if (i >= tagEnd) {
+            return -1;
+        }
+        byte quote = buffer[i++];
+        attributeValueStart = i;
+        while (i < tagEnd && buffer[i] != quote) {
+            i++;
+        }
+        attributeValueEnd = i;
+        return i + 1;
+    }
+
+    private boolean attributeNameIs(byte[] name) {
+        return attributeNameEnd - attributeNameStart == name.length && regionMatches(attributeNameStart, name);
+    }
+
+    private boolean attributeValueIs(String value) {
+        if (attributeValueEnd - attributeValueStart != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer[attributeValueStart + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String attributeValue() {
+        String value = new String(buffer, attributeValueStart, attributeValueEnd - attributeValueStart,
+                StandardCharsets.UTF_8);
+        if (value.indexOf('&') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0
+                || value.indexOf('\t') >= 0) {
+            value = SheetChunker.unescape(value.replace("\r\n", " ").replace('\r', ' ').replace('\n', ' ')
+                    .replace('\t', ' '));
+        }
+        return value;
+    }
+
+    private String cellType(int start, int end) {
+        for (int i = 0; i < CELL_TYPE_BYTES.length; i++) {
+            byte[] type = CELL_TYPE_BYTES[i];
+            if (end - start == type.length && regionMatches(start, type)) {
+                return CELL_TYPES[i];
+            }
+        }
+        return attributeValue();
+    }
+
+    private void parseCellReference(int start, int end) {
+        int col = 0;
+        int row = 0;
+        int i = start;
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '$') {
+                continue;
+            }
+            if (b >= '0' && b <= '9') {
+                break;
+            }
+            col = col * 26 + (b >= 'a' ? b - 'a' : b - 'A') + 1;
+        }
+        if (i == end) {
+            // same as CellAddress for references without digits
+            if (start == end) {
+                cellRow = 0;
+                cellColumn = 0;
+                return;
+            }
+            throw new NumberFormatException("For input string: \"\"");
+        }
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if (b < '0' || b > '9') {
+                // let the usual parser report the error
+                CellAddress address = new CellAddress(attributeValue());
+                cellRow = address.getRow();
+                cellColumn = address.getColumn();
+                return;
+            }
+            row = row * 10 + (b - '0');
+        }
+        cellRow = row - 1;
+        cellColumn = col - 1;
+    }
+
+    private int parseInt(int start, int end) {
+        int value = 0;
+        if (end - start > 0 && end - start < 10) {
+            for (int i = start; i < end; i++) {
+                byte b = buffer[i];
+                if (b < '0' || b > '9') {
+                    return Integer.parseInt(attributeValue());
+                }
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+        return Integer.parseInt(attributeValue());
+    }
+
+    /**
+     * Decodes characters up to the next markup.
+     */
+    private void decodeCharacters() throws IOException, XMLStreamException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw new XMLStreamException("Unexpected end of sheet data");
+            }
+            ensureChars(limit - pos);
+            byte[] buf = buffer;
+            char[] c = chars;
+            int p = pos;
+            int l = limit;
+            int n = charCount;
+            while (p < l) {
+                byte b = buf[p];
+                if (b < 0 || b == '<' || b == '&' || b == '\r') {
+                    break;
+                }
+                c[n++] = (char) b;
+                p++;
+            }
+            pos = p;
+            charCount = n;
+            if (p < l) {
+                byte b = buf[p];
+                if (b == '<') {
+                    return;
+                } else if (b == '&') {
+                    decodeReference();
+                } else if (b == '\r') {
+                    decodeCarriageReturn();
+                } else {
+                    decodeMultiByte();
+                }
+            }
+        }
+    }
+
+    private void decodeCData() throws IOException, XMLStreamException {
+        while (true) {
+            if (!ensure(CDATA_END.length)) {
+                throw new XMLStreamException("Unexpected end of sheet data");
+            }
+            byte b = buffer[pos];
+            if (b == ']' && startsWith(CDATA_END)) {
+                pos += CDATA_END.length;
+                return;
+            } else if (b == '\r') {
+                decodeCarriageReturn();
+            } else if (b < 0) {
+                decodeMultiByte();
+            } else {
+                append((char) b);
+                pos++;
+            }
+        }
+    }
+
+    private void decodeCarriageReturn() throws IOException {
+        pos++;
+        append('\n');
+        if (ensure(1) && buffer[pos] == '\n') {
+            pos++;
+        }
+    }
+
+    private void decodeReference() throws IOException, XMLStreamException {
+        int end = -1;
+        // longest reference: &#x10FFFF;
+        ensure(10);
+        for (int i = pos + 1; i < limit && i < pos + 11; i++) {
+            if (buffer[i] == ';') {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new XMLStreamException("Invalid entity reference");
+        }
+        String name = new String(buffer, pos + 1, end - pos - 1, StandardCharsets.ISO_8859_1);
+        pos = end + 1;
+        switch (name) {
+            case "lt":
+                append('<');
+                return;
+            case "gt":
+                append('>');
+                return;
+            case "amp":
+                append('&');
+                return;
+            case "quot":
+                append('"');
+                return;
+            case "apos":
+                append('\'');
+                return;
+            default:
+                break;
+        }
+        if (name.length() > 1 && name.charAt(0) == '#') {
+            try {
+                int codePoint = name.charAt(1) == 'x'
+                        ? Integer.parseInt(name.substring(2), 16)
+                        : Integer.parseInt(name.substring(1));
+                if (Character.isBmpCodePoint(codePoint)) {
+                    append((char) codePoint);
+                } else if (Character.isValidCodePoint(codePoint)) {
+                    append(Character.highSurrogate(codePoint));
+                    append(Character.lowSurrogate(codePoint));
+                } else {
+                    throw new XMLStreamException("Invalid character reference &" + name + ";");
+                }
+                return;
+            } catch (NumberFormatException e) {
+                throw new XMLStreamException("Invalid character reference &" + name + ";");
+            }
+        }
+        throw new XMLStreamException("Undeclared entity &" + name + ";");
+    }
+
+    private void decodeMultiByte() throws IOException, XMLStreamException {
+        int b = buffer[pos] & 0xFF;
+        int length;
+        int codePoint;
+        if ((b & 0xE0) == 0xC0) {
+            length = 2;
+            codePoint = b & 0x1F;
+        } else if ((b & 0xF0) == 0xE0) {
+            length = 3;
+            codePoint = b & 0x0F;
+        } else if ((b & 0xF8) == 0xF0) {
+            length = 4;
+            codePoint = b & 0x07;
+        } else {
+            throw new XMLStreamException("Invalid UTF-8 byte 0x" + Integer.toHexString(b));
+        }
+        if (!ensure(length)) {
+            throw new XMLStreamException("Truncated UTF-8 sequence");
+        }
+        for (int i = 1; i < length; i++) {
+            int next = buffer[pos + i] & 0xFF;
+            if ((next & 0xC0) != 0x80) {
+                throw new XMLStreamException("Invalid UTF-8 byte 0x" + Integer.toHexString(next));
+            }
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+        pos += length;
+        if (codePoint < 0x10000) {
+            append((char) codePoint);
+        } else {
+            append(Character.highSurrogate(codePoint));
+            append(Character.lowSurrogate(codePoint));
+        }
+    }
+
+    private void append(char c) {
+        ensureChars(1);
+        chars[charCount++] = c;
+    }
+
+    private void ensureChars(int n) {
+        if (charCount + n > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + n));
+        }
+    }
+
+    /**
+     * Refills the buffer once it has been consumed.
+     *
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        return ensure(1);
+    }
+
+    /**
+     * Makes at least n bytes available from the current position, moving them to the start of the buffer if
+     * needed.
+     *
+     * @return false if the input ends before
+     */
+    private boolean ensure(int n) throws IOException {
+        if (limit - pos >= n) {
+            return true;
+        }
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            tagEnd -= pos;
+            pos = 0;
+        }
+        if (n > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, n));
+        }
+        while (limit < n && !eof) {
+            readMore();
+        }
+        return limit >= n;
+    }
+
+    private void readMore() throws IOException {
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private boolean startsWith(byte[] pattern) {
+        return limit - pos >= pattern.length && regionMatches(pos, pattern);
+    }
+
+    private boolean nameIs(byte[] name) {
+        return nameEnd - nameStart == name.length && regionMatches(nameStart, name);
+    }
+
+    private boolean regionMatches(int start, byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (buffer[start + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(byte b, int from, int to) {
+        byte[] buf = buffer;
+        for (int i = from; i < to; i++) {
+            if (buf[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public int getCellRow() {
+        return cellRow;
+    }
+
+    @Override
+    public int getCellColumn() {
+        return cellColumn;
+    }
+
+    @Override
+    public String getCellType() {
+        return cellType;
+    }
+
+    @Override
+    public int getCellStyle() {
+        return cellStyle;
+    }
+
+    @Override
+    public char[] getChars() {
+        return chars;
+    }
+
+    @Override
+    public boolean hasValue() {
+        return valueStart >= 0;
+    }
+
+    @Override
+    public int getValueStart() {
+        return valueStart;
+    }
+
+    @Override
+    public int getValueLength() {
+        return valueLength;
+    }
+
+    @Override
+    public boolean hasInlineString() {
+        return inlineStringStart >= 0;
+    }
+
+    @Override
+    public int getInlineStringStart() {
+        return inlineStringStart;
+    }
+
+    @Override
+    public int getInlineStringLength() {
+        return inlineStringLength;
+    }
+
+    @Override
+    public boolean hasFormula() {
+        return formulaStart >= 0;
+    }
+
+    @Override
+    public int getFormulaStart() {
+        return formulaStart;
+    }
+
+    @Override
+    public int getFormulaLength() {
+        return formulaLength;
+    }
+
+    @Override
+    public String getFormulaType() {
+        return formulaType;
+    }
+
+    @Override
+    public String getFormulaRef() {
+        return formulaRef;
+    }
+
+    @Override
+    public String getFormulaSi() {
+        return formulaSi;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
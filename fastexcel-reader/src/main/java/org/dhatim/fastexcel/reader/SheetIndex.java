@@ -0,0 +1,343 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Segment index of a sheet, allowing to read a range of rows without inflating the rows before it.
+ * <p>
+ * The index splits the sheet into segments of whole rows, every {@code segmentSize} bytes of uncompressed XML.
+ * Each segment is a copy of these rows, deflated on its own, stored along with the numbers of its first and last
+ * rows and the shared and array formulas defined before it whose ranges reach it, so that it can be decoded on its
+ * own, and on any thread. Consecutive segments with the same formulas share them, both in the index and once loaded. The index does not point into the deflate stream of the workbook: resuming that stream mid-way would
+ * require the inflater state and its 32 KiB window at each checkpoint, which {@link java.util.zip.Inflater} cannot
+ * restore. The index is thus about as large as the compressed sheet.
+ * <p>
+ * The index records the CRC-32 and size of the sheet content it was built from, and is only used to read a sheet
+ * with the same content.
+ * <p>
+ * The index can be written as it is built with {@link #build(Sheet, int, OutputStream)}, e.g. to a sidecar file
+ * that is then memory-mapped and read in place with {@link #fromByteBuffer(ByteBuffer)}, or built in memory with
+ * {@link #build(Sheet, int)}. It is used with {@link Sheet#openStream(SheetIndex, int, int)}.
+ */
+public final class SheetIndex {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private static final int MAGIC = 0x46584958;
+    private static final int VERSION = 3;
+
+    private final ByteBuffer buffer;
+    private final int base;
+    private final String sheetName;
+    private final EntryChecksum checksum;
+    private final byte[] header;
+    private final byte[] footer;
+    private final Segment[] segments;
+
+    private SheetIndex(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        this.base = buffer.position();
+        ByteBuffer in = buffer.duplicate();
+        if (in.remaining() < 12 || in.getInt() != MAGIC) {
+            throw new ExcelReaderException("Not a sheet index");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new ExcelReaderException("Unsupported sheet index version " + version);
+        }
+        // the directory is written after the segments, and its position at the very end
+        in.position(base + in.getInt(in.limit() - 4));
+        sheetName = new String(getBytes(in), StandardCharsets.UTF_8);
+        checksum = new EntryChecksum(in.getLong(), in.getLong());
+        header = getBytes(in);
+        footer = getBytes(in);
+        segments = new Segment[in.getInt()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(in, i == 0 ? null : segments[i - 1]);
+        }
+    }
+
+    /**
+     * Builds the index of a sheet in memory with the default segment size.
+     */
+    public static SheetIndex build(Sheet sheet) throws IOException {
+        return build(sheet, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Builds the index of a sheet in memory. This reads and inflates the whole sheet once.
+     *
+     * @param segmentSize approximate number of uncompressed bytes of sheet XML in a segment
+     */
+    public static SheetIndex build(Sheet sheet, int segmentSize) throws IOException {
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        build(sheet, segmentSize, index);
+        return new SheetIndex(ByteBuffer.wrap(index.toByteArray()));
+    }
+
+    /**
+     * Builds the index of a sheet and writes it as it goes, keeping a single segment in memory. This reads and
+     * inflates the whole sheet once. The index can then be loaded with {@link #read(InputStream)} or
+     * {@link #fromByteBuffer(ByteBuffer)}.
+     *
+     * @param segmentSize approximate number of uncompressed bytes of sheet XML in a segment
+     */
+    public static void build(Sheet sheet, int segmentSize, OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(new NonClosingOutputStream(output));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        ByteArrayOutputStream directory = new ByteArrayOutputStream();
+        DataOutputStream dir = new DataOutputStream(directory);
+        int segmentCount = 0;
+        byte[] header = new byte[0];
+        byte[] footer = new byte[0];
+        EntryChecksum checksum;
+        try (EntryChecksum.Input content = new EntryChecksum.Input(sheet.getWorkbook().getSheetContent(sheet));
+             SheetChunker chunker = new SheetChunker(content, segmentSize)) {
+            if (!chunker.isSplittable()) {
+                throw new ExcelReaderException("Sheet '" + sheet.getName() + "' cannot be indexed");
+            }
+            Map<Integer, BaseFormulaCell> sharedFormula = null;
+            Map<CellRangeAddress, String> arrayFormula = null;
+            SheetChunk chunk;
+            while ((chunk = chunker.next()) != null) {
+                header = chunk.getHeader();
+                footer = chunk.getFooter();
+                int offset = out.size();
+                try (DeflaterOutputStream data = new DeflaterOutputStream(new NonClosingOutputStream(out))) {
+                    data.write(chunk.getData(), 0, chunk.getLength());
+                }
+                if (out.size() == Integer.MAX_VALUE) {
+                    throw new ExcelReaderException("Index of sheet '" + sheet.getName() + "' exceeds 2 GiB");
+                }
+                dir.writeInt(chunk.getFirstRowNum());
+                dir.writeInt(chunk.getLastRowNum());
+                dir.writeInt(chunk.getTrackedRowIndex());
+                dir.writeInt(offset);
+                dir.writeInt(out.size() - offset);
+                // the chunker hands out the same formula maps until they change
+                boolean sameFormulas = chunk.getSharedFormula() == sharedFormula
+                        && chunk.getArrayFormula() == arrayFormula;
+                dir.writeBoolean(sameFormulas);
+                if (!sameFormulas) {
+                    writeFormulas(dir, chunk);
+                }
+                sharedFormula = chunk.getSharedFormula();
+                arrayFormula = chunk.getArrayFormula();
+                segmentCount++;
+            }
+            content.drain();
+            checksum = content.getChecksum();
+        }
+        int directoryStart = out.size();
+        writeBytes(out, sheet.getName().getBytes(StandardCharsets.UTF_8));
+        out.writeLong(checksum.getCrc());
+        out.writeLong(checksum.getSize());
+        writeBytes(out, header);
+        writeBytes(out, footer);
+        out.writeInt(segmentCount);
+        directory.writeTo(out);
+        out.writeInt(directoryStart);
+        out.flush();
+    }
+
+    /**
+     * Loads an index, keeping a reference to the given buffer.
+     */
+    public static SheetIndex fromByteBuffer(ByteBuffer buffer) {
+        return new SheetIndex(buffer);
+    }
+
+    /**
+     * Loads an index written by {@link #write(OutputStream)}.
+     */
+    public static SheetIndex read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, n);
+        }
+        return new SheetIndex(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    public void write(OutputStream out) throws IOException {
+        Channels.newChannel(out).write(toByteBuffer());
+    }
+
+    /**
+     * @return a read-only view of the serialized index
+     */
+    public ByteBuffer toByteBuffer() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return name of the indexed sheet
+     */
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    /**
+     * @return checksum of the content of the indexed sheet
+     */
+    EntryChecksum getChecksum() {
+        return checksum;
+    }
+
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    int getFirstRowNum(int segment) {
+        return segments[segment].firstRowNum;
+    }
+
+    int getLastRowNum(int segment) {
+        return segments[segment].lastRowNum;
+    }
+
+    /**
+     * @return the given segment, with the formulas defined before it
+     */
+    SheetChunk getChunk(int segment) {
+        Segment s = segments[segment];
+        byte[] data = new byte[s.length];
+        ByteBuffer in = buffer.duplicate();
+        in.position(base + s.offset);
+        in.get(data);
+        return new SheetChunk(header, footer, data, data.length, true, s.trackedRowIndex,
+                s.firstRowNum, s.lastRowNum, s.sharedFormula, s.arrayFormula);
+    }
+
+    /**
+     * Writes the formulas defined before the chunk whose ranges reach it.
+     */
+    private static void writeFormulas(DataOutputStream out, SheetChunk chunk) throws IOException {
+        out.writeInt(chunk.getSharedFormula().size());
+        for (Map.Entry<Integer, BaseFormulaCell> e : chunk.getSharedFormula().entrySet()) {
+            out.writeBoolean(e.getKey() != null);
+            out.writeInt(e.getKey() == null ? 0 : e.getKey());
+            BaseFormulaCell cell = e.getValue();
+            out.writeInt(cell.getBaseCelAddr().getRow());
+            out.writeInt(cell.getBaseCelAddr().getColumn());
+            writeBytes(out, cell.getFormula().getBytes(StandardCharsets.UTF_8));
+            writeRange(out, cell.getRef());
+        }
+        out.writeInt(chunk.getArrayFormula().size());
+        for (Map.Entry<CellRangeAddress, String> e : chunk.getArrayFormula().entrySet()) {
+            writeRange(out, e.getKey());
+            writeBytes(out, e.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeRange(DataOutputStream out, CellRangeAddress range) throws IOException {
+        out.writeInt(range.getFirstRow());
+        out.writeInt(range.getLastRow());
+        out.writeInt(range.getFirstColumn());
+        out.writeInt(range.getLastColumn());
+    }
+
+    private static CellRangeAddress getRange(ByteBuffer in) {
+        return new CellRangeAddress(in.getInt(), in.getInt(), in.getInt(), in.getInt());
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static final class Segment {
+        private final int firstRowNum;
+        private final int lastRowNum;
+        private final int trackedRowIndex;
+        private final int offset;
+        private final int length;
+        private final Map<Integer, BaseFormulaCell> sharedFormula;
+        private final Map<CellRangeAddress, String> arrayFormula;
+
+        /**
+         * @param previous previous segment, whose formulas this one shares if they are the same
+         */
+        Segment(ByteBuffer in, Segment previous) {
+            firstRowNum = in.getInt();
+            lastRowNum = in.getInt();
+            trackedRowIndex = in.getInt();
+            offset = in.getInt();
+            length = in.getInt();
+            if (in.get() != 0 && previous != null) {
+                sharedFormula = previous.sharedFormula;
+                arrayFormula = previous.arrayFormula;
+                return;
+            }
+            Map<Integer, BaseFormulaCell> shared = new HashMap<>();
+            int sharedCount = in.getInt();
+            for (int i = 0; i < sharedCount; i++) {
+                boolean hasSi = in.get() != 0;
+                int si = in.getInt();
+                CellAddress base = new CellAddress(in.getInt(), in.getInt());
+                String formula = new String(getBytes(in), StandardCharsets.UTF_8);
+                shared.put(hasSi ? si : null, new BaseFormulaCell(base, formula, getRange(in)));
+            }
+            Map<CellRangeAddress, String> array = new HashMap<>();
+            int arrayCount = in.getInt();
+            for (int i = 0; i < arrayCount; i++) {
+                CellRangeAddress range = getRange(in);
+                array.put(range, new String(getBytes(in), StandardCharsets.UTF_8));
+            }
+            sharedFormula = Collections.unmodifiableMap(shared);
+            arrayFormula = Collections.unmodifiableMap(array);
+        }
+    }
+
+    private static final class NonClosingOutputStream extends OutputStream {
+        private final OutputStream out;
+
+        NonClosingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+    }
+}
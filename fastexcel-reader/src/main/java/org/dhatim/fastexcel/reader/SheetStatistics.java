@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Shape of a sheet, gathered by {@link Sheet#readStatistics()} without building rows and cells: only the row and
+ * cell markers of the sheet data, and the elements after it, are read.
+ */
+public final class SheetStatistics {
+
+    private final int rowCount;
+    private final CellRangeAddress usedRange;
+    private final List<Integer> hiddenRows;
+    private final List<CellRangeAddress> mergedRanges;
+    private final List<CellRangeAddress> hyperlinkRanges;
+    private final CellRangeAddress autoFilterRange;
+
+    private SheetStatistics(int rowCount, CellRangeAddress usedRange, List<Integer> hiddenRows,
+                            List<CellRangeAddress> mergedRanges, List<CellRangeAddress> hyperlinkRanges,
+                            CellRangeAddress autoFilterRange) {
+        this.rowCount = rowCount;
+        this.usedRange = usedRange;
+        this.hiddenRows = Collections.unmodifiableList(hiddenRows);
+        this.mergedRanges = Collections.unmodifiableList(mergedRanges);
+        this.hyperlinkRanges = Collections.unmodifiableList(hyperlinkRanges);
+        this.autoFilterRange = autoFilterRange;
+    }
+
+    static SheetStatistics read(SheetDataReader r) throws XMLStreamException {
+        int rowCount = 0;
+        int rowNum = 0;
+        int firstRow = Integer.MAX_VALUE;
+        int lastRow = -1;
+        int firstColumn = Integer.MAX_VALUE;
+        int lastColumn = -1;
+        List<Integer> hiddenRows = new ArrayList<>();
+        while (r.nextRow()) {
+            rowCount++;
+            rowNum = r.getRowNum() >= 0 ? r.getRowNum() : rowNum + 1;
+            if (r.isRowHidden()) {
+                hiddenRows.add(rowNum);
+            }
+            int column = -1;
+            while (r.nextCellSkippingContent()) {
+                column = r.getCellColumn() >= 0 ? r.getCellColumn() : column + 1;
+                firstColumn = Math.min(firstColumn, column);
+                lastColumn = Math.max(lastColumn, column);
+            }
+            if (column >= 0) {
+                firstRow = Math.min(firstRow, rowNum - 1);
+                lastRow = Math.max(lastRow, rowNum - 1);
+            }
+        }
+        List<CellRangeAddress> mergedRanges = new ArrayList<>();
+        List<CellRangeAddress> hyperlinkRanges = new ArrayList<>();
+        CellRangeAddress[] autoFilterRange = new CellRangeAddress[1];
+        r.readTrailingRefs((name, ref) -> {
+            if ("mergeCell".equals(name)) {
+                addRange(mergedRanges, ref);
+            } else if ("hyperlink".equals(name)) {
+                addRange(hyperlinkRanges, ref);
+            } else if ("autoFilter".equals(name)) {
+                autoFilterRange[0] = parseRange(ref);
+            }
+        });
+        CellRangeAddress usedRange = lastRow < 0 ? null
+                : new CellRangeAddress(firstRow, lastRow, firstColumn, lastColumn);
+        return new SheetStatistics(rowCount, usedRange, hiddenRows, mergedRanges, hyperlinkRanges,
+                autoFilterRange[0]);
+    }
+
+    private static void addRange(List<CellRangeAddress> ranges, String ref) {
+        CellRangeAddress range = parseRange(ref);
+        if (range != null) {
+            ranges.add(range);
+        }
+    }
+
+    /**
+     * @return the range, or null if the reference is not a single valid range
+     */
+    private static CellRangeAddress parseRange(String ref) {
+        try {
+            return CellRangeAddress.valueOf(ref);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return number of rows written in the sheet, which is the number of rows read by {@link Sheet#read()}
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return one more than the index of the last column holding a cell, counting from column A, or 0 if the sheet
+     * has no cells
+     */
+    public int getColumnCount() {
+        return usedRange == null ? 0 : usedRange.getLastColumn() + 1;
+    }
+
+    /**
+     * @return smallest range containing all cells of the sheet, empty if the sheet has no cells
+     */
+    public Optional<CellRangeAddress> getUsedRange() {
+        return Optional.ofNullable(usedRange);
+    }
+
+    /**
+     * @return numbers, starting at 1, of the hidden rows of the sheet
+     */
+    public List<Integer> getHiddenRows() {
+        return hiddenRows;
+    }
+
+    public List<CellRangeAddress> getMergedRanges() {
+        return mergedRanges;
+    }
+
+    /**
+     * @return cells and ranges holding hyperlinks
+     */
+    public List<CellRangeAddress> getHyperlinkRanges() {
+        return hyperlinkRanges;
+    }
+
+    public Optional<CellRangeAddress> getAutoFilterRange() {
+        return Optional.ofNullable(autoFilterRange);
+    }
+
+    @Override
+    public String toString() {
+        return "SheetStatistics{rowCount=" + rowCount + ", usedRange=" + usedRange + ", hiddenRows=" + hiddenRows
+                + ", mergedRanges=" + mergedRanges + ", hyperlinkRanges=" + hyperlinkRanges
+                + ", autoFilterRange=" + autoFilterRange + '}';
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Copy of a zip entry read from a stream, kept in memory while it is small and in a temporary file otherwise, so
+ * that it can be read any number of times. Closing it deletes the file.
+ */
+final class SpilledEntry implements Closeable {
+
+    private final int memoryThreshold;
+    private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private byte[] content;
+    private Path file;
+    private OutputStream out;
+
+    SpilledEntry(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    void write(byte[] b, int off, int len) throws IOException {
+        if (out != null) {
+            out.write(b, off, len);
+            return;
+        }
+        bytes.write(b, off, len);
+        if (bytes.size() > memoryThreshold) {
+            file = Files.createTempFile("fastexcel-entry", ".tmp");
+            out = new BufferedOutputStream(Files.newOutputStream(file));
+            bytes.writeTo(out);
+            bytes = null;
+        }
+    }
+
+    /**
+     * Ends the copy, once the whole entry has been written.
+     */
+    void finish() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        } else if (bytes != null) {
+            content = bytes.toByteArray();
+            bytes = null;
+        }
+    }
+
+    InputStream open() throws IOException {
+        return content != null ? new ByteArrayInputStream(content)
+                : new BufferedInputStream(Files.newInputStream(file));
+    }
+
+    @Override
+    public void close() throws IOException {
+        content = null;
+        bytes = null;
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        } finally {
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Publisher of the items of a stream, pulled from its spliterator as they are requested.
+ * <p>
+ * Each subscription opens its own stream, once the publisher is ready, and closes it when the items run out, on
+ * error or on cancellation. Items are sent by tasks run on the executor: a task sends at most
+ * {@link #MAX_ITEMS_PER_TASK} items then submits another one, so that many subscriptions can share a few threads,
+ * and no thread is held while a subscriber has no demand, nor while the items of an {@link Incoming} spliterator
+ * have not been received.
+ */
+class SpliteratorPublisher<T> implements Flow.Publisher<T> {
+
+    static final int MAX_ITEMS_PER_TASK = 1024;
+
+    /**
+     * Opens the stream of items of a subscription.
+     */
+    @FunctionalInterface
+    interface Source<T> {
+        Stream<T> open() throws IOException;
+    }
+
+    /**
+     * Spliterator whose items may not have been received yet, e.g. rows of a sheet being uploaded. Items are only
+     * pulled from it once it is ready, and its listener is notified when it may have become ready.
+     */
+    interface Incoming {
+        /**
+         * @return true if {@link Spliterator#tryAdvance(Consumer)} can be called without waiting, i.e. an item
+         * has been received, the items have run out, or an error is to be thrown
+         */
+        boolean isReady();
+
+        void setListener(Runnable listener);
+    }
+
+    private final Source<T> source;
+    private final Executor executor;
+    private final CompletableFuture<?> ready;
+
+    SpliteratorPublisher(Source<T> source, Executor executor) {
+        this(source, executor, CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * @param ready completed once streams can be opened, exceptionally to signal the error to subscribers
+     */
+    SpliteratorPublisher(Source<T> source, Executor executor, CompletableFuture<?> ready) {
+        this.source = source;
+        this.executor = executor;
+        this.ready = ready;
+    }
+
+    /**
+     * @return a source of the items of the given source, grouped in lists of at most {@code batchSize} items
+     */
+    static <T> Source<List<T>> batched(Source<T> source, int batchSize) {
+        return () -> {
+            Stream<T> items = source.open();
+            Spliterator<T> spliterator = items.spliterator();
+            Spliterator<List<T>> batches = new Spliterators.AbstractSpliterator<List<T>>(
+                    Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super List<T>> action) {
+                    List<T> batch = new ArrayList<>(batchSize);
+                    while (batch.size() < batchSize && spliterator.tryAdvance(batch::add)) {
+                        // filling the batch
+                    }
+                    if (batch.isEmpty()) {
+                        return false;
+                    }
+                    action.accept(batch);
+                    return true;
+                }
+            };
+            return StreamSupport.stream(batches, false).onClose(items::close);
+        };
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        SpliteratorSubscription subscription = new SpliteratorSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        ready.whenComplete((result, error) -> subscription.schedule());
+    }
+
+    private final class SpliteratorSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        // number of signals not handled yet by the running task, a task is scheduled when it leaves zero
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+        // only used by the running task
+        private Stream<T> stream;
+        private Spliterator<T> spliterator;
+        private boolean done;
+
+        SpliteratorSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested items must be positive: " + n);
+            } else {
+                requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = pending.get();
+            while (true) {
+                if (drain()) {
+                    // more items are requested, let other tasks run first
+                    executor.execute(this);
+                    return;
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return true if the task stopped after sending {@link #MAX_ITEMS_PER_TASK} items
+         */
+        private boolean drain() {
+            if (done) {
+                return false;
+            } else if (cancelled) {
+                stop(null);
+                return false;
+            } else if (invalidRequest != null) {
+                fail(invalidRequest);
+                return false;
+            } else if (!ready.isDone()) {
+                return false;
+            }
+            try {
+                if (spliterator == null) {
+                    ready.join();
+                    stream = source.open();
+                    spliterator = stream.spliterator();
+                    if (spliterator instanceof Incoming) {
+                        ((Incoming) spliterator).setListener(this::schedule);
+                    }
+                }
+                for (int sent = 0; requested.get() > 0; sent++) {
+                    if (cancelled) {
+                        stop(null);
+                        return false;
+                    } else if (sent == MAX_ITEMS_PER_TASK) {
+                        return true;
+                    } else if (spliterator instanceof Incoming && !((Incoming) spliterator).isReady()) {
+                        // resumed by the listener
+                        return false;
+                    } else if (!spliterator.tryAdvance(subscriber::onNext)) {
+                        close();
+                        done = true;
+                        subscriber.onComplete();
+                        return false;
+                    }
+                    requested.getAndUpdate(r -> r == Long.MAX_VALUE ? r : r - 1);
+                }
+            } catch (Throwable e) {
+                fail(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+            return false;
+        }
+
+        private void fail(Throwable error) {
+            if (done) {
+                return;
+            }
+            stop(error);
+            subscriber.onError(error);
+        }
+
+        /**
+         * Stops the subscription, without signaling the subscriber.
+         *
+         * @param error error to which the failure to close the stream is added, if any
+         */
+        private void stop(Throwable error) {
+            done = true;
+            try {
+                close();
+            } catch (RuntimeException e) {
+                if (error != null) {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+
+        private void close() {
+            Stream<T> s = stream;
+            stream = null;
+            spliterator = null;
+            if (s != null) {
+                s.close();
+            }
+        }
+    }
+}
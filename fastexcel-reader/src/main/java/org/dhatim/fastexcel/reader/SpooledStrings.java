@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only list of strings stored as UTF-8 in a memory-mapped temporary file.
+ * <p>
+ * The file is mapped in segments which never split a string, so a string is located by its segment and an
+ * {@code int} offset in it. Strings are decoded on access, and the most recently used ones are kept in a bounded
+ * cache. This class is not thread-safe.
+ */
+class SpooledStrings implements Closeable {
+
+    static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final int segmentSize;
+    private final Path file;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    /**
+     * Index of the first string of each segment. Segments are only created to hold a string, so it increases.
+     */
+    private int[] segmentFirst = new int[4];
+    private int[] offsets = new int[1024];
+    private int size;
+    private long fileSize;
+    private final Map<Integer, String> cache;
+
+    SpooledStrings(int cacheSize) throws IOException {
+        this(cacheSize, SEGMENT_SIZE);
+    }
+
+    SpooledStrings(int cacheSize, int segmentSize) throws IOException {
+        this.segmentSize = segmentSize;
+        this.cache = new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.file = Files.createTempFile("fastexcel-sst", ".tmp");
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        MappedByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.remaining() < bytes.length) {
+            segment = newSegment(bytes.length);
+        }
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        offsets[size++] = segment.position();
+        segment.put(bytes);
+    }
+
+    private MappedByteBuffer newSegment(int minSize) throws IOException {
+        int length = Math.max(segmentSize, minSize);
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, fileSize, length);
+        fileSize += length;
+        if (segments.size() == segmentFirst.length) {
+            segmentFirst = Arrays.copyOf(segmentFirst, segmentFirst.length * 2);
+        }
+        segmentFirst[segments.size()] = size;
+        segments.add(segment);
+        return segment;
+    }
+
+    String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        String s = cache.get(index);
+        if (s == null) {
+            s = decode(index);
+            cache.put(index, s);
+        }
+        return s;
+    }
+
+    private String decode(int index) {
+        int segmentIndex = Arrays.binarySearch(segmentFirst, 0, segments.size(), index);
+        if (segmentIndex < 0) {
+            segmentIndex = -segmentIndex - 2;
+        }
+        MappedByteBuffer segment = segments.get(segmentIndex);
+        int start = offsets[index];
+        boolean lastOfSegment = segmentIndex + 1 < segments.size() ? index + 1 == segmentFirst[segmentIndex + 1]
+                : index + 1 == size;
+        int end = lastOfSegment ? segment.position() : offsets[index + 1];
+        byte[] bytes = new byte[end - start];
+        ByteBuffer in = segment.duplicate();
+        in.position(start);
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        segments.clear();
+        cache.clear();
+        try {
+            channel.close();
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // the file may still be mapped on some platforms
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+}
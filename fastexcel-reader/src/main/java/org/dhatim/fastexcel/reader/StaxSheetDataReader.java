@@ -0,0 +1,339 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link SheetDataReader} on top of a StAX parser.
+ */
+class StaxSheetDataReader implements SheetDataReader {
+
+    private final InputStream inputStream;
+    private final XMLStreamReader reader;
+    private String dimensionRef;
+    private int maxDeclaredColumn;
+    private boolean done;
+
+    private int rowNum;
+    private boolean rowHidden;
+
+    private int cellRow;
+    private int cellColumn;
+    private String cellType;
+    private int cellStyle;
+    private char[] chars = new char[256];
+    private int charCount;
+    private int valueStart = -1;
+    private int valueLength;
+    private int inlineStringStart = -1;
+    private int inlineStringLength;
+    private int formulaStart = -1;
+    private int formulaLength;
+    private String formulaType;
+    private String formulaRef;
+    private String formulaSi;
+
+    StaxSheetDataReader(XMLInputFactory factory, InputStream inputStream) throws XMLStreamException {
+        this.inputStream = inputStream;
+        this.reader = factory.createXMLStreamReader(inputStream);
+        goToSheetData();
+    }
+
+    /**
+     * Moves to the start of the sheet data, reading the dimension and columns of the worksheet on the way.
+     */
+    private void goToSheetData() throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if ("sheetData".equals(name)) {
+                    return;
+                } else if ("dimension".equals(name)) {
+                    dimensionRef = reader.getAttributeValue(null, "ref");
+                } else if ("col".equals(name)) {
+                    try {
+                        String max = reader.getAttributeValue(null, "max");
+                        if (max != null) {
+                            maxDeclaredColumn = Math.max(maxDeclaredColumn, Integer.parseInt(max));
+                        }
+                    } catch (NumberFormatException e) {
+                        // only a hint
+                    }
+                }
+            }
+        }
+        done = true;
+    }
+
+    @Override
+    public String getDimensionRef() {
+        return dimensionRef;
+    }
+
+    @Override
+    public int getMaxDeclaredColumn() {
+        return maxDeclaredColumn;
+    }
+
+    @Override
+    public boolean nextRow() throws XMLStreamException {
+        while (!done && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT && "row".equals(reader.getLocalName())) {
+                rowNum = -1;
+                rowHidden = false;
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    String name = reader.getAttributeLocalName(i);
+                    if ("r".equals(name)) {
+                        rowNum = Integer.parseInt(reader.getAttributeValue(i));
+                    } else if ("hidden".equals(name)) {
+                        String value = reader.getAttributeValue(i);
+                        rowHidden = "1".equals(value) || "true".equals(value);
+                    }
+                }
+                return true;
+            } else if (event == XMLStreamReader.END_ELEMENT && "sheetData".equals(reader.getLocalName())) {
+                done = true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void readTrailingRefs(BiConsumer<String, String> consumer) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamReader.START_ELEMENT) {
+                String ref = reader.getAttributeValue(null, "ref");
+                if (ref != null) {
+                    consumer.accept(reader.getLocalName(), ref);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    @Override
+    public boolean isRowHidden() {
+        return rowHidden;
+    }
+
+    @Override
+    public boolean nextCell() throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT && "c".equals(reader.getLocalName())) {
+                readCell();
+                return true;
+            } else if (event == XMLStreamReader.END_ELEMENT && "row".equals(reader.getLocalName())) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void readCell() throws XMLStreamException {
+        cellRow = -1;
+        cellColumn = -1;
+        cellType = "n";
+        cellStyle = -1;
+        charCount = 0;
+        valueStart = -1;
+        valueLength = 0;
+        inlineStringStart = -1;
+        inlineStringLength = 0;
+        formulaStart = -1;
+        formulaLength = 0;
+        formulaType = null;
+        formulaRef = null;
+        formulaSi = null;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = reader.getAttributeLocalName(i);
+            if ("r".equals(name)) {
+                String ref = reader.getAttributeValue(i);
+                if (!ref.isEmpty()) {
+                    CellAddress address = new CellAddress(ref);
+                    cellRow = address.getRow();
+                    cellColumn = address.getColumn();
+                } else {
+                    cellRow = 0;
+                    cellColumn = 0;
+                }
+            } else if ("t".equals(name)) {
+                cellType = reader.getAttributeValue(i);
+            } else if ("s".equals(name)) {
+                cellStyle = Integer.parseInt(reader.getAttributeValue(i));
+            }
+        }
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if ("v".equals(name)) {
+                    valueStart = charCount;
+                    appendText("v");
+                    valueLength = charCount - valueStart;
+                } else if ("is".equals(name)) {
+                    inlineStringStart = charCount;
+                    appendText("is");
+                    inlineStringLength = charCount - inlineStringStart;
+                } else if ("f".equals(name)) {
+                    formulaType = reader.getAttributeValue(null, "t");
+                    formulaRef = reader.getAttributeValue(null, "ref");
+                    formulaSi = reader.getAttributeValue(null, "si");
+                    formulaStart = charCount;
+                    appendText("f");
+                    formulaLength = charCount - formulaStart;
+                }
+            } else if (event == XMLStreamReader.END_ELEMENT && "c".equals(reader.getLocalName())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Appends the text content of the current element, including the text of its children.
+     */
+    private void appendText(String elementName) throws XMLStreamException {
+        int depth = 1;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamReader.CHARACTERS || event == XMLStreamReader.CDATA
+                    || event == XMLStreamReader.SPACE) {
+                int length = reader.getTextLength();
+                if (charCount + length > chars.length) {
+                    chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+                }
+                System.arraycopy(reader.getTextCharacters(), reader.getTextStart(), chars, charCount, length);
+                charCount += length;
+            } else if (event == XMLStreamReader.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamReader.END_ELEMENT) {
+                depth--;
+                if (depth == 0 && elementName.equals(reader.getLocalName())) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getCellRow() {
+        return cellRow;
+    }
+
+    @Override
+    public int getCellColumn() {
+        return cellColumn;
+    }
+
+    @Override
+    public String getCellType() {
+        return cellType;
+    }
+
+    @Override
+    public int getCellStyle() {
+        return cellStyle;
+    }
+
+    @Override
+    public char[] getChars() {
+        return chars;
+    }
+
+    @Override
+    public boolean hasValue() {
+        return valueStart >= 0;
+    }
+
+    @Override
+    public int getValueStart() {
+        return valueStart;
+    }
+
+    @Override
+    public int getValueLength() {
+        return valueLength;
+    }
+
+    @Override
+    public boolean hasInlineString() {
+        return inlineStringStart >= 0;
+    }
+
+    @Override
+    public int getInlineStringStart() {
+        return inlineStringStart;
+    }
+
+    @Override
+    public int getInlineStringLength() {
+        return inlineStringLength;
+    }
+
+    @Override
+    public boolean hasFormula() {
+        return formulaStart >= 0;
+    }
+
+    @Override
+    public int getFormulaStart() {
+        return formulaStart;
+    }
+
+    @Override
+    public int getFormulaLength() {
+        return formulaLength;
+    }
+
+    @Override
+    public String getFormulaType() {
+        return formulaType;
+    }
+
+    @Override
+    public String getFormulaRef() {
+        return formulaRef;
+    }
+
+    @Override
+    public String getFormulaSi() {
+        return formulaSi;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Entries of a zip archive read sequentially from a stream, without its central directory.
+ * <p>
+ * Looking an entry up reads the stream up to it. XML entries passed on the way are spilled, in memory while they
+ * are small and to a temporary file otherwise, so that they can be read later; other entries, such as images, are
+ * skipped. An entry read only once, i.e. a sheet, is read directly from the stream if it has not been spilled, and
+ * can then not be read again. Memory use is thus bounded whatever the size of the archive.
+ */
+class StreamingEntrySource implements EntrySource {
+
+    static final int MEMORY_THRESHOLD = 1024 * 1024;
+
+    private final ZipArchiveInputStream zip;
+    private final int memoryThreshold;
+    private final Map<String, SpilledEntry> spilled = new HashMap<>();
+    private final Set<String> consumed = new HashSet<>();
+    private final List<SpilledEntry> copies = new ArrayList<>();
+    private EntryInputStream current;
+
+    StreamingEntrySource(InputStream in) {
+        this(in, MEMORY_THRESHOLD);
+    }
+
+    StreamingEntrySource(InputStream in, int memoryThreshold) {
+        this.zip = new ZipArchiveInputStream(in, StandardCharsets.UTF_8.name(), true, true);
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    @Override
+    public synchronized InputStream getEntry(String name, boolean once) throws IOException {
+        SpilledEntry entry = findSpilled(name);
+        if (entry != null) {
+            return entry.open();
+        }
+        String key = name.toLowerCase(Locale.ROOT);
+        if (consumed.contains(key)) {
+            throw new ExcelReaderException("Entry " + name + " has already been read from the stream");
+        }
+        if (current != null && !current.done) {
+            throw new ExcelReaderException("Cannot read entry " + name + " while " + current.name
+                    + " is being read from the stream");
+        }
+        ZipArchiveEntry next;
+        while ((next = zip.getNextEntry()) != null) {
+            if (next.isDirectory()) {
+                continue;
+            }
+            String nextKey = next.getName().toLowerCase(Locale.ROOT);
+            if (nextKey.equals(key) && once) {
+                consumed.add(key);
+                current = new EntryInputStream(next.getName(), zip);
+                return current;
+            } else if (nextKey.equals(key) || isXml(nextKey)) {
+                SpilledEntry s = spill();
+                spilled.put(next.getName(), s);
+                spilled.putIfAbsent(nextKey, s);
+                if (nextKey.equals(key)) {
+                    return findSpilled(name).open();
+                }
+            }
+        }
+        return null;
+    }
+
+    private SpilledEntry findSpilled(String name) {
+        SpilledEntry entry = spilled.get(name);
+        return entry != null ? entry : spilled.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean isXml(String name) {
+        return name.endsWith(".xml") || name.endsWith(".rels");
+    }
+
+    /**
+     * Copies the current entry of the stream.
+     */
+    private SpilledEntry spill() throws IOException {
+        SpilledEntry entry = new SpilledEntry(memoryThreshold);
+        copies.add(entry);
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = zip.read(buffer)) >= 0) {
+            entry.write(buffer, 0, n);
+        }
+        entry.finish();
+        return entry;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            zip.close();
+        } finally {
+            spilled.clear();
+            for (SpilledEntry copy : copies) {
+                copy.close();
+            }
+            copies.clear();
+        }
+    }
+
+    /**
+     * Content of the current entry of the stream, which does not close the stream.
+     */
+    private static final class EntryInputStream extends FilterInputStream {
+        private final String name;
+        private volatile boolean done;
+
+        EntryInputStream(String name, InputStream in) {
+            super(in);
+            this.name = name;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = done ? -1 : super.read();
+            if (b < 0) {
+                done = true;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = done ? -1 : super.read(b, off, len);
+            if (n < 0) {
+                done = true;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return done ? 0 : super.skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return done ? 0 : super.available();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // the rest of the entry is skipped when moving to the next one
+            done = true;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reader of the entries of a zip archive whose bytes are pushed chunk by chunk, from their local headers, without
+ * the central directory at the end of the archive.
+ * <p>
+ * Each chunk is parsed as it is fed: deflated entries are inflated on the fly and their content passed to the
+ * {@link Handler}, so that no more than a header and a buffer of inflated bytes are held. Entries whose size is only
+ * given by a data descriptor after their content are supported if they are deflated, as written by streaming zip
+ * writers, including those writing sizes of 8 bytes without declaring them. Parsing stops at the central directory.
+ */
+final class ZipFeeder {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_DIRECTORY = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR = 0x07064b50;
+    private static final int ARCHIVE_EXTRA_DATA = 0x08064b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    /**
+     * Receiver of the entries of the archive.
+     */
+    interface Handler {
+        /**
+         * @param name name of the entry
+         * @return false to skip the content of the entry
+         */
+        boolean startEntry(String name) throws IOException;
+
+        /**
+         * Receives uncompressed bytes of the current entry, which are only valid during the call.
+         */
+        void entryData(byte[] b, int off, int len) throws IOException;
+
+        void endEntry() throws IOException;
+    }
+
+    private enum State {
+        SIGNATURE, HEADER, NAME, DATA, DESCRIPTOR_SIGNATURE, DESCRIPTOR, END
+    }
+
+    private final Handler handler;
+    private final Inflater inflater = new Inflater(true);
+    private final byte[] inflated = new byte[AsyncSheetDataReader.READ_SIZE];
+    private State state = State.SIGNATURE;
+    private byte[] header = new byte[LOCAL_HEADER_SIZE];
+    private int headerCount;
+    private int headerSize = 4;
+    private boolean handled;
+    private boolean deflated;
+    private boolean descriptor;
+    private boolean zip64;
+    private int descriptorStart;
+    private long remaining;
+
+    ZipFeeder(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Parses the next bytes of the archive.
+     */
+    void feed(byte[] b, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end && state != State.END) {
+            if (state == State.DATA) {
+                off = deflated ? inflate(b, off, end) : copy(b, off, end);
+            } else {
+                int n = Math.min(end - off, headerSize - headerCount);
+                System.arraycopy(b, off, header, headerCount, n);
+                headerCount += n;
+                off += n;
+                if (headerCount == headerSize) {
+                    readHeader();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the archive ended between entries, once all its bytes have been fed.
+     */
+    void finish() throws ZipException {
+        if (state != State.END && (state != State.SIGNATURE || headerCount > 0)) {
+            throw new ZipException("Truncated zip archive");
+        }
+    }
+
+    /**
+     * Releases the inflater.
+     */
+    void close() {
+        state = State.END;
+        inflater.end();
+    }
+
+    private void readHeader() throws IOException {
+        switch (state) {
+            case SIGNATURE:
+                readSignature();
+                break;
+            case HEADER:
+                expect(State.NAME, LOCAL_HEADER_SIZE + readShort(26) + readShort(28));
+                break;
+            case NAME:
+                startEntry();
+                break;
+            case DESCRIPTOR_SIGNATURE:
+                descriptorStart = readInt(0) == DATA_DESCRIPTOR ? 4 : 0;
+                // sizes of 4 bytes are checked against the signature following them
+                expect(State.DESCRIPTOR, descriptorStart + (zip64 ? 20 : 16));
+                break;
+            case DESCRIPTOR:
+                if (zip64 || headerSize == descriptorStart + 20) {
+                    endEntry();
+                } else if (hasShortSizes()) {
+                    int signature = readInt(descriptorStart + 12);
+                    endEntry();
+                    writeInt(signature);
+                    readSignature();
+                } else {
+                    // sizes of 8 bytes, as written by streaming writers without a zip64 extra field
+                    expect(State.DESCRIPTOR, descriptorStart + 20);
+                }
+                break;
+            default:
+                throw new IllegalStateException(state.toString());
+        }
+    }
+
+    /**
+     * @return true if the data descriptor read has sizes of 4 bytes, matching the entry and followed by a signature
+     */
+    private boolean hasShortSizes() {
+        long compressedSize = readInt(descriptorStart + 4) & 0xffffffffL;
+        long size = readInt(descriptorStart + 8) & 0xffffffffL;
+        int next = readInt(descriptorStart + 12);
+        return compressedSize == (inflater.getBytesRead() & 0xffffffffL)
+                && size == (inflater.getBytesWritten() & 0xffffffffL)
+                && (next == LOCAL_HEADER || next == CENTRAL_DIRECTORY || next == END_OF_CENTRAL_DIRECTORY
+                || next == ARCHIVE_EXTRA_DATA);
+    }
+
+    private void readSignature() throws ZipException {
+        int signature = readInt(0);
+        if (signature == LOCAL_HEADER) {
+            expect(State.HEADER, LOCAL_HEADER_SIZE);
+        } else if (signature == CENTRAL_DIRECTORY || signature == END_OF_CENTRAL_DIRECTORY
+                || signature == ZIP64_END_OF_CENTRAL_DIRECTORY || signature == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR
+                || signature == ARCHIVE_EXTRA_DATA) {
+            state = State.END;
+        } else {
+            throw new ZipException("Invalid zip entry signature " + Integer.toHexString(signature));
+        }
+    }
+
+    private void startEntry() throws IOException {
+        int flags = readShort(6);
+        int method = readShort(8);
+        int nameLength = readShort(26);
+        String name = new String(header, LOCAL_HEADER_SIZE, nameLength, StandardCharsets.UTF_8);
+        if ((flags & 1) != 0) {
+            throw new ZipException("Encrypted entry " + name + " is not supported");
+        }
+        descriptor = (flags & 8) != 0;
+        deflated = method == DEFLATED;
+        remaining = readInt(18) & 0xffffffffL;
+        zip64 = false;
+        int extra = LOCAL_HEADER_SIZE + nameLength;
+        int extraEnd = extra + readShort(28);
+        while (extra + 4 <= extraEnd) {
+            int id = readShort(extra);
+            int size = readShort(extra + 2);
+            if (id == 1) {
+                zip64 = true;
+                if (remaining == 0xffffffffL && size >= 16) {
+                    remaining = readLong(extra + 12);
+                }
+            }
+            extra += 4 + size;
+        }
+        if (!deflated && descriptor) {
+            throw new ZipException("Entry " + name + " has an unknown size");
+        }
+        handled = method == STORED || deflated ? handler.startEntry(name) : false;
+        if (deflated) {
+            inflater.reset();
+        }
+        state = State.DATA;
+        headerCount = 0;
+        if (!deflated && remaining == 0) {
+            endData();
+        }
+    }
+
+    private int inflate(byte[] b, int off, int end) throws IOException {
+        inflater.setInput(b, off, end - off);
+        try {
+            while (true) {
+                int n = inflater.inflate(inflated);
+                if (n > 0 && handled) {
+                    handler.entryData(inflated, 0, n);
+                }
+                if (inflater.finished()) {
+                    int rest = inflater.getRemaining();
+                    endData();
+                    return end - rest;
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException("Deflated entry requires a dictionary");
+                } else if (n == 0 && inflater.needsInput()) {
+                    return end;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid deflated entry: " + e.getMessage());
+        }
+    }
+
+    private int copy(byte[] b, int off, int end) throws IOException {
+        int n = (int) Math.min(end - off, remaining);
+        if (handled) {
+            handler.entryData(b, off, n);
+        }
+        remaining -= n;
+        if (remaining == 0) {
+            endData();
+        }
+        return off + n;
+    }
+
+    private void endData() throws IOException {
+        if (descriptor) {
+            expect(State.DESCRIPTOR_SIGNATURE, 4);
+        } else {
+            endEntry();
+        }
+    }
+
+    private void endEntry() throws IOException {
+        expect(State.SIGNATURE, 4);
+        if (handled) {
+            handled = false;
+            handler.endEntry();
+        }
+    }
+
+    /**
+     * Moves to the next state once the header holds the given number of bytes, the bytes collected so far being
+     * kept unless a new structure starts.
+     */
+    private void expect(State next, int size) {
+        if (next == State.SIGNATURE || next == State.DESCRIPTOR_SIGNATURE) {
+            headerCount = 0;
+        }
+        if (size > header.length) {
+            header = Arrays.copyOf(header, size);
+        }
+        state = next;
+        headerSize = size;
+    }
+
+    private int readShort(int offset) {
+        return (header[offset] & 0xff) | (header[offset + 1] & 0xff) << 8;
+    }
+
+    private int readInt(int offset) {
+        return readShort(offset) | readShort(offset + 2) << 16;
+    }
+
+    /**
+     * Sets the first bytes of the header, once bytes read ahead turn out to start the next structure.
+     */
+    private void writeInt(int value) {
+        for (int i = 0; i < 4; i++) {
+            header[i] = (byte) (value >>> (8 * i));
+        }
+        headerCount = 4;
+    }
+
+    private long readLong(int offset) {
+        return (readInt(offset) & 0xffffffffL) | (long) readInt(offset + 4) << 32;
+    }
+}
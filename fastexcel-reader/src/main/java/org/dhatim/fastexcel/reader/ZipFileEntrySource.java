@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 Dhatim.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dhatim.fastexcel.reader;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+
+/**
+ * Entries of a zip file, or of a zip archive in memory, read through its central directory.
+ */
+class ZipFileEntrySource implements EntrySource {
+
+    private final ZipFile zip;
+
+    ZipFileEntrySource(ZipFile zip) {
+        this.zip = zip;
+    }
+
+    @Override
+    public InputStream getEntry(String name, boolean once) throws IOException {
+        ZipArchiveEntry entry = findEntry(name);
+        return entry == null ? null : zip.getInputStream(entry);
+    }
+
+    @Override
+    public EntryChecksum getChecksum(String name) {
+        ZipArchiveEntry entry = findEntry(name);
+        if (entry == null || entry.getCrc() < 0 || entry.getSize() < 0) {
+            return null;
+        }
+        return new EntryChecksum(entry.getCrc(), entry.getSize());
+    }
+
+    private ZipArchiveEntry findEntry(String name) {
+        ZipArchiveEntry entry = zip.getEntry(name);
+        if (entry == null) {
+            // to be case insensitive
+            Enumeration<ZipArchiveEntry> entries = zip.getEntries();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry e = entries.nextElement();
+                if (e.getName().equalsIgnoreCase(name)) {
+                    return e;
+                }
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+}
@@ -0,0 +1,77 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArrayFormulasTest {
+
+    @Test
+    void findsFormulaOfContainingRange() {
+        Map<CellRangeAddress, String> before = new HashMap<>();
+        before.put(CellRangeAddress.valueOf("B1:C3"), "A");
+        ArrayFormulas formulas = new ArrayFormulas(before);
+        assertThat(formulas.get(0, 0)).isNull();
+        assertThat(formulas.get(0, 1)).isEqualTo("A");
+        formulas.put(CellRangeAddress.valueOf("E2:E2"), "B");
+        assertThat(formulas.get(1, 2)).isEqualTo("A");
+        assertThat(formulas.get(1, 4)).isEqualTo("B");
+        // defined on the current row
+        formulas.put(CellRangeAddress.valueOf("G2:H4"), "C");
+        assertThat(formulas.get(1, 7)).isEqualTo("C");
+        assertThat(formulas.get(3, 1)).isNull();
+        assertThat(formulas.get(3, 4)).isNull();
+        assertThat(formulas.get(3, 6)).isEqualTo("C");
+        assertThat(formulas.get(4, 6)).isNull();
+    }
+
+    @Test
+    void matchesLinearScan() {
+        Random random = new Random(3);
+        Map<CellRangeAddress, String> all = new LinkedHashMap<>();
+        ArrayFormulas formulas = new ArrayFormulas();
+        for (int row = 0; row < 2000; row++) {
+            for (int col = 0; col < 20; col++) {
+                String expected = null;
+                for (Map.Entry<CellRangeAddress, String> e : all.entrySet()) {
+                    if (e.getKey().isInRange(row, col)) {
+                        expected = e.getValue();
+                    }
+                }
+                assertThat(formulas.get(row, col)).as(row + "," + col).isEqualTo(expected);
+                if (expected == null && random.nextInt(10) == 0) {
+                    // a range starting here, not overlapping existing ones
+                    int lastCol = col;
+                    while (lastCol + 1 < 20 && random.nextBoolean() && !covered(all, row, lastCol + 1)) {
+                        lastCol++;
+                    }
+                    CellRangeAddress range = new CellRangeAddress(row, row + random.nextInt(5), col, lastCol);
+                    if (!overlaps(all, range)) {
+                        all.put(range, range.toString());
+                        formulas.put(range, range.toString());
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean covered(Map<CellRangeAddress, String> all, int row, int col) {
+        return all.keySet().stream().anyMatch(r -> r.isInRange(row, col));
+    }
+
+    private static boolean overlaps(Map<CellRangeAddress, String> all, CellRangeAddress range) {
+        for (int row = range.getFirstRow(); row <= range.getLastRow(); row++) {
+            for (int col = range.getFirstColumn(); col <= range.getLastColumn(); col++) {
+                if (covered(all, row, col)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,304 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncWorkbookReaderTest {
+
+    @Test
+    void publishesRowsOfFedWorkbook() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (AsyncWorkbookReader reader = new AsyncWorkbookReader(executor)) {
+            RecordingSubscriber<Row> subscriber = new RecordingSubscriber<>(7);
+            // subscribing before all the bytes are fed
+            reader.publisher(0).subscribe(subscriber);
+            feed(reader, bytes("/xlsx/world.xlsx"), 1000);
+            reader.complete();
+            assertThat(subscriber.await()).isTrue();
+            assertThat(subscriber.error).isNull();
+            assertThat(subscriber.texts()).isEqualTo(texts(bytes("/xlsx/world.xlsx"), 0));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/world.xlsx",
+            "/xlsx/mixed_sheets.xlsx",
+            "/xlsx/simple.xlsx",
+            "/xlsx/dates.xlsx",
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/comments_stress_test.xlsx",
+            "/xlsx/rich_text_stress.xlsx",
+            "/xlsx/phonetic_text.xlsx",
+            "/xlsx/large_strings.xlsx",
+    })
+    void readsSheetsLikeWorkbook(String file) throws Exception {
+        byte[] bytes = bytes(file);
+        for (int chunkSize : new int[]{1, 97, 65536}) {
+            if (chunkSize == 1 && bytes.length > 100_000) {
+                continue;
+            }
+            assertReadsSheets(bytes, chunkSize);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {ZipEntry.DEFLATED, ZipEntry.STORED})
+    void readsZipWrittenAsStream(int method) throws Exception {
+        // deflated entries written to a stream have their sizes in a data descriptor
+        assertReadsSheets(rezip(bytes("/xlsx/formula_stress_test.xlsx"), method, false), 13);
+        assertReadsSheets(rezip(bytes("/xlsx/comments_stress_test.xlsx"), method, true), 13);
+    }
+
+    @Test
+    void publishesRowsBeforeUploadEnds() throws Exception {
+        byte[] bytes = bytes("/xlsx/world.xlsx");
+        try (AsyncWorkbookReader reader = new AsyncWorkbookReader(Runnable::run)) {
+            RecordingSubscriber<Row> subscriber = new RecordingSubscriber<>(10);
+            reader.publisher(0).subscribe(subscriber);
+            int fed = 0;
+            while (subscriber.items.isEmpty()) {
+                reader.feed(bytes, fed++, 1);
+            }
+            assertThat(fed).isLessThan(bytes.length);
+            feed(reader, ByteBuffer.wrap(bytes, fed, bytes.length - fed).slice(), 500);
+            reader.complete();
+            assertThat(subscriber.completed).isTrue();
+            assertThat(subscriber.texts()).isEqualTo(texts(bytes, 0));
+        }
+    }
+
+    @Test
+    void spillsSheetsArrivingBeforeWorkbook() throws Exception {
+        byte[] bytes = rezip(bytes("/xlsx/world.xlsx"), ZipEntry.DEFLATED, true);
+        try (AsyncWorkbookReader reader = new AsyncWorkbookReader(Runnable::run)) {
+            RecordingSubscriber<Row> early = new RecordingSubscriber<>(10);
+            reader.publisher(0).subscribe(early);
+            feed(reader, bytes, 1000);
+            reader.complete();
+            RecordingSubscriber<Row> late = new RecordingSubscriber<>(10);
+            reader.publisher(0).subscribe(late);
+            assertThat(early.completed).isTrue();
+            assertThat(late.completed).isTrue();
+            assertThat(early.texts()).isEqualTo(texts(bytes, 0)).isEqualTo(late.texts());
+        }
+    }
+
+    @Test
+    void rejectsSubscriptionToPassedSheet() throws Exception {
+        try (AsyncWorkbookReader reader = new AsyncWorkbookReader(Runnable::run)) {
+            feed(reader, bytes("/xlsx/world.xlsx"), 1000);
+            reader.complete();
+            RecordingSubscriber<Row> subscriber = new RecordingSubscriber<>(1);
+            reader.publisher(0).subscribe(subscriber);
+            assertThat(subscriber.error).isInstanceOf(ExcelReaderException.class)
+                    .hasMessageContaining("already been read");
+        }
+    }
+
+    @Test
+    void sendsOnlyRequestedRows() throws Exception {
+        try (AsyncWorkbookReader reader = new AsyncWorkbookReader(Runnable::run)) {
+            RecordingSubscriber<Row> subscriber = new RecordingSubscriber<>(0);
+            reader.publisher("choices").subscribe(subscriber);
+            feed(reader, bytes("/xlsx/mixed_sheets.xlsx"), 1000);
+            reader.complete();
+            assertThat(subscriber.items).isEmpty();
+            subscriber.subscription.request(2);
+            assertThat(subscriber.items).hasSize(2);
+            subscriber.subscription.cancel();
+            subscriber.subscription.request(10);
+            assertThat(subscriber.items).hasSize(2);
+            assertThat(subscriber.completed).isFalse();
+            assertThat(subscriber.texts()).isEqualTo(texts(bytes("/xlsx/mixed_sheets.xlsx"), 1).subList(0, 2));
+        }
+    }
+
+    @Test
+    void signalsErrors() throws Exception {
+        AsyncWorkbookReader reader = new AsyncWorkbookReader(Runnable::run);
+        RecordingSubscriber<Row> failed = new RecordingSubscriber<>(1);
+        reader.publisher(0).subscribe(failed);
+        reader.fail(new IOException("upload aborted"));
+        assertThat(failed.error).isInstanceOf(IOException.class).hasMessage("upload aborted");
+        assertThatThrownBy(() -> reader.feed(new byte[1], 0, 1)).isInstanceOf(IllegalStateException.class);
+        reader.close();
+
+        try (AsyncWorkbookReader other = new AsyncWorkbookReader(Runnable::run)) {
+            RecordingSubscriber<Row> missingSheet = new RecordingSubscriber<>(1);
+            other.publisher(42).subscribe(missingSheet);
+            RecordingSubscriber<Row> invalidRequest = new RecordingSubscriber<>(0);
+            other.publisher(0).subscribe(invalidRequest);
+            invalidRequest.subscription.request(0);
+            feed(other, bytes("/xlsx/world.xlsx"), 1000);
+            other.complete();
+            assertThat(missingSheet.error).isInstanceOf(ExcelReaderException.class);
+            assertThat(invalidRequest.error).isInstanceOf(IllegalArgumentException.class);
+            assertThat(invalidRequest.items).isEmpty();
+        }
+    }
+
+    @Test
+    void failsSheetBeingRead() throws Exception {
+        byte[] bytes = bytes("/xlsx/world.xlsx");
+        try (AsyncWorkbookReader reader = new AsyncWorkbookReader(Runnable::run)) {
+            RecordingSubscriber<Row> subscriber = new RecordingSubscriber<>(10);
+            reader.publisher(0).subscribe(subscriber);
+            int fed = 0;
+            while (subscriber.items.isEmpty()) {
+                reader.feed(bytes, fed++, 1);
+            }
+            reader.fail(new IOException("upload aborted"));
+            assertThat(subscriber.error).isInstanceOf(IOException.class).hasMessage("upload aborted");
+        }
+    }
+
+    @Test
+    void rejectsInvalidArchive() throws Exception {
+        try (AsyncWorkbookReader reader = new AsyncWorkbookReader(Runnable::run)) {
+            RecordingSubscriber<Row> subscriber = new RecordingSubscriber<>(1);
+            reader.publisher(0).subscribe(subscriber);
+            byte[] bytes = "not a workbook".getBytes();
+            assertThatThrownBy(() -> reader.feed(bytes, 0, bytes.length)).isInstanceOf(ExcelReaderException.class);
+            assertThat(subscriber.error).isNotNull();
+            assertThatThrownBy(() -> reader.feed(bytes, 0, bytes.length)).isInstanceOf(ExcelReaderException.class);
+        }
+        try (AsyncWorkbookReader reader = new AsyncWorkbookReader(Runnable::run)) {
+            byte[] bytes = bytes("/xlsx/world.xlsx");
+            reader.feed(bytes, 0, bytes.length / 2);
+            assertThatThrownBy(reader::complete).isInstanceOf(ExcelReaderException.class);
+        }
+    }
+
+    /**
+     * Subscribes to all the sheets of a workbook before feeding it, and compares their rows with those read from
+     * the whole workbook.
+     */
+    private static void assertReadsSheets(byte[] bytes, int chunkSize) throws Exception {
+        int sheetCount;
+        try (ReadableWorkbook wb = new ReadableWorkbook(new ByteArrayInputStream(bytes))) {
+            sheetCount = (int) wb.getSheets().count();
+        }
+        try (AsyncWorkbookReader reader = new AsyncWorkbookReader(Runnable::run)) {
+            List<RecordingSubscriber<Row>> subscribers = new ArrayList<>();
+            for (int i = 0; i < sheetCount; i++) {
+                RecordingSubscriber<Row> subscriber = new RecordingSubscriber<>(3);
+                reader.publisher(i).subscribe(subscriber);
+                subscribers.add(subscriber);
+            }
+            feed(reader, bytes, chunkSize);
+            reader.complete();
+            for (int i = 0; i < sheetCount; i++) {
+                RecordingSubscriber<Row> subscriber = subscribers.get(i);
+                assertThat(subscriber.error).isNull();
+                assertThat(subscriber.completed).isTrue();
+                assertThat(subscriber.texts()).isEqualTo(texts(bytes, i));
+            }
+        }
+    }
+
+    private static void feed(AsyncWorkbookReader reader, byte[] bytes, int chunkSize) {
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            reader.feed(bytes, i, Math.min(chunkSize, bytes.length - i));
+        }
+    }
+
+    private static void feed(AsyncWorkbookReader reader, ByteBuffer bytes, int chunkSize) {
+        // a direct buffer is copied chunk by chunk
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.remaining());
+        direct.put(bytes).flip();
+        while (direct.hasRemaining()) {
+            ByteBuffer chunk = direct.slice();
+            chunk.limit(Math.min(chunkSize, chunk.remaining()));
+            direct.position(direct.position() + chunk.remaining());
+            reader.feed(chunk);
+        }
+    }
+
+    /**
+     * @return the entries of a zip archive written again to a stream, with the sheets first if requested
+     */
+    private static byte[] rezip(byte[] bytes, int method, boolean sheetsFirst) throws IOException {
+        List<ZipEntry> entries = new ArrayList<>();
+        List<byte[]> contents = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.add(entry);
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    content.write(buffer, 0, n);
+                }
+                contents.add(content.toByteArray());
+            }
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            order.add(i);
+        }
+        if (sheetsFirst) {
+            order.sort(Comparator.comparing(i -> !entries.get(i).getName().contains("worksheets/")));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i : order) {
+                ZipEntry entry = new ZipEntry(entries.get(i).getName());
+                entry.setMethod(method);
+                if (method == ZipEntry.STORED) {
+                    CRC32 crc = new CRC32();
+                    crc.update(contents.get(i));
+                    entry.setSize(contents.get(i).length);
+                    entry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(entry);
+                zip.write(contents.get(i));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(String file) throws IOException {
+        try (InputStream in = Resources.open(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static List<String> texts(byte[] bytes, int sheet) throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(new ByteArrayInputStream(bytes));
+             Stream<Row> rows = wb.getSheet(sheet).get().openStream()) {
+            return rows.map(Row::toString).collect(Collectors.toList());
+        }
+    }
+}
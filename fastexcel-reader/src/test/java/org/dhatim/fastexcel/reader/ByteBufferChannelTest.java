@@ -0,0 +1,88 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ByteBufferChannelTest {
+
+    @Test
+    void readsAndSeeksWithoutChangingBuffer() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{9, 0, 1, 2, 3, 4});
+        buffer.position(1);
+        ByteBufferChannel channel = new ByteBufferChannel(buffer);
+        assertThat(channel.size()).isEqualTo(5);
+        ByteBuffer dst = ByteBuffer.allocate(3);
+        assertThat(channel.read(dst)).isEqualTo(3);
+        assertThat(dst.array()).containsExactly(0, 1, 2);
+        assertThat(channel.position()).isEqualTo(3);
+        channel.position(4);
+        dst.clear();
+        assertThat(channel.read(dst)).isEqualTo(1);
+        assertThat(dst.get(0)).isEqualTo((byte) 4);
+        assertThat(channel.read(dst)).isEqualTo(-1);
+        assertThat(buffer.position()).isEqualTo(1);
+        assertThatThrownBy(() -> channel.write(ByteBuffer.allocate(1))).isInstanceOf(NonWritableChannelException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/mixed_sheets.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void readsSameRowsAsFile(String name) throws IOException {
+        File file = Resources.file(name);
+        List<String> expected;
+        try (ReadableWorkbook wb = new ReadableWorkbook(file)) {
+            expected = describe(wb);
+        }
+        try (ReadableWorkbook wb = new ReadableWorkbook(file.toPath())) {
+            assertThat(describe(wb)).isEqualTo(expected);
+        }
+        try (ReadableWorkbook wb = new ReadableWorkbook(ByteBuffer.wrap(Files.readAllBytes(file.toPath())))) {
+            assertThat(describe(wb)).isEqualTo(expected);
+        }
+        ByteBuffer direct;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            direct = ByteBuffer.allocateDirect((int) channel.size());
+            while (direct.hasRemaining() && channel.read(direct) >= 0) {
+                // fill the buffer
+            }
+            direct.flip();
+        }
+        try (ReadableWorkbook wb = new ReadableWorkbook(direct)) {
+            assertThat(describe(wb)).isEqualTo(expected);
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try (ReadableWorkbook wb = new ReadableWorkbook(channel)) {
+            assertThat(describe(wb)).isEqualTo(expected);
+        }
+        assertThat(channel.isOpen()).isFalse();
+    }
+
+    private static List<String> describe(ReadableWorkbook wb) throws IOException {
+        List<String> rows = new ArrayList<>();
+        for (Sheet sheet : wb.getSheets().collect(Collectors.toList())) {
+            try (Stream<Row> stream = sheet.openStream()) {
+                stream.map(row -> sheet.getName() + " " + row).forEach(rows::add);
+            }
+        }
+        return rows;
+    }
+}
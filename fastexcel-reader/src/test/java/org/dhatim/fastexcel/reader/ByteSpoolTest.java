@@ -0,0 +1,52 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ByteSpoolTest {
+
+    @Test
+    void keepsOrderBeyondMemoryThreshold() throws IOException {
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7];
+        try (ByteSpool spool = new ByteSpool(10)) {
+            assertThat(spool.read(buffer, 0, buffer.length)).isZero();
+            for (int i = 0; i < 100; i++) {
+                byte[] chunk = new byte[i % 13 + 1];
+                for (int j = 0; j < chunk.length; j++) {
+                    chunk[j] = (byte) (i + j);
+                }
+                spool.write(chunk, 0, chunk.length);
+                written.write(chunk);
+                if (i % 3 == 0) {
+                    // the reader lags behind, so that bytes go to the file and back to memory
+                    int n = spool.read(buffer, 0, buffer.length);
+                    read.write(buffer, 0, n);
+                }
+            }
+            spool.finish();
+            int n;
+            while ((n = spool.read(buffer, 0, buffer.length)) >= 0) {
+                assertThat(n).isPositive();
+                read.write(buffer, 0, n);
+            }
+        }
+        assertThat(read.toByteArray()).isEqualTo(written.toByteArray());
+    }
+
+    @Test
+    void signalsFailure() throws IOException {
+        try (ByteSpool spool = new ByteSpool(10)) {
+            spool.write(new byte[3], 0, 3);
+            spool.fail(new IOException("upload aborted"));
+            assertThat(spool.isReadable()).isTrue();
+            assertThatThrownBy(() -> spool.read(new byte[3], 0, 3)).hasRootCauseMessage("upload aborted");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ColumnAggregatesTest {
+
+    private static final int[] COLUMNS = {0, 1, 2, 3, 4, 5};
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/dates.xlsx",
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/LONumbers.xlsx",
+            "/xlsx/mixed_sheets.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void matchesCellValues(String file) throws IOException {
+        ReadingOptions[] options = {
+                ReadingOptions.DEFAULT_READING_OPTIONS,
+                ReadingOptions.DEFAULT_READING_OPTIONS.withBuiltinSheetParser(false),
+                ReadingOptions.DEFAULT_READING_OPTIONS.withParallelReading(true).withParallelChunkSize(500),
+        };
+        for (ReadingOptions option : options) {
+            try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file), option)) {
+                for (Sheet sheet : wb.getSheets().collect(Collectors.toList())) {
+                    ColumnAggregates aggregates = sheet.aggregate(COLUMNS);
+                    List<Row> rows = sheet.read();
+                    for (int column : COLUMNS) {
+                        long count = 0;
+                        double sum = 0;
+                        double min = Double.NaN;
+                        double max = Double.NaN;
+                        for (Row row : rows) {
+                            Cell cell = row.getOptionalCell(column).orElse(null);
+                            if (cell != null && cell.getValue() instanceof BigDecimal) {
+                                double value = ((BigDecimal) cell.getValue()).doubleValue();
+                                count++;
+                                sum += value;
+                                min = count == 1 ? value : Math.min(min, value);
+                                max = count == 1 ? value : Math.max(max, value);
+                            }
+                        }
+                        String description = sheet.getName() + " column " + column;
+                        assertThat(aggregates.getCount(column)).as(description).isEqualTo(count);
+                        assertThat(aggregates.get(column, Aggregator.SUM)).as(description)
+                                .isCloseTo(sum, within(Math.abs(sum) * 1e-12));
+                        // boxed, so that NaN equals NaN
+                        assertThat(Double.valueOf(aggregates.get(column, Aggregator.MIN))).as(description)
+                                .isEqualTo(Double.valueOf(min));
+                        assertThat(Double.valueOf(aggregates.get(column, Aggregator.MAX))).as(description)
+                                .isEqualTo(Double.valueOf(max));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void onlyGivesComputedAggregates() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"))) {
+            ColumnAggregates aggregates = wb.getFirstSheet().aggregate(new int[]{1}, Aggregator.SUM);
+            assertThat(aggregates.getColumns()).containsExactly(1);
+            assertThatThrownBy(() -> aggregates.get(1, Aggregator.MAX)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> aggregates.get(0, Aggregator.SUM)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
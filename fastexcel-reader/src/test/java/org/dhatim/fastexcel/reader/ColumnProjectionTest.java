@@ -0,0 +1,67 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnProjectionTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void projectsColumnIndexes(boolean parallel) throws IOException {
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS
+                .withParallelReading(parallel)
+                .withParallelChunkSize(200)
+                .withColumnIndexes(1, 3);
+        try (ReadableWorkbook full = new ReadableWorkbook(Resources.open("/xlsx/formula_stress_test.xlsx"));
+             ReadableWorkbook projected = new ReadableWorkbook(Resources.open("/xlsx/formula_stress_test.xlsx"),
+                     options)) {
+            List<Row> expected = full.getFirstSheet().read();
+            List<Row> actual = read(projected.getFirstSheet(), parallel);
+            assertThat(actual).hasSameSizeAs(expected);
+            for (int i = 0; i < expected.size(); i++) {
+                for (int column = 0; column < 8; column++) {
+                    Cell cell = actual.get(i).getOptionalCell(column).orElse(null);
+                    if (column == 1 || column == 3) {
+                        assertThat(describe(cell)).isEqualTo(describe(expected.get(i).getOptionalCell(column).orElse(null)));
+                    } else {
+                        assertThat(cell).isNull();
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void projectsColumnNames() throws IOException {
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withColumnNames("Library", "Code", "Missing");
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/AutoFilter.xlsx"), options)) {
+            List<Row> rows = wb.getFirstSheet().read();
+            assertThat(rows.get(0).getCellCount()).isEqualTo(3);
+            assertThat(rows.get(0).getCellText(0)).isEqualTo("Code");
+            assertThat(rows.get(0).getCell(1)).isNull();
+            assertThat(rows.get(0).getCellText(2)).isEqualTo("Library");
+            assertThat(rows.get(1).getCellAsNumber(0)).hasValueSatisfying(n -> assertThat(n).isEqualByComparingTo("5"));
+            assertThat(rows.get(1).getCellText(2)).isEqualTo("js-xlsx");
+            assertThat(rows.get(1).getPhysicalCellCount()).isEqualTo(2);
+        }
+    }
+
+    private static List<Row> read(Sheet sheet, boolean parallel) throws IOException {
+        try (Stream<Row> rows = sheet.openStream()) {
+            return (parallel ? rows.parallel() : rows).collect(toList());
+        }
+    }
+
+    private static String describe(Cell cell) {
+        return cell == null ? "null" : cell.getAddress() + ":" + cell.getType() + ":" + cell.getValue() + ":"
+                + cell.getFormula();
+    }
+}
@@ -0,0 +1,144 @@
+package org.dhatim.fastexcel.reader;
+
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvConverterTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/AutoFilter.xlsx",
+            "/xlsx/ErrorTypes.xlsx",
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/formulae_test_simple.xlsx",
+            "/xlsx/issue143.xlsx",
+            "/xlsx/mixed_sheets.xlsx",
+            "/xlsx/rich_text_stress.xlsx",
+            "/xlsx/sushi.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void writesSameFieldsAsRows(String file) throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file))) {
+            for (Sheet sheet : wb.getSheets().collect(Collectors.toList())) {
+                assertThat(convert(CsvConverter.CSV, sheet)).as(sheet.getName()).isEqualTo(expected(sheet, ','));
+                assertThat(convert(CsvConverter.TSV, sheet)).as(sheet.getName()).isEqualTo(expected(sheet, '\t'));
+            }
+        }
+    }
+
+    @Test
+    void quotesFields() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (XSSFWorkbook poi = new XSSFWorkbook()) {
+            XSSFSheet sheet = poi.createSheet("quotes");
+            XSSFRow row = sheet.createRow(0);
+            row.createCell(0).setCellValue("a,b");
+            row.createCell(1).setCellValue("say \"hi\"");
+            row.createCell(3).setCellValue("two\nlines");
+            row.createCell(4).setCellValue(1.5);
+            sheet.createRow(1).createCell(1).setCellValue("café 😀");
+            // same shared string again
+            sheet.createRow(2).createCell(0).setCellValue("a,b");
+            sheet.getRow(2).createCell(1).setCellValue(true);
+            poi.write(bytes);
+        }
+        try (ReadableWorkbook wb = new ReadableWorkbook(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Sheet sheet = wb.getFirstSheet();
+            assertThat(convert(CsvConverter.CSV, sheet)).isEqualTo(
+                    "\"a,b\",\"say \"\"hi\"\"\",,\"two\nlines\",1.5\r\n"
+                            + ",café 😀\r\n"
+                            + "\"a,b\",true\r\n");
+            assertThat(convert(CsvConverter.CSV.withDelimiter(';').withLineSeparator("\n"), sheet)).isEqualTo(
+                    "a,b;\"say \"\"hi\"\"\";;\"two\nlines\";1.5\n"
+                            + ";café 😀\n"
+                            + "a,b;true\n");
+        }
+    }
+
+    @Test
+    void convertsSheetsInParallel() throws IOException {
+        Map<String, ByteArrayOutputStream> outputs = new ConcurrentHashMap<>();
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/mixed_sheets.xlsx"))) {
+            CsvConverter.CSV.convert(wb, sheet -> outputs.computeIfAbsent(sheet.getName(),
+                    name -> new ByteArrayOutputStream()));
+            List<Sheet> sheets = wb.getSheets().collect(Collectors.toList());
+            assertThat(outputs).hasSize(sheets.size());
+            for (Sheet sheet : sheets) {
+                assertThat(new String(outputs.get(sheet.getName()).toByteArray(), StandardCharsets.UTF_8))
+                        .isEqualTo(expected(sheet, ','));
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidDelimiter() {
+        assertThatThrownBy(() -> CsvConverter.CSV.withDelimiter('"')).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String convert(CsvConverter converter, Sheet sheet) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.convert(sheet, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the sheet written from its rows and cells
+     */
+    private static String expected(Sheet sheet, char delimiter) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try (Stream<Row> rows = sheet.openStream()) {
+            rows.forEach(row -> {
+                for (int column = 0; column < row.getCellCount(); column++) {
+                    if (column > 0) {
+                        sb.append(delimiter);
+                    }
+                    sb.append(escape(field(row.getCell(column)), delimiter));
+                }
+                sb.append("\r\n");
+            });
+        }
+        return sb.toString();
+    }
+
+    private static String field(Cell cell) {
+        if (cell == null) {
+            return "";
+        }
+        switch (cell.getType()) {
+            case STRING:
+            case BOOLEAN:
+                return cell.getText();
+            default:
+                // formulas may have a boolean result
+                if (cell.getValue() instanceof Boolean) {
+                    return cell.getText();
+                }
+                return cell.getRawValue() == null ? "" : cell.getRawValue();
+        }
+    }
+
+    private static String escape(String text, char delimiter) {
+        if (text.indexOf(delimiter) >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,53 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataFormatTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "yyyy-mm-dd",
+            "DD\\-MM\\-YYYY",
+            "D\". \"MMMM\\ YYYY",
+            "[$-409]dddd, mmmm dd, yyyy",
+            "[h]:mm:ss",
+            "[mm]:ss",
+            "h:mm AM/PM",
+            "mm:ss.0",
+            "[Red]yyyy-mm-dd;[Blue]0.00",
+    })
+    void dateFormats(String formatString) {
+        assertThat(new DataFormat("164", formatString).isDate()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "General",
+            "0.00",
+            "#,##0.00;[Red](#,##0.00)",
+            "0.00E+00",
+            "@",
+            "\"days\" 0",
+            "[Red]0.00",
+            "0.00;yyyy",
+            "",
+    })
+    void otherFormats(String formatString) {
+        assertThat(new DataFormat("164", formatString).isDate()).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {14, 15, 22, 27, 36, 45, 47, 50, 58})
+    void builtinDateFormats(int id) {
+        assertThat(new DataFormat(String.valueOf(id), null).isDate()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 10, 23, 37, 49, 164})
+    void builtinOtherFormats(int id) {
+        assertThat(new DataFormat(String.valueOf(id), null).isDate()).isFalse();
+    }
+}
@@ -0,0 +1,100 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LazyNumbersTest {
+
+    private static final ReadingOptions LAZY = ReadingOptions.DEFAULT_READING_OPTIONS.withLazyNumbers(true);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/simple.xlsx",
+            "/xlsx/world.xlsx",
+            "/xlsx/LONumbers.xlsx",
+            "/xlsx/RkNumber.xlsx",
+    })
+    void readsSameValues(String file) throws IOException {
+        try (ReadableWorkbook eager = new ReadableWorkbook(Resources.open(file));
+             ReadableWorkbook lazy = new ReadableWorkbook(Resources.open(file), LAZY)) {
+            assertThat(describe(lazy.getFirstSheet())).isEqualTo(describe(eager.getFirstSheet()));
+        }
+    }
+
+    @Test
+    void primitiveAccessors() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/simple.xlsx"), LAZY)) {
+            List<Row> rows = wb.getFirstSheet().read();
+            Cell number = rows.get(0).getCell(0);
+            assertThat(number.asInt()).isEqualTo(1);
+            assertThat(number.asLong()).isEqualTo(1L);
+            assertThat(number.asDouble()).isEqualTo(1.0);
+            assertThat(number.asNumber()).isEqualTo(BigDecimal.ONE);
+            assertThat(number.getValue()).isSameAs(number.asNumber());
+            assertThat(rows.get(0).getCell(2).asDouble()).isEqualTo(43101.0);
+            assertThatThrownBy(() -> rows.get(0).getCell(1).asDouble()).isInstanceOf(ExcelReaderException.class);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void formulaAccessorsRequireNumericResult(boolean lazyNumbers) throws IOException {
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withLazyNumbers(lazyNumbers);
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/formula_stress_test.xlsx"), options)) {
+            Cell number = cell(wb, "Database", "B2");
+            assertThat(number.getType()).isEqualTo(CellType.FORMULA);
+            assertThat(number.asDouble()).isEqualTo(11.666666666666666);
+            assertThat(cell(wb, "Database", "B3").asLong()).isEqualTo(3L);
+            Cell text = cell(wb, "Text", "B2");
+            assertThat(text.getType()).isEqualTo(CellType.FORMULA);
+            assertThat(text.getValue()).isEqualTo("Foobarbazqux");
+            assertThatThrownBy(text::asDouble).isInstanceOf(ExcelReaderException.class);
+            assertThatThrownBy(text::asLong).isInstanceOf(ExcelReaderException.class);
+            assertThatThrownBy(text::asDate).isInstanceOf(ExcelReaderException.class);
+            // a text result that looks like a number is still text
+            Cell digits = cell(wb, "Engineering", "B16");
+            assertThat(digits.getValue()).isEqualTo("2");
+            assertThatThrownBy(digits::asInt).isInstanceOf(ExcelReaderException.class);
+        }
+    }
+
+    @Test
+    void parseErrors() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/parseError.xlsx"), LAZY)) {
+            assertThatThrownBy(() -> wb.getFirstSheet().read()).isInstanceOf(ExcelReaderException.class);
+        }
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/parseError.xlsx"),
+                new ReadingOptions(false, true).withLazyNumbers(true))) {
+            assertThat(wb.getFirstSheet().read().get(0).getCell(0).getType()).isEqualTo(CellType.ERROR);
+        }
+    }
+
+    private static Cell cell(ReadableWorkbook wb, String sheetName, String address) throws IOException {
+        CellAddress addr = new CellAddress(address);
+        try (Stream<Row> rows = wb.findSheet(sheetName).get().openStream()) {
+            return rows.filter(row -> row.getRowNum() == addr.getRow() + 1).findFirst().get().getCell(addr);
+        }
+    }
+
+    private static List<String> describe(Sheet sheet) throws IOException {
+        try (Stream<Row> rows = sheet.openStream()) {
+            return rows.map(row -> row.stream()
+                            .map(cell -> cell == null ? "null" : cell.getType() + ":" + cell.getValue() + ":"
+                                    + cell.getText() + ":" + cell)
+                            .collect(joining(";")))
+                    .collect(toList());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NumberParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "0", "-0", "+0", "1", "-1", "0.5", ".5", "5.", "3.14159", "0.14000000000000001", "1E3", "1e-3",
+            "1.5E+10", "-2.5e-7", "9007199254740991", "9007199254740993", "123456789012345678901234567890",
+            "1e22", "1e23", "1e-22", "1e-23", "4.9E-324", "1.7976931348623157E308", "1e400", "1e-400",
+            "NaN", "Infinity", "1d", " 1", "0x1p3", "1e", "abc", "", "-", "."
+    })
+    void parseDoubleMatchesJdk(String s) {
+        Double expected;
+        try {
+            expected = Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            assertThatThrownBy(() -> NumberParser.parseDouble(s)).isInstanceOf(NumberFormatException.class);
+            return;
+        }
+        assertThat(Double.doubleToLongBits(NumberParser.parseDouble(s))).isEqualTo(Double.doubleToLongBits(expected));
+    }
+
+    @Test
+    void parseDoubleMatchesJdkOnRandomNumbers() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            String s;
+            switch (i % 3) {
+                case 0:
+                    s = Double.toString(Double.longBitsToDouble(random.nextLong()));
+                    break;
+                case 1:
+                    s = BigDecimal.valueOf(random.nextLong() % 10_000_000_000L, random.nextInt(20) - 5).toString();
+                    break;
+                default:
+                    s = Long.toString(random.nextLong() >> random.nextInt(64));
+                    break;
+            }
+            assertThat(Double.doubleToLongBits(NumberParser.parseDouble(s))).as(s)
+                    .isEqualTo(Double.doubleToLongBits(Double.parseDouble(s)));
+        }
+    }
+
+    @Test
+    void parseLong() {
+        assertThat(NumberParser.parseLong("0")).isEqualTo(0L);
+        assertThat(NumberParser.parseLong("-42")).isEqualTo(-42L);
+        assertThat(NumberParser.parseLong("+42")).isEqualTo(42L);
+        assertThat(NumberParser.parseLong("9223372036854775807")).isEqualTo(Long.MAX_VALUE);
+        assertThat(NumberParser.parseLong("-9223372036854775808")).isEqualTo(Long.MIN_VALUE);
+        assertThat(NumberParser.parseLong("12.0")).isEqualTo(12L);
+        assertThat(NumberParser.parseLong("1E3")).isEqualTo(1000L);
+        assertThatThrownBy(() -> NumberParser.parseLong("1.5")).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> NumberParser.parseLong("9223372036854775808")).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> NumberParser.parseLong("x")).isInstanceOf(NumberFormatException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "0", "-1", "+1", "1.", ".5", "1.5E+10", "1e-3", "1e", "e1", ".", "-", "", "1..2", "1e1.5", "NaN",
+            " 1", "1 ", "1_0", "1e123456789012"
+    })
+    void isDecimalAgreesWithBigDecimal(String s) {
+        boolean valid;
+        try {
+            new BigDecimal(s);
+            valid = true;
+        } catch (NumberFormatException e) {
+            valid = false;
+        }
+        if (NumberParser.isDecimal(s)) {
+            assertThat(valid).as(s).isTrue();
+        } else {
+            // syntax not recognized: parsing falls back to BigDecimal
+            assertThat(s.equals("1e123456789012") || !valid).as(s).isTrue();
+        }
+    }
+}
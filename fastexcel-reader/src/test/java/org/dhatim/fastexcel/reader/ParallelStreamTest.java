@@ -1,12 +1,31 @@
 package org.dhatim.fastexcel.reader;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class ParallelStreamTest {
@@ -25,6 +44,162 @@ public class ParallelStreamTest {
     }
   }
 
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "/xlsx/AutoFilter.xlsx",
+      "/xlsx/formula_stress_test.xlsx",
+      "/xlsx/formulae_test_simple.xlsx",
+      "/xlsx/issue143.xlsx",
+      "/xlsx/issue514.xlsx",
+      "/xlsx/mixed_sheets.xlsx",
+      "/xlsx/simple-with-hidden-rows.xlsx",
+      "/xlsx/sushi.xlsx",
+      "/xlsx/world.xlsx",
+  })
+  void parallelReading(String file) throws IOException {
+    ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS
+        .withParallelReading(true)
+        .withParallelChunkSize(200);
+    try (ReadableWorkbook sequential = new ReadableWorkbook(Resources.open(file));
+         ReadableWorkbook parallel = new ReadableWorkbook(Resources.open(file), options)) {
+      for (int i = 0; i < sequential.getSheets().count(); i++) {
+        assertThat(describe(parallel.getSheet(i).get(), true))
+            .as("sheet " + i)
+            .isEqualTo(describe(sequential.getSheet(i).get(), false));
+        assertThat(describe(parallel.getSheet(i).get(), false))
+            .as("sheet " + i)
+            .isEqualTo(describe(sequential.getSheet(i).get(), false));
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void concurrentSheets(boolean spooledSharedStrings) throws Exception {
+    ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withSpooledSharedStrings(spooledSharedStrings);
+    List<List<String>> expected;
+    try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/mixed_sheets.xlsx"))) {
+      expected = wb.getSheets().map(sheet -> {
+        try {
+          return describe(sheet, false);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }).collect(toList());
+    }
+    for (int i = 0; i < 20; i++) {
+      // a fresh workbook each time, so that sheets race to read the shared strings
+      try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/mixed_sheets.xlsx"), options)) {
+        List<Sheet> sheets = wb.getSheets().collect(toList());
+        List<Future<List<String>>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(sheets.size());
+        try {
+          for (Sheet sheet : sheets) {
+            futures.add(executor.submit(() -> describe(sheet, false)));
+          }
+          for (int s = 0; s < sheets.size(); s++) {
+            assertThat(futures.get(s).get()).as("sheet " + s).isEqualTo(expected.get(s));
+          }
+        } finally {
+          executor.shutdown();
+        }
+      }
+    }
+  }
+
+  @Test
+  void pausesSplittingUntilChunksAreRead() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      ChunkLimit limit = new ChunkLimit();
+      AtomicInteger next = new AtomicInteger();
+      Supplier<Spliterator<Integer>> chunks = () -> Collections.singletonList(next.getAndIncrement()).spliterator();
+      // the bound depends on the pool of the splitting thread
+      List<Spliterator<Integer>> batches = pool.submit(() -> {
+        List<Spliterator<Integer>> list = new ArrayList<>();
+        while (limit.getPending() < ChunkLimit.CHUNKS_PER_THREAD * 2) {
+          list.add(limit.split(chunks));
+        }
+        return list;
+      }).get();
+      // each split takes one more chunk than the previous one: 1 + 2 + 3 + 4
+      assertThat(batches).hasSize(4);
+      assertThat(next.get()).isEqualTo(10);
+      ForkJoinTask<Spliterator<Integer>> paused = pool.submit(() -> limit.split(chunks));
+      Thread.sleep(ChunkLimit.STALL_MILLIS / 4);
+      assertThat(paused.isDone()).isFalse();
+      // reading chunks lets the split go on
+      List<Integer> read = new ArrayList<>();
+      batches.get(3).forEachRemaining(read::add);
+      assertThat(read).containsExactly(6, 7, 8, 9);
+      List<Integer> split = new ArrayList<>();
+      paused.get().forEachRemaining(split::add);
+      assertThat(split).containsExactly(10, 11, 12, 13, 14);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void stopsPausingWhenChunksAreNeverRead() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      ChunkLimit limit = new ChunkLimit();
+      Supplier<Spliterator<Integer>> chunks = () -> Collections.singletonList(0).spliterator();
+      long elapsed = pool.submit(() -> {
+        while (limit.getPending() < ChunkLimit.CHUNKS_PER_THREAD) {
+          limit.split(chunks);
+        }
+        long start = System.nanoTime();
+        assertThat(limit.split(chunks)).isNotNull();
+        return System.nanoTime() - start;
+      }).get();
+      assertThat(elapsed).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(ChunkLimit.STALL_MILLIS));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void readsChunksPastTheBoundOnSeveralThreads() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS
+        .withParallelReading(true)
+        .withParallelChunkSize(1000);
+    try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/dates.xlsx"), options)) {
+      Map<Integer, String> threads = new ConcurrentHashMap<>();
+      List<Integer> rowNums = pool.submit(() -> {
+        try (Stream<Row> rows = wb.getFirstSheet().openStream()) {
+          return rows.parallel()
+              .peek(row -> threads.put(row.getRowNum(), Thread.currentThread().getName()))
+              .map(Row::getRowNum)
+              .collect(toList());
+        }
+      }).get();
+      assertThat(rowNums).hasSize(6517).isSorted();
+      // about 16 rows a chunk: the second half of the sheet is well past the first 4 * 4 chunks
+      assertThat(threads.entrySet().stream()
+          .filter(e -> e.getKey() > rowNums.size() / 2)
+          .map(Map.Entry::getValue)
+          .distinct()
+          .count()).isGreaterThan(1);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static List<String> describe(Sheet sheet, boolean parallel) throws IOException {
+    try (Stream<Row> rows = sheet.openStream()) {
+      return (parallel ? rows.parallel() : rows)
+          .map(row -> row.getRowNum() + " " + row.isHidden() + " " + row.getPhysicalCellCount() + " "
+              + row.stream()
+              .map(cell -> cell == null ? "null" : cell.getAddress() + ":" + cell.getType() + ":" + cell.getValue()
+                  + ":" + cell.getFormula() + ":" + cell.getRawValue())
+              .collect(joining(";")))
+          .collect(toList());
+    }
+  }
+
   private String collectToString(Stream<Cell> stream) {
     return stream
         .filter(Objects::nonNull)
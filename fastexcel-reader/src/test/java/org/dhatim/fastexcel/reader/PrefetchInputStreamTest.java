@@ -0,0 +1,80 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrefetchInputStreamTest {
+
+    @Test
+    void readsWholeSource() throws IOException {
+        byte[] data = new byte[100_000];
+        new Random(42).nextBytes(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new PrefetchInputStream(new ByteArrayInputStream(data), 3, 1000)) {
+            byte[] buffer = new byte[777];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            assertThat(in.read()).isEqualTo(-1);
+        }
+        assertThat(out.toByteArray()).isEqualTo(data);
+    }
+
+    @Test
+    void closeStopsProducerAndClosesSource() throws IOException {
+        AtomicBoolean sourceClosed = new AtomicBoolean();
+        InputStream source = new FilterInputStream(new ByteArrayInputStream(new byte[1_000_000])) {
+            @Override
+            public void close() throws IOException {
+                sourceClosed.set(true);
+                super.close();
+            }
+        };
+        InputStream in = new PrefetchInputStream(source, 2, 100);
+        assertThat(in.read()).isEqualTo(0);
+        in.close();
+        assertThat(sourceClosed).isTrue();
+    }
+
+    @Test
+    void sourceErrorIsRethrown() {
+        InputStream source = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("broken");
+            }
+        };
+        assertThatThrownBy(() -> new PrefetchInputStream(source).read())
+                .isInstanceOf(IOException.class)
+                .hasMessage("broken");
+    }
+
+    @Test
+    void prefetchingReadsSameRows() throws IOException {
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withPrefetching(true);
+        try (ReadableWorkbook expected = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"));
+             ReadableWorkbook actual = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"), options)) {
+            assertThat(texts(actual.getFirstSheet())).isEqualTo(texts(expected.getFirstSheet()));
+        }
+    }
+
+    private static List<String> texts(Sheet sheet) throws IOException {
+        try (Stream<Row> rows = sheet.openStream()) {
+            return rows.map(Row::toString).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.dhatim.fastexcel.reader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Subscriber keeping the items it receives, requesting them by batches if the batch is positive.
+ */
+class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+    final List<T> items = Collections.synchronizedList(new ArrayList<>());
+    volatile Flow.Subscription subscription;
+    volatile Throwable error;
+    volatile boolean completed;
+    private final int batch;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private int received;
+
+    RecordingSubscriber(int batch) {
+        this.batch = batch;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (batch > 0) {
+            subscription.request(batch);
+        }
+    }
+
+    @Override
+    public void onNext(T item) {
+        items.add(item);
+        if (batch > 0 && ++received % batch == 0) {
+            subscription.request(batch);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        done.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+        done.countDown();
+    }
+
+    boolean await() throws InterruptedException {
+        return done.await(10, TimeUnit.SECONDS);
+    }
+
+    List<String> texts() {
+        synchronized (items) {
+            return items.stream().map(String::valueOf).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RowBatchTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/dates.xlsx",
+            "/xlsx/ErrorTypes.xlsx",
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/issue143.xlsx",
+            "/xlsx/large_strings.xlsx",
+            "/xlsx/mixed_sheets.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void readsSameValuesAsRows(String file) throws Exception {
+        ReadingOptions options = new ReadingOptions(true, false);
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file), options)) {
+            for (Sheet sheet : (Iterable<Sheet>) wb.getSheets()::iterator) {
+                assertThat(describeBatches(sheet, 7)).as(sheet.getName()).isEqualTo(describeRows(sheet));
+            }
+        }
+    }
+
+    @Test
+    void readsProjectedColumns() throws IOException {
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withColumnIndexes(1, 6);
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"), options);
+             RowBatchReader reader = wb.getFirstSheet().openBatchReader(1000)) {
+            assertThat(reader.nextBatch()).isTrue();
+            RowBatch batch = reader.getBatch();
+            assertThat(batch.getSize()).isEqualTo(34);
+            assertThat(batch.getColumnCount()).isEqualTo(7);
+            assertThat(batch.getColumn(0).getValidity().isEmpty()).isTrue();
+            assertThat(batch.getColumn(5).getValidity().isEmpty()).isTrue();
+            assertThat(batch.getRowNum(2)).isEqualTo(3);
+            assertThat(batch.getColumn(6).getType(2)).isEqualTo(CellType.NUMBER);
+            assertThat(batch.getColumn(6).getDoubles()[2]).isEqualTo(2.25);
+            assertThat(reader.nextBatch()).isFalse();
+            assertThat(batch.getSize()).isZero();
+        }
+    }
+
+    @Test
+    void rejectsEmptyBatches() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"))) {
+            assertThatThrownBy(() -> wb.getFirstSheet().openBatchReader(0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private static List<String> describeBatches(Sheet sheet, int batchSize) throws IOException {
+        List<String> rows = new ArrayList<>();
+        try (RowBatchReader reader = sheet.openBatchReader(batchSize)) {
+            RowBatch batch = reader.getBatch();
+            while (reader.nextBatch()) {
+                assertThat(batch.getSize()).isLessThanOrEqualTo(batchSize);
+                for (int row = 0; row < batch.getSize(); row++) {
+                    StringBuilder s = new StringBuilder().append(batch.getRowNum(row));
+                    for (int column = 0; column < batch.getColumnCount(); column++) {
+                        ColumnVector vector = batch.getColumn(column);
+                        assertThat(vector.getValidity().get(row)).isEqualTo(!vector.isNull(row));
+                        if (vector.isNull(row)) {
+                            continue;
+                        }
+                        s.append(' ').append(column).append(':').append(vector.getType(row)).append(':');
+                        switch (vector.getType(row)) {
+                            case NUMBER:
+                                s.append(vector.getDoubles()[row]);
+                                if (vector.isDate(row)) {
+                                    s.append('@').append(vector.getEpochMillis()[row]);
+                                }
+                                break;
+                            case BOOLEAN:
+                                s.append(vector.getBooleans()[row]);
+                                break;
+                            default:
+                                s.append(vector.getString(row));
+                        }
+                    }
+                    rows.add(s.toString());
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> describeRows(Sheet sheet) throws Exception {
+        Map<CellAddress, String> cellTypes = readCellTypes(sheet);
+        List<String> rows = new ArrayList<>();
+        try (Stream<Row> stream = sheet.openStream()) {
+            stream.forEach(row -> {
+                StringBuilder s = new StringBuilder().append(row.getRowNum());
+                for (Cell cell : row) {
+                    if (cell == null) {
+                        continue;
+                    }
+                    String raw = cell.getRawValue();
+                    CellType type = cell.getType();
+                    if (type == CellType.STRING) {
+                        if (cell.getText().isEmpty() && (raw == null || raw.isEmpty())) {
+                            continue;
+                        }
+                        raw = cell.getText();
+                    } else if (raw == null || raw.isEmpty()) {
+                        continue;
+                    } else if (type == CellType.FORMULA) {
+                        type = cachedType(cellTypes.get(cell.getAddress()));
+                    }
+                    s.append(' ').append(cell.getColumnIndex()).append(':').append(type).append(':');
+                    if (type == CellType.NUMBER) {
+                        s.append(Double.parseDouble(raw));
+                        if (cell.getDataFormat() != null && cell.getDataFormat().isDate()) {
+                            s.append('@').append(cell.asDate().toInstant(ZoneOffset.UTC).toEpochMilli());
+                        }
+                    } else if (type == CellType.BOOLEAN) {
+                        s.append("1".equals(raw));
+                    } else {
+                        s.append(raw);
+                    }
+                }
+                rows.add(s.toString());
+            });
+        }
+        return rows;
+    }
+
+    /**
+     * @return t attributes of the cells of the sheet
+     */
+    private static Map<CellAddress, String> readCellTypes(Sheet sheet) throws Exception {
+        Map<CellAddress, String> types = new HashMap<>();
+        try (InputStream in = sheet.getWorkbook().getSheetContent(sheet);
+             SheetDataReader r = SheetDataScanner.open(in, true)) {
+            while (r.nextRow()) {
+                while (r.nextCell()) {
+                    types.put(new CellAddress(r.getCellRow(), r.getCellColumn()), r.getCellType());
+                }
+            }
+        }
+        return types;
+    }
+
+    private static CellType cachedType(String t) {
+        switch (t) {
+            case "b":
+                return CellType.BOOLEAN;
+            case "e":
+                return CellType.ERROR;
+            case "str":
+                return CellType.STRING;
+            default:
+                return CellType.NUMBER;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RowCursorTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/AutoFilter.xlsx",
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/formulae_test_simple.xlsx",
+            "/xlsx/issue143.xlsx",
+            "/xlsx/simple-with-hidden-rows.xlsx",
+            "/xlsx/simple.xlsx",
+            "/xlsx/text_and_numbers.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void readsSameCellsAsStream(String file) throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file))) {
+            for (int i = 0; i < wb.getSheets().count(); i++) {
+                Sheet sheet = wb.getSheet(i).get();
+                List<Row> rows = sheet.read();
+                List<String> cursorRows = new ArrayList<>();
+                try (RowCursor cursor = sheet.openCursor()) {
+                    while (cursor.nextRow()) {
+                        cursorRows.add(describe(cursor));
+                    }
+                }
+                List<String> expected = new ArrayList<>();
+                for (Row row : rows) {
+                    expected.add(describe(row));
+                }
+                assertThat(cursorRows).as(file + " sheet " + i).isEqualTo(expected);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/simple-with-hidden-rows.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void staxParserReadsSameCells(String file) throws IOException {
+        ReadingOptions stax = ReadingOptions.DEFAULT_READING_OPTIONS.withBuiltinSheetParser(false);
+        try (ReadableWorkbook builtin = new ReadableWorkbook(Resources.open(file));
+             ReadableWorkbook fallback = new ReadableWorkbook(Resources.open(file), stax)) {
+            for (int i = 0; i < builtin.getSheets().count(); i++) {
+                assertThat(describe(fallback.getSheet(i).get())).as(file + " sheet " + i)
+                        .isEqualTo(describe(builtin.getSheet(i).get()));
+            }
+        }
+    }
+
+    @Test
+    void numericAccessors() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/simple.xlsx"));
+             RowCursor cursor = wb.getFirstSheet().openCursor()) {
+            assertThat(cursor.nextRow()).isTrue();
+            assertThat(cursor.getRowNum()).isEqualTo(1);
+            assertThat(cursor.getDouble(0)).isEqualTo(1.0);
+            assertThat(cursor.getLong(0)).isEqualTo(1L);
+            assertThat(cursor.getDouble(2)).isEqualTo(43101.0);
+            assertThat(cursor.getLong(3)).isEqualTo(2L);
+            assertThat(cursor.getBoolean(4)).isTrue();
+            assertThat(cursor.getCharSequence(1).toString()).isEqualTo("Lorem");
+            assertThat(cursor.hasCell(10)).isFalse();
+            assertThat(cursor.cellType(10)).isNull();
+            assertThatThrownBy(() -> cursor.getDouble(1)).isInstanceOf(ExcelReaderException.class);
+        }
+    }
+
+    @Test
+    void projectsColumns() throws IOException {
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withColumnIndexes(1);
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/simple.xlsx"), options);
+             RowCursor cursor = wb.getFirstSheet().openCursor()) {
+            assertThat(cursor.nextRow()).isTrue();
+            assertThat(cursor.hasCell(0)).isFalse();
+            assertThat(cursor.getCharSequence(1).toString()).isEqualTo("Lorem");
+            assertThat(cursor.getCellCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void hasNoCellBeforeFirstRow() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/simple.xlsx"));
+             RowCursor cursor = wb.getFirstSheet().openCursor()) {
+            assertThat(cursor.hasCell(0)).isFalse();
+            assertThat(cursor.cellType(0)).isNull();
+        }
+    }
+
+    @Test
+    void projectedColumnsKeepArrayFormulasDefinedOutside() throws IOException {
+        // the array formulas B26:D26, D138:E142 and H138:I142 are defined in columns that are projected out
+        int[] columns = {2, 4, 8};
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withColumnIndexes(columns);
+        try (ReadableWorkbook full = new ReadableWorkbook(Resources.open("/xlsx/formula_stress_test.xlsx"));
+             ReadableWorkbook projected = new ReadableWorkbook(Resources.open("/xlsx/formula_stress_test.xlsx"),
+                     options)) {
+            for (int i = 0; i < full.getSheets().count(); i++) {
+                List<String> expected = new ArrayList<>();
+                for (Row row : full.getSheet(i).get().read()) {
+                    StringBuilder sb = new StringBuilder().append(row.getRowNum());
+                    for (int col : columns) {
+                        sb.append(';').append(col >= row.getCellCount() || row.getCell(col) == null ? null
+                                : row.getCell(col).getType());
+                    }
+                    expected.add(sb.toString());
+                }
+                List<String> actual = new ArrayList<>();
+                try (RowCursor cursor = projected.getSheet(i).get().openCursor()) {
+                    while (cursor.nextRow()) {
+                        StringBuilder sb = new StringBuilder().append(cursor.getRowNum());
+                        for (int col : columns) {
+                            sb.append(';').append(cursor.cellType(col));
+                        }
+                        actual.add(sb.toString());
+                    }
+                }
+                assertThat(actual).as("sheet " + i).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void stringFormulaIsNotANumber() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/formula_stress_test.xlsx"))) {
+            int checked = 0;
+            for (Sheet sheet : (Iterable<Sheet>) wb.getSheets()::iterator) {
+                try (RowCursor cursor = sheet.openCursor()) {
+                    while (cursor.nextRow()) {
+                        for (int col = 0; col < cursor.getCellCount(); col++) {
+                            CharSequence text = cursor.getCharSequence(col);
+                            if (cursor.cellType(col) == CellType.FORMULA && text.length() > 0
+                                    && !Character.isDigit(text.charAt(text.length() - 1))) {
+                                int c = col;
+                                assertThatThrownBy(() -> cursor.getDouble(c))
+                                        .isInstanceOf(ExcelReaderException.class);
+                                checked++;
+                            }
+                        }
+                    }
+                }
+            }
+            assertThat(checked).isPositive();
+        }
+    }
+
+    private static String describe(Row row) {
+        StringBuilder sb = new StringBuilder().append(row.getRowNum()).append(' ').append(row.isHidden())
+                .append(' ').append(row.getCellCount());
+        for (int col = 0; col < row.getCellCount(); col++) {
+            Cell cell = row.getCell(col);
+            sb.append(';');
+            if (cell != null) {
+                sb.append(cell.getType()).append(':').append(cell.getType() == CellType.EMPTY ? "" : text(cell));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String text(Cell cell) {
+        return cell.getType() == CellType.STRING || cell.getValue() == null ? cell.getText() : cell.getRawValue();
+    }
+
+    private static List<String> describe(Sheet sheet) throws IOException {
+        List<String> rows = new ArrayList<>();
+        try (RowCursor cursor = sheet.openCursor()) {
+            while (cursor.nextRow()) {
+                rows.add(describe(cursor));
+            }
+        }
+        return rows;
+    }
+
+    private static String describe(RowCursor cursor) {
+        StringBuilder sb = new StringBuilder().append(cursor.getRowNum()).append(' ').append(cursor.isHidden())
+                .append(' ').append(cursor.getCellCount());
+        for (int col = 0; col < cursor.getCellCount(); col++) {
+            sb.append(';');
+            if (cursor.hasCell(col)) {
+                sb.append(cursor.cellType(col)).append(':').append(cursor.getCharSequence(col));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,163 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RowFilterTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/interview.xlsx",
+            "/xlsx/mixed_sheets.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void readsSameRowsAsStreamFilter(String file) throws IOException {
+        List<Row> rows;
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file))) {
+            rows = wb.getFirstSheet().read();
+        }
+        for (int column = 0; column < 4; column++) {
+            for (String needle : needles(rows, column)) {
+                int c = column;
+                List<String> expected = rows.stream()
+                        .filter(row -> row.getOptionalCell(c).map(cell -> needle.equals(cell.getRawValue()))
+                                .orElse(false))
+                        .map(Row::toString)
+                        .collect(Collectors.toList());
+                ReadingOptions[] options = {
+                        ReadingOptions.DEFAULT_READING_OPTIONS,
+                        ReadingOptions.DEFAULT_READING_OPTIONS.withBuiltinSheetParser(false),
+                        ReadingOptions.DEFAULT_READING_OPTIONS.withParallelReading(true).withParallelChunkSize(300),
+                };
+                for (ReadingOptions option : options) {
+                    option = option.withRowFilter(column, value -> value.textEquals(needle));
+                    try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file), option);
+                         Stream<Row> stream = wb.getFirstSheet().openStream()) {
+                        assertThat(stream.map(Row::toString).collect(Collectors.toList()))
+                                .as("column " + column + " = " + needle)
+                                .isEqualTo(expected);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void givesRawValuesOfFilteredColumn() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        List<Integer> indexes = new ArrayList<>();
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withRowFilter(0, value -> {
+            calls.incrementAndGet();
+            if (value.isSharedString()) {
+                indexes.add(value.getSharedStringIndex());
+            }
+            return value.isPresent() && !value.isSharedString();
+        });
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"), options)) {
+            List<Row> rows = wb.getFirstSheet().read();
+            assertThat(rows).allSatisfy(row -> assertThat(row.getCell(0).getType()).isNotEqualTo(CellType.STRING));
+            assertThat(calls.get()).isGreaterThan(rows.size());
+            assertThat(indexes).isNotEmpty();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/interview.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void otherReadersApplyFilter(String file) throws IOException {
+        List<Row> rows;
+        List<String> lines;
+        ColumnAggregates all;
+        int[] aggregated = {0, 1, 2, 3, 4, 5};
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file))) {
+            rows = wb.getFirstSheet().read();
+            lines = csvLines(wb.getFirstSheet());
+            all = wb.getFirstSheet().aggregate(aggregated);
+        }
+        assertThat(lines).hasSize(rows.size());
+        for (String needle : needles(rows, 0)) {
+            List<Integer> expected = new ArrayList<>();
+            List<String> expectedLines = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).getOptionalCell(0).map(cell -> needle.equals(cell.getRawValue())).orElse(false)) {
+                    expected.add(rows.get(i).getRowNum());
+                    expectedLines.add(lines.get(i));
+                }
+            }
+            ReadingOptions accepting = ReadingOptions.DEFAULT_READING_OPTIONS
+                    .withRowFilter(0, value -> value.textEquals(needle));
+            ReadingOptions rejecting = ReadingOptions.DEFAULT_READING_OPTIONS
+                    .withRowFilter(0, value -> !value.textEquals(needle));
+            try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file), accepting);
+                 ReadableWorkbook others = new ReadableWorkbook(Resources.open(file), rejecting)) {
+                Sheet sheet = wb.getFirstSheet();
+                List<Integer> cursorRows = new ArrayList<>();
+                try (RowCursor cursor = sheet.openCursor()) {
+                    while (cursor.nextRow()) {
+                        cursorRows.add(cursor.getRowNum());
+                    }
+                }
+                assertThat(cursorRows).as(needle).isEqualTo(expected);
+
+                List<Integer> batchRows = new ArrayList<>();
+                try (RowBatchReader reader = sheet.openBatchReader(3)) {
+                    while (reader.nextBatch()) {
+                        RowBatch batch = reader.getBatch();
+                        for (int row = 0; row < batch.getSize(); row++) {
+                            batchRows.add(batch.getRowNum(row));
+                        }
+                    }
+                }
+                assertThat(batchRows).as(needle).isEqualTo(expected);
+
+                assertThat(csvLines(sheet)).as(needle).isEqualTo(expectedLines);
+
+                // the rows accepted by a filter and by its negation make up the sheet
+                ColumnAggregates accepted = sheet.aggregate(aggregated);
+                ColumnAggregates rejected = others.getFirstSheet().aggregate(aggregated);
+                for (int column : aggregated) {
+                    assertThat(accepted.getCount(column) + rejected.getCount(column)).isEqualTo(all.getCount(column));
+                    assertThat(accepted.get(column, Aggregator.SUM) + rejected.get(column, Aggregator.SUM))
+                            .isCloseTo(all.get(column, Aggregator.SUM), within(1e-6));
+                }
+            }
+        }
+    }
+
+    private static List<String> csvLines(Sheet sheet) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvConverter.CSV.convert(sheet, out);
+        String csv = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        // each line ends with a separator
+        List<String> lines = new ArrayList<>(Arrays.asList(csv.split("\r\n", -1)));
+        lines.remove(lines.size() - 1);
+        return lines;
+    }
+
+    private static List<String> needles(List<Row> rows, int column) {
+        return rows.stream()
+                .map(row -> row.getOptionalCell(column).map(Cell::getRawValue).orElse(null))
+                .filter(value -> value != null && !value.isEmpty())
+                .distinct()
+                .limit(3)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,72 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RowRangeTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "/xlsx/formula_stress_test.xlsx, 1, 1",
+            "/xlsx/formula_stress_test.xlsx, 10, 20",
+            "/xlsx/formula_stress_test.xlsx, 30, 1000",
+            "/xlsx/formulae_test_simple.xlsx, 3, 4",
+            "/xlsx/simple-with-hidden-rows.xlsx, 2, 5",
+            "/xlsx/world.xlsx, 100, 150",
+            "/xlsx/issue143.xlsx, 5, 5",
+    })
+    void readsSameRowsAsFullStream(String file, int fromRow, int toRow) throws IOException {
+        for (boolean builtin : new boolean[]{true, false}) {
+            ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withBuiltinSheetParser(builtin);
+            try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file), options)) {
+                for (Sheet sheet : wb.getSheets().collect(Collectors.toList())) {
+                    List<String> expected;
+                    try (Stream<Row> rows = sheet.openStream()) {
+                        expected = describe(rows.filter(row -> row.getRowNum() >= fromRow && row.getRowNum() <= toRow));
+                    }
+                    try (Stream<Row> rows = sheet.openStream(fromRow, toRow)) {
+                        assertThat(describe(rows)).as(sheet.getName() + " builtin=" + builtin).isEqualTo(expected);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void combinesWithColumnProjection() throws IOException {
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withColumnIndexes(1);
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/formula_stress_test.xlsx"), options);
+             Stream<Row> rows = wb.getFirstSheet().openStream(5, 6)) {
+            List<Row> list = rows.collect(Collectors.toList());
+            assertThat(list).extracting(Row::getRowNum).containsExactly(5, 6);
+            assertThat(list).allSatisfy(row -> assertThat(row.getOptionalCell(0)).isEmpty());
+        }
+    }
+
+    @Test
+    void rejectsRowZero() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/simple.xlsx"))) {
+            assertThatThrownBy(() -> wb.getFirstSheet().openStream(0, 10))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> wb.getFirstSheet().openStream(5, 4))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private static List<String> describe(Stream<Row> rows) {
+        return rows.map(row -> row.getRowNum() + " " + row.stream()
+                        .map(cell -> cell == null ? "null" : cell.getAddress() + ":" + cell.getType() + ":"
+                                + cell.getValue() + ":" + cell.getFormula())
+                        .collect(Collectors.joining(";")))
+                .collect(Collectors.toList());
+    }
+}
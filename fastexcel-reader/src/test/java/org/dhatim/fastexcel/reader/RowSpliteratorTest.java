@@ -1,10 +1,15 @@
 package org.dhatim.fastexcel.reader;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 import java.io.InputStream;
+import java.util.Spliterator;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 public class RowSpliteratorTest {
 
@@ -23,6 +28,27 @@ public class RowSpliteratorTest {
 			assertEquals("H2", cell.getAddress().toString());
 		});
 	}
-	
-}
 
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void testEstimateSizeFromDimension(boolean builtinSheetParser) throws Exception {
+		ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withBuiltinSheetParser(builtinSheetParser);
+		try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/simple.xlsx"), options);
+			 Stream<Row> rows = wb.getFirstSheet().openStream()) {
+			Spliterator<Row> it = rows.spliterator();
+			assertEquals(10, it.estimateSize());
+			assertFalse(it.hasCharacteristics(Spliterator.SIZED));
+			it.tryAdvance(row -> assertEquals(5, row.getCellCount()));
+			assertEquals(9, it.estimateSize());
+			it.forEachRemaining(row -> { });
+			assertEquals(0, it.estimateSize());
+		}
+	}
+
+	@Test
+	void testUnknownSize() throws Exception {
+		RowSpliterator it = new RowSpliterator(null, Resources.open("/xml/blank_cells.xml"));
+		assertEquals(Long.MAX_VALUE, it.estimateSize());
+	}
+
+}
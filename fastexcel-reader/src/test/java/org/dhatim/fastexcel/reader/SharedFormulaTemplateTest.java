@@ -0,0 +1,139 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class SharedFormulaTemplateTest {
+
+    @Test
+    void shiftsRelativeReferences() {
+        assertThat(render("SUM(A1:B2)*$C$3+$D4-E$5", 1, 2)).isEqualTo("SUM(B3:C4)*$C$3+$D6-F$5");
+        assertThat(render("IF(A1=\"B2\",Sheet1!C3,\"\")", 0, 1)).isEqualTo("IF(A2=\"B2\",Sheet1!C4,\"\")");
+        assertThat(render("PI()", 3, 3)).isEqualTo("PI()");
+        assertThat(render("", 3, 3)).isEmpty();
+    }
+
+    @Test
+    void matchesPerCellRewriting() {
+        Random random = new Random(11);
+        String[] tokens = {"A1", "$B$2", "C$3", "$D4", "AB12", "SUM(", ")", ":", "+", "\"", "\"X1\"", "Sheet1!", "1",
+                "2.5", " ", ",", "ZZ9", "TRUE", "$", "A", "9"};
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder formula = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                formula.append(tokens[random.nextInt(tokens.length)]);
+            }
+            int dCol = random.nextInt(3);
+            int dRow = random.nextInt(100);
+            String expected;
+            try {
+                expected = shift(dCol, dRow, formula.toString());
+            } catch (RuntimeException e) {
+                assertThatThrownBy(() -> render(formula.toString(), dCol, dRow))
+                        .isInstanceOf(ExcelReaderException.class)
+                        .hasCauseInstanceOf(e.getClass());
+                continue;
+            }
+            assertThat(render(formula.toString(), dCol, dRow)).as(formula.toString()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void throwsNewExceptionOnEachRender() {
+        SharedFormulaTemplate template = SharedFormulaTemplate.compile("A1+B$");
+        Throwable first = catchThrowable(() -> template.render(new StringBuilder(), 0, 1));
+        Throwable second = catchThrowable(() -> template.render(new StringBuilder(), 0, 2));
+        assertThat(first).isInstanceOf(ExcelReaderException.class).hasMessageContaining("A1+B$");
+        assertThat(second).isInstanceOf(ExcelReaderException.class).isNotSameAs(first);
+        assertThat(second.getCause()).isNotNull().isSameAs(first.getCause());
+    }
+
+    @Test
+    void keepsSharedFormulasUnexpanded() throws IOException {
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withExpandSharedFormulas(false);
+        try (ReadableWorkbook expanded = new ReadableWorkbook(Resources.open("/xlsx/formulae_test_simple.xlsx"));
+             ReadableWorkbook unexpanded = new ReadableWorkbook(Resources.open("/xlsx/formulae_test_simple.xlsx"),
+                     options)) {
+            Row expandedRow = expanded.getFirstSheet().read().get(3);
+            Row unexpandedRow = unexpanded.getFirstSheet().read().get(3);
+            assertThat(expandedRow.getCell(2).getFormula()).isEqualTo("A4");
+            assertThat(expandedRow.getCell(2).getSharedFormulaBase()).isEqualTo(new CellAddress("C2"));
+            assertThat(unexpandedRow.getCell(2).getFormula()).isEqualTo("A2");
+            assertThat(unexpandedRow.getCell(2).getSharedFormulaBase()).isEqualTo(new CellAddress("C2"));
+            assertThat(unexpandedRow.getCell(0).getSharedFormulaBase()).isNull();
+        }
+    }
+
+    private static String render(String formula, int dCol, int dRow) {
+        StringBuilder sb = new StringBuilder();
+        SharedFormulaTemplate.compile(formula).render(sb, dCol, dRow);
+        return sb.toString();
+    }
+
+    /**
+     * Former per-cell rewriting of shared formulas, as reference.
+     */
+    private static String shift(int dCol, int dRow, String baseFormula) {
+        StringBuilder res = new StringBuilder();
+        int start = 0;
+        boolean stringLiteral = false;
+        for (int end = 0; end < baseFormula.length(); end++) {
+            char c = baseFormula.charAt(end);
+            if ('"' == c) {
+                stringLiteral = !stringLiteral;
+            }
+            if (stringLiteral) {
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z' || c == '$') {
+                res.append(baseFormula, start, end);
+                start = end;
+                end++;
+                boolean foundNum = false;
+                for (; end < baseFormula.length(); end++) {
+                    char idc = baseFormula.charAt(end);
+                    if (idc >= '0' && idc <= '9' || idc == '$') {
+                        foundNum = true;
+                    } else if (idc >= 'A' && idc <= 'Z') {
+                        if (foundNum) {
+                            break;
+                        }
+                    } else {
+                        break;
+                    }
+                }
+                if (foundNum) {
+                    String cellID = baseFormula.substring(start, end);
+                    CellAddress cellAddress = new CellAddress(cellID);
+                    int fCol = cellAddress.getColumn();
+                    int fRow = cellAddress.getRow();
+                    String signCol = "";
+                    String signRow = "";
+                    if (cellID.indexOf("$") == 0) {
+                        signCol = "$";
+                    } else {
+                        fCol += dCol;
+                    }
+                    if (cellID.lastIndexOf("$") > 0) {
+                        signRow = "$";
+                    } else {
+                        fRow += dRow;
+                    }
+                    res.append(signCol).append(CellAddress.convertNumToColString(fCol)).append(signRow).append(++fRow);
+                    start = end;
+                }
+            }
+        }
+        if (start < baseFormula.length()) {
+            res.append(baseFormula.substring(start));
+        }
+        return res.toString();
+    }
+}
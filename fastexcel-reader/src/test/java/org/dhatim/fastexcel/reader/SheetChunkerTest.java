@@ -0,0 +1,91 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SheetChunkerTest {
+
+    private static final String SHEET = "<worksheet"
+            + " xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+            + "<row r=\"1\"><c r=\"A1\"><f t=\"shared\" ref=\"A1:A3\" si=\"0\">"
+            + "<![CDATA[B1<C1]]>&amp;\"é\"</f><v>1</v></c></row>"
+            + "<row r=\"2\"><c r=\"A2\"><f t=\"shared\" si=\"0\"/><v>1</v></c></row>"
+            + "</sheetData></worksheet>";
+
+    @Test
+    void splitsUtf8Sheet() throws IOException {
+        try (SheetChunker chunker = chunker("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + SHEET,
+                StandardCharsets.UTF_8)) {
+            assertThat(chunker.isSplittable()).isTrue();
+            assertThat(chunker.next()).isNotNull();
+        }
+    }
+
+    @Test
+    void doesNotSplitOtherDeclaredEncoding() throws IOException {
+        try (SheetChunker chunker = chunker("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>" + SHEET,
+                StandardCharsets.ISO_8859_1)) {
+            assertThat(chunker.isSplittable()).isFalse();
+        }
+    }
+
+    @Test
+    void doesNotSplitUtf16() throws IOException {
+        try (SheetChunker chunker = chunker("<?xml version=\"1.0\" encoding=\"UTF-16\"?>" + SHEET,
+                StandardCharsets.UTF_16)) {
+            assertThat(chunker.isSplittable()).isFalse();
+        }
+    }
+
+    @Test
+    void decodesFormulasLikeTheScanner() throws IOException {
+        // one row per chunk, the second chunk carries the formula defined by the first row
+        try (SheetChunker chunker = new SheetChunker(new ByteArrayInputStream(SHEET.getBytes(StandardCharsets.UTF_8)),
+                1)) {
+            chunker.next();
+            SheetChunk second = chunker.next();
+            assertThat(second.getSharedFormula().get(0).getFormula()).isEqualTo("B1<C1&\"é\"");
+        }
+    }
+
+    @Test
+    void carriesOnlyFormulasReachingTheChunk() throws IOException {
+        String sheet = "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+                + "<row r=\"1\"><c r=\"A1\"><f t=\"shared\" ref=\"A1:A2\" si=\"0\">B1</f><v>1</v></c></row>"
+                + "<row r=\"2\"><c r=\"A2\"><f t=\"shared\" si=\"0\"/><v>1</v></c>"
+                + "<c r=\"C2\"><f t=\"array\" ref=\"C2:C3\">B2:B3</f><v>1</v></c></row>"
+                + "<row r=\"3\"><c r=\"C3\"><v>1</v></c></row>"
+                + "<row r=\"4\"><c r=\"A4\"><v>1</v></c></row>"
+                + "<row r=\"5\"><c r=\"A5\"><v>1</v></c></row>"
+                + "</sheetData></worksheet>";
+        try (SheetChunker chunker = new SheetChunker(new ByteArrayInputStream(sheet.getBytes(StandardCharsets.UTF_8)),
+                1)) {
+            SheetChunk first = chunker.next();
+            assertThat(first.getSharedFormula()).isEmpty();
+            assertThat(first.getArrayFormula()).isEmpty();
+            SheetChunk second = chunker.next();
+            assertThat(second.getSharedFormula()).containsOnlyKeys(0);
+            assertThat(second.getArrayFormula()).isEmpty();
+            SheetChunk third = chunker.next();
+            assertThat(third.getSharedFormula()).isEmpty();
+            assertThat(third.getArrayFormula()).containsOnlyKeys(CellRangeAddress.valueOf("C2:C3"));
+            SheetChunk fourth = chunker.next();
+            assertThat(fourth.getSharedFormula()).isEmpty();
+            assertThat(fourth.getArrayFormula()).isEmpty();
+            SheetChunk fifth = chunker.next();
+            assertThat(fifth.getSharedFormula()).isSameAs(fourth.getSharedFormula());
+            assertThat(fifth.getArrayFormula()).isSameAs(fourth.getArrayFormula());
+            assertThat(chunker.next()).isNull();
+        }
+    }
+
+    private static SheetChunker chunker(String xml, Charset charset) throws IOException {
+        return new SheetChunker(new ByteArrayInputStream(xml.getBytes(charset)), 1024);
+    }
+}
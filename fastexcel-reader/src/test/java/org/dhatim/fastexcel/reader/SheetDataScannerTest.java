@@ -0,0 +1,212 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SheetDataScannerTest {
+
+    private static final String HEADER = "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">";
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/AutoFilter.xlsx",
+            "/xlsx/dates.xlsx",
+            "/xlsx/ErrorTypes.xlsx",
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/formulae_test_simple.xlsx",
+            "/xlsx/issue143.xlsx",
+            "/xlsx/issue514.xlsx",
+            "/xlsx/large_strings.xlsx",
+            "/xlsx/LONumbers.xlsx",
+            "/xlsx/mixed_sheets.xlsx",
+            "/xlsx/phonetic_text.xlsx",
+            "/xlsx/phonetic_text_CRLF.xlsx",
+            "/xlsx/rich_text_stress.xlsx",
+            "/xlsx/simple-with-hidden-rows.xlsx",
+            "/xlsx/simple-with-hidden-rows-openoffice.xlsx",
+            "/xlsx/sushi.xlsx",
+            "/xlsx/withStyleCRLF.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void readsSameRowsAsStax(String file) throws IOException {
+        ReadingOptions stax = ReadingOptions.DEFAULT_READING_OPTIONS.withBuiltinSheetParser(false);
+        try (ReadableWorkbook expected = new ReadableWorkbook(Resources.open(file), stax);
+             ReadableWorkbook actual = new ReadableWorkbook(Resources.open(file))) {
+            for (int i = 0; i < expected.getSheets().count(); i++) {
+                assertThat(describe(actual.getSheet(i).get()))
+                        .as("sheet " + i)
+                        .isEqualTo(describe(expected.getSheet(i).get()));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/large_strings.xlsx",
+            "/xlsx/mixed_sheets.xlsx",
+            "/xlsx/rich_text_stress.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void readsSameRowsWithOtherParserSettings(String file) throws IOException {
+        ReadingOptions jdk = ReadingOptions.DEFAULT_READING_OPTIONS
+                .withBuiltinSheetParser(false)
+                .withXMLInputFactory(DefaultXMLInputFactory.jdk());
+        ReadingOptions smallBuffer = ReadingOptions.DEFAULT_READING_OPTIONS.withSheetParserBufferSize(1024);
+        try (ReadableWorkbook expected = new ReadableWorkbook(Resources.open(file));
+             ReadableWorkbook withJdk = new ReadableWorkbook(Resources.open(file), jdk);
+             ReadableWorkbook withSmallBuffer = new ReadableWorkbook(Resources.open(file), smallBuffer)) {
+            for (int i = 0; i < expected.getSheets().count(); i++) {
+                List<String> rows = describe(expected.getSheet(i).get());
+                assertThat(describe(withJdk.getSheet(i).get())).as("sheet " + i).isEqualTo(rows);
+                assertThat(describe(withSmallBuffer.getSheet(i).get())).as("sheet " + i).isEqualTo(rows);
+            }
+        }
+    }
+
+    @Test
+    void rejectsTinyBuffer() {
+        assertThatThrownBy(() -> ReadingOptions.DEFAULT_READING_OPTIONS.withSheetParserBufferSize(16))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsInsecureFactoryWithoutChangingIt() {
+        XMLInputFactory factory = new com.fasterxml.aalto.stax.InputFactoryImpl();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.TRUE);
+        assertThatThrownBy(() -> ReadingOptions.DEFAULT_READING_OPTIONS.withXMLInputFactory(factory))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(factory.getProperty(XMLInputFactory.SUPPORT_DTD)).isEqualTo(Boolean.TRUE);
+
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        assertThat(ReadingOptions.DEFAULT_READING_OPTIONS.withXMLInputFactory(factory).getXMLInputFactory())
+                .isSameAs(factory);
+    }
+
+    @Test
+    void decodesText() throws Exception {
+        assertSameAsStax(HEADER + "<sheetData>"
+                + "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>a &amp; b &lt;c&gt; &quot;d&quot; &apos;e&apos;</t></is></c>"
+                + "<c r=\"B1\" t=\"inlineStr\"><is><t>&#233;&#xE9;&#x1F600;</t></is></c>"
+                + "<c r=\"C1\" t=\"inlineStr\"><is><t><![CDATA[<x> & y]]></t></is></c>"
+                + "<c r=\"D1\" t=\"inlineStr\"><is><t>line\r\nline\rline\nline</t></is></c>"
+                + "<c r=\"E1\" t=\"inlineStr\"><is><r><t>ré</t></r><r><t>€😀</t></r><rPh><t>x</t></rPh></is></c>"
+                + "</row></sheetData></worksheet>");
+    }
+
+    @Test
+    void readsFormulas() throws Exception {
+        assertSameAsStax(HEADER + "<sheetData>"
+                + "<row r=\"2\" hidden=\"1\"><c r=\"A2\"><f t=\"shared\" ref=\"A2:A3\" si=\"0\">B2&gt;1</f><v>1</v></c>"
+                + "<c r=\"B2\"><f t=\"array\" ref=\"B2:B3\">SUM(&quot;a&quot;)</f><v>2</v></c></row>"
+                + "<row r=\"3\"><c r=\"A3\"><f t=\"shared\" si=\"0\"/><v>3</v></c><c r=\"C3\" s=\"2\"/></row>"
+                + "</sheetData></worksheet>");
+    }
+
+    @Test
+    void readsPrefixedElementsAndSkipsMarkup() throws Exception {
+        assertSameAsStax("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<!-- comment -->"
+                + "<x:worksheet xmlns:x=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                + "<x:dimension ref=\"A1:B2\"/><x:sheetData><!-- <row r=\"9\"/> --><?pi <row?>"
+                + "<x:row r=\"1\" x14ac:dyDescent=\"0.25\" xmlns:x14ac=\"urn:x14ac\">"
+                + "<x:c r=\"A1\" t=\"s\"><x:v>0</x:v></x:c><x:c r=\"B1\" t=\"b\"><x:v>1</x:v></x:c></x:row>"
+                + "<x:row/><x:row><x:c><x:v>1.5</x:v></x:c><x:c t=\"e\"><x:v>#N/A</x:v></x:c></x:row>"
+                + "<x:row r=\"4\"><x:c r=\"A4\"><x:extLst><x:ext><x:v>9</x:v></x:ext></x:extLst><x:v>2</x:v></x:c></x:row>"
+                + "</x:sheetData><x:mergeCells count=\"0\"/></x:worksheet>");
+    }
+
+    @Test
+    void readsAcrossBufferBoundaries() throws Exception {
+        StringBuilder xml = new StringBuilder(HEADER).append("<sheetData>");
+        for (int i = 1; i <= 5000; i++) {
+            xml.append("<row r=\"").append(i).append("\"><c r=\"A").append(i).append("\"><v>").append(i * 1.5)
+                    .append("</v></c><c r=\"B").append(i).append("\" t=\"inlineStr\"><is><t>é€😀 &amp; ")
+                    .append(i).append("</t></is></c></row>");
+        }
+        xml.append("</sheetData></worksheet>");
+        assertSameAsStax(xml.toString());
+    }
+
+    @Test
+    void fallsBackToStax() throws Exception {
+        String sheet = HEADER + "<sheetData><row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>é</t></is></c></row>"
+                + "</sheetData></worksheet>";
+        String doctype = "<?xml version=\"1.0\"?><!DOCTYPE worksheet>" + sheet;
+        assertThat(describe(doctype.getBytes(StandardCharsets.UTF_8), true)).containsExactly("1 false A1 inlineStr é");
+        String latin1 = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>" + sheet;
+        assertThat(describe(latin1.getBytes(StandardCharsets.ISO_8859_1), true)).containsExactly("1 false A1 inlineStr é");
+        byte[] utf16 = (HEADER + "<sheetData><row r=\"1\"/></sheetData></worksheet>").getBytes(Charset.forName("UTF-16"));
+        assertThat(describe(utf16, true)).containsExactly("1 false");
+    }
+
+    @Test
+    void rejectsUndeclaredEntity() {
+        byte[] xml = (HEADER + "<sheetData><row><c><v>&foo;</v></c></row></sheetData></worksheet>")
+                .getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> describe(xml, true)).isInstanceOf(XMLStreamException.class);
+    }
+
+    private static void assertSameAsStax(String xml) throws Exception {
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        List<String> expected = describe(bytes, false);
+        assertThat(expected).isNotEmpty();
+        assertThat(describe(bytes, true)).isEqualTo(expected);
+    }
+
+    private static List<String> describe(byte[] xml, boolean builtin) throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (SheetDataReader r = SheetDataScanner.open(new ByteArrayInputStream(xml), builtin)) {
+            while (r.nextRow()) {
+                StringBuilder row = new StringBuilder().append(r.getRowNum()).append(' ').append(r.isRowHidden());
+                while (r.nextCell()) {
+                    row.append(' ').append(r.getCellRow() < 0 ? "-" : new CellAddress(r.getCellRow(), r.getCellColumn()))
+                            .append(' ').append(r.getCellType());
+                    if (r.getCellStyle() >= 0) {
+                        row.append(" s=").append(r.getCellStyle());
+                    }
+                    if (r.hasFormula()) {
+                        row.append(" f=").append(r.getFormula()).append('|').append(r.getFormulaType())
+                                .append('|').append(r.getFormulaRef()).append('|').append(r.getFormulaSi());
+                    }
+                    if (r.hasValue()) {
+                        row.append(" v=").append(r.getValue());
+                    }
+                    if (r.hasInlineString()) {
+                        row.append(' ').append(r.getInlineString());
+                    }
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> describe(Sheet sheet) throws IOException {
+        try (Stream<Row> rows = sheet.openStream()) {
+            return rows.map(row -> row.getRowNum() + " " + row.isHidden() + " " + row.getPhysicalCellCount() + " "
+                    + row.stream()
+                    .map(cell -> cell == null ? "null" : cell.getAddress() + ":" + cell.getType() + ":" + cell.getValue()
+                            + ":" + cell.getFormula() + ":" + cell.getRawValue())
+                    .collect(joining(";")))
+                    .collect(toList());
+        }
+    }
+}
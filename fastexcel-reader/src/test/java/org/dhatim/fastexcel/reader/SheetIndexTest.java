@@ -0,0 +1,155 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SheetIndexTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/AutoFilter.xlsx",
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/formulae_test_simple.xlsx",
+            "/xlsx/issue143.xlsx",
+            "/xlsx/simple-with-hidden-rows.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void readsRangesLikeSequentialStream(String file) throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file))) {
+            for (Sheet sheet : wb.getSheets().collect(toList())) {
+                List<String> expected = describe(sheet.openStream());
+                SheetIndex index = SheetIndex.build(sheet, 200);
+                assertThat(describe(sheet.openStream(index, 1, Integer.MAX_VALUE))).isEqualTo(expected);
+                assertThat(describe(sheet.openStream(index, 1, Integer.MAX_VALUE).parallel())).isEqualTo(expected);
+                assertThat(describe(sheet.openStream(index, 3, 7)))
+                        .isEqualTo(expected.stream().filter(row -> {
+                            int rowNum = Integer.parseInt(row.substring(0, row.indexOf(' ')));
+                            return rowNum >= 3 && rowNum <= 7;
+                        }).collect(toList()));
+            }
+        }
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"))) {
+            Sheet sheet = wb.getFirstSheet();
+            SheetIndex index = SheetIndex.build(sheet, 300);
+            assertThat(index.getSegmentCount()).isGreaterThan(1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            index.write(out);
+            SheetIndex copy = SheetIndex.read(new ByteArrayInputStream(out.toByteArray()));
+            assertThat(copy.getSheetName()).isEqualTo(sheet.getName());
+            assertThat(copy.getSegmentCount()).isEqualTo(index.getSegmentCount());
+            assertThat(describe(sheet.openStream(copy, 10, 20)))
+                    .isEqualTo(describe(sheet.openStream(index, 10, 20)))
+                    .isNotEmpty();
+            SheetIndex fromBuffer = SheetIndex.fromByteBuffer(index.toByteBuffer());
+            assertThat(describe(sheet.openStream(fromBuffer, 10, 20)))
+                    .isEqualTo(describe(sheet.openStream(index, 10, 20)));
+        }
+    }
+
+    @Test
+    void storesOnlyFormulasReachingEachSegment() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/comments_stress_test.xlsx"))) {
+            boolean carried = false;
+            boolean shared = false;
+            for (Sheet sheet : wb.getSheets().collect(toList())) {
+                SheetIndex index = SheetIndex.build(sheet, 200);
+                for (int i = 0; i < index.getSegmentCount(); i++) {
+                    SheetChunk chunk = index.getChunk(i);
+                    int firstRow = chunk.getFirstRowNum() - 1;
+                    assertThat(chunk.getSharedFormula().values()).allMatch(f -> f.getRef().getLastRow() >= firstRow);
+                    assertThat(chunk.getArrayFormula().keySet()).allMatch(range -> range.getLastRow() >= firstRow);
+                    carried |= !chunk.getSharedFormula().isEmpty();
+                    if (i > 0) {
+                        SheetChunk previous = index.getChunk(i - 1);
+                        shared |= !chunk.getSharedFormula().isEmpty()
+                                && chunk.getSharedFormula() == previous.getSharedFormula();
+                    }
+                }
+            }
+            assertThat(carried).isTrue();
+            assertThat(shared).isTrue();
+        }
+    }
+
+    @Test
+    void rejectsIndexOfOtherSheet() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/mixed_sheets.xlsx"))) {
+            SheetIndex index = SheetIndex.build(wb.getSheet(0).get());
+            Sheet other = wb.getSheet(1).get();
+            assertThatThrownBy(() -> other.openStream(index, 1, 10))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rejectsInvalidRowRange() throws IOException {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"))) {
+            Sheet sheet = wb.getFirstSheet();
+            SheetIndex index = SheetIndex.build(sheet, 1000);
+            assertThatThrownBy(() -> sheet.openStream(index, 0, 10)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> sheet.openStream(index, 20, 10)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rejectsIndexOfOtherContent() throws IOException {
+        SheetIndex index;
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/simple-with-hidden-rows.xlsx"))) {
+            index = SheetIndex.build(wb.getFirstSheet(), 200);
+        }
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/simple.xlsx"))) {
+            Sheet sheet = wb.getFirstSheet();
+            assertThat(sheet.getName()).isEqualTo(index.getSheetName());
+            assertThatThrownBy(() -> sheet.openStream(index, 1, 10))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("other content");
+        }
+    }
+
+    @Test
+    void buildToStreamAndReadInPlace() throws IOException {
+        ReadingOptions streaming = ReadingOptions.DEFAULT_READING_OPTIONS.withStreaming(true);
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"));
+             ReadableWorkbook streamed = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"), streaming)) {
+            Sheet sheet = wb.getFirstSheet();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(new byte[]{1, 2, 3});
+            SheetIndex.build(sheet, 300, out);
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            buffer.position(3);
+            SheetIndex index = SheetIndex.fromByteBuffer(buffer.slice());
+            assertThat(index.getSegmentCount()).isGreaterThan(1);
+            List<String> expected = describe(sheet.openStream(10, 20));
+            assertThat(describe(sheet.openStream(index, 10, 20))).isEqualTo(expected).isNotEmpty();
+            // without a central directory, the checksum is computed from the content
+            assertThat(describe(streamed.getFirstSheet().openStream(index, 10, 20))).isEqualTo(expected);
+        }
+    }
+
+    private static List<String> describe(Stream<Row> stream) {
+        try (Stream<Row> rows = stream) {
+            return rows.map(row -> row.getRowNum() + " " + row.isHidden() + " " + row.stream()
+                            .map(cell -> cell == null ? "null" : cell.getAddress() + ":" + cell.getType() + ":"
+                                    + cell.getValue() + ":" + cell.getFormula())
+                            .collect(joining(";")))
+                    .collect(toList());
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
+import java.util.Optional;
 
 import static org.dhatim.fastexcel.reader.Resources.open;
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,4 +46,18 @@ public class SheetInfoTest {
       assertFalse(it.hasNext());
     }
   }
+
+  @Test
+  void testDimension() throws IOException {
+    try (InputStream inputStream = open("/xlsx/simple.xlsx");
+         ReadableWorkbook excel = new ReadableWorkbook(inputStream)) {
+      Sheet sheet = excel.getFirstSheet();
+      assertEquals(sheet.getDimension(), Optional.of(new CellRangeAddress(0, 9, 0, 4)));
+      assertEquals(sheet.read().size(), 10);
+    }
+    try (InputStream inputStream = open("/xlsx/issue514.xlsx");
+         ReadableWorkbook excel = new ReadableWorkbook(inputStream)) {
+      assertFalse(excel.getFirstSheet().getDimension().isPresent());
+    }
+  }
 }
@@ -0,0 +1,70 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SheetPublisherTest {
+
+    @Test
+    void publishesAllRows() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"))) {
+            Sheet sheet = wb.getFirstSheet();
+            RecordingSubscriber<Row> subscriber = new RecordingSubscriber<>(5);
+            sheet.publisher(executor).subscribe(subscriber);
+            assertThat(subscriber.await()).isTrue();
+            assertThat(subscriber.error).isNull();
+            assertThat(subscriber.texts()).isEqualTo(texts(sheet));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void publishesBatches() throws Exception {
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"))) {
+            Sheet sheet = wb.getFirstSheet();
+            List<String> expected = texts(sheet);
+            RecordingSubscriber<List<Row>> subscriber = new RecordingSubscriber<>(0);
+            sheet.publisher(Runnable::run, 10).subscribe(subscriber);
+            subscriber.subscription.request(1);
+            assertThat(subscriber.items).hasSize(1);
+            assertThat(subscriber.items.get(0)).hasSize(10);
+            subscriber.subscription.request(Long.MAX_VALUE);
+            assertThat(subscriber.completed).isTrue();
+            assertThat(subscriber.items).hasSize((expected.size() + 9) / 10);
+            assertThat(subscriber.items.stream().flatMap(List::stream).map(Row::toString))
+                    .containsExactlyElementsOf(expected);
+            assertThatThrownBy(() -> sheet.publisher(Runnable::run, 0)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void cancellationClosesSheet() throws Exception {
+        // a streamed workbook cannot read a sheet while another one is still open
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withStreaming(true);
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/mixed_sheets.xlsx"), options)) {
+            RecordingSubscriber<Row> subscriber = new RecordingSubscriber<>(0);
+            wb.getSheet(0).get().publisher(Runnable::run).subscribe(subscriber);
+            subscriber.subscription.request(2);
+            subscriber.subscription.cancel();
+            assertThat(subscriber.items).hasSize(2);
+            assertThat(wb.getSheet(1).get().read()).isNotEmpty();
+        }
+    }
+
+    private static List<String> texts(Sheet sheet) throws IOException {
+        try (Stream<Row> rows = sheet.openStream()) {
+            return rows.map(Row::toString).collect(Collectors.toList());
+        }
+    }
+}
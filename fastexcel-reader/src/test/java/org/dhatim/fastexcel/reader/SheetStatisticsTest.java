@@ -0,0 +1,76 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SheetStatisticsTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/AutoFilter.xlsx",
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/issue143.xlsx",
+            "/xlsx/issue514.xlsx",
+            "/xlsx/mixed_sheets.xlsx",
+            "/xlsx/simple-with-hidden-rows.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void matchesRowsRead(String file) throws IOException {
+        for (boolean builtin : new boolean[]{true, false}) {
+            ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withBuiltinSheetParser(builtin);
+            try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open(file), options)) {
+                for (Sheet sheet : wb.getSheets().collect(Collectors.toList())) {
+                    List<Row> rows = sheet.read();
+                    SheetStatistics statistics = sheet.readStatistics();
+                    assertThat(statistics.getRowCount()).as(sheet.getName()).isEqualTo(rows.size());
+                    assertThat(statistics.getHiddenRows()).as(sheet.getName())
+                            .isEqualTo(rows.stream().filter(Row::isHidden).map(Row::getRowNum)
+                                    .collect(Collectors.toList()));
+                    assertThat(statistics.getColumnCount()).as(sheet.getName())
+                            .isEqualTo(rows.stream().mapToInt(SheetStatisticsTest::lastColumn).max().orElse(-1) + 1);
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readsTrailingElements(boolean builtin) throws IOException {
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS.withBuiltinSheetParser(builtin);
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/merge_cells.xlsx"), options)) {
+            SheetStatistics statistics = wb.getFirstSheet().readStatistics();
+            assertThat(statistics.getMergedRanges()).containsExactly(
+                    CellRangeAddress.valueOf("A1:B2"), CellRangeAddress.valueOf("C1:C2"),
+                    CellRangeAddress.valueOf("A3:B3"), CellRangeAddress.valueOf("D1:D2"),
+                    CellRangeAddress.valueOf("A4:B4"));
+            assertThat(statistics.getUsedRange()).contains(CellRangeAddress.valueOf("A1:D4"));
+        }
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/hyperlink_stress_test_2011.xlsx"),
+                options)) {
+            SheetStatistics statistics = wb.getFirstSheet().readStatistics();
+            assertThat(statistics.getHyperlinkRanges()).hasSize(7).startsWith(CellRangeAddress.valueOf("A1"));
+            assertThat(statistics.getAutoFilterRange()).isEmpty();
+        }
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/AutoFilter.xlsx"), options)) {
+            assertThat(wb.getSheet(1).get().readStatistics().getAutoFilterRange())
+                    .contains(CellRangeAddress.valueOf("A1:E22"));
+        }
+    }
+
+    private static int lastColumn(Row row) {
+        int last = -1;
+        for (int i = 0; i < row.getCellCount(); i++) {
+            if (Objects.nonNull(row.getCell(i))) {
+                last = i;
+            }
+        }
+        return last;
+    }
+}
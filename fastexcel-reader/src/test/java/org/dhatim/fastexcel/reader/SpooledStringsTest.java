@@ -0,0 +1,71 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpooledStringsTest {
+
+    @Test
+    void storesStringsAcrossSegments() throws IOException {
+        List<String> expected = new ArrayList<>();
+        Random random = new Random(7);
+        try (SpooledStrings strings = new SpooledStrings(3, 100)) {
+            for (int i = 0; i < 1000; i++) {
+                String s = i % 10 == 0 ? "" : i % 10 == 1 ? repeat("é€😀", random.nextInt(50)) : "s" + i;
+                expected.add(s);
+                strings.add(s);
+            }
+            assertThat(strings.size()).isEqualTo(expected.size());
+            for (int i = 0; i < 3000; i++) {
+                int index = random.nextInt(expected.size());
+                assertThat(strings.get(index)).as("string " + index).isEqualTo(expected.get(index));
+            }
+            assertThatThrownBy(() -> strings.get(1000)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/large_strings.xlsx",
+            "/xlsx/phonetic_text.xlsx",
+            "/xlsx/rich_text_stress.xlsx",
+            "/xlsx/sushi.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void spoolingReadsSameRows(String file) throws IOException {
+        ReadingOptions options = ReadingOptions.DEFAULT_READING_OPTIONS
+                .withSpooledSharedStrings(true)
+                .withSharedStringsCacheSize(2);
+        try (ReadableWorkbook expected = new ReadableWorkbook(Resources.open(file));
+             ReadableWorkbook actual = new ReadableWorkbook(Resources.open(file), options)) {
+            for (int i = 0; i < expected.getSheets().count(); i++) {
+                assertThat(texts(actual.getSheet(i).get())).isEqualTo(texts(expected.getSheet(i).get()));
+            }
+        }
+    }
+
+    private static List<String> texts(Sheet sheet) throws IOException {
+        try (Stream<Row> rows = sheet.openStream()) {
+            return rows.map(Row::toString).collect(Collectors.toList());
+        }
+    }
+
+    private static String repeat(String s, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
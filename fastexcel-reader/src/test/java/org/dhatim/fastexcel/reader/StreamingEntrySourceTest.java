@@ -0,0 +1,177 @@
+package org.dhatim.fastexcel.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingEntrySourceTest {
+
+    private static final ReadingOptions STREAMING = ReadingOptions.DEFAULT_READING_OPTIONS.withStreaming(true);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/xlsx/AutoFilter.xlsx",
+            "/xlsx/formula_stress_test.xlsx",
+            "/xlsx/issue143.xlsx",
+            "/xlsx/large_strings.xlsx",
+            "/xlsx/mixed_sheets.xlsx",
+            "/xlsx/simple-with-hidden-rows.xlsx",
+            "/xlsx/world.xlsx",
+    })
+    void streamingReadsSameRows(String file) throws IOException {
+        assertSameRows(file, STREAMING);
+        assertSameRows(file, new ReadingOptions(true, false).withStreaming(true));
+    }
+
+    @Test
+    void sheetAfterWorkbookPartsIsReadFromStream() throws IOException {
+        byte[] xlsx = moveSheetsLast(Resources.open("/xlsx/world.xlsx"));
+        List<String> expected;
+        try (ReadableWorkbook wb = new ReadableWorkbook(Resources.open("/xlsx/world.xlsx"))) {
+            expected = texts(wb.getFirstSheet());
+        }
+        try (ReadableWorkbook wb = new ReadableWorkbook(new ByteArrayInputStream(xlsx), STREAMING)) {
+            assertThat(texts(wb.getFirstSheet())).isEqualTo(expected);
+            assertThatThrownBy(() -> texts(wb.getFirstSheet()))
+                    .isInstanceOf(ExcelReaderException.class)
+                    .hasMessageContaining("already been read");
+        }
+        // header resolution keeps the sheet to read it again
+        ReadingOptions options = STREAMING.withColumnNames("Country");
+        try (ReadableWorkbook wb = new ReadableWorkbook(new ByteArrayInputStream(xlsx), options)) {
+            assertThat(texts(wb.getFirstSheet())).hasSameSizeAs(expected);
+        }
+    }
+
+    @Test
+    void spillsLargeEntriesToFiles() throws IOException {
+        byte[] xlsx = moveSheetsLast(Resources.open("/xlsx/world.xlsx"));
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(xlsx))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+            }
+        }
+        String last = names.get(names.size() - 1);
+        try (StreamingEntrySource source = new StreamingEntrySource(new ByteArrayInputStream(xlsx), 16)) {
+            // spills every entry before the last one
+            assertThat(source.getEntry(last, false)).isNotNull();
+            for (String name : names) {
+                if (name.endsWith(".xml") || name.endsWith(".rels")) {
+                    try (InputStream in = source.getEntry(name.toUpperCase(), true)) {
+                        assertThat(in).as(name).isNotNull();
+                        assertThat(in.read()).as(name).isEqualTo('<');
+                    }
+                }
+            }
+            assertThat(source.getEntry("missing.xml", false)).isNull();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void closesSheetWhenReaderFailsToStart(boolean prefetching) throws IOException {
+        Map<String, byte[]> entries = readEntries(Resources.open("/xlsx/mixed_sheets.xlsx"));
+        // malformed before its rows, and larger than what the parser reads ahead
+        StringBuilder sheet = new StringBuilder("<worksheet><dimension ref=\"A1\"<<sheetData>");
+        for (int i = 0; i < 100_000; i++) {
+            sheet.append("<row/>");
+        }
+        entries.put("xl/worksheets/sheet1.xml", sheet.toString().getBytes(StandardCharsets.UTF_8));
+        byte[] xlsx = writeEntries(entries);
+        List<SheetOpener> openers = Arrays.asList(Sheet::openStream, Sheet::openCursor, s -> s.openBatchReader(10));
+        for (SheetOpener opener : openers) {
+            // the StAX parser checks the start of the sheet when it is opened
+            ReadingOptions options = STREAMING.withBuiltinSheetParser(false).withPrefetching(prefetching);
+            try (ReadableWorkbook wb = new ReadableWorkbook(new ByteArrayInputStream(xlsx), options)) {
+                assertThatThrownBy(() -> opener.open(wb.getSheet(0).get())).isInstanceOf(IOException.class);
+                // the next sheet can only be read from the stream once the failed one is closed
+                assertThat(texts(wb.getSheet(1).get())).isNotEmpty();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SheetOpener {
+        AutoCloseable open(Sheet sheet) throws IOException;
+    }
+
+    private static void assertSameRows(String file, ReadingOptions options) throws IOException {
+        try (ReadableWorkbook expected = new ReadableWorkbook(Resources.open(file), options.withStreaming(false));
+             ReadableWorkbook actual = new ReadableWorkbook(Resources.open(file), options)) {
+            List<Sheet> sheets = actual.getSheets().collect(Collectors.toList());
+            for (Sheet sheet : sheets) {
+                assertThat(texts(sheet)).as(file + " " + sheet.getName())
+                        .isEqualTo(texts(expected.getSheet(sheet.getIndex()).get()));
+            }
+        }
+    }
+
+    private static List<String> texts(Sheet sheet) throws IOException {
+        try (Stream<Row> rows = sheet.openStream()) {
+            return rows.map(Row::toString).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Rewrites an archive with its worksheets at the end, as some writers do.
+     */
+    private static byte[] moveSheetsLast(InputStream in) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        Map<String, byte[]> sheets = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> e : readEntries(in).entrySet()) {
+            (e.getKey().contains("worksheets/sheet") ? sheets : entries).put(e.getKey(), e.getValue());
+        }
+        entries.putAll(sheets);
+        return writeEntries(entries);
+    }
+
+    private static Map<String, byte[]> readEntries(InputStream in) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = zip.read(buffer)) >= 0) {
+                    bytes.write(buffer, 0, n);
+                }
+                entries.put(entry.getName(), bytes.toByteArray());
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] writeEntries(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(e.getKey()));
+                zip.write(e.getValue());
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -57,6 +57,9 @@ public class WithFormatTest {
         assertThat(rows[2].getCell(1)).extracting(Cell::getDataFormatString).isEqualTo("DD\\-MM\\-YYYY");
         assertThat(rows[3].getCell(2)).extracting(Cell::getDataFormatId).isEqualTo(165);
         assertThat(rows[3].getCell(2)).extracting(Cell::getDataFormatString).isEqualTo("D\". \"MMMM\\ YYYY");
+        assertThat(rows[1].getCell(0).getDataFormat().isDate()).isFalse();
+        assertThat(rows[2].getCell(1).getDataFormat().isDate()).isTrue();
+        assertThat(rows[3].getCell(2).getDataFormat().isDate()).isTrue();
     }
 
     private void assertWithStyleWithoutCellFormat(ReadableWorkbook excel) throws IOException {
@@ -65,6 +68,7 @@ public class WithFormatTest {
         sheet.get().openStream().forEach(row -> row.stream().forEach(cell -> {
             assertThat(cell).extracting(Cell::getDataFormatId).isNull();
             assertThat(cell).extracting(Cell::getDataFormatString).isNull();
+            assertThat(cell).extracting(Cell::getDataFormat).isNull();
         }));
     }
 }